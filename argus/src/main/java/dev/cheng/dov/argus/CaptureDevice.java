@@ -1,5 +1,8 @@
 package dev.cheng.dov.argus;
 
+import dev.cheng.dov.argus.jfr.FrameCapturedEvent;
+import dev.cheng.dov.argus.opencv.GrayFrameConverter;
+import dev.cheng.dov.argus.opencv.OpenCvSupport;
 import dev.cheng.dov.protocol.Constants;
 import org.bytedeco.javacv.Frame;
 import org.bytedeco.javacv.FrameGrabber;
@@ -13,11 +16,14 @@ import java.util.List;
 
 /**
  * 采集设备封装
+ * <p>
+ * 启用 OpenCV 分析后端时，采集帧在本地代码中直接转为灰度图像输出（预览也随之为灰度）。
  */
-public class CaptureDevice {
+public class CaptureDevice implements FrameSource {
 
     private OpenCVFrameGrabber grabber;
     private final Java2DFrameConverter converter = new Java2DFrameConverter();
+    private final GrayFrameConverter grayConverter = OpenCvSupport.isEnabled() ? new GrayFrameConverter() : null;
     private final Object lock = new Object();
 
     /**
@@ -76,14 +82,21 @@ public class CaptureDevice {
 
     /**
      * 打开设备
+     * <p>
+     * 按 {@code dov.captureWidth} / {@code dov.captureHeight} / {@code dov.captureFps} 请求分辨率和帧率。
+     * 4K 采集卡在驱动默认格式下往往只能以较低帧率输出，可用 {@code dov.captureFormat} 指定 FOURCC
+     * （如 NV12）；不要选 MJPG 等有损压缩格式，细小的像素块会被压缩破坏。
      */
     public void open(int deviceId) throws FrameGrabber.Exception {
         synchronized (lock) {
             close();
             grabber = new OpenCVFrameGrabber(deviceId);
-            grabber.setImageWidth(Constants.FRAME_WIDTH);
-            grabber.setImageHeight(Constants.FRAME_HEIGHT);
-            grabber.setFrameRate(Constants.TARGET_FPS);
+            grabber.setImageWidth(Constants.CAPTURE_WIDTH);
+            grabber.setImageHeight(Constants.CAPTURE_HEIGHT);
+            grabber.setFrameRate(Constants.CAPTURE_FPS);
+            if (!Constants.CAPTURE_FORMAT.isEmpty()) {
+                grabber.setFormat(Constants.CAPTURE_FORMAT);
+            }
             grabber.start();
         }
     }
@@ -91,22 +104,33 @@ public class CaptureDevice {
     /**
      * 读取一帧
      */
+    @Override
     public BufferedImage read() throws FrameGrabber.Exception {
         synchronized (lock) {
             if (grabber == null) {
                 return null;
             }
+            FrameCapturedEvent event = FrameCapturedEvent.beginIfEnabled();
             Frame frame = grabber.grab();
             if (frame == null) {
                 return null;
             }
-            return converter.getBufferedImage(frame, 1.0, false, null);
+            BufferedImage image = grayConverter != null
+                    ? grayConverter.convert(frame)
+                    : converter.getBufferedImage(frame, 1.0, false, null);
+            if (image != null && event != null && event.shouldCommit()) {
+                event.width = image.getWidth();
+                event.height = image.getHeight();
+                event.commit();
+            }
+            return image;
         }
     }
 
     /**
      * 关闭设备
      */
+    @Override
     public void close() {
         synchronized (lock) {
             if (grabber != null) {
@@ -1,26 +1,106 @@
 package dev.cheng.dov.argus;
 
+import dev.cheng.dov.argus.heatmap.ErrorHeatmap;
+import dev.cheng.dov.argus.jfr.HeaderDecodedEvent;
+import dev.cheng.dov.argus.jfr.PayloadDecodedEvent;
+import dev.cheng.dov.argus.opencv.BlockRectifier;
+import dev.cheng.dov.argus.opencv.GrayMatImage;
+import dev.cheng.dov.argus.opencv.OpenCvSupport;
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.codec.BlockParity;
 import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.LumaFrame;
 import dev.cheng.dov.protocol.frame.FrameDetector;
 import dev.cheng.dov.protocol.frame.FrameHeader;
 import dev.cheng.dov.protocol.frame.FrameType;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
 
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 帧分析器
+ * <p>
+ * 按当前会话布局解码；失败时再按信标布局尝试，解码到 IDLE / START 帧携带的布局后更新会话布局，
+ * 共享同一会话布局的分析器随之切换。
+ * <p>
+ * 每帧先转换为亮度平面，帧头与负载的各次偏移重试都在同一亮度平面上进行。
+ * <p>
+ * 启用 OpenCV 分析后端（{@code dov.analysisBackend=opencv}）时，负载先由 {@link BlockRectifier}
+ * 按四角定位标做透视校正并缩放到块分辨率，再按块分辨率布局解码；CRC 不通过时回到按偏移重试的 Java 解码。
+ * 按平移解码帧头失败时（画面有透视畸变）同样先校正再解码帧头，同一帧的帧头与负载共用一次校正。
+ * 采集线程输出 {@link GrayMatImage} 时，亮度平面直接使用其像素数组，校正直接读取其中的灰度 Mat。
+ * <p>
+ * 指定误码热力图时，通过 CRC 的 DATA 帧交给热力图抽样统计块亮度。
  */
 public class FrameAnalyzer {
 
-    private final FrameDetector detector = new FrameDetector();
-    private final FrameCodec codec = new FrameCodec();
+    private final ReceiverStats stats;
+    private final AtomicReference<LayoutProfile> session;
+    private final ErrorHeatmap heatmap;
+    private FrameCodec codec;
+    private FrameDetector detector;
+    // 与会话布局同尺寸的信标布局；会话布局与之相同或帧尺寸无法对齐时为 codec
+    private FrameCodec sessionBeaconCodec;
+    private FrameCodec beaconCodec;
+    private FrameDetector beaconDetector;
+    private int beaconWidth;
+    private int beaconHeight;
     private BufferedImage scaledBuffer;
+    private LumaFrame lumaBuffer;
+    private LumaFrame beaconLumaBuffer;
+    private final BlockRectifier rectifier = OpenCvSupport.isEnabled() ? new BlockRectifier() : null;
+    private LayoutProfile rectifiedProfile;
+    private FrameDetector rectifiedDetector;
+    private FrameCodec gridCodec;
+    // 本帧的校正结果：帧头按校正结果解码成功后，负载解码直接复用
+    private long frameSerial;
+    private long rectifiedSerial = -1;
+    private int rectifiedOffsetX;
+    private int rectifiedOffsetY;
+    private LumaFrame rectifiedBlocks;
     private int lastOffsetX = 0;
     private int lastOffsetY = 0;
     private boolean hasLastOffset = false;
+    private int attempts;
+    private int decodedOffsetX;
+    private int decodedOffsetY;
+    private int correctedBlocks;
+
+    public FrameAnalyzer() {
+        this(new ReceiverStats());
+    }
+
+    public FrameAnalyzer(ReceiverStats stats) {
+        this(stats, new AtomicReference<>(LayoutProfile.DEFAULT));
+    }
+
+    /**
+     * @param session 会话布局，可由多个分析器共享
+     */
+    public FrameAnalyzer(ReceiverStats stats, AtomicReference<LayoutProfile> session) {
+        this(stats, session, null);
+    }
+
+    /**
+     * @param session 会话布局，可由多个分析器共享
+     * @param heatmap 误码热力图，可为 null
+     */
+    public FrameAnalyzer(ReceiverStats stats, AtomicReference<LayoutProfile> session, ErrorHeatmap heatmap) {
+        this.stats = stats;
+        this.session = session;
+        this.heatmap = heatmap;
+        useProfile(session.get());
+    }
+
+    /**
+     * 当前会话布局
+     */
+    public LayoutProfile getProfile() {
+        return session.get();
+    }
 
     public AnalyzedFrame analyze(BufferedImage image) {
         HeaderAnalysis analysis = analyzeHeader(image);
@@ -54,47 +134,310 @@ public class FrameAnalyzer {
     }
 
     public HeaderAnalysis analyzeHeader(BufferedImage image) {
+        HeaderDecodedEvent event = HeaderDecodedEvent.beginIfEnabled();
+        useProfile(session.get());
+        frameSerial++;
+        long frameStart = System.nanoTime();
+        long start = frameStart;
         BufferedImage analysisImage = normalizeImage(image);
-        FrameDetector.DetectionResult result = detector.detect(analysisImage);
+        stats.normalize.recordSince(start);
 
+        start = System.nanoTime();
+        LumaFrame luma;
+        if (analysisImage instanceof GrayMatImage gray) {
+            luma = gray.luma();
+        } else {
+            lumaBuffer = LumaFrame.of(analysisImage, lumaBuffer);
+            luma = lumaBuffer;
+        }
+        stats.luma.recordSince(start);
+
+        start = System.nanoTime();
+        FrameDetector.DetectionResult result = detector.detect(luma);
+        stats.detect.recordSince(start);
+
+        start = System.nanoTime();
+        attempts = 0;
         HeaderMatch match = null;
-        if (result.isValid()) {
-            match = decodeHeaderWithRetry(analysisImage, result.getOffsetX(), result.getOffsetY(), 2);
+        boolean detected = result.isValid();
+        if (detected) {
+            match = decodeHeaderWithRetry(codec, analysisImage, luma, result.getOffsetX(), result.getOffsetY(), 2);
         }
         if (match == null && hasLastOffset) {
-            match = decodeHeaderWithRetry(analysisImage, lastOffsetX, lastOffsetY, 4);
+            match = decodeHeaderWithRetry(codec, analysisImage, luma, lastOffsetX, lastOffsetY, 4);
+        }
+        if (match == null) {
+            match = decodeHeaderWithRetry(codec, analysisImage, luma, 0, 0, 8);
+        }
+        if (match == null && detected && rectifier != null) {
+            match = decodeRectifiedHeader(analysisImage, luma, result.getOffsetX(), result.getOffsetY());
         }
+        // 信标布局的完整角标搜索开销最大，放在按会话布局的小范围重试之后
         if (match == null) {
-            match = decodeHeaderWithRetry(analysisImage, 0, 0, 8);
+            match = decodeBeaconHeader(image, analysisImage == image ? luma : null);
+            detected |= match != null;
         }
+        stats.headerDecode.recordSince(start);
+        stats.headerAttempts.record(attempts);
+        long headerNanos = System.nanoTime() - frameStart;
         if (match == null) {
+            stats.headerFailures.increment();
+            stats.recordFrameDecode(headerNanos);
+            commitHeaderEvent(event, detected, null);
             return null;
         }
+        commitHeaderEvent(event, detected, match);
+        match = withPayloadCodec(match);
 
         lastOffsetX = match.offsetX();
         lastOffsetY = match.offsetY();
         hasLastOffset = true;
 
-        return new HeaderAnalysis(analysisImage, match.header(), match.offsetX(), match.offsetY());
+        return new HeaderAnalysis(match.image(), match.luma(), match.header(), match.offsetX(), match.offsetY(),
+                match.codec(), headerNanos);
+    }
+
+    /**
+     * 按信标布局检测并解码帧头。信标帧按发送端帧尺寸编码，因此直接使用未缩放的采集画面；
+     * 角标检测只保证偏移在搜索范围内，先试上一帧的偏移，再在检测结果附近完整搜索
+     *
+     * @param luma 采集画面的亮度平面，画面未经缩放时与会话布局共用，否则为 null，此时另行转换
+     */
+    private HeaderMatch decodeBeaconHeader(BufferedImage image, LumaFrame luma) {
+        if (beaconWidth != image.getWidth() || beaconHeight != image.getHeight()) {
+            beaconWidth = image.getWidth();
+            beaconHeight = image.getHeight();
+            try {
+                beaconCodec = new FrameCodec(LayoutProfile.beacon(beaconWidth, beaconHeight));
+                beaconDetector = new FrameDetector(beaconCodec.getLayout());
+            } catch (IllegalArgumentException e) {
+                // 画面尺寸无法按信标布局对齐，只能使用本地配置
+                beaconCodec = null;
+                beaconDetector = null;
+            }
+        }
+        if (beaconCodec == null || beaconCodec.getProfile().equals(codec.getProfile())) {
+            return null;
+        }
+        long start;
+        if (luma == null) {
+            start = System.nanoTime();
+            beaconLumaBuffer = LumaFrame.of(image, beaconLumaBuffer);
+            luma = beaconLumaBuffer;
+            stats.luma.recordSince(start);
+        }
+        start = System.nanoTime();
+        FrameDetector.DetectionResult result = beaconDetector.detect(luma);
+        stats.detect.recordSince(start);
+        if (!result.isValid()) {
+            return null;
+        }
+        HeaderMatch match = null;
+        if (hasLastOffset) {
+            match = decodeHeaderWithRetry(beaconCodec, image, luma, lastOffsetX, lastOffsetY, 2);
+        }
+        if (match == null) {
+            match = decodeHeaderWithRetry(beaconCodec, image, luma, result.getOffsetX(), result.getOffsetY(),
+                    Constants.CORNER_SEARCH_RANGE);
+        }
+        return match;
     }
 
     public byte[] decodePayload(HeaderAnalysis analysis) {
+        long start = System.nanoTime();
+        byte[] payload = decodePayloadData(analysis);
+        stats.recordFrameDecode(analysis.headerNanos() + System.nanoTime() - start);
+        return payload;
+    }
+
+    private byte[] decodePayloadData(HeaderAnalysis analysis) {
         FrameHeader header = analysis.header();
+        FrameCodec frameCodec = analysis.codec();
+        if (isBeaconFrame(header)) {
+            // v2 的 IDLE / START 帧携带 CRC32，数据区开头为发送端布局（另附块排除掩码）；v1 按原格式直接解码
+            attempts = 0;
+            byte[] payload = decodeDataWithRetry(analysis);
+            if (payload != null) {
+                adoptProfile(FrameCodec.beaconLayout(header.getFrameType(), payload));
+            }
+            return payload;
+        }
         if (header.getFrameType() == FrameType.DATA) {
-            return decodeDataWithRetry(analysis.image(), header.getDataLength(),
-                    analysis.offsetX(), analysis.offsetY());
+            PayloadDecodedEvent event = PayloadDecodedEvent.beginIfEnabled();
+            long start = System.nanoTime();
+            attempts = 0;
+            byte[] payload = decodeDataWithRetry(analysis);
+            stats.payloadDecode.recordSince(start);
+            stats.payloadAttempts.record(attempts);
+            if (payload == null) {
+                stats.crcFailures.increment();
+            } else if (heatmap != null) {
+                heatmap.sampleData(frameCodec.getLayout(), analysis.luma(), decodedOffsetX, decodedOffsetY,
+                        header.getDataLength());
+            }
+            if (event != null && event.shouldCommit()) {
+                event.success = payload != null;
+                event.frameIndex = header.getFrameIndex();
+                event.dataLength = header.getDataLength();
+                event.offsetX = decodedOffsetX;
+                event.offsetY = decodedOffsetY;
+                event.attempts = attempts;
+                event.correctedBlocks = correctedBlocks;
+                event.commit();
+            }
+            return payload;
         }
         if (header.getDataLength() > 0) {
-            return codec.decodeData(analysis.image(), header.getDataLength(),
+            return frameCodec.decodeData(analysis.luma(), header.getDataLength(),
                     analysis.offsetX(), analysis.offsetY());
         }
         return new byte[0];
     }
 
-    private byte[] decodeDataWithRetry(BufferedImage image, int dataLength, int offsetX, int offsetY) {
-        byte[] payload = codec.decodeDataWithCrc(image, dataLength, offsetX, offsetY);
-        if (payload != null || Constants.PAYLOAD_RETRY_RANGE <= 0) {
-            return payload;
+    /**
+     * 切换会话布局
+     */
+    private void adoptProfile(LayoutProfile profile) {
+        if (profile != null) {
+            session.set(profile);
+        }
+    }
+
+    private void useProfile(LayoutProfile profile) {
+        if (codec == null || !codec.getProfile().equals(profile)) {
+            codec = new FrameCodec(profile);
+            detector = new FrameDetector(codec.getLayout());
+            sessionBeaconCodec = codec;
+            try {
+                LayoutProfile beacon = LayoutProfile.beacon(profile.frameWidth(), profile.frameHeight());
+                if (!beacon.equals(profile)) {
+                    sessionBeaconCodec = new FrameCodec(beacon);
+                }
+            } catch (IllegalArgumentException e) {
+                // 帧尺寸无法按信标布局对齐，发送端也按会话布局编码信标帧
+            }
+        }
+    }
+
+    /**
+     * 会话布局的帧头与信标布局重合（只是掩码或校验行不同）时，帧头可能由另一种布局解码成功，
+     * 负载需按帧类型改用实际编码的布局：IDLE / START 用信标布局，其余用会话布局
+     */
+    private HeaderMatch withPayloadCodec(HeaderMatch match) {
+        FrameCodec payloadCodec = match.codec();
+        if (isBeaconFrame(match.header())) {
+            if (payloadCodec == codec) {
+                payloadCodec = sessionBeaconCodec;
+            }
+        } else if (payloadCodec == beaconCodec && payloadCodec.getProfile().equals(sessionBeaconCodec.getProfile())) {
+            payloadCodec = codec;
+        }
+        if (payloadCodec == match.codec()) {
+            return match;
+        }
+        return new HeaderMatch(match.image(), match.luma(), match.header(), match.offsetX(), match.offsetY(),
+                payloadCodec);
+    }
+
+    /**
+     * 按信标布局编码的帧：v2 的 IDLE / START
+     */
+    private static boolean isBeaconFrame(FrameHeader header) {
+        return (header.getFrameType() == FrameType.IDLE || header.getFrameType() == FrameType.START)
+                && header.getVersion() >= FrameHeader.VERSION_2;
+    }
+
+    /**
+     * 按帧头分析结果解码负载并验证 CRC，启用 OpenCV 分析后端时先按透视校正结果解码
+     */
+    private byte[] decodeDataWithRetry(HeaderAnalysis analysis) {
+        int dataLength = analysis.header().getDataLength();
+        if (rectifier != null) {
+            byte[] payload = decodeRectified(analysis.codec(), analysis.image(), analysis.luma(), dataLength,
+                    analysis.offsetX(), analysis.offsetY());
+            if (payload != null) {
+                return payload;
+            }
+            stats.rectifyFailures.increment();
+        }
+        return decodeDataWithRetry(analysis.codec(), analysis.luma(), dataLength,
+                analysis.offsetX(), analysis.offsetY());
+    }
+
+    /**
+     * 按会话布局校正后解码帧头，用于平移重试无法覆盖的透视畸变
+     */
+    private HeaderMatch decodeRectifiedHeader(BufferedImage image, LumaFrame luma, int offsetX, int offsetY) {
+        LumaFrame blocks = rectify(codec, image, luma, offsetX, offsetY);
+        attempts++;
+        FrameHeader header = gridCodec.decodeHeader(blocks, 0, 0);
+        if (header == null || (header.getFrameType() == FrameType.DATA
+                && header.getDataLength() > codec.getPayloadCapacity())) {
+            return null;
+        }
+        return new HeaderMatch(image, luma, header, offsetX, offsetY, codec);
+    }
+
+    /**
+     * 在偏移附近定位四角定位标，校正为块分辨率矩阵；同一帧、同一偏移与布局只校正一次
+     *
+     * @param image 采集画面，为 {@link GrayMatImage} 时直接校正其中的灰度 Mat
+     */
+    private LumaFrame rectify(FrameCodec frameCodec, BufferedImage image, LumaFrame luma, int offsetX, int offsetY) {
+        LayoutProfile profile = frameCodec.getProfile();
+        if (rectifiedSerial == frameSerial && rectifiedOffsetX == offsetX && rectifiedOffsetY == offsetY
+                && profile.equals(rectifiedProfile)) {
+            return rectifiedBlocks;
+        }
+        long start = System.nanoTime();
+        if (!profile.equals(rectifiedProfile)) {
+            rectifiedProfile = profile;
+            rectifiedDetector = new FrameDetector(frameCodec.getLayout());
+            gridCodec = new FrameCodec(profile.blockGrid());
+        }
+        float[] corners = rectifiedDetector.locateCorners(luma, offsetX, offsetY);
+        rectifiedBlocks = image instanceof GrayMatImage gray
+                ? rectifier.rectify(gray.mat(), frameCodec.getLayout(), corners)
+                : rectifier.rectify(luma, frameCodec.getLayout(), corners);
+        rectifiedSerial = frameSerial;
+        rectifiedOffsetX = offsetX;
+        rectifiedOffsetY = offsetY;
+        stats.rectify.recordSince(start);
+        return rectifiedBlocks;
+    }
+
+    /**
+     * 按校正结果解码负载
+     */
+    private byte[] decodeRectified(FrameCodec frameCodec, BufferedImage image, LumaFrame luma, int dataLength,
+                                   int offsetX, int offsetY) {
+        attempts++;
+        decodedOffsetX = offsetX;
+        decodedOffsetY = offsetY;
+        correctedBlocks = 0;
+        LumaFrame blocks = rectify(frameCodec, image, luma, offsetX, offsetY);
+        BlockParity.Result result = gridCodec.decodeDataWithParity(blocks, dataLength, 0, 0);
+        if (result.payload() != null) {
+            recordParity(result);
+        }
+        return result.payload();
+    }
+
+    /**
+     * 按偏移解码，CRC 不通过时先按奇偶位纠正，再在偏移附近只按 CRC 重试：
+     * 邻近偏移上的奇偶位不符多为错位，纠正与统计都没有意义。
+     * 纠正成功或最终失败时记录基准偏移处奇偶位不符的数据行
+     */
+    private byte[] decodeDataWithRetry(FrameCodec frameCodec, LumaFrame luma, int dataLength,
+                                       int offsetX, int offsetY) {
+        attempts++;
+        decodedOffsetX = offsetX;
+        decodedOffsetY = offsetY;
+        correctedBlocks = 0;
+        BlockParity.Result first = frameCodec.decodeDataWithParity(luma, dataLength, offsetX, offsetY);
+        if (first.payload() != null || Constants.PAYLOAD_RETRY_RANGE <= 0) {
+            recordParity(first);
+            return first.payload();
         }
 
         int range = Constants.PAYLOAD_RETRY_RANGE;
@@ -103,8 +446,11 @@ public class FrameAnalyzer {
                 if (dx == 0 && dy == 0) {
                     continue;
                 }
-                payload = codec.decodeDataWithCrc(image, dataLength, offsetX + dx, offsetY + dy);
+                attempts++;
+                byte[] payload = frameCodec.decodeDataWithCrc(luma, dataLength, offsetX + dx, offsetY + dy);
                 if (payload != null) {
+                    decodedOffsetX = offsetX + dx;
+                    decodedOffsetY = offsetY + dy;
                     lastOffsetX = offsetX + dx;
                     lastOffsetY = offsetY + dy;
                     hasLastOffset = true;
@@ -112,14 +458,58 @@ public class FrameAnalyzer {
                 }
             }
         }
+        recordParity(first);
         return null;
     }
 
-    public static record HeaderAnalysis(BufferedImage image, FrameHeader header, int offsetX, int offsetY) {
+    private void recordParity(BlockParity.Result result) {
+        correctedBlocks = result.correctedBlocks();
+        if (correctedBlocks > 0) {
+            stats.parityCorrections.increment();
+        }
+        stats.recordFailedRows(result.failedRows());
+    }
+
+    private void commitHeaderEvent(HeaderDecodedEvent event, boolean detected, HeaderMatch match) {
+        if (event == null || !event.shouldCommit()) {
+            return;
+        }
+        event.success = match != null;
+        event.detected = detected;
+        event.attempts = attempts;
+        if (match != null) {
+            event.frameType = match.header().getFrameType().name();
+            event.frameIndex = match.header().getFrameIndex();
+            event.version = match.header().getVersion();
+            event.sessionId = match.header().getSessionId();
+            event.offsetX = match.offsetX();
+            event.offsetY = match.offsetY();
+        }
+        event.commit();
+    }
+
+    /**
+     * 获取当前会话布局下每帧数据负载容量（字节）
+     */
+    public int getPayloadCapacity() {
+        useProfile(session.get());
+        return codec.getPayloadCapacity();
+    }
+
+    /**
+     * 帧头分析结果
+     *
+     * @param luma        image 的亮度平面，负载按它解码（分析器的缓冲区，下一帧会复用）
+     * @param codec       解码帧头所用布局的编解码器，负载按同一布局解码
+     * @param headerNanos 帧头分析耗时（含归一化、亮度转换与角标检测），与负载解码耗时合计为单帧解码耗时
+     */
+    public record HeaderAnalysis(BufferedImage image, LumaFrame luma, FrameHeader header, int offsetX,
+                                 int offsetY, FrameCodec codec, long headerNanos) {
     }
 
-    private HeaderMatch decodeHeaderWithRetry(BufferedImage image, int baseOffsetX, int baseOffsetY, int range) {
-        HeaderMatch match = tryDecodeHeader(image, baseOffsetX, baseOffsetY);
+    private HeaderMatch decodeHeaderWithRetry(FrameCodec frameCodec, BufferedImage image, LumaFrame luma,
+                                              int baseOffsetX, int baseOffsetY, int range) {
+        HeaderMatch match = tryDecodeHeader(frameCodec, image, luma, baseOffsetX, baseOffsetY);
         if (match != null) {
             return match;
         }
@@ -129,7 +519,7 @@ public class FrameAnalyzer {
                 if (dx == 0 && dy == 0) {
                     continue;
                 }
-                match = tryDecodeHeader(image, baseOffsetX + dx, baseOffsetY + dy);
+                match = tryDecodeHeader(frameCodec, image, luma, baseOffsetX + dx, baseOffsetY + dy);
                 if (match != null) {
                     return match;
                 }
@@ -140,43 +530,47 @@ public class FrameAnalyzer {
     }
 
     private BufferedImage normalizeImage(BufferedImage source) {
-        if (source.getWidth() == Constants.FRAME_WIDTH
-                && source.getHeight() == Constants.FRAME_HEIGHT) {
+        int width = codec.getProfile().frameWidth();
+        int height = codec.getProfile().frameHeight();
+        if (source.getWidth() == width && source.getHeight() == height) {
             return source;
         }
 
         if (scaledBuffer == null
-                || scaledBuffer.getWidth() != Constants.FRAME_WIDTH
-                || scaledBuffer.getHeight() != Constants.FRAME_HEIGHT) {
-            scaledBuffer = new BufferedImage(Constants.FRAME_WIDTH, Constants.FRAME_HEIGHT, BufferedImage.TYPE_INT_RGB);
+                || scaledBuffer.getWidth() != width
+                || scaledBuffer.getHeight() != height) {
+            scaledBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         }
 
         Graphics2D g2d = scaledBuffer.createGraphics();
         g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-        g2d.drawImage(source, 0, 0, Constants.FRAME_WIDTH, Constants.FRAME_HEIGHT, null);
+        g2d.drawImage(source, 0, 0, width, height, null);
         g2d.dispose();
         return scaledBuffer;
     }
 
-    private HeaderMatch tryDecodeHeader(BufferedImage image, int offsetX, int offsetY) {
-        FrameHeader header = codec.decodeHeader(image, offsetX, offsetY);
+    private HeaderMatch tryDecodeHeader(FrameCodec frameCodec, BufferedImage image, LumaFrame luma,
+                                        int offsetX, int offsetY) {
+        attempts++;
+        FrameHeader header = frameCodec.decodeHeader(luma, offsetX, offsetY);
         if (header == null) {
             return null;
         }
 
         int dataLength = header.getDataLength();
-        if (dataLength < 0 || dataLength > Constants.DATA_BYTES_PER_FRAME) {
+        if (dataLength < 0 || dataLength > frameCodec.getLayout().getPayloadCapacity()) {
             return null;
         }
 
         if (header.getFrameType() == FrameType.DATA
-                && dataLength > codec.getPayloadCapacity()) {
+                && dataLength > frameCodec.getPayloadCapacity()) {
             return null;
         }
 
-        return new HeaderMatch(header, offsetX, offsetY);
+        return new HeaderMatch(image, luma, header, offsetX, offsetY, frameCodec);
     }
 
-    private record HeaderMatch(FrameHeader header, int offsetX, int offsetY) {
+    private record HeaderMatch(BufferedImage image, LumaFrame luma, FrameHeader header, int offsetX, int offsetY,
+                               FrameCodec codec) {
     }
 }
@@ -0,0 +1,38 @@
+package dev.cheng.dov.argus;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 帧来源
+ * <p>
+ * 采集线程从帧来源逐帧读取画面。实时来源（采集卡）在分析跟不上时丢弃旧帧；
+ * 非实时来源（模拟信道、录制文件）由分析速度反压，不丢帧。
+ */
+public interface FrameSource {
+
+    /**
+     * 读取一帧
+     *
+     * @return 画面，暂时没有可用帧时返回 null
+     */
+    BufferedImage read() throws Exception;
+
+    /**
+     * 关闭来源
+     */
+    void close();
+
+    /**
+     * 是否为实时来源
+     */
+    default boolean isLive() {
+        return true;
+    }
+
+    /**
+     * 有限来源（录制文件）是否已全部读出，此后 {@link #read()} 只返回 null
+     */
+    default boolean isFinished() {
+        return false;
+    }
+}
@@ -7,10 +7,16 @@ import javax.swing.UIManager;
 
 /**
  * Argus (Receiver) 主程序
+ * <p>
+ * 第一个参数为命令行子命令（devices / receive）时不启动界面，见 {@link ReceiverCli}
  */
 public class ReceiverApp {
 
     public static void main(String[] args) {
+        if (args.length > 0 && ReceiverCli.isCommand(args[0])) {
+            System.exit(ReceiverCli.run(args));
+        }
+
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception ignored) {
@@ -0,0 +1,253 @@
+package dev.cheng.dov.argus;
+
+import dev.cheng.dov.argus.recording.RecordingSource;
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+import dev.cheng.dov.protocol.stats.JsonLine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Argus 命令行模式（不启动 Swing 界面）
+ * <p>
+ * 直接驱动 {@link ReceiverController}，状态、完成与错误事件以 JSON Lines 输出到标准输出，
+ * 适合作为常驻服务或在脚本中批量测试。
+ * <pre>
+ * java -jar argus.jar devices
+ * java -jar argus.jar receive --device 0 --out /data/incoming [--once] [--interval 1000]
+ * java -jar argus.jar receive --recording capture.y4m --out /tmp/out
+ * java -jar argus.jar receive --device 0 --exportMask mask.properties
+ * </pre>
+ * 常驻模式持续接收，Ctrl+C 停止时保存接收日志；{@code --once} 收完一个文件后退出。
+ * {@code --exportMask} 在退出时按误码热力图导出块排除掩码（见 {@link dev.cheng.dov.argus.heatmap.ErrorHeatmap}）。
+ * 读取录制文件时总是只接收一次，录制读完后仍未收齐则以退出码 1 结束。
+ */
+public final class ReceiverCli {
+
+    private static final String USAGE = """
+            用法:
+              devices
+              receive (--device 编号 | --recording 录制路径) [--out 目录] [--once] [--interval 毫秒]
+                      [--exportMask 掩码文件]""";
+    private static final long STOP_WAIT_MS = 5000;
+
+    private ReceiverCli() {
+    }
+
+    /**
+     * 是否为命令行子命令
+     */
+    public static boolean isCommand(String arg) {
+        return "devices".equals(arg) || "receive".equals(arg);
+    }
+
+    /**
+     * 执行子命令
+     *
+     * @return 进程退出码
+     */
+    public static int run(String[] args) {
+        if ("devices".equals(args[0])) {
+            for (CaptureDevice.DeviceInfo device : CaptureDevice.listDevices()) {
+                System.out.println(new JsonLine("device").put("id", device.getId()).put("name", device.getName()));
+            }
+            return 0;
+        }
+
+        Integer deviceId = null;
+        Path recording = null;
+        Path outputDir = null;
+        boolean once = false;
+        long intervalMs = 1000;
+        Path maskFile = null;
+        int i = 1;
+        try {
+            for (; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--device" -> deviceId = Integer.parseInt(args[++i]);
+                    case "--recording" -> recording = Path.of(args[++i]);
+                    case "--out" -> outputDir = Path.of(args[++i]);
+                    case "--once" -> once = true;
+                    case "--interval" -> intervalMs = Long.parseLong(args[++i]);
+                    case "--exportMask" -> maskFile = Path.of(args[++i]);
+                    default -> {
+                        System.err.println("未知参数: " + args[i]);
+                        System.err.println(USAGE);
+                        return 2;
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            // 选项缺少取值，或取值不是数字、不是支持的格式
+            System.err.println("参数缺失或无效: " + (i < args.length ? args[i - 1] + " " + args[i] : args[i - 1]));
+            System.err.println(USAGE);
+            return 2;
+        }
+        if ((deviceId == null) == (recording == null)) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        try {
+            return receive(deviceId, recording, outputDir, once || recording != null, intervalMs, maskFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    private static int receive(Integer deviceId, Path recording, Path outputDir, boolean once, long intervalMs,
+                               Path maskFile) throws InterruptedException {
+        ReceiverController controller = new ReceiverController();
+        if (outputDir != null) {
+            controller.setSaveDirectory(outputDir);
+        }
+        AtomicReference<ReceiverStatus> latest = new AtomicReference<>();
+        AtomicBoolean succeeded = new AtomicBoolean();
+        AtomicReference<ReceiverStatus> sourceEnd = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        controller.setListener(new ReceiverController.Listener() {
+            @Override
+            public void onStatus(ReceiverStatus status) {
+                ReceiverStatus previous = latest.getAndSet(status);
+                if (status.state() == ReceiverState.ERROR
+                        && (previous == null || previous.state() != ReceiverState.ERROR)) {
+                    System.out.println(new JsonLine("error").put("message", status.message()));
+                    if (once) {
+                        finished.countDown();
+                    }
+                }
+            }
+
+            @Override
+            public void onCompleted(Path outputFile) {
+                System.out.println(new JsonLine("completed").put("path", outputFile.toString()));
+                if (once) {
+                    succeeded.set(true);
+                    finished.countDown();
+                }
+            }
+
+            @Override
+            public void onSourceFinished(ReceiverStatus status) {
+                // 控制器已等解码队列排空和 EOF 补齐宽限期，录制中没有更多帧
+                sourceEnd.set(status);
+                finished.countDown();
+            }
+        });
+
+        controller.getHeatmap().setDataSampling(maskFile != null);
+        if (recording != null) {
+            RecordingSource source;
+            try {
+                source = RecordingSource.open(recording, ReceiverController.decodeThreadCount());
+            } catch (IOException e) {
+                System.out.println(new JsonLine("error").put("message", "打开录制失败: " + e.getMessage()));
+                controller.close();
+                return 1;
+            }
+            controller.startCapture(source);
+        } else {
+            controller.startCapture(new CaptureDevice.DeviceInfo(deviceId, "设备 " + deviceId));
+        }
+        System.out.println(new JsonLine("started")
+                .put("source", recording != null ? recording.toString() : "device:" + deviceId)
+                .put("out", controller.getSaveDirectory().toString()));
+
+        Thread shutdownHook = new Thread(() -> {
+            stop(controller);
+            exportMask(controller, maskFile);
+        }, "ReceiverCliShutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        ReceiverStats stats = controller.getStats();
+        long lastCaptured = 0;
+        long lastReport = System.currentTimeMillis();
+        while (!finished.await(intervalMs, TimeUnit.MILLISECONDS)) {
+            long now = System.currentTimeMillis();
+            long captured = stats.framesCaptured.sum();
+            printStatus(latest.get(), stats, (captured - lastCaptured) * 1000.0 / Math.max(now - lastReport, 1));
+            lastCaptured = captured;
+            lastReport = now;
+        }
+        ReceiverStatus endStatus = sourceEnd.get();
+        if (endStatus != null && !succeeded.get()) {
+            System.out.println(new JsonLine("incomplete")
+                    .put("state", endStatus.state().name())
+                    .put("missing", endStatus.missingFrames().format(Integer.MAX_VALUE)));
+        }
+
+        // 等状态发布器送出最后一次快照
+        Thread.sleep(Constants.UI_UPDATE_INTERVAL_MS * 2L);
+        printStatus(latest.get(), stats, 0);
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        stop(controller);
+        exportMask(controller, maskFile);
+        controller.close();
+        return succeeded.get() ? 0 : 1;
+    }
+
+    private static void exportMask(ReceiverController controller, Path maskFile) {
+        if (maskFile == null) {
+            return;
+        }
+        try {
+            LayoutProfile masked = controller.getHeatmap().exportMask(maskFile);
+            if (masked == null) {
+                System.out.println(new JsonLine("error").put("message", "尚无误码统计，未导出掩码"));
+                return;
+            }
+            System.out.println(new JsonLine("blockMask")
+                    .put("path", maskFile.toString())
+                    .put("excludedRows", masked.mask().excludedRowCount())
+                    .put("excludedCols", masked.mask().excludedColCount())
+                    .put("dataBlocks", masked.dataBlocksPerFrame()));
+        } catch (IOException e) {
+            System.out.println(new JsonLine("error").put("message", "导出掩码失败: " + e.getMessage()));
+        }
+    }
+
+    private static void printStatus(ReceiverStatus status, ReceiverStats stats, double captureFps) {
+        if (status == null) {
+            return;
+        }
+        System.out.println(new JsonLine("status")
+                .put("state", status.state().name())
+                .put("message", status.message())
+                .put("file", status.fileName())
+                .put("fileSize", status.fileSize())
+                .put("receivedFrames", status.receivedFrames())
+                .put("totalFrames", status.totalFrames())
+                .put("missingFrames", status.missingFrames().size())
+                .put("frameIndex", status.frameIndex())
+                .put("bytesPerSecond", status.bytesPerSecond())
+                .put("captureFps", captureFps)
+                .put("framesCaptured", stats.framesCaptured.sum())
+                .put("queueDrops", stats.queueDrops.sum())
+                .put("headerFailures", stats.headerFailures.sum())
+                .put("crcFailures", stats.crcFailures.sum())
+                .put("duplicateFrames", stats.duplicateFrames.sum())
+                .put("otherSessionFrames", stats.otherSessionFrames.sum())
+                .put("framesAccepted", stats.framesAccepted.sum()));
+    }
+
+    /**
+     * 停止接收并等待清理完成（保存 .part 文件与接收日志）
+     */
+    private static void stop(ReceiverController controller) {
+        controller.stopCapture();
+        long deadline = System.currentTimeMillis() + STOP_WAIT_MS;
+        while (controller.isStopping() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
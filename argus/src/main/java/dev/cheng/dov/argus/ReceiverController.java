@@ -1,9 +1,26 @@
 package dev.cheng.dov.argus;
 
+import dev.cheng.dov.argus.calibration.CalibrationCollector;
+import dev.cheng.dov.argus.heatmap.ErrorHeatmap;
+import dev.cheng.dov.argus.jfr.FrameDroppedEvent;
+import dev.cheng.dov.argus.opencv.OpenCvSupport;
+import dev.cheng.dov.argus.recording.RecordingSource;
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.calibration.CalibrationPattern;
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
+import dev.cheng.dov.protocol.calibration.CalibrationSample;
+import dev.cheng.dov.protocol.codec.FrameCodec;
 import dev.cheng.dov.protocol.file.FileAssembler;
+import dev.cheng.dov.protocol.file.ChunkSink;
+import dev.cheng.dov.protocol.file.DirectorySink;
+import dev.cheng.dov.protocol.file.FileSink;
+import dev.cheng.dov.protocol.file.FrameTracker;
+import dev.cheng.dov.protocol.file.PrefixDigest;
+import dev.cheng.dov.protocol.file.ReceiveJournal;
 import dev.cheng.dov.protocol.frame.FrameHeader;
+import dev.cheng.dov.protocol.frame.FrameLayout;
 import dev.cheng.dov.protocol.frame.FrameType;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -13,17 +30,16 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeSet;
+import java.util.BitSet;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -31,42 +47,74 @@ import java.util.zip.ZipInputStream;
  * Argus (Receiver) 控制器
  * <p>
  * 管理接收状态机、采集线程与分析线程。
+ * 帧在解码线程池中并行分析，分析线程按采集顺序取结果驱动状态机：非实时来源（录制文件、模拟信道）解码跟不上时
+ * 采集线程等待，实时采集则丢弃新帧。实时采集只有一个解码线程时改为在分析线程中解码，重复帧不解码负载。
  */
 public class ReceiverController {
 
     private final CaptureDevice captureDevice = new CaptureDevice();
-    private final FrameAnalyzer frameAnalyzer = new FrameAnalyzer();
+    private volatile FrameSource frameSource;
+    private final ReceiverStats stats = new ReceiverStats();
+    // 会话布局：初始为本地配置，收到发送端 IDLE / START 帧后切换为发送端的布局
+    private final AtomicReference<LayoutProfile> layoutProfile = new AtomicReference<>(LayoutProfile.DEFAULT);
+    // 数据区误码热力图：校准帧逐块误码与 DATA 帧软判决统计
+    private final ErrorHeatmap heatmap = new ErrorHeatmap();
+    private final FrameAnalyzer frameAnalyzer = new FrameAnalyzer(stats, layoutProfile, heatmap);
     private final FileAssembler fileAssembler = new FileAssembler();
+    private final CalibrationCollector calibration = new CalibrationCollector();
     private final BlockingQueue<BufferedImage> frameQueue =
             new ArrayBlockingQueue<>(Constants.FRAME_QUEUE_SIZE);
+    // 并行解码：每个解码线程使用独立的分析器，结果按提交顺序排队
+    private final ThreadLocal<FrameAnalyzer> decodeAnalyzers =
+            ThreadLocal.withInitial(() -> new FrameAnalyzer(stats, layoutProfile, heatmap));
+    private volatile BlockingQueue<Future<ReceivedFrame>> decodedQueue;
 
     private ExecutorService captureExecutor;
     private ExecutorService analyzerExecutor;
     private ExecutorService assemblerExecutor;
+    private ExecutorService decodeExecutor;
 
     private volatile boolean running = false;
     private volatile boolean stopping = false;
     private volatile ReceiverState state = ReceiverState.STOPPED;
 
-    private Listener listener;
+    private volatile Listener listener;
+    // 有限来源（录制文件）读完：采集线程置位，分析线程在队列排空后等待 EOF_GRACE_MS 再结束接收
+    private volatile boolean sourceEnded;
+    private long sourceDrainedTime;
+    private boolean sourceEndHandled;
+    private final StatusPublisher statusPublisher =
+            new StatusPublisher(Constants.UI_UPDATE_INTERVAL_MS, this::publishStatus);
 
     // 文件接收状态
     private String fileName;
     private long fileSize;
     private int totalFrames;
+    // 当前传输的会话 ID（0 表示未知），解码线程据此跳过其他会话的帧
+    private volatile int activeSession;
+    private LayoutProfile sessionLayout;
+    private int payloadCapacity;
     private byte[] expectedSha256;
     private int transferFlags;
+    private int manifestLength;
     private boolean directoryTransfer;
-    private boolean[] receivedFrames;
-    private Map<Integer, byte[]> frameDataMap;
-    private int receivedCount;
+    private FrameTracker frameTracker;
+    private ChunkSink chunkSink;
+    private ReceiveJournal journal;
+    private final Object stateLock = new Object();
+    private long transferGeneration;
+    private long lastJournalTime;
+    private PrefixDigest prefixDigest;
+    private byte[] digestBuffer;
     private long receivedBytes;
     private long transferStartTime;
     private long lastRateUpdateTime;
     private boolean eofReceived;
     private long eofReceivedTime;
-    private int maxFrameIndexSeen = -1;
-    private final TreeSet<Integer> missingFrames = new TreeSet<>();
+    private boolean missingDirty;
+    private long lastMissingPublishTime;
+
+    private CalibrationProfile calibrationProfile;
 
     private long lastFrameTime = 0;
     private long lastValidFrameTime = 0;
@@ -76,12 +124,45 @@ public class ReceiverController {
 
     public void setListener(Listener listener) {
         this.listener = listener;
+        statusPublisher.start();
+    }
+
+    private void publishStatus(ReceiverStatus status) {
+        Listener current = listener;
+        if (current != null) {
+            current.onStatus(status);
+        }
     }
 
     public ReceiverState getState() {
         return state;
     }
 
+    /**
+     * 是否正在停止（后台仍在保存接收进度、关闭线程）
+     */
+    public boolean isStopping() {
+        return stopping;
+    }
+
+    /**
+     * 接收管线统计（各阶段耗时、重试次数与事件计数）
+     */
+    public ReceiverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 链路校准统计（收到 Hermes 校准帧时累计）
+     */
+    public CalibrationCollector getCalibration() {
+        return calibration;
+    }
+
+    public ErrorHeatmap getHeatmap() {
+        return heatmap;
+    }
+
     public Path getSaveDirectory() {
         return saveDirectory;
     }
@@ -106,11 +187,46 @@ public class ReceiverController {
             notifyError("打开设备失败: " + e.getMessage());
             return;
         }
+        startCapture(captureDevice);
+    }
+
+    /**
+     * 从录制文件（图片序列目录或 .y4m 文件）离线接收，不按采集时钟限速
+     */
+    public void startRecording(Path recording) {
+        if (running || stopping) {
+            return;
+        }
+
+        RecordingSource source;
+        try {
+            source = RecordingSource.open(recording, decodeThreadCount());
+        } catch (IOException e) {
+            notifyError("打开录制失败: " + e.getMessage());
+            return;
+        }
+        startCapture(source);
+    }
+
+    /**
+     * 从指定帧来源启动接收（采集卡之外的来源，如模拟信道）
+     */
+    public void startCapture(FrameSource source) {
+        if (running || stopping) {
+            return;
+        }
 
+        frameSource = source;
         running = true;
+        sourceEnded = false;
+        sourceDrainedTime = 0;
+        sourceEndHandled = false;
         frameQueue.clear();
-        initExecutors();
-        setState(ReceiverState.SCANNING, "扫描中");
+        int decodeThreads = source.isLive() ? liveDecodeThreadCount() : decodeThreadCount();
+        decodedQueue = decodeThreads > 0 ? new ArrayBlockingQueue<>(decodeThreads * 2) : null;
+        initExecutors(decodeThreads);
+        setState(ReceiverState.SCANNING, OpenCvSupport.loadError() == null
+                ? "扫描中" : "扫描中（OpenCV 加载失败，使用 Java 分析后端: " + OpenCvSupport.loadError() + "）");
         lastValidFrameTime = System.currentTimeMillis();
 
         captureExecutor.submit(this::captureLoop);
@@ -121,12 +237,24 @@ public class ReceiverController {
      * 停止采集
      */
     public void stopCapture() {
+        stopCapture("已停止");
+    }
+
+    /**
+     * 释放控制器：停止采集并停止状态发布线程，之后不再通知监听器
+     */
+    public void close() {
+        stopCapture();
+        statusPublisher.stop();
+    }
+
+    private void stopCapture(String message) {
         if (!running || stopping) {
             return;
         }
         stopping = true;
         running = false;
-        setState(ReceiverState.STOPPED, "已停止");
+        setState(ReceiverState.STOPPED, message);
         Thread cleanupThread = new Thread(this::cleanupAfterStop, "ReceiverStopper");
         cleanupThread.setDaemon(true);
         cleanupThread.start();
@@ -135,47 +263,73 @@ public class ReceiverController {
     private void captureLoop() {
         try {
             while (running) {
-                BufferedImage image = captureDevice.read();
+                long readStart = System.nanoTime();
+                BufferedImage image = frameSource.read();
                 if (image == null) {
+                    // 之前读到的帧都已入队，分析线程看到标志后只需等队列排空
+                    if (frameSource.isFinished()) {
+                        sourceEnded = true;
+                    }
                     continue;
                 }
+                stats.captureRead.recordSince(readStart);
+                stats.framesCaptured.increment();
 
-                if (listener != null) {
-                    listener.onPreviewFrame(image);
+                if (Constants.PREVIEW_FPS > 0) {
+                    statusPublisher.setPreview(image);
                 }
 
-                if (!frameQueue.offer(image)) {
+                BlockingQueue<Future<ReceivedFrame>> decoded = decodedQueue;
+                if (decoded != null && frameSource.isLive() && decoded.remainingCapacity() == 0) {
+                    // 实时采集解码跟不上时丢弃新帧（只有本线程入队，检查后入队不会阻塞）
+                    stats.queueDrops.increment();
+                    FrameDroppedEvent.commit(FrameDroppedEvent.QUEUE_FULL, -1);
+                } else if (decoded != null) {
+                    // 非实时来源队列满时等待，不丢帧
+                    Future<ReceivedFrame> future = decodeExecutor.submit(() -> decodeFrame(image));
+                    while (running && !decoded.offer(future, 200, TimeUnit.MILLISECONDS)) {
+                        // 等待队列空位
+                    }
+                } else if (!frameQueue.offer(image)) {
                     frameQueue.poll();
                     frameQueue.offer(image);
+                    stats.queueDrops.increment();
+                    FrameDroppedEvent.commit(FrameDroppedEvent.QUEUE_FULL, -1);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             notifyError("采集失败: " + e.getMessage());
             stopCapture();
         } finally {
-            captureDevice.close();
+            frameSource.close();
         }
     }
 
     private void analyzeLoop() {
         while (running) {
             try {
-                BufferedImage image = frameQueue.poll(200, TimeUnit.MILLISECONDS);
+                ReceivedFrame frame = nextFrame();
                 long now = System.currentTimeMillis();
-                if (image == null) {
+                if (frame == null) {
                     checkTimeouts(now);
                     maybeFinalize(now);
+                    publishMissingFrames(now, false);
+                    checkSourceEnd(now);
+                    catchUpDigest(Constants.DIGEST_CATCH_UP_BYTES);
                     continue;
                 }
 
-                FrameAnalyzer.HeaderAnalysis analysis = frameAnalyzer.analyzeHeader(image);
-                if (analysis == null) {
+                if (frame.analysis() == null) {
                     checkTimeouts(now);
+                    catchUpDigest(Constants.DIGEST_CATCH_UP_BYTES);
                     continue;
                 }
 
                 lastValidFrameTime = now;
-                handleFrame(analysis, now);
+                handleFrame(frame, now);
+                catchUpDigest(Constants.DIGEST_CATCH_UP_BYTES);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 return;
@@ -185,17 +339,151 @@ public class ReceiverController {
         }
     }
 
-    private void handleFrame(FrameAnalyzer.HeaderAnalysis analysis, long now) {
+    /**
+     * 有限来源读完且队列排空后再等 EOF_GRACE_MS，让最后的 EOF 帧和补齐判断生效。
+     * 之后不会再有新帧：在未完成的重组之后通知监听器并停止接收，状态消息说明是否收齐。
+     */
+    private void checkSourceEnd(long now) {
+        if (!sourceEnded || sourceEndHandled || !queuesEmpty()) {
+            return;
+        }
+        if (sourceDrainedTime == 0) {
+            sourceDrainedTime = now;
+            return;
+        }
+        if (now - sourceDrainedTime < Constants.EOF_GRACE_MS) {
+            return;
+        }
+        sourceEndHandled = true;
+        String incomplete = null;
+        if ((state == ReceiverState.RECEIVING || state == ReceiverState.WAITING_RESEND) && frameTracker != null) {
+            incomplete = "录制已读完，仍缺 " + frameTracker.getMissingCount() + " 帧";
+            missingDirty = true;
+            publishMissingFrames(now, true);
+        }
+        String message = incomplete;
+        assemblerExecutor.submit(() -> finishSource(message));
+    }
+
+    private boolean queuesEmpty() {
+        BlockingQueue<Future<ReceivedFrame>> decoded = decodedQueue;
+        return decoded != null ? decoded.isEmpty() : frameQueue.isEmpty();
+    }
+
+    /**
+     * 重组线程：来源读完后的最终结果
+     *
+     * @param incomplete 传输未收齐时的状态消息，否则为 null
+     */
+    private void finishSource(String incomplete) {
+        if (!running) {
+            return;
+        }
+        ReceiverStatus status = statusPublisher.snapshot();
+        String message = incomplete;
+        if (message == null) {
+            message = switch (status.state()) {
+                case COMPLETE, ERROR -> "录制已读完，" + status.message();
+                default -> "录制已读完，未收到文件";
+            };
+        }
+        Listener current = listener;
+        if (current != null) {
+            current.onSourceFinished(status);
+        }
+        stopCapture(message);
+    }
+
+    /**
+     * 取下一帧：实时来源在本线程分析帧头，非实时来源按采集顺序取并行解码的结果
+     *
+     * @return 暂时没有帧时返回 null
+     */
+    private ReceivedFrame nextFrame() throws InterruptedException, ExecutionException {
+        BlockingQueue<Future<ReceivedFrame>> decoded = decodedQueue;
+        if (decoded != null) {
+            Future<ReceivedFrame> future = decoded.poll(200, TimeUnit.MILLISECONDS);
+            return future != null ? future.get() : null;
+        }
+        BufferedImage image = frameQueue.poll(200, TimeUnit.MILLISECONDS);
+        if (image == null) {
+            return null;
+        }
+        return new ReceivedFrame(frameAnalyzer.analyzeHeader(image), null, false);
+    }
+
+    /**
+     * 解码线程：分析帧头并立即解码负载（分析器的缩放缓冲区会被下一帧复用，不能留到分析线程再解码）。
+     * 重复帧同样会被解码，由状态机丢弃。
+     */
+    private ReceivedFrame decodeFrame(BufferedImage image) {
+        FrameAnalyzer analyzer = decodeAnalyzers.get();
+        FrameAnalyzer.HeaderAnalysis analysis = analyzer.analyzeHeader(image);
+        if (analysis == null) {
+            return new ReceivedFrame(null, null, true);
+        }
+        if (analysis.header().getFrameType() == FrameType.CALIBRATION) {
+            recordCalibration(analysis);
+            return new ReceivedFrame(analysis, null, true);
+        }
         FrameHeader header = analysis.header();
+        if (header.getFrameType() == FrameType.START && header.getSessionId() != 0) {
+            // 新传输的 DATA 帧可能在分析线程处理 START 帧之前就到达解码线程
+            activeSession = header.getSessionId();
+        }
+        if (isOtherSession(header)) {
+            return new ReceivedFrame(analysis, null, true);
+        }
+        return new ReceivedFrame(analysis, analyzer.decodePayload(analysis), true);
+    }
+
+    /**
+     * 取帧负载，未预先解码时在分析线程解码
+     */
+    private byte[] payloadOf(ReceivedFrame frame) {
+        return frame.decoded() ? frame.payload() : frameAnalyzer.decodePayload(frame.analysis());
+    }
+
+    static int decodeThreadCount() {
+        return Constants.DECODE_THREADS > 0
+                ? Constants.DECODE_THREADS
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 实时采集的解码线程数，默认给采集线程留一个核；只有一个时返回 0，在分析线程中解码
+     */
+    static int liveDecodeThreadCount() {
+        int threads = Constants.LIVE_DECODE_THREADS > 0
+                ? Constants.LIVE_DECODE_THREADS
+                : Runtime.getRuntime().availableProcessors() - 1;
+        return threads > 1 ? threads : 0;
+    }
+
+    private void handleFrame(ReceivedFrame frame, long now) {
+        FrameHeader header = frame.analysis().header();
         FrameType type = header.getFrameType();
+        if (type == FrameType.CALIBRATION || type == FrameType.CALIBRATION_END) {
+            handleCalibrationFrame(frame);
+            return;
+        }
+        if (type == FrameType.IDLE) {
+            // 解码 IDLE 帧携带的发送端布局，分析器据此切换
+            payloadOf(frame);
+        }
+        if (isOtherSession(header)) {
+            stats.otherSessionFrames.increment();
+            FrameDroppedEvent.commit(FrameDroppedEvent.OTHER_SESSION, header.getFrameIndex());
+            return;
+        }
 
         switch (state) {
             case SCANNING:
                 if (type == FrameType.IDLE) {
                     setState(ReceiverState.CONNECTED, "已连接 - 等待传输");
                 } else if (type == FrameType.START) {
-                    byte[] data = frameAnalyzer.decodePayload(analysis);
-                    StartFrameInfo info = parseStartFrame(data);
+                    byte[] data = payloadOf(frame);
+                    StartFrameInfo info = parseStartFrame(header, data);
                     if (info != null) {
                         startReceiving(info);
                     }
@@ -203,8 +491,8 @@ public class ReceiverController {
                 break;
             case CONNECTED:
                 if (type == FrameType.START) {
-                    byte[] data = frameAnalyzer.decodePayload(analysis);
-                    StartFrameInfo info = parseStartFrame(data);
+                    byte[] data = payloadOf(frame);
+                    StartFrameInfo info = parseStartFrame(header, data);
                     if (info != null) {
                         startReceiving(info);
                     }
@@ -213,19 +501,21 @@ public class ReceiverController {
             case RECEIVING:
             case WAITING_RESEND:
                 if (type == FrameType.DATA) {
-                    handleDataFrame(analysis, now);
+                    handleDataFrame(frame, now);
                 } else if (type == FrameType.EOF) {
-                    byte[] data = frameAnalyzer.decodePayload(analysis);
+                    byte[] data = payloadOf(frame);
                     if (data != null) {
                         handleEofFrame(data);
                     }
                 } else if (type == FrameType.START) {
-                    byte[] data = frameAnalyzer.decodePayload(analysis);
-                    StartFrameInfo info = parseStartFrame(data);
+                    byte[] data = payloadOf(frame);
+                    StartFrameInfo info = parseStartFrame(header, data);
                     if (info != null) {
                         if (!isSameFile(info)) {
                             startReceiving(info);
                         } else {
+                            // 发送端重新发送同一文件：沿用已接收的进度，改收新会话的帧
+                            activeSession = info.sessionId();
                             lastFrameTime = now;
                         }
                     }
@@ -235,8 +525,8 @@ public class ReceiverController {
             case COMPLETE:
             case ERROR:
                 if (type == FrameType.START) {
-                    byte[] data = frameAnalyzer.decodePayload(analysis);
-                    StartFrameInfo info = parseStartFrame(data);
+                    byte[] data = payloadOf(frame);
+                    StartFrameInfo info = parseStartFrame(header, data);
                     if (info != null) {
                         startReceiving(info);
                     }
@@ -247,42 +537,173 @@ public class ReceiverController {
         }
     }
 
-    private void handleDataFrame(FrameAnalyzer.HeaderAnalysis analysis, long now) {
-        if (receivedFrames == null) {
+    /**
+     * 属于其他会话（上一次传输残留）的 DATA / EOF 帧，在解码负载之前丢弃。v1 帧头没有会话 ID，不做过滤
+     */
+    private boolean isOtherSession(FrameHeader header) {
+        FrameType type = header.getFrameType();
+        if (type != FrameType.DATA && type != FrameType.EOF) {
+            return false;
+        }
+        int session = activeSession;
+        return header.getSessionId() != 0 && session != 0 && header.getSessionId() != session;
+    }
+
+    /**
+     * 校准帧只做测量，不影响文件接收状态
+     */
+    private void handleCalibrationFrame(ReceivedFrame frame) {
+        FrameHeader header = frame.analysis().header();
+        CalibrationProfile profile = CalibrationProfile.fromFrameIndex(header.getFrameIndex());
+        if (profile == null) {
             return;
         }
-        FrameHeader header = analysis.header();
+        boolean end = header.getFrameType() == FrameType.CALIBRATION_END;
+        if (end) {
+            calibration.recordEnd(profile, CalibrationProfile.sequenceOf(header.getFrameIndex()));
+        } else if (!frame.decoded()) {
+            recordCalibration(frame.analysis());
+        }
+        if (state == ReceiverState.SCANNING || state == ReceiverState.CONNECTED) {
+            if (end) {
+                setState(ReceiverState.CONNECTED, "链路校准 - " + profile + " 完成");
+            } else if (!profile.equals(calibrationProfile) || state == ReceiverState.SCANNING) {
+                setState(ReceiverState.CONNECTED, "链路校准 - " + profile);
+            }
+            calibrationProfile = profile;
+        }
+    }
+
+    /**
+     * 测量校准帧的测试图案，逐块误码计入热力图（需在分析器的缓冲区被下一帧复用之前调用）
+     */
+    private void recordCalibration(FrameAnalyzer.HeaderAnalysis analysis) {
+        int frameIndex = analysis.header().getFrameIndex();
+        CalibrationProfile profile = CalibrationProfile.fromFrameIndex(frameIndex);
+        if (profile == null) {
+            return;
+        }
+        int sequence = CalibrationProfile.sequenceOf(frameIndex);
+        FrameLayout layout = analysis.codec().getLayout();
+        // 帧头块内的偏移误差最多半个块，测试块更小时需要在这个范围内重新对齐
+        int searchRange = Math.max(Constants.PAYLOAD_RETRY_RANGE, layout.getBlockSize() / 2);
+        ErrorHeatmap.CalibrationFrame blocks = heatmap.calibrationFrame(layout.getProfile());
+        CalibrationSample sample = CalibrationPattern.measure(analysis.image(), layout,
+                analysis.offsetX(), analysis.offsetY(), profile, sequence, searchRange, blocks);
+        calibration.record(profile, layout.getProfile(), sequence, sample);
+        if (!sample.torn()) {
+            blocks.commit();
+        }
+    }
+
+    private void handleDataFrame(ReceivedFrame frame, long now) {
+        if (frameTracker == null) {
+            return;
+        }
+        FrameHeader header = frame.analysis().header();
         int index = header.getFrameIndex();
         if (index < 0 || index >= totalFrames) {
             return;
         }
-        if (receivedFrames[index]) {
+        if (frameTracker.isReceived(index)) {
+            stats.duplicateFrames.increment();
+            FrameDroppedEvent.commit(FrameDroppedEvent.DUPLICATE, index);
             return;
         }
 
-        byte[] payload = frameAnalyzer.decodePayload(analysis);
+        byte[] payload = payloadOf(frame);
         if (payload == null) {
+            FrameDroppedEvent.commit(FrameDroppedEvent.PAYLOAD_FAILED, index);
             return;
         }
 
-        frameDataMap.put(index, payload);
-        receivedFrames[index] = true;
-        receivedCount++;
+        try {
+            if (!chunkSink.write(index, payload)) {
+                // 目录清单尚未收齐，内容帧无法定位，留待补帧
+                FrameDroppedEvent.commit(FrameDroppedEvent.NOT_WRITABLE, index);
+                return;
+            }
+            advanceDigest(index, payload);
+        } catch (IOException e) {
+            setState(ReceiverState.ERROR, "写入文件失败: " + e.getMessage());
+            clearFrameBuffers();
+            return;
+        }
+        boolean missingChanged = frameTracker.markReceived(index);
+        stats.framesAccepted.increment();
         receivedBytes += payload.length;
         lastFrameTime = now;
-        boolean missingChanged = updateMissingFrames(index);
+        saveJournal(now, false);
 
-        if (listener != null) {
-            listener.onFrameIndex(index);
-            if (missingChanged) {
-                listener.onMissingFrames(new ArrayList<>(missingFrames));
-            }
-            listener.onProgress(receivedCount, totalFrames);
-            updateTransferRate(now, false);
+        if (missingChanged) {
+            missingDirty = true;
         }
+        statusPublisher.setProgress(frameTracker.getReceivedCount(), index);
+        publishMissingFrames(now, false);
+        updateTransferRate(now, false);
         maybeFinalize(now);
     }
 
+    /**
+     * 累加已连续前缀的校验和；缺口补齐后，后续已接收的分片由 {@link #catchUpDigest(long)} 分批读回
+     */
+    private void advanceDigest(int index, byte[] payload) {
+        if (prefixDigest != null) {
+            prefixDigest.offer(index, payload, payload.length);
+        }
+    }
+
+    /**
+     * 从文件读回紧接在已连续前缀之后、已接收的分片并累加校验和
+     * <p>
+     * 分析线程每轮最多读回约 maxBytes 字节，补齐早期缺口时不会一次读回大段文件而耽误采集队列；
+     * 收齐时仍未追上的部分由重组线程读回（见 {@link #finishDigest}）。读回失败时放弃增量校验，重组时整文件校验。
+     */
+    private void catchUpDigest(long maxBytes) {
+        if (prefixDigest == null || frameTracker == null || chunkSink == null) {
+            return;
+        }
+        int next = prefixDigest.getNextIndex();
+        long read = 0;
+        try {
+            while (read < maxBytes && next < totalFrames && frameTracker.isReceived(next)) {
+                if (digestBuffer == null) {
+                    digestBuffer = new byte[payloadCapacity];
+                }
+                int length = chunkSink.read(next, digestBuffer);
+                prefixDigest.offer(next, digestBuffer, length);
+                next = prefixDigest.getNextIndex();
+                read += payloadCapacity;
+            }
+        } catch (IOException e) {
+            prefixDigest = null;
+            digestBuffer = null;
+        }
+    }
+
+    /**
+     * 重组线程：读回增量校验尚未覆盖的分片（此时已全部收齐）
+     *
+     * @return 完整的校验和，读回失败时返回 null
+     */
+    private static byte[] finishDigest(CompletedTransfer transfer) {
+        PrefixDigest digest = transfer.prefixDigest();
+        if (digest == null) {
+            return null;
+        }
+        byte[] buffer = new byte[transfer.payloadCapacity()];
+        try {
+            while (!digest.isComplete()) {
+                int index = digest.getNextIndex();
+                int length = transfer.sink().read(index, buffer);
+                digest.offer(index, buffer, length);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return digest.digest();
+    }
+
     private void handleEofFrame(byte[] data) {
         EofFrameInfo eofInfo = parseEofFrame(data);
         if (eofInfo == null) {
@@ -291,7 +712,10 @@ public class ReceiverController {
         if (totalFrames > 0 && eofInfo.totalFrames() != totalFrames) {
             notifyError("EOF 总帧数不匹配: " + eofInfo.totalFrames() + " != " + totalFrames);
         }
-        if (expectedSha256 != null && !Arrays.equals(expectedSha256, eofInfo.sha256())) {
+        if (expectedSha256 == null) {
+            // 延迟校验和模式：START 帧不携带校验和，以 EOF 帧为准
+            expectedSha256 = eofInfo.sha256();
+        } else if (!Arrays.equals(expectedSha256, eofInfo.sha256())) {
             notifyError("EOF SHA-256 不匹配");
         }
         if (!eofReceived) {
@@ -302,117 +726,210 @@ public class ReceiverController {
         maybeFinalize(System.currentTimeMillis());
     }
 
-    private void assembleFile() {
-        List<Integer> missingFrames = collectMissingFrames();
-        if (!missingFrames.isEmpty()) {
-            setState(ReceiverState.WAITING_RESEND, "等待补帧: " + missingFrames.size());
-            if (listener != null) {
-                listener.onMissingFrames(missingFrames);
-            }
+    /**
+     * 将已收齐的传输从当前接收状态中摘出，交给重组线程
+     * <p>
+     * 摘出后分析线程可以立即开始接收下一个文件（队列发送时下一个 START 紧跟在 EOF 之后）。
+     */
+    private CompletedTransfer detachTransfer() {
+        CompletedTransfer transfer = new CompletedTransfer(transferGeneration, fileName, chunkSink, journal,
+                prefixDigest, payloadCapacity, expectedSha256, directoryTransfer && manifestLength == 0);
+        chunkSink = null;
+        journal = null;
+        prefixDigest = null;
+        digestBuffer = null;
+        return transfer;
+    }
+
+    private void assembleFile(CompletedTransfer transfer) {
+        ChunkSink sink = transfer.sink();
+        if (sink == null) {
             return;
         }
 
+        byte[] prefixSha = finishDigest(transfer);
         Path outputFile;
         try {
-            if (directoryTransfer) {
-                Path archivePath = saveDirectory.resolve(fileName + ".zip");
-                outputFile = fileAssembler.assemble(archivePath, totalFrames, frameDataMap,
-                        (current, total) -> {
-                            if (listener != null) {
-                                listener.onProgress(current, total);
-                            }
-                        });
-            } else {
-                outputFile = fileAssembler.assemble(saveDirectory, fileName, totalFrames, frameDataMap,
-                        (current, total) -> {
-                            if (listener != null) {
-                                listener.onProgress(current, total);
-                            }
-                        });
-            }
+            outputFile = sink.finish();
         } catch (IOException e) {
-            notifyError("写入文件失败: " + e.getMessage());
-            setState(ReceiverState.ERROR, "写入失败");
-            clearFrameBuffers();
+            failTransfer(transfer, "写入文件失败: " + e.getMessage());
             return;
         }
 
         try {
-            byte[] actualSha = fileAssembler.computeSha256(outputFile);
-            if (!Arrays.equals(actualSha, expectedSha256)) {
-                setState(ReceiverState.ERROR, "校验失败");
-                notifyError("SHA-256 校验失败");
-                clearFrameBuffers();
+            byte[] actualSha = prefixSha != null ? prefixSha : fileAssembler.computeSha256(outputFile);
+            if (!Arrays.equals(actualSha, transfer.expectedSha256())) {
+                failTransfer(transfer, "SHA-256 校验失败");
                 return;
             }
         } catch (IOException e) {
-            notifyError("校验失败: " + e.getMessage());
-            setState(ReceiverState.ERROR, "校验失败");
-            clearFrameBuffers();
+            failTransfer(transfer, "校验失败: " + e.getMessage());
             return;
         }
 
         Path finalOutput = outputFile;
-        if (directoryTransfer) {
+        if (transfer.zipArchive()) {
             try {
-                Path targetDir = saveDirectory.resolve(fileName);
+                Path targetDir = saveDirectory.resolve(transfer.fileName());
                 extractZip(outputFile, targetDir);
                 Files.deleteIfExists(outputFile);
                 finalOutput = targetDir;
             } catch (IOException e) {
-                notifyError("解压失败: " + e.getMessage());
-                setState(ReceiverState.ERROR, "解压失败");
-                clearFrameBuffers();
+                failTransfer(transfer, "解压失败: " + e.getMessage());
                 return;
             }
         }
 
-        setState(ReceiverState.COMPLETE, "接收完成: " + fileName);
+        if (transfer.journal() != null) {
+            transfer.journal().delete();
+        }
+        setTransferState(transfer.generation(), ReceiverState.COMPLETE, "接收完成: " + transfer.fileName());
         if (listener != null) {
             listener.onCompleted(finalOutput);
         }
-        clearFrameBuffers();
     }
 
-    private List<Integer> collectMissingFrames() {
-        List<Integer> missing = new ArrayList<>();
-        if (receivedFrames == null) {
-            return missing;
+    /**
+     * 重组失败：错误详情作为状态消息发布；重组期间已经开始接收下一个文件时只更新消息
+     */
+    private void failTransfer(CompletedTransfer transfer, String error) {
+        transfer.sink().abort();
+        if (transfer.journal() != null) {
+            transfer.journal().delete();
         }
-        for (int i = 0; i < receivedFrames.length; i++) {
-            if (!receivedFrames[i]) {
-                missing.add(i);
+        String message = transfer.fileName() + ": " + error;
+        synchronized (stateLock) {
+            if (transfer.generation() == transferGeneration) {
+                setState(ReceiverState.ERROR, message);
+            } else {
+                notifyError(message);
+            }
+        }
+    }
+
+    /**
+     * 更新重组结果状态；重组期间已经开始接收下一个文件时不覆盖其状态
+     */
+    private void setTransferState(long generation, ReceiverState newState, String message) {
+        synchronized (stateLock) {
+            if (generation == transferGeneration) {
+                setState(newState, message);
             }
         }
-        return missing;
     }
 
     private void startReceiving(StartFrameInfo info) {
+        // 未收齐的上一个文件保留 .part 与接收日志，之后重新发送时可继续
+        suspendFrameBuffers();
+        synchronized (stateLock) {
+            transferGeneration++;
+        }
         this.fileName = info.fileName();
         this.fileSize = info.fileSize();
         this.totalFrames = info.totalFrames();
-        this.expectedSha256 = info.sha256();
+        this.activeSession = info.sessionId();
+        this.sessionLayout = info.layout();
+        this.payloadCapacity = new FrameCodec(sessionLayout).getPayloadCapacity();
         this.transferFlags = info.flags();
-        this.directoryTransfer = (transferFlags & Constants.START_FLAG_DIRECTORY) != 0;
-        this.receivedFrames = new boolean[totalFrames];
-        this.frameDataMap = new HashMap<>();
-        this.receivedCount = 0;
+        this.expectedSha256 = isDeferredHash(transferFlags) ? null : info.sha256();
+        this.manifestLength = info.manifestLength();
+        this.directoryTransfer = (transferFlags & (Constants.START_FLAG_DIRECTORY | Constants.START_FLAG_MANIFEST)) != 0;
+        this.frameTracker = new FrameTracker(totalFrames);
+        this.prefixDigest = new PrefixDigest(totalFrames);
         this.receivedBytes = 0;
         this.transferStartTime = System.currentTimeMillis();
         this.lastRateUpdateTime = transferStartTime;
         this.eofReceived = false;
         this.eofReceivedTime = 0;
         this.lastFrameTime = System.currentTimeMillis();
-        this.maxFrameIndexSeen = -1;
-        this.missingFrames.clear();
+        this.missingDirty = false;
 
-        if (listener != null) {
-            listener.onFileInfo(fileName, fileSize, totalFrames);
-            listener.onProgress(0, totalFrames);
-            listener.onTransferRate(0);
+        if (!openChunkSink()) {
+            return;
+        }
+        int resumed = frameTracker.getReceivedCount();
+
+        statusPublisher.setFileInfo(fileName, fileSize, totalFrames);
+        statusPublisher.setProgress(resumed, -1);
+
+        if (resumed > 0) {
+            setState(ReceiverState.RECEIVING, "恢复接收: " + fileName + " (" + resumed + "/" + totalFrames + ")");
+        } else {
+            setState(ReceiverState.RECEIVING, "开始接收: " + fileName);
+        }
+    }
+
+    /**
+     * 读取上次中断时留下的接收日志，恢复已接收帧标记
+     */
+    private void restoreJournal() {
+        BitSet saved = journal.load();
+        if (saved == null) {
+            return;
+        }
+        frameTracker.restore(saved);
+    }
+
+    /**
+     * 同步 .part 文件后保存接收日志
+     *
+     * @param force 是否忽略保存间隔
+     */
+    private void saveJournal(long now, boolean force) {
+        if (journal == null || frameTracker == null || !(chunkSink instanceof FileSink sink)) {
+            return;
+        }
+        if (!force && now - lastJournalTime < Constants.JOURNAL_INTERVAL_MS) {
+            return;
         }
+        lastJournalTime = now;
+        try {
+            sink.sync();
+            journal.save(frameTracker.getReceived());
+        } catch (IOException e) {
+            notifyError("保存接收进度失败: " + e.getMessage());
+        }
+    }
 
-        setState(ReceiverState.RECEIVING, "开始接收: " + fileName);
+    private boolean openChunkSink() {
+        if (chunkSink != null) {
+            chunkSink.abort();
+        }
+        if (journal != null) {
+            journal.delete();
+            journal = null;
+        }
+        try {
+            if (manifestLength > 0) {
+                // 清单模式：按清单直接写入目标目录下的各个文件
+                chunkSink = new DirectorySink(saveDirectory.resolve(fileName), fileSize,
+                        payloadCapacity, manifestLength, Constants.SINK_SYNC_BYTES);
+            } else {
+                Path outputFile = directoryTransfer
+                        ? saveDirectory.resolve(fileName + ".zip")
+                        : saveDirectory.resolve(fileName);
+                FileSink sink = new FileSink(outputFile, fileSize, payloadCapacity,
+                        Constants.SINK_SYNC_BYTES);
+                // 单文件（及旧版 zip 目录）写入同一个 .part 文件，记录接收日志以便中断后继续；
+                // 日志须在打开（预分配）.part 文件之前读取，才能核对上次留下的文件大小
+                if (Constants.JOURNAL_INTERVAL_MS > 0) {
+                    journal = new ReceiveJournal(sink.getPartFile(), fileName, fileSize, totalFrames,
+                            payloadCapacity, transferFlags, expectedSha256);
+                    lastJournalTime = System.currentTimeMillis();
+                    restoreJournal();
+                }
+                chunkSink = sink;
+            }
+            // 恢复的帧由分析线程逐轮从 .part 文件读回累加（见 catchUpDigest），不在处理 START 帧时一次读完
+            chunkSink.open();
+        } catch (IOException | IllegalArgumentException e) {
+            // 保留磁盘上的接收日志，下次仍可继续
+            journal = null;
+            setState(ReceiverState.ERROR, "创建文件失败: " + e.getMessage());
+            clearFrameBuffers();
+            return false;
+        }
+        return true;
     }
 
     private boolean isSameFile(StartFrameInfo info) {
@@ -420,89 +937,110 @@ public class ReceiverController {
                 && fileName.equals(info.fileName())
                 && fileSize == info.fileSize()
                 && totalFrames == info.totalFrames()
-                && Arrays.equals(expectedSha256, info.sha256())
-                && transferFlags == info.flags();
+                && info.layout().equals(sessionLayout)
+                && transferFlags == info.flags()
+                && manifestLength == info.manifestLength()
+                && (isDeferredHash(transferFlags) || Arrays.equals(expectedSha256, info.sha256()));
+    }
+
+    private static boolean isDeferredHash(int flags) {
+        return (flags & Constants.START_FLAG_DEFERRED_HASH) != 0;
     }
 
     private void resetReceivingData() {
         fileName = null;
         fileSize = 0;
         totalFrames = 0;
+        activeSession = 0;
+        sessionLayout = null;
+        payloadCapacity = 0;
         expectedSha256 = null;
         transferFlags = 0;
+        manifestLength = 0;
         directoryTransfer = false;
         eofReceived = false;
         eofReceivedTime = 0;
         receivedBytes = 0;
         transferStartTime = 0;
         lastRateUpdateTime = 0;
-        maxFrameIndexSeen = -1;
-        missingFrames.clear();
-        clearFrameBuffers();
-        if (listener != null) {
-            listener.onFileInfo(null, 0, 0);
-            listener.onProgress(0, 0);
-            listener.onTransferRate(-1);
-        }
+        suspendFrameBuffers();
+        statusPublisher.setFileInfo(null, 0, 0);
     }
 
-    private void clearFrameBuffers() {
-        receivedFrames = null;
-        frameDataMap = null;
-        receivedCount = 0;
+    /**
+     * 停止或断开时保留 .part 文件和接收日志，再次收到相同 START 帧时继续接收
+     */
+    private void suspendFrameBuffers() {
+        if (journal != null && chunkSink != null) {
+            saveJournal(System.currentTimeMillis(), true);
+            chunkSink.close();
+            chunkSink = null;
+            journal = null;
+        }
+        clearFrameBuffers();
     }
 
-    private boolean updateMissingFrames(int index) {
-        if (receivedFrames == null || totalFrames <= 0) {
-            return false;
-        }
-        boolean changed = false;
-        if (index > maxFrameIndexSeen + 1) {
-            for (int i = maxFrameIndexSeen + 1; i < index && i < receivedFrames.length; i++) {
-                if (!receivedFrames[i] && missingFrames.add(i)) {
-                    changed = true;
-                }
-            }
-        }
-        if (missingFrames.remove(index)) {
-            changed = true;
+    private void clearFrameBuffers() {
+        if (journal != null) {
+            journal.delete();
+            journal = null;
         }
-        if (index > maxFrameIndexSeen) {
-            maxFrameIndexSeen = index;
+        frameTracker = null;
+        prefixDigest = null;
+        digestBuffer = null;
+        if (chunkSink != null) {
+            chunkSink.abort();
+            chunkSink = null;
         }
-        return changed;
     }
 
     private void markTrailingMissingFrames() {
-        if (receivedFrames == null || totalFrames <= 0) {
+        if (frameTracker == null || totalFrames <= 0) {
             return;
         }
-        boolean changed = false;
-        int start = Math.max(maxFrameIndexSeen + 1, 0);
-        for (int i = start; i < totalFrames; i++) {
-            if (!receivedFrames[i] && missingFrames.add(i)) {
-                changed = true;
-            }
+        if (frameTracker.markAllSeen()) {
+            missingDirty = true;
+            publishMissingFrames(System.currentTimeMillis(), true);
+        }
+    }
+
+    /**
+     * 把丢失帧区间交给状态发布器；导出区间需要遍历位图，接收中按界面刷新间隔限频
+     */
+    private void publishMissingFrames(long now, boolean force) {
+        if (frameTracker == null || !missingDirty) {
+            return;
         }
-        if (changed && listener != null) {
-            listener.onMissingFrames(new ArrayList<>(missingFrames));
+        if (!force && now - lastMissingPublishTime < Constants.UI_UPDATE_INTERVAL_MS) {
+            return;
         }
+        missingDirty = false;
+        lastMissingPublishTime = now;
+        statusPublisher.setMissingFrames(frameTracker.missingRanges());
     }
 
-    private StartFrameInfo parseStartFrame(byte[] data) {
-        int baseLength = 1 + 8 + 4 + 32;
+    private StartFrameInfo parseStartFrame(FrameHeader header, byte[] data) {
+        // v1 的 START 帧不携带布局，按当前布局接收
+        int layoutBytes = header.getVersion() >= FrameHeader.VERSION_2 ? LayoutProfile.BYTES : 0;
+        int baseLength = layoutBytes + 1 + 8 + 4 + 32;
         if (data == null || data.length < baseLength) {
             return null;
         }
+        LayoutProfile layout = layoutBytes > 0
+                ? FrameCodec.beaconLayout(FrameType.START, data) : frameAnalyzer.getProfile();
+        if (layout == null) {
+            return null;
+        }
 
-        int nameLength = data[0] & 0xFF;
-        int expectedLength = 1 + nameLength + 8 + 4 + 32;
+        int nameOffset = layoutBytes + 1;
+        int nameLength = data[layoutBytes] & 0xFF;
+        int expectedLength = nameOffset + nameLength + 8 + 4 + 32;
         if (data.length < expectedLength) {
             return null;
         }
 
-        String name = new String(data, 1, nameLength, StandardCharsets.UTF_8);
-        ByteBuffer buffer = ByteBuffer.wrap(data, 1 + nameLength, data.length - (1 + nameLength));
+        String name = new String(data, nameOffset, nameLength, StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(data, nameOffset + nameLength, data.length - (nameOffset + nameLength));
         long size = buffer.getLong();
         int frames = buffer.getInt();
         byte[] sha = new byte[32];
@@ -511,8 +1049,18 @@ public class ReceiverController {
         if (buffer.remaining() >= Constants.START_PARAMS_BYTES) {
             flags = buffer.getInt();
         }
+        int manifestLength = 0;
+        if ((flags & Constants.START_FLAG_MANIFEST) != 0) {
+            if (buffer.remaining() < 4) {
+                return null;
+            }
+            manifestLength = buffer.getInt();
+            if (manifestLength <= 0 || manifestLength > size) {
+                return null;
+            }
+        }
 
-        return new StartFrameInfo(name, size, frames, sha, flags);
+        return new StartFrameInfo(header.getSessionId(), layout, name, size, frames, sha, flags, manifestLength);
     }
 
     private EofFrameInfo parseEofFrame(byte[] data) {
@@ -546,21 +1094,14 @@ public class ReceiverController {
 
     private void setState(ReceiverState newState, String message) {
         this.state = newState;
-        if (listener != null) {
-            listener.onStateChanged(newState, message);
-            if (newState != ReceiverState.RECEIVING) {
-                listener.onTransferRate(-1);
-            }
-        }
+        statusPublisher.setState(newState, message);
     }
 
     private void notifyError(String message) {
-        if (listener != null) {
-            listener.onError(message);
-        }
+        statusPublisher.setMessage(message);
     }
 
-    private void initExecutors() {
+    private void initExecutors(int decodeThreads) {
         captureExecutor = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r, "CaptureThread");
             t.setDaemon(true);
@@ -576,15 +1117,22 @@ public class ReceiverController {
             t.setDaemon(true);
             return t;
         });
+        decodeExecutor = decodeThreads > 0 ? Executors.newFixedThreadPool(decodeThreads, r -> {
+            Thread t = new Thread(r, "DecoderThread");
+            t.setDaemon(true);
+            return t;
+        }) : null;
     }
 
     private void shutdownExecutors() {
         shutdownExecutor(captureExecutor, 1500, false);
         shutdownExecutor(analyzerExecutor, 1000, true);
         shutdownExecutor(assemblerExecutor, 1000, true);
+        shutdownExecutor(decodeExecutor, 1000, true);
         captureExecutor = null;
         analyzerExecutor = null;
         assemblerExecutor = null;
+        decodeExecutor = null;
     }
 
     private void shutdownExecutor(ExecutorService executor, long timeoutMs, boolean force) {
@@ -604,6 +1152,7 @@ public class ReceiverController {
     private void cleanupAfterStop() {
         shutdownExecutors();
         frameQueue.clear();
+        decodedQueue = null;
         resetReceivingData();
         stopping = false;
     }
@@ -616,32 +1165,48 @@ public class ReceiverController {
         return Paths.get(System.getProperty("user.home"));
     }
 
+    /**
+     * 接收监听器
+     * <p>
+     * 状态变化经 {@link StatusPublisher} 合并后按 UI_UPDATE_INTERVAL_MS 间隔在发布线程回调，
+     * 接收线程不会因界面刷新而阻塞。
+     */
     public interface Listener {
-        void onPreviewFrame(BufferedImage image);
-
-        void onStateChanged(ReceiverState state, String message);
-
-        void onFileInfo(String fileName, long fileSize, int totalFrames);
-
-        void onProgress(int receivedFrames, int totalFrames);
-
-        void onTransferRate(double bytesPerSecond);
-
-        void onFrameIndex(int frameIndex);
-
-        void onMissingFrames(List<Integer> missingFrames);
+        void onStatus(ReceiverStatus status);
 
         void onCompleted(Path outputFile);
 
-        void onError(String message);
+        /**
+         * 有限来源（录制文件）全部分析完毕，接收随即停止
+         *
+         * @param status 停止前的状态快照，未收齐时带有缺失帧
+         */
+        default void onSourceFinished(ReceiverStatus status) {
+        }
+    }
+
+    /**
+     * 一帧的分析结果
+     *
+     * @param analysis 帧头分析结果，识别失败时为 null
+     * @param payload  预先解码的负载
+     * @param decoded  负载是否已解码（为 false 时由分析线程按需解码）
+     */
+    private record ReceivedFrame(FrameAnalyzer.HeaderAnalysis analysis, byte[] payload, boolean decoded) {
     }
 
-    private record StartFrameInfo(String fileName, long fileSize, int totalFrames, byte[] sha256, int flags) {
+    private record StartFrameInfo(int sessionId, LayoutProfile layout, String fileName, long fileSize, int totalFrames, byte[] sha256, int flags,
+                                  int manifestLength) {
     }
 
     private record EofFrameInfo(int totalFrames, byte[] sha256) {
     }
 
+    private record CompletedTransfer(long generation, String fileName, ChunkSink sink, ReceiveJournal journal,
+                                     PrefixDigest prefixDigest, int payloadCapacity, byte[] expectedSha256,
+                                     boolean zipArchive) {
+    }
+
     private void extractZip(Path zipFile, Path targetDir) throws IOException {
         Files.createDirectories(targetDir);
         try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
@@ -668,7 +1233,7 @@ public class ReceiverController {
     }
 
     private void updateTransferRate(long now, boolean force) {
-        if (listener == null || transferStartTime <= 0) {
+        if (transferStartTime <= 0) {
             return;
         }
         if (!force && now - lastRateUpdateTime < 500) {
@@ -677,27 +1242,31 @@ public class ReceiverController {
         long elapsedMs = Math.max(now - transferStartTime, 1);
         double rate = receivedBytes * 1000.0 / elapsedMs;
         lastRateUpdateTime = now;
-        listener.onTransferRate(rate);
+        statusPublisher.setTransferRate(rate);
     }
 
     private void maybeFinalize(long now) {
         if ((state != ReceiverState.RECEIVING && state != ReceiverState.WAITING_RESEND) || !eofReceived) {
             return;
         }
-        boolean complete = receivedCount >= totalFrames && totalFrames > 0;
+        boolean complete = totalFrames > 0 && frameTracker.isComplete();
         if (complete) {
             setState(ReceiverState.ASSEMBLING, "正在重组文件");
             if (assemblerExecutor != null) {
-                assemblerExecutor.submit(this::assembleFile);
+                CompletedTransfer transfer = detachTransfer();
+                assemblerExecutor.submit(() -> {
+                    long start = System.nanoTime();
+                    assembleFile(transfer);
+                    stats.assembly.recordSince(start);
+                });
             }
             return;
         }
         boolean timeout = now - eofReceivedTime >= Constants.EOF_GRACE_MS;
         if (timeout && state != ReceiverState.WAITING_RESEND) {
-            setState(ReceiverState.WAITING_RESEND, "等待补帧: " + missingFrames.size());
-            if (listener != null) {
-                listener.onMissingFrames(new ArrayList<>(missingFrames));
-            }
+            setState(ReceiverState.WAITING_RESEND, "等待补帧: " + frameTracker.getMissingCount());
+            missingDirty = true;
+            publishMissingFrames(now, true);
         }
     }
 }
@@ -0,0 +1,203 @@
+package dev.cheng.dov.argus;
+
+import dev.cheng.dov.argus.opencv.OpenCvSupport;
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.codec.LumaKernels;
+import dev.cheng.dov.protocol.stats.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接收管线统计
+ * <p>
+ * 各阶段耗时（纳秒）和重试次数记录在 {@link Histogram} 中，事件计数使用 LongAdder。
+ * 采集、分析、重组线程在包内直接写入，界面或其他调用方通过 {@link #snapshot()} 查询。
+ * <p>
+ * 单帧解码耗时与采集帧间隔（{@code dov.captureFps}）比较，超出的帧计入“解码超时”。
+ * 并行解码时单帧耗时可以超过帧间隔，只要平均耗时除以解码线程数仍在帧间隔内。
+ */
+public class ReceiverStats {
+
+    /**
+     * 单帧解码预算：采集帧间隔（纳秒）
+     */
+    public static final long FRAME_BUDGET_NANOS = 1_000_000_000L / Constants.CAPTURE_FPS;
+
+    /**
+     * 快照中列出的出错数据行数
+     */
+    private static final int TOP_FAILED_ROWS = 8;
+
+    // 阶段耗时
+    final Histogram captureRead = new Histogram("采集读取");
+    final Histogram normalize = new Histogram("尺寸归一化");
+    final Histogram luma = new Histogram("亮度转换");
+    final Histogram detect = new Histogram("角标检测");
+    final Histogram headerDecode = new Histogram("帧头解码");
+    final Histogram rectify = new Histogram("透视校正");
+    final Histogram payloadDecode = new Histogram("数据解码");
+    final Histogram assembly = new Histogram("文件重组");
+    final Histogram frameDecode = new Histogram("单帧解码");
+
+    // 重试深度
+    final Histogram headerAttempts = new Histogram("帧头尝试次数");
+    final Histogram payloadAttempts = new Histogram("数据解码尝试次数");
+
+    // 事件计数
+    final LongAdder framesCaptured = new LongAdder();
+    final LongAdder queueDrops = new LongAdder();
+    final LongAdder overBudgetFrames = new LongAdder();
+    final LongAdder headerFailures = new LongAdder();
+    final LongAdder crcFailures = new LongAdder();
+    final LongAdder rectifyFailures = new LongAdder();
+    final LongAdder parityCorrections = new LongAdder();
+    final LongAdder duplicateFrames = new LongAdder();
+    final LongAdder otherSessionFrames = new LongAdder();
+    final LongAdder framesAccepted = new LongAdder();
+
+    private final List<Histogram> timings = List.of(captureRead, normalize, luma, detect, headerDecode,
+            rectify, payloadDecode, assembly, frameDecode);
+    private final List<Histogram> retries = List.of(headerAttempts, payloadAttempts);
+
+    // 奇偶位不符的数据行（相对数据区的行号 -> 次数）
+    private final Map<Integer, LongAdder> failedRows = new ConcurrentHashMap<>();
+
+    private volatile long resetTime = System.currentTimeMillis();
+
+    /**
+     * 记录一帧从帧头分析到负载解码的总耗时
+     */
+    void recordFrameDecode(long nanos) {
+        frameDecode.record(nanos);
+        if (nanos > FRAME_BUDGET_NANOS) {
+            overBudgetFrames.increment();
+        }
+    }
+
+    /**
+     * 记录一帧中奇偶位不符的数据行
+     */
+    void recordFailedRows(int[] rows) {
+        for (int row : rows) {
+            failedRows.computeIfAbsent(row, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 清零全部统计
+     */
+    public void reset() {
+        for (Histogram histogram : timings) {
+            histogram.reset();
+        }
+        for (Histogram histogram : retries) {
+            histogram.reset();
+        }
+        framesCaptured.reset();
+        queueDrops.reset();
+        overBudgetFrames.reset();
+        headerFailures.reset();
+        crcFailures.reset();
+        rectifyFailures.reset();
+        parityCorrections.reset();
+        failedRows.clear();
+        duplicateFrames.reset();
+        otherSessionFrames.reset();
+        framesAccepted.reset();
+        resetTime = System.currentTimeMillis();
+    }
+
+    public Snapshot snapshot() {
+        List<Histogram.Snapshot> timingSnapshots = new ArrayList<>();
+        for (Histogram histogram : timings) {
+            timingSnapshots.add(histogram.snapshot());
+        }
+        List<Histogram.Snapshot> retrySnapshots = new ArrayList<>();
+        for (Histogram histogram : retries) {
+            retrySnapshots.add(histogram.snapshot());
+        }
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("采集帧数", framesCaptured.sum());
+        counters.put("队列丢弃", queueDrops.sum());
+        counters.put("解码超时", overBudgetFrames.sum());
+        counters.put("帧头失败", headerFailures.sum());
+        counters.put("CRC 失败", crcFailures.sum());
+        counters.put("校正失败", rectifyFailures.sum());
+        counters.put("奇偶纠正", parityCorrections.sum());
+        counters.put("重复帧", duplicateFrames.sum());
+        counters.put("其他会话", otherSessionFrames.sum());
+        counters.put("接收帧数", framesAccepted.sum());
+        Map<Integer, Long> rows = new LinkedHashMap<>();
+        failedRows.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(TOP_FAILED_ROWS)
+                .forEach(entry -> rows.put(entry.getKey(), entry.getValue()));
+        return new Snapshot(System.currentTimeMillis() - resetTime, FRAME_BUDGET_NANOS,
+                LumaKernels.preferred().name(), OpenCvSupport.backendName(), timingSnapshots, retrySnapshots, counters,
+                rows);
+    }
+
+    /**
+     * 统计快照
+     *
+     * @param elapsedMs         距上次清零的时间
+     * @param frameBudgetNanos  单帧解码预算（采集帧间隔，纳秒）
+     * @param kernels           当前使用的亮度内核
+     * @param backend           帧分析后端（java / opencv）
+     * @param timings           阶段耗时（纳秒）
+     * @param retries           重试次数
+     * @param counters          事件计数
+     * @param failedRows        奇偶位不符次数最多的数据行（行号 -> 次数，按次数降序）
+     */
+    public record Snapshot(long elapsedMs, long frameBudgetNanos, String kernels, String backend,
+                           List<Histogram.Snapshot> timings, List<Histogram.Snapshot> retries,
+                           Map<String, Long> counters, Map<Integer, Long> failedRows) {
+
+        /**
+         * 格式化为多行文本
+         */
+        public String format() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("统计时长: %.1f s%n", elapsedMs / 1000.0));
+            builder.append(String.format("单帧解码预算: %.2f ms（采集帧间隔）%n", frameBudgetNanos / 1e6));
+            builder.append(String.format("亮度内核: %s%n", kernels));
+            builder.append(String.format("分析后端: %s%n%n", backend));
+            builder.append(String.format("%-10s %9s %9s %9s %9s %9s %9s%n",
+                    "阶段 (ms)", "次数", "平均", "P50", "P90", "P99", "最大"));
+            for (Histogram.Snapshot timing : timings) {
+                builder.append(String.format("%-10s %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                        timing.name(), timing.count(), timing.mean() / 1e6, timing.p50() / 1e6,
+                        timing.p90() / 1e6, timing.p99() / 1e6, timing.max() / 1e6));
+            }
+            builder.append(System.lineSeparator());
+            for (Histogram.Snapshot retry : retries) {
+                builder.append(String.format("%-10s %9d %9.2f %9d %9d %9d %9d%n",
+                        retry.name(), retry.count(), retry.mean(), retry.p50(), retry.p90(), retry.p99(),
+                        retry.max()));
+            }
+            builder.append(System.lineSeparator());
+            double seconds = Math.max(elapsedMs / 1000.0, 0.001);
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                builder.append(String.format("%-10s %9d  (%.1f/s)%n", counter.getKey(), counter.getValue(),
+                        counter.getValue() / seconds));
+            }
+            if (!failedRows.isEmpty()) {
+                builder.append(System.lineSeparator());
+                builder.append("奇偶位不符的数据行:");
+                for (Map.Entry<Integer, Long> row : failedRows.entrySet()) {
+                    builder.append(String.format(" %d×%d", row.getKey(), row.getValue()));
+                }
+                builder.append(System.lineSeparator());
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.cheng.dov.argus;
+
+import dev.cheng.dov.protocol.file.FrameRanges;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 接收状态快照（不可变）
+ *
+ * @param state          接收状态
+ * @param message        最新状态或错误提示
+ * @param fileName       当前文件名，未在接收时为 null
+ * @param fileSize       文件大小
+ * @param totalFrames    总帧数
+ * @param receivedFrames 已接收帧数
+ * @param missingFrames  丢失帧区间
+ * @param frameIndex     最新接收的帧序号，-1 表示尚未收到
+ * @param bytesPerSecond 接收速率，-1 表示不在接收
+ * @param preview        最新采集画面，可能为 null
+ */
+public record ReceiverStatus(ReceiverState state, String message, String fileName, long fileSize,
+                             int totalFrames, int receivedFrames, FrameRanges missingFrames,
+                             int frameIndex, double bytesPerSecond, BufferedImage preview) {
+}
@@ -0,0 +1,158 @@
+package dev.cheng.dov.argus;
+
+import dev.cheng.dov.protocol.file.FrameRanges;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 接收状态发布器
+ * <p>
+ * 采集、分析、重组线程只在锁内更新状态字段，不等待界面。发布线程按固定间隔检查，
+ * 有变化时把当前状态合并成一个 {@link ReceiverStatus} 快照交出，
+ * 无论帧率多高，界面每个间隔最多刷新一次。
+ */
+public class StatusPublisher {
+
+    private final long intervalMs;
+    private final Consumer<ReceiverStatus> consumer;
+    private final Object lock = new Object();
+    private ScheduledExecutorService publisher;
+
+    // 以下状态由 lock 保护
+    private boolean dirty = true;
+    private ReceiverState state = ReceiverState.STOPPED;
+    private String message = ReceiverState.STOPPED.getDescription();
+    private String fileName;
+    private long fileSize;
+    private int totalFrames;
+    private int receivedFrames;
+    private FrameRanges missingFrames = FrameRanges.EMPTY;
+    private int frameIndex = -1;
+    private double bytesPerSecond = -1;
+    private BufferedImage preview;
+
+    /**
+     * @param intervalMs 发布间隔
+     * @param consumer   快照接收方（在发布线程调用）
+     */
+    public StatusPublisher(long intervalMs, Consumer<ReceiverStatus> consumer) {
+        this.intervalMs = intervalMs;
+        this.consumer = consumer;
+    }
+
+    public synchronized void start() {
+        if (publisher != null) {
+            return;
+        }
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "StatusPublisher");
+            t.setDaemon(true);
+            return t;
+        });
+        publisher.scheduleWithFixedDelay(this::publish, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (publisher != null) {
+            publisher.shutdownNow();
+            publisher = null;
+        }
+    }
+
+    public void setState(ReceiverState state, String message) {
+        synchronized (lock) {
+            this.state = state;
+            this.message = message;
+            if (state != ReceiverState.RECEIVING) {
+                this.bytesPerSecond = -1;
+            }
+            dirty = true;
+        }
+    }
+
+    public void setMessage(String message) {
+        synchronized (lock) {
+            this.message = message;
+            dirty = true;
+        }
+    }
+
+    /**
+     * 切换当前文件，同时清空进度；fileName 为 null 表示没有正在接收的文件
+     */
+    public void setFileInfo(String fileName, long fileSize, int totalFrames) {
+        synchronized (lock) {
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+            this.totalFrames = totalFrames;
+            this.receivedFrames = 0;
+            this.missingFrames = FrameRanges.EMPTY;
+            this.frameIndex = -1;
+            this.bytesPerSecond = fileName != null ? 0 : -1;
+            dirty = true;
+        }
+    }
+
+    public void setProgress(int receivedFrames, int frameIndex) {
+        synchronized (lock) {
+            this.receivedFrames = receivedFrames;
+            this.frameIndex = frameIndex;
+            dirty = true;
+        }
+    }
+
+    public void setMissingFrames(FrameRanges missingFrames) {
+        synchronized (lock) {
+            this.missingFrames = missingFrames;
+            dirty = true;
+        }
+    }
+
+    public void setTransferRate(double bytesPerSecond) {
+        synchronized (lock) {
+            this.bytesPerSecond = bytesPerSecond;
+            dirty = true;
+        }
+    }
+
+    public void setPreview(BufferedImage preview) {
+        synchronized (lock) {
+            this.preview = preview;
+            dirty = true;
+        }
+    }
+
+    /**
+     * 当前状态快照
+     */
+    public ReceiverStatus snapshot() {
+        synchronized (lock) {
+            return createSnapshot();
+        }
+    }
+
+    private ReceiverStatus createSnapshot() {
+        return new ReceiverStatus(state, message, fileName, fileSize, totalFrames, receivedFrames,
+                missingFrames, frameIndex, bytesPerSecond, preview);
+    }
+
+    private void publish() {
+        ReceiverStatus status;
+        synchronized (lock) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            status = createSnapshot();
+        }
+        try {
+            consumer.accept(status);
+        } catch (RuntimeException ignored) {
+            // 不中断后续发布
+        }
+    }
+}
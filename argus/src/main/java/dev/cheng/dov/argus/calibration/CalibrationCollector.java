@@ -0,0 +1,82 @@
+package dev.cheng.dov.argus.calibration;
+
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
+import dev.cheng.dov.protocol.calibration.CalibrationSample;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 链路校准统计
+ * <p>
+ * 按配置累计校准帧的测量结果。解码线程和分析线程都会写入，界面线程读取快照，方法均加锁。
+ */
+public class CalibrationCollector {
+
+    private final Map<CalibrationProfile, Accumulator> accumulators = new LinkedHashMap<>();
+
+    /**
+     * 记录一个校准测试帧（同一测试帧可能被采集多次）
+     *
+     * @param layout 发送端当前布局（校准帧帧头所用的布局）
+     */
+    public synchronized void record(CalibrationProfile profile, LayoutProfile layout, int sequence,
+                                    CalibrationSample sample) {
+        Accumulator accumulator = accumulators.computeIfAbsent(profile, key -> new Accumulator());
+        accumulator.layout = layout;
+        accumulator.samples++;
+        accumulator.received.set(sequence);
+        accumulator.maxSequence = Math.max(accumulator.maxSequence, sequence);
+        if (sample.torn()) {
+            accumulator.tornSamples++;
+            return;
+        }
+        accumulator.bits += sample.bits();
+        accumulator.bitErrors += sample.bitErrors();
+        if (sample.isClean()) {
+            accumulator.clean.set(sequence);
+        }
+    }
+
+    /**
+     * 记录校准结束帧携带的测试帧数
+     */
+    public synchronized void recordEnd(CalibrationProfile profile, int framesSent) {
+        accumulators.computeIfAbsent(profile, key -> new Accumulator()).framesSent = framesSent;
+    }
+
+    public synchronized boolean isEmpty() {
+        return accumulators.isEmpty();
+    }
+
+    public synchronized void reset() {
+        accumulators.clear();
+    }
+
+    public synchronized CalibrationReport snapshot() {
+        List<CalibrationResult> results = new ArrayList<>(accumulators.size());
+        for (Map.Entry<CalibrationProfile, Accumulator> entry : accumulators.entrySet()) {
+            Accumulator accumulator = entry.getValue();
+            results.add(new CalibrationResult(entry.getKey(), accumulator.layout, accumulator.framesSent,
+                    accumulator.received.cardinality(), accumulator.clean.cardinality(), accumulator.samples,
+                    accumulator.tornSamples, accumulator.bits, accumulator.bitErrors, accumulator.maxSequence));
+        }
+        return new CalibrationReport(results);
+    }
+
+    private static final class Accumulator {
+        private final BitSet received = new BitSet();
+        private final BitSet clean = new BitSet();
+        private LayoutProfile layout = LayoutProfile.DEFAULT;
+        private int framesSent = -1;
+        private int maxSequence = -1;
+        private long samples;
+        private long tornSamples;
+        private long bits;
+        private long bitErrors;
+    }
+}
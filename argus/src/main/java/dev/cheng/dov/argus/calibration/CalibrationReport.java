@@ -0,0 +1,76 @@
+package dev.cheng.dov.argus.calibration;
+
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 链路校准报告
+ *
+ * @param results 各配置的测量结果，按收到的先后排列
+ */
+public record CalibrationReport(List<CalibrationResult> results) {
+
+    /**
+     * 至少要有这么多期望帧才参与推荐，避免只收到零星几帧的配置被高估
+     */
+    private static final int MIN_EXPECTED_FRAMES = 10;
+
+    /**
+     * 推荐配置：当前传输编码可用（黑白两级）的配置中预期有效吞吐最高的一组
+     *
+     * @return 没有可用结果时返回 null
+     */
+    public CalibrationResult recommended() {
+        return results.stream()
+                .filter(result -> result.profile().isTransferable())
+                .filter(result -> result.expectedFrames() >= MIN_EXPECTED_FRAMES)
+                .filter(result -> result.goodputBytesPerSecond() > 0)
+                .max(Comparator.comparingDouble(CalibrationResult::goodputBytesPerSecond))
+                .orElse(null);
+    }
+
+    /**
+     * 格式化为多行文本
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        if (results.isEmpty()) {
+            builder.append(String.format("尚未收到校准帧。请在 Hermes 中点击“链路校准”。%n"));
+            return builder.toString();
+        }
+        builder.append(String.format("%-24s %7s %7s %10s %7s %7s %12s%n",
+                "配置", "帧数", "丢帧", "误码率", "撕裂", "完整", "有效吞吐"));
+        for (CalibrationResult result : results) {
+            builder.append(String.format("%-24s %3d/%-3d %6.1f%% %10.2e %6.1f%% %6.1f%% %9.1f KB/s%s%n",
+                    result.profile(), result.framesReceived(), result.expectedFrames(),
+                    result.frameLossRate() * 100, result.bitErrorRate(), result.tornRate() * 100,
+                    result.cleanRate() * 100, result.goodputBytesPerSecond() / 1024,
+                    result.profile().isTransferable() ? "" : "  (需多级符号)"));
+        }
+        builder.append(System.lineSeparator());
+
+        CalibrationResult best = recommended();
+        if (best == null) {
+            builder.append(String.format("没有可用的配置：所有黑白两级配置都无法完整解码。%n"));
+            return builder.toString();
+        }
+        CalibrationProfile profile = best.profile();
+        LayoutProfile base = best.layout();
+        LayoutProfile layout = profile.layout(base);
+        builder.append(String.format("推荐配置: %s，预期有效吞吐 %.1f KB/s%n",
+                profile, best.goodputBytesPerSecond() / 1024));
+        builder.append(String.format("  dov.blockSize=%d%n", profile.blockSize()));
+        builder.append(String.format("  dov.targetFps=%d%n", profile.fps()));
+        if (layout.safeMargin() != base.safeMargin()) {
+            builder.append(String.format("  dov.safeMargin=%d%n", layout.safeMargin()));
+        }
+        if (layout.cornerSize() != base.cornerSize()) {
+            builder.append(String.format("  dov.cornerSize=%d%n", layout.cornerSize()));
+        }
+        builder.append(String.format("修改 Hermes 配置后重启生效，Argus 会按 START 帧自动切换布局。%n"));
+        return builder.toString();
+    }
+}
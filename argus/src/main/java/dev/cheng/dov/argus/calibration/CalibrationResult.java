@@ -0,0 +1,57 @@
+package dev.cheng.dov.argus.calibration;
+
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+/**
+ * 一组校准配置的测量结果
+ *
+ * @param profile        待测配置
+ * @param layout         测量时发送端使用的布局
+ * @param framesSent     发送端报告的测试帧数，未收到结束帧时为 -1
+ * @param framesReceived 收到的不同测试帧数
+ * @param cleanFrames    至少一次无误码收到的测试帧数
+ * @param samples        测量的采集帧数（含重复采集）
+ * @param tornSamples    撕裂的采集帧数
+ * @param bits           比较的位数（不含撕裂帧）
+ * @param bitErrors      错误位数（不含撕裂帧）
+ * @param maxSequence    收到的最大测试帧序号
+ */
+public record CalibrationResult(CalibrationProfile profile, LayoutProfile layout, int framesSent, int framesReceived, int cleanFrames,
+                                long samples, long tornSamples, long bits, long bitErrors, int maxSequence) {
+
+    /**
+     * 期望收到的测试帧数，未收到结束帧时按最大序号估计
+     */
+    public int expectedFrames() {
+        return framesSent >= 0 ? framesSent : maxSequence + 1;
+    }
+
+    public double frameLossRate() {
+        int expected = expectedFrames();
+        return expected > 0 ? 1.0 - Math.min(framesReceived, expected) / (double) expected : 1.0;
+    }
+
+    public double bitErrorRate() {
+        return bits > 0 ? bitErrors / (double) bits : Double.NaN;
+    }
+
+    public double tornRate() {
+        return samples > 0 ? tornSamples / (double) samples : 0;
+    }
+
+    /**
+     * 测试帧能被完整解码的比例（丢帧、撕裂和任何误码都会使该帧 CRC 失败）
+     */
+    public double cleanRate() {
+        int expected = expectedFrames();
+        return expected > 0 ? Math.min(cleanFrames, expected) / (double) expected : 0;
+    }
+
+    /**
+     * 预期有效吞吐（字节/秒）：在发送端布局上改用本配置块大小后的每帧负载 × 帧率 × 完整解码比例
+     */
+    public double goodputBytesPerSecond() {
+        return profile.payloadBytesPerFrame(layout) * (double) profile.fps() * cleanRate();
+    }
+}
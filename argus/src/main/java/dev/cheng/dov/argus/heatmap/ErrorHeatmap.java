@@ -0,0 +1,418 @@
+package dev.cheng.dov.argus.heatmap;
+
+import dev.cheng.dov.protocol.calibration.CalibrationPattern;
+import dev.cheng.dov.protocol.codec.LumaFrame;
+import dev.cheng.dov.protocol.frame.BlockMask;
+import dev.cheng.dov.protocol.frame.FrameLayout;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据区误码热力图
+ * <p>
+ * 按会话布局的数据区统计各位置的出错比例，来源有两种：校准帧逐块比较得到的误码
+ * （见 {@link CalibrationPattern.BlockErrors}），以及 DATA 帧的软判决统计——块平均亮度离判定阈值
+ * 不足 {@link #SOFT_MARGIN} 的块记为不可靠。DATA 帧统计需逐块求平均亮度，默认关闭，
+ * 由 {@link #setDataSampling(boolean)} 在显示叠加图或需要导出掩码时开启；开启后每
+ * {@link #SOFT_SAMPLE_INTERVAL} 帧抽样一帧，只统计承载了数据的块。
+ * <p>
+ * 统计单元为 k×k 个块，单元数不超过 {@link #MAX_CELLS}；布局的块行列变化时清空。
+ * {@link #toMask()} 据此选出要排除的块行、块列，{@link #overlay()} 生成预览叠加图。方法均加锁，
+ * 解码线程写入，界面线程读取。
+ */
+public class ErrorHeatmap {
+
+    private static final int MAX_CELLS = 1 << 18;
+    private static final int SOFT_SAMPLE_INTERVAL = 4;
+    private static final int SOFT_MARGIN = 48;
+    /**
+     * 单元样本数（校准为位数，DATA 帧为块数）少于此值时不参与判断
+     */
+    private static final int MIN_CELL_SAMPLES = 16;
+    /**
+     * 出错比例高于此值的单元为坏单元
+     */
+    private static final double BAD_CELL_RATE = 0.01;
+    /**
+     * 坏单元少于此数的行列不排除，避免为偶发误码牺牲整行
+     */
+    private static final int MIN_LINE_BAD_CELLS = 2;
+    /**
+     * 排除的块最多占数据区的比例
+     */
+    private static final double MAX_EXCLUDED_SHARE = 0.5;
+    private static final int EXCLUDED_COLOR = 0x602060FF;
+
+    private final AtomicLong dataFrames = new AtomicLong();
+    private volatile boolean dataSampling;
+    private LayoutProfile profile;
+    // profile 去掉掩码后的布局，用于判断块行列是否变化
+    private LayoutProfile grid;
+    private int cellSize;
+    private int cellRows;
+    private int cellCols;
+    private long[] samples;
+    private long[] errors;
+    private long version;
+    private long overlayVersion = -1;
+    private Overlay overlay;
+
+    /**
+     * 当前统计对应的布局，尚无统计时为 null
+     */
+    public synchronized LayoutProfile getProfile() {
+        return profile;
+    }
+
+    public synchronized void reset() {
+        profile = null;
+        grid = null;
+        samples = null;
+        errors = null;
+        version++;
+    }
+
+    /**
+     * 是否抽样统计 DATA 帧，关闭时 {@link #sampleData} 直接返回，校准帧统计不受影响
+     */
+    public void setDataSampling(boolean enabled) {
+        dataSampling = enabled;
+    }
+
+    /**
+     * 开始记录一帧校准图案的逐块误码。测量完成后调用 {@link CalibrationFrame#commit()} 计入，撕裂帧不提交
+     *
+     * @param frameProfile 校准帧帧头所用的布局
+     */
+    public CalibrationFrame calibrationFrame(LayoutProfile frameProfile) {
+        return new CalibrationFrame(frameProfile);
+    }
+
+    /**
+     * 抽样统计一个已通过 CRC 的 DATA 帧（需在分析器的缓冲区被下一帧复用之前调用），
+     * 未开启 {@link #setDataSampling(boolean)} 时不统计
+     *
+     * @param layout     解码所用的布局
+     * @param luma       采集画面的亮度平面
+     * @param offsetX    解码成功的水平偏移
+     * @param offsetY    解码成功的垂直偏移
+     * @param dataLength 帧头中的负载长度（不含 CRC）
+     */
+    public void sampleData(FrameLayout layout, LumaFrame luma, int offsetX, int offsetY, int dataLength) {
+        if (!dataSampling || dataFrames.getAndIncrement() % SOFT_SAMPLE_INTERVAL != 0) {
+            return;
+        }
+        LayoutProfile frameProfile = layout.getProfile();
+        int size = cellSizeOf(frameProfile);
+        int cols = (frameProfile.dataCols() + size - 1) / size;
+        int rows = (frameProfile.dataRows() + size - 1) / size;
+        int[] cellSamples = new int[rows * cols];
+        int[] cellWeak = new int[rows * cols];
+
+        int blockSize = frameProfile.blockSize();
+        int[] activeRows = layout.getActiveDataRows();
+        int[] activeCols = layout.getActiveDataCols();
+        int perRow = frameProfile.usableDataCols();
+        long bitCount = Math.min((dataLength + 4L) * 8, frameProfile.dataBlocksPerFrame());
+        int[] origin = layout.blockToPixel(layout.getDataStartCol(), layout.getDataStartRow());
+        long bit = 0;
+        for (int index = 0; bit < bitCount; index++) {
+            int row = activeRows != null ? activeRows[index] : index;
+            int y = origin[1] + offsetY + row * blockSize;
+            int count = (int) Math.min(perRow, bitCount - bit);
+            for (int i = 0; i < count; i++) {
+                int col = activeCols != null ? activeCols[i] : i;
+                int brightness = luma.blockAverage(origin[0] + offsetX + col * blockSize, y, blockSize);
+                if (brightness < 0) {
+                    continue;
+                }
+                int cell = row / size * cols + col / size;
+                cellSamples[cell]++;
+                if (Math.abs(brightness - 128) < SOFT_MARGIN) {
+                    cellWeak[cell]++;
+                }
+            }
+            bit += count;
+        }
+        merge(frameProfile, cellSamples, cellWeak);
+    }
+
+    private synchronized void merge(LayoutProfile frameProfile, int[] cellSamples, int[] cellErrors) {
+        useProfile(frameProfile);
+        for (int i = 0; i < cellSamples.length; i++) {
+            samples[i] += cellSamples[i];
+            errors[i] += cellErrors[i];
+        }
+        version++;
+    }
+
+    /**
+     * 切换到 newProfile，块行列变化时清空统计
+     */
+    private void useProfile(LayoutProfile newProfile) {
+        if (!newProfile.equals(profile)) {
+            profile = newProfile;
+            version++;
+        }
+        LayoutProfile newGrid = newProfile.withMask(BlockMask.NONE);
+        if (newGrid.equals(grid)) {
+            return;
+        }
+        grid = newGrid;
+        cellSize = cellSizeOf(newProfile);
+        cellRows = (newProfile.dataRows() + cellSize - 1) / cellSize;
+        cellCols = (newProfile.dataCols() + cellSize - 1) / cellSize;
+        samples = new long[cellRows * cellCols];
+        errors = new long[cellRows * cellCols];
+    }
+
+    private static int cellSizeOf(LayoutProfile profile) {
+        int size = 1;
+        while ((long) ((profile.dataRows() + size - 1) / size) * ((profile.dataCols() + size - 1) / size)
+                > MAX_CELLS) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * 按统计选出要排除的块行、块列
+     * <p>
+     * 出错比例高于 {@link #BAD_CELL_RATE} 的单元为坏单元。每次排除剩余坏单元占比最高的一行（或一列）单元，
+     * 直到剩余各行列的坏单元都少于 {@link #MIN_LINE_BAD_CELLS} 个，或排除的块将超过数据区的
+     * {@link #MAX_EXCLUDED_SHARE}。当前布局已排除、但没有统计的行列（DATA 帧不再覆盖）保持排除。
+     *
+     * @return 尚无统计时返回 {@link BlockMask#NONE}
+     */
+    public synchronized BlockMask toMask() {
+        if (profile == null) {
+            return BlockMask.NONE;
+        }
+        boolean[] bad = new boolean[samples.length];
+        boolean[] sampledRows = new boolean[cellRows];
+        boolean[] sampledCols = new boolean[cellCols];
+        int[] rowBad = new int[cellRows];
+        int[] colBad = new int[cellCols];
+        for (int row = 0; row < cellRows; row++) {
+            for (int col = 0; col < cellCols; col++) {
+                int cell = row * cellCols + col;
+                if (samples[cell] < MIN_CELL_SAMPLES) {
+                    continue;
+                }
+                sampledRows[row] = true;
+                sampledCols[col] = true;
+                if (errors[cell] > samples[cell] * BAD_CELL_RATE) {
+                    bad[cell] = true;
+                    rowBad[row]++;
+                    colBad[col]++;
+                }
+            }
+        }
+
+        int dataRows = profile.dataRows();
+        int dataCols = profile.dataCols();
+        BlockMask current = profile.mask();
+        BitSet excludedRows = new BitSet();
+        BitSet excludedCols = new BitSet();
+        for (int row = 0; row < dataRows; row++) {
+            if (current.isRowExcluded(row) && !sampledRows[row / cellSize]) {
+                excludedRows.set(row);
+            }
+        }
+        for (int col = 0; col < dataCols; col++) {
+            if (current.isColExcluded(col) && !sampledCols[col / cellSize]) {
+                excludedCols.set(col);
+            }
+        }
+
+        boolean[] rowOut = new boolean[cellRows];
+        boolean[] colOut = new boolean[cellCols];
+        int rowsLeft = cellRows;
+        int colsLeft = cellCols;
+        long maxExcluded = (long) (dataRows * (long) dataCols * MAX_EXCLUDED_SHARE);
+        while (true) {
+            int bestRow = bestLine(rowBad, rowOut);
+            int bestCol = bestLine(colBad, colOut);
+            if (bestRow < 0 && bestCol < 0) {
+                break;
+            }
+            // 比较坏单元占比：行上为 rowBad / colsLeft，列上为 colBad / rowsLeft
+            boolean byRow = bestCol < 0
+                    || bestRow >= 0 && rowBad[bestRow] * (long) rowsLeft >= colBad[bestCol] * (long) colsLeft;
+            BitSet rows = (BitSet) excludedRows.clone();
+            BitSet cols = (BitSet) excludedCols.clone();
+            if (byRow) {
+                rows.set(bestRow * cellSize, Math.min((bestRow + 1) * cellSize, dataRows));
+            } else {
+                cols.set(bestCol * cellSize, Math.min((bestCol + 1) * cellSize, dataCols));
+            }
+            int usableRows = dataRows - rows.cardinality();
+            int usableCols = dataCols - cols.cardinality();
+            if (usableRows <= 0 || usableCols <= 0
+                    || (long) dataRows * dataCols - (long) usableRows * usableCols > maxExcluded) {
+                break;
+            }
+            excludedRows = rows;
+            excludedCols = cols;
+            if (byRow) {
+                rowOut[bestRow] = true;
+                rowsLeft--;
+                for (int col = 0; col < cellCols; col++) {
+                    if (bad[bestRow * cellCols + col] && !colOut[col]) {
+                        colBad[col]--;
+                    }
+                }
+            } else {
+                colOut[bestCol] = true;
+                colsLeft--;
+                for (int row = 0; row < cellRows; row++) {
+                    if (bad[row * cellCols + bestCol] && !rowOut[row]) {
+                        rowBad[row]--;
+                    }
+                }
+            }
+        }
+        return new BlockMask(excludedRows, excludedCols);
+    }
+
+    /**
+     * 按 {@link #toMask()} 导出共享掩码文件（见 {@link BlockMask#save(Path, LayoutProfile)}），两端通过 dov.blockMask 加载
+     *
+     * @return 应用导出的掩码后的布局，尚无统计时返回 null
+     */
+    public LayoutProfile exportMask(Path path) throws IOException {
+        LayoutProfile masked;
+        synchronized (this) {
+            if (profile == null) {
+                return null;
+            }
+            masked = profile.withMask(toMask());
+        }
+        masked.mask().save(path, masked);
+        return masked;
+    }
+
+    /**
+     * 剩余坏单元最多（同一方向上即占比最高）且不少于 {@link #MIN_LINE_BAD_CELLS} 个的行（列）
+     *
+     * @return 没有时返回 -1
+     */
+    private static int bestLine(int[] badCounts, boolean[] excluded) {
+        int best = -1;
+        for (int i = 0; i < badCounts.length; i++) {
+            if (!excluded[i] && badCounts[i] >= MIN_LINE_BAD_CELLS
+                    && (best < 0 || badCounts[i] > badCounts[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 预览叠加图：每个统计单元一个像素，由绿到红表示出错比例，蓝色为已排除且没有统计的单元
+     *
+     * @return 尚无统计时返回 null
+     */
+    public synchronized Overlay overlay() {
+        if (profile == null) {
+            return null;
+        }
+        if (overlayVersion == version) {
+            return overlay;
+        }
+        BufferedImage image = new BufferedImage(cellCols, cellRows, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        BlockMask mask = profile.mask();
+        for (int row = 0; row < cellRows; row++) {
+            for (int col = 0; col < cellCols; col++) {
+                int cell = row * cellCols + col;
+                if (samples[cell] >= MIN_CELL_SAMPLES) {
+                    pixels[cell] = colorOf(errors[cell] / (double) samples[cell]);
+                } else if (mask.isRowExcluded(row * cellSize) || mask.isColExcluded(col * cellSize)) {
+                    pixels[cell] = EXCLUDED_COLOR;
+                }
+            }
+        }
+        int blockSize = profile.blockSize();
+        Rectangle area = new Rectangle(profile.contentStartX() + profile.cornerBlocks() * blockSize,
+                profile.contentStartY() + profile.dataStartRow() * blockSize,
+                cellCols * cellSize * blockSize, cellRows * cellSize * blockSize);
+        overlay = new Overlay(image, profile.frameWidth(), profile.frameHeight(), area);
+        overlayVersion = version;
+        return overlay;
+    }
+
+    /**
+     * 出错比例为 0 时为浅绿，达到坏单元阈值的 4 倍时为不透明度较高的红色
+     */
+    private static int colorOf(double rate) {
+        double t = Math.min(rate / (BAD_CELL_RATE * 4), 1);
+        int red = (int) (255 * Math.min(2 * t, 1));
+        int green = (int) (255 * Math.min(2 * (1 - t), 1));
+        int alpha = (int) (0x30 + 0x90 * t);
+        return alpha << 24 | red << 16 | green << 8;
+    }
+
+    /**
+     * 预览叠加图
+     *
+     * @param image       每个统计单元一个像素的 ARGB 图像
+     * @param frameWidth  布局的帧宽，area 以此为基准
+     * @param frameHeight 布局的帧高
+     * @param area        image 覆盖的帧内区域（像素）
+     */
+    public record Overlay(BufferedImage image, int frameWidth, int frameHeight, Rectangle area) {
+    }
+
+    /**
+     * 一帧校准图案的逐块误码，按统计单元暂存，提交后计入热力图
+     */
+    public final class CalibrationFrame implements CalibrationPattern.BlockErrors {
+
+        private final LayoutProfile frameProfile;
+        private final int blockSize;
+        private final int size;
+        private final int cols;
+        private final int rows;
+        private final int[] cellBits;
+        private final int[] cellErrors;
+
+        private CalibrationFrame(LayoutProfile frameProfile) {
+            this.frameProfile = frameProfile;
+            this.blockSize = frameProfile.blockSize();
+            this.size = cellSizeOf(frameProfile);
+            this.cols = (frameProfile.dataCols() + size - 1) / size;
+            this.rows = (frameProfile.dataRows() + size - 1) / size;
+            this.cellBits = new int[rows * cols];
+            this.cellErrors = new int[rows * cols];
+        }
+
+        /**
+         * 测试块比会话块大时计入它覆盖的每个单元
+         */
+        @Override
+        public void record(int x, int y, int testSize, int bits, int errors) {
+            int firstCol = x / blockSize / size;
+            int lastCol = Math.min((x + testSize - 1) / blockSize / size, cols - 1);
+            int firstRow = y / blockSize / size;
+            int lastRow = Math.min((y + testSize - 1) / blockSize / size, rows - 1);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    cellBits[row * cols + col] += bits;
+                    cellErrors[row * cols + col] += errors;
+                }
+            }
+        }
+
+        public void commit() {
+            merge(frameProfile, cellBits, cellErrors);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package dev.cheng.dov.argus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：从采集卡读取一帧（含转换为 BufferedImage）
+ */
+@Name("dev.cheng.dov.FrameCaptured")
+@Label("Frame Captured")
+@Category({"DOV", "Argus"})
+@Description("从采集卡读取一帧")
+@StackTrace(false)
+public class FrameCapturedEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(FrameCapturedEvent.class);
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    /**
+     * 事件启用时创建并开始计时，否则返回 null，未录制时采集线程每帧不分配事件对象
+     */
+    public static FrameCapturedEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        FrameCapturedEvent event = new FrameCapturedEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.cheng.dov.argus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：接收端丢弃一帧
+ */
+@Name("dev.cheng.dov.FrameDropped")
+@Label("Frame Dropped")
+@Category({"DOV", "Argus"})
+@Description("采集队列溢出、重复帧、数据解码失败、暂不能写入或属于其他会话而丢弃的帧")
+@StackTrace(false)
+public class FrameDroppedEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(FrameDroppedEvent.class);
+
+    public static final String QUEUE_FULL = "queue-full";
+    public static final String DUPLICATE = "duplicate";
+    public static final String PAYLOAD_FAILED = "payload-failed";
+    public static final String NOT_WRITABLE = "not-writable";
+    public static final String OTHER_SESSION = "other-session";
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Frame Index")
+    @Description("帧序号，采集队列溢出时为 -1")
+    public int frameIndex;
+
+    /**
+     * 提交一个瞬时事件，事件未启用时不分配事件对象
+     */
+    public static void commit(String reason, int frameIndex) {
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+        FrameDroppedEvent event = new FrameDroppedEvent();
+        event.reason = reason;
+        event.frameIndex = frameIndex;
+        event.commit();
+    }
+}
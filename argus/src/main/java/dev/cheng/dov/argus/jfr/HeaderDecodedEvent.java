@@ -0,0 +1,64 @@
+package dev.cheng.dov.argus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：帧头分析（尺寸归一化、角标检测与帧头解码重试）
+ */
+@Name("dev.cheng.dov.HeaderDecoded")
+@Label("Header Decoded")
+@Category({"DOV", "Argus"})
+@Description("一帧采集画面的帧头分析")
+@StackTrace(false)
+public class HeaderDecodedEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(HeaderDecodedEvent.class);
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Frame Type")
+    public String frameType;
+
+    @Label("Frame Index")
+    public int frameIndex;
+
+    @Label("Header Version")
+    public int version;
+
+    @Label("Session ID")
+    @Description("发送端会话 ID，v1 帧头为 0")
+    public int sessionId;
+
+    @Label("Corners Detected")
+    @Description("角标检测是否成功")
+    public boolean detected;
+
+    @Label("Offset X")
+    public int offsetX;
+
+    @Label("Offset Y")
+    public int offsetY;
+
+    @Label("Attempts")
+    @Description("尝试的偏移位置数")
+    public int attempts;
+
+    /**
+     * 事件启用时创建并开始计时，否则返回 null
+     */
+    public static HeaderDecodedEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        HeaderDecodedEvent event = new HeaderDecodedEvent();
+        event.begin();
+        return event;
+    }
+}
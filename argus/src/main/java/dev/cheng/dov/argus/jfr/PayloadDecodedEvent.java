@@ -0,0 +1,59 @@
+package dev.cheng.dov.argus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：DATA 帧数据区解码（含 CRC 校验与偏移重试）
+ */
+@Name("dev.cheng.dov.PayloadDecoded")
+@Label("Payload Decoded")
+@Category({"DOV", "Argus"})
+@Description("DATA 帧数据区解码")
+@StackTrace(false)
+public class PayloadDecodedEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(PayloadDecodedEvent.class);
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Frame Index")
+    public int frameIndex;
+
+    @Label("Data Length")
+    public int dataLength;
+
+    @Label("Offset X")
+    @Description("解码成功时的实际偏移")
+    public int offsetX;
+
+    @Label("Offset Y")
+    @Description("解码成功时的实际偏移")
+    public int offsetY;
+
+    @Label("Attempts")
+    @Description("尝试的偏移位置数")
+    public int attempts;
+
+    @Label("Corrected Blocks")
+    @Description("按行/列奇偶位翻转的块数")
+    public int correctedBlocks;
+
+    /**
+     * 事件启用时创建并开始计时，否则返回 null
+     */
+    public static PayloadDecodedEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        PayloadDecodedEvent event = new PayloadDecodedEvent();
+        event.begin();
+        return event;
+    }
+}
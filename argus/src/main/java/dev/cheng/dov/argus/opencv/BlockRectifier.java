@@ -0,0 +1,96 @@
+package dev.cheng.dov.argus.opencv;
+
+import dev.cheng.dov.protocol.codec.LumaFrame;
+import dev.cheng.dov.protocol.frame.FrameLayout;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
+/**
+ * 透视校正并缩放到块分辨率
+ * <p>
+ * 由四角定位标中心求透视变换，{@code warpPerspective} 把内容区校正为正视图，
+ * 再用 {@code resize(INTER_AREA)} 缩放为每块一个像素的矩阵（整数倍缩小时即块内平均亮度）。
+ * 结果按 {@link LayoutProfile#blockGrid()} 布局在偏移 (0, 0) 处解码，Java 侧只需对小矩阵做阈值判定。
+ * <p>
+ * 本地 Mat 和输出缓冲区在帧间复用，非线程安全，每个分析器持有一个实例。
+ */
+public class BlockRectifier {
+
+    private final Mat frame = new Mat();
+    private final Mat warped = new Mat();
+    private final Mat blocks = new Mat();
+    private final FloatPointer sourcePoints = new FloatPointer(8);
+    private final FloatPointer targetPoints = new FloatPointer(8);
+    private final Mat sourceCorners = new Mat(4, 1, opencv_core.CV_32FC2, sourcePoints);
+    private final Mat targetCorners = new Mat(4, 1, opencv_core.CV_32FC2, targetPoints);
+    private LayoutProfile profile;
+    private Size contentSize;
+    private Size gridSize;
+    private LumaFrame output;
+
+    /**
+     * 校正一帧
+     *
+     * @param luma    采集画面的亮度平面，先复制到本地内存
+     * @param layout  画面的布局
+     * @param corners 四角定位标中心，见 {@link dev.cheng.dov.protocol.frame.FrameDetector#locateCorners}
+     * @return 块分辨率亮度矩阵（gridCols × gridRows，下一帧会复用）
+     */
+    public LumaFrame rectify(LumaFrame luma, FrameLayout layout, float[] corners) {
+        int width = luma.getWidth();
+        int height = luma.getHeight();
+        frame.create(height, width, opencv_core.CV_8UC1);
+        frame.data().put(luma.array(), 0, width * height);
+        return rectify(frame, layout, corners);
+    }
+
+    /**
+     * 直接校正采集线程保留的单通道灰度 Mat（见 {@link GrayMatImage}），不经过亮度平面复制
+     *
+     * @param gray    采集画面的灰度 Mat，只读
+     * @param layout  画面的布局
+     * @param corners 四角定位标中心
+     * @return 块分辨率亮度矩阵（gridCols × gridRows，下一帧会复用）
+     */
+    public LumaFrame rectify(Mat gray, FrameLayout layout, float[] corners) {
+        useLayout(layout);
+        sourcePoints.put(corners);
+        try (Mat transform = opencv_imgproc.getPerspectiveTransform(sourceCorners, targetCorners)) {
+            opencv_imgproc.warpPerspective(gray, warped, transform, contentSize);
+        }
+        opencv_imgproc.resize(warped, blocks, gridSize, 0, 0, opencv_imgproc.INTER_AREA);
+        blocks.data().get(output.array(), 0, output.getWidth() * output.getHeight());
+        return output;
+    }
+
+    /**
+     * 布局变化时重新计算目标角标中心（相对内容区左上角）和输出尺寸
+     */
+    private void useLayout(FrameLayout layout) {
+        if (layout.getProfile().equals(profile)) {
+            return;
+        }
+        profile = layout.getProfile();
+        float half = (profile.cornerSize() - 1) / 2f;
+        int[][] corners = {
+                layout.getTopLeftCorner(),
+                layout.getTopRightCorner(),
+                layout.getBottomLeftCorner(),
+                layout.getBottomRightCorner()
+        };
+        float[] targets = new float[8];
+        for (int i = 0; i < corners.length; i++) {
+            targets[i * 2] = corners[i][0] - profile.contentStartX() + half;
+            targets[i * 2 + 1] = corners[i][1] - profile.contentStartY() + half;
+        }
+        targetPoints.put(targets);
+        contentSize = new Size(profile.contentWidth(), profile.contentHeight());
+        gridSize = new Size(profile.gridCols(), profile.gridRows());
+        output = LumaFrame.wrap(profile.gridCols(), profile.gridRows(),
+                new byte[profile.gridCols() * profile.gridRows()]);
+    }
+}
@@ -0,0 +1,38 @@
+package dev.cheng.dov.argus.opencv;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+/**
+ * 采集帧转灰度图像
+ * <p>
+ * 直接在采集得到的 Mat 上用 {@code cvtColor} 转为单通道灰度，输出保留该 Mat 的 {@link GrayMatImage}：
+ * 分析时亮度平面直接使用图像的像素数组，透视校正直接读取 Mat，省去 Java 中的逐像素颜色转换和帧间的往返复制。
+ * 灰度按 OpenCV 的加权公式计算，与 Java 后端的 (R + G + B) / 3 略有差异，对黑白块判定没有影响。
+ * 非线程安全，由采集线程独占使用。
+ */
+public class GrayFrameConverter {
+
+    private final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+
+    /**
+     * @return 无法转换时返回 null
+     */
+    public GrayMatImage convert(Frame frame) {
+        Mat mat = converter.convert(frame);
+        if (mat == null || mat.empty()) {
+            return null;
+        }
+        // 每帧新建 Mat：采集帧进入队列后由分析线程异步使用，转换器的 Mat 会被下一帧覆盖
+        Mat gray = new Mat();
+        if (mat.channels() != 1) {
+            int code = mat.channels() == 4 ? opencv_imgproc.COLOR_BGRA2GRAY : opencv_imgproc.COLOR_BGR2GRAY;
+            opencv_imgproc.cvtColor(mat, gray, code);
+        } else {
+            mat.copyTo(gray);
+        }
+        return new GrayMatImage(gray);
+    }
+}
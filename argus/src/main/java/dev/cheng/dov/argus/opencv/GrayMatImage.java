@@ -0,0 +1,50 @@
+package dev.cheng.dov.argus.opencv;
+
+import dev.cheng.dov.protocol.codec.LumaFrame;
+import org.bytedeco.opencv.opencv_core.Mat;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * 保留本地灰度 Mat 的采集图像
+ * <p>
+ * 像素数组是 Mat 的一份复制，直接作为亮度平面供 Java 侧的角标检测与帧头解码使用；
+ * 透视校正读取 Mat 本身，不必再从亮度平面复制回本地内存。
+ * 每帧的 Mat 独立，随图像一起由 JavaCPP 的释放器回收。图像与 Mat 创建后只读。
+ */
+public class GrayMatImage extends BufferedImage {
+
+    private final Mat mat;
+    private final LumaFrame luma;
+
+    GrayMatImage(Mat gray) {
+        super(gray.cols(), gray.rows(), TYPE_BYTE_GRAY);
+        this.mat = gray;
+        int width = gray.cols();
+        int height = gray.rows();
+        byte[] data = ((DataBufferByte) getRaster().getDataBuffer()).getData();
+        if (gray.isContinuous()) {
+            gray.data().get(data, 0, width * height);
+        } else {
+            for (int y = 0; y < height; y++) {
+                gray.ptr(y).get(data, y * width, width);
+            }
+        }
+        this.luma = LumaFrame.wrap(width, height, data);
+    }
+
+    /**
+     * 单通道灰度 Mat，只读
+     */
+    public Mat mat() {
+        return mat;
+    }
+
+    /**
+     * 与像素数组共用存储的亮度平面，只读
+     */
+    public LumaFrame luma() {
+        return luma;
+    }
+}
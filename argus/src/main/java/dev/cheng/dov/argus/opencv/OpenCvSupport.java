@@ -0,0 +1,54 @@
+package dev.cheng.dov.argus.opencv;
+
+import dev.cheng.dov.protocol.Constants;
+import org.bytedeco.javacpp.Loader;
+import org.bytedeco.opencv.global.opencv_imgproc;
+
+/**
+ * OpenCV 分析后端的开关
+ * <p>
+ * {@code dov.analysisBackend=opencv} 且 OpenCV 本地库能加载时启用；加载失败（平台不匹配、缺少本地库）时
+ * 回到纯 Java 分析，不影响采集。失败原因经统计中的分析后端名称和接收状态消息显示。
+ */
+public final class OpenCvSupport {
+
+    private static String loadError;
+    private static final boolean ENABLED = "opencv".equals(Constants.ANALYSIS_BACKEND) && load();
+
+    private OpenCvSupport() {
+    }
+
+    /**
+     * 是否使用 OpenCV 分析后端
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 实际使用的分析后端名称（用于统计输出）
+     */
+    public static String backendName() {
+        if (ENABLED) {
+            return "opencv";
+        }
+        return loadError != null ? "java（OpenCV 加载失败: " + loadError + "）" : "java";
+    }
+
+    /**
+     * 配置了 OpenCV 后端但本地库加载失败时的原因，否则为 null
+     */
+    public static String loadError() {
+        return loadError;
+    }
+
+    private static boolean load() {
+        try {
+            Loader.load(opencv_imgproc.class);
+            return true;
+        } catch (LinkageError | RuntimeException e) {
+            loadError = String.valueOf(e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package dev.cheng.dov.argus.recording;
+
+import dev.cheng.dov.argus.FrameSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * 录制文件帧来源
+ * <p>
+ * 读取事先录下的采集画面：图片序列目录（png / jpg / bmp，按文件名排序）或 Y4M 视频文件。
+ * 文件按顺序读取，图片解码和 YUV 转 RGB 在后台线程池中预读并行执行，输出顺序与录制顺序一致。
+ * 非实时来源，接收端分析多快就读多快；读完后 {@link #read()} 返回 null，{@link #isFinished()} 为 true。
+ */
+public class RecordingSource implements FrameSource {
+
+    private static final long IDLE_SLEEP_MS = 50;
+    private static final List<String> IMAGE_EXTENSIONS = List.of(".png", ".jpg", ".jpeg", ".bmp");
+
+    private final Path path;
+    private final List<Path> imageFiles;
+    private final Y4mReader y4mReader;
+    private final int totalFrames;
+    private final ExecutorService decoder;
+    private final int readAhead;
+    private final Deque<Future<BufferedImage>> pending = new ArrayDeque<>();
+
+    private int nextImage;
+    private boolean inputEnded;
+    private volatile boolean finished;
+    private volatile long framesRead;
+
+    private RecordingSource(Path path, List<Path> imageFiles, Y4mReader y4mReader, int threads) {
+        this.path = path;
+        this.imageFiles = imageFiles;
+        this.y4mReader = y4mReader;
+        this.totalFrames = imageFiles != null ? imageFiles.size() : -1;
+        this.readAhead = threads * 2;
+        this.decoder = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "RecordingDecoder");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 打开录制文件
+     *
+     * @param path    图片序列目录或 .y4m 文件
+     * @param threads 预读解码线程数
+     */
+    public static RecordingSource open(Path path, int threads) throws IOException {
+        int decodeThreads = Math.max(threads, 1);
+        if (Files.isDirectory(path)) {
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(path)) {
+                files = stream.filter(RecordingSource::isImageFile).sorted().toList();
+            }
+            if (files.isEmpty()) {
+                throw new IOException("目录中没有图片: " + path);
+            }
+            return new RecordingSource(path, files, null, decodeThreads);
+        }
+        if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".y4m")) {
+            return new RecordingSource(path, null, new Y4mReader(path), decodeThreads);
+        }
+        throw new IOException("不支持的录制格式（需要图片序列目录或 .y4m 文件）: " + path);
+    }
+
+    private static boolean isImageFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(file) && IMAGE_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    @Override
+    public BufferedImage read() throws Exception {
+        fillReadAhead();
+        Future<BufferedImage> next = pending.poll();
+        if (next == null) {
+            finished = true;
+            Thread.sleep(IDLE_SLEEP_MS);
+            return null;
+        }
+        framesRead++;
+        try {
+            // 无法识别的图片返回 null，按没有可用帧处理
+            return next.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("读取录制第 " + framesRead + " 帧失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 按顺序读入后续帧并提交解码，保持 readAhead 帧在途
+     */
+    private void fillReadAhead() throws IOException {
+        while (!inputEnded && pending.size() < readAhead) {
+            Callable<BufferedImage> task = nextTask();
+            if (task == null) {
+                inputEnded = true;
+                break;
+            }
+            pending.add(decoder.submit(task));
+        }
+    }
+
+    private Callable<BufferedImage> nextTask() throws IOException {
+        if (imageFiles != null) {
+            if (nextImage >= imageFiles.size()) {
+                return null;
+            }
+            Path file = imageFiles.get(nextImage++);
+            return () -> ImageIO.read(file.toFile());
+        }
+        byte[] data = y4mReader.readFrame();
+        if (data == null) {
+            return null;
+        }
+        return () -> y4mReader.toImage(data);
+    }
+
+    @Override
+    public void close() {
+        for (Future<BufferedImage> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        decoder.shutdownNow();
+        if (y4mReader != null) {
+            try {
+                y4mReader.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    /**
+     * 录制内容是否已全部读出
+     */
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 已读出的帧数
+     */
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    /**
+     * 录制总帧数，Y4M 文件未读完前未知，返回 -1
+     */
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,185 @@
+package dev.cheng.dov.argus.recording;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * YUV4MPEG2 (.y4m) 读取器
+ * <p>
+ * 支持 8 位 420 / 422 / 444 / mono 色度格式，按 BT.601 转换为 RGB；
+ * 默认视为 limited range（16-235），头部带 XCOLORRANGE=FULL 时按 full range 转换。
+ * {@link #readFrame()} 只顺序读取原始字节，色彩转换 {@link #toImage(byte[])} 无状态，可在多个线程并行执行。
+ */
+class Y4mReader implements Closeable {
+
+    private static final String MAGIC = "YUV4MPEG2";
+    private static final int MAX_LINE = 1024;
+
+    private final InputStream input;
+    private final int width;
+    private final int height;
+    private final int chromaWidth;
+    private final int chromaHeight;
+    private final boolean fullRange;
+    private final int frameSize;
+
+    Y4mReader(Path path) throws IOException {
+        this.input = new BufferedInputStream(Files.newInputStream(path), 1 << 20);
+        String header = readLine();
+        if (header == null || !header.startsWith(MAGIC)) {
+            input.close();
+            throw new IOException("不是 Y4M 文件: " + path);
+        }
+        int w = 0;
+        int h = 0;
+        String colorspace = "420";
+        boolean full = false;
+        for (String token : header.substring(MAGIC.length()).trim().split(" +")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            switch (token.charAt(0)) {
+                case 'W' -> w = Integer.parseInt(token.substring(1));
+                case 'H' -> h = Integer.parseInt(token.substring(1));
+                case 'C' -> colorspace = token.substring(1);
+                case 'X' -> full |= token.equalsIgnoreCase("XCOLORRANGE=FULL");
+                default -> {
+                    // 帧率、隔行、宽高比等参数不影响解码
+                }
+            }
+        }
+        if (w <= 0 || h <= 0) {
+            input.close();
+            throw new IOException("Y4M 头缺少尺寸: " + header);
+        }
+        this.width = w;
+        this.height = h;
+        this.fullRange = full;
+        if (colorspace.startsWith("420")) {
+            chromaWidth = (w + 1) / 2;
+            chromaHeight = (h + 1) / 2;
+        } else if (colorspace.equals("422")) {
+            chromaWidth = (w + 1) / 2;
+            chromaHeight = h;
+        } else if (colorspace.equals("444")) {
+            chromaWidth = w;
+            chromaHeight = h;
+        } else if (colorspace.equals("mono")) {
+            chromaWidth = 0;
+            chromaHeight = 0;
+        } else {
+            input.close();
+            throw new IOException("不支持的 Y4M 色度格式: C" + colorspace);
+        }
+        this.frameSize = w * h + 2 * chromaWidth * chromaHeight;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * 读取下一帧的原始 YUV 数据，文件结束时返回 null
+     */
+    byte[] readFrame() throws IOException {
+        String frameHeader = readLine();
+        if (frameHeader == null) {
+            return null;
+        }
+        if (!frameHeader.startsWith("FRAME")) {
+            throw new IOException("Y4M 帧头无效: " + frameHeader);
+        }
+        byte[] data = new byte[frameSize];
+        int offset = 0;
+        while (offset < frameSize) {
+            int read = input.read(data, offset, frameSize - offset);
+            if (read < 0) {
+                throw new EOFException("Y4M 帧数据不完整");
+            }
+            offset += read;
+        }
+        return data;
+    }
+
+    /**
+     * 将一帧 YUV 数据转换为 RGB 图像（定点运算）
+     */
+    BufferedImage toImage(byte[] data) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int uOffset = width * height;
+        int vOffset = uOffset + chromaWidth * chromaHeight;
+        int xShift = chromaWidth > 0 && chromaWidth < width ? 1 : 0;
+        int yShift = chromaHeight > 0 && chromaHeight < height ? 1 : 0;
+        // 系数放大 2^16
+        int yScale = fullRange ? 65536 : 76309;
+        int yBias = fullRange ? 0 : 16;
+        int crToR = fullRange ? 91881 : 104597;
+        int cbToG = fullRange ? 22554 : 25675;
+        int crToG = fullRange ? 46802 : 53279;
+        int cbToB = fullRange ? 116130 : 132201;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int chromaRow = (y >> yShift) * chromaWidth;
+            for (int x = 0; x < width; x++) {
+                int luma = ((data[row + x] & 0xFF) - yBias) * yScale;
+                int r;
+                int g;
+                int b;
+                if (chromaWidth == 0) {
+                    r = g = b = luma;
+                } else {
+                    int chromaIndex = chromaRow + (x >> xShift);
+                    int cb = (data[uOffset + chromaIndex] & 0xFF) - 128;
+                    int cr = (data[vOffset + chromaIndex] & 0xFF) - 128;
+                    r = luma + crToR * cr;
+                    g = luma - cbToG * cb - crToG * cr;
+                    b = luma + cbToB * cb;
+                }
+                pixels[row + x] = (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int fixed) {
+        int value = (fixed + 32768) >> 16;
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0) {
+                if (line.size() == 0) {
+                    return null;
+                }
+                break;
+            }
+            if (line.size() >= MAX_LINE) {
+                throw new IOException("Y4M 头过长");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
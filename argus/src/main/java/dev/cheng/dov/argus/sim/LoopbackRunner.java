@@ -0,0 +1,214 @@
+package dev.cheng.dov.argus.sim;
+
+import dev.cheng.dov.argus.ReceiverController;
+import dev.cheng.dov.argus.ReceiverState;
+import dev.cheng.dov.argus.ReceiverStats;
+import dev.cheng.dov.argus.ReceiverStatus;
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.TransferEncoder;
+import dev.cheng.dov.protocol.file.ChunkSource;
+import dev.cheng.dov.protocol.file.FileChunker;
+import dev.cheng.dov.protocol.file.FrameRanges;
+import dev.cheng.dov.protocol.frame.FrameSchedule;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 无硬件回环传输
+ * <p>
+ * 用 Hermes 的发送规则编码文件，经 {@link SimulatedChannel} 加入损伤后直接交给 {@link ReceiverController}，
+ * 接收端进入等待补帧时自动补发缺失帧，最后输出吞吐量和各项计数。成功接收退出码为 0，否则为 1。
+ * 构建时由 argus 的单元测试 {@code LoopbackTest} 以固定参数执行。
+ * <pre>
+ * java -Djava.awt.headless=true -cp argus.jar dev.cheng.dov.argus.sim.LoopbackRunner &lt;文件或文件夹&gt;
+ *     [--jpeg 75] [--chroma] [--scale 0.667] [--offset 3,2] [--noise 2.0] [--gamma 1.1]
+ *     [--drop 0.01] [--dup 0.01] [--tear 0.005] [--seed 1] [--deferHash true|false]
+ *     [--resendRounds 5] [--timeout 600] [--out 目录]
+ * </pre>
+ */
+public class LoopbackRunner {
+
+    private static final long POLL_INTERVAL_MS = 100;
+    // 发送队列清空后等待接收端处理完最后几帧再判断是否需要补发
+    private static final long RESEND_SETTLE_MS = Math.max(1000, Constants.EOF_GRACE_MS);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("用法: LoopbackRunner <文件或文件夹> [--jpeg 质量] [--chroma] [--scale 比例] [--offset x,y]"
+                    + " [--noise 标准差] [--gamma 值] [--drop 概率] [--dup 概率] [--tear 概率] [--seed 种子]"
+                    + " [--deferHash true|false] [--resendRounds 次数] [--timeout 秒] [--out 目录]");
+            System.exit(2);
+        }
+        Path input = Path.of(args[0]);
+        int jpeg = 0;
+        boolean chroma = false;
+        double scale = 1.0;
+        int offsetX = 0;
+        int offsetY = 0;
+        double noise = 0;
+        double gamma = 1.0;
+        double drop = 0;
+        double dup = 0;
+        double tear = 0;
+        long seed = 1;
+        boolean deferredHash = Constants.DEFER_HASH;
+        int resendRounds = 5;
+        long timeoutSeconds = 600;
+        Path outputDir = null;
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            switch (option) {
+                case "--jpeg" -> jpeg = Integer.parseInt(args[++i]);
+                case "--chroma" -> chroma = true;
+                case "--scale" -> scale = Double.parseDouble(args[++i]);
+                case "--offset" -> {
+                    String[] parts = args[++i].split(",");
+                    offsetX = Integer.parseInt(parts[0].trim());
+                    offsetY = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+                }
+                case "--noise" -> noise = Double.parseDouble(args[++i]);
+                case "--gamma" -> gamma = Double.parseDouble(args[++i]);
+                case "--drop" -> drop = Double.parseDouble(args[++i]);
+                case "--dup" -> dup = Double.parseDouble(args[++i]);
+                case "--tear" -> tear = Double.parseDouble(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--deferHash" -> deferredHash = Boolean.parseBoolean(args[++i]);
+                case "--resendRounds" -> resendRounds = Integer.parseInt(args[++i]);
+                case "--timeout" -> timeoutSeconds = Long.parseLong(args[++i]);
+                case "--out" -> outputDir = Path.of(args[++i]);
+                default -> {
+                    System.err.println("未知参数: " + option);
+                    System.exit(2);
+                }
+            }
+        }
+        if (outputDir == null) {
+            outputDir = Files.createTempDirectory("dov-loopback");
+        }
+        SimulatedChannel.Impairments impairments = new SimulatedChannel.Impairments(jpeg, chroma, scale,
+                offsetX, offsetY, noise, gamma, drop, dup, tear, seed);
+        System.exit(run(input, impairments, deferredHash, resendRounds, timeoutSeconds * 1000, outputDir) ? 0 : 1);
+    }
+
+    /**
+     * 执行一次回环传输并打印报告
+     *
+     * @param deferredHash 发送端是否边发送边计算校验和（见 {@code dov.deferHash}）
+     * @return 是否接收成功
+     */
+    public static boolean run(Path input, SimulatedChannel.Impairments impairments, boolean deferredHash,
+                              int resendRounds, long timeoutMs, Path outputDir) throws Exception {
+        FrameCodec frameCodec = new FrameCodec();
+        FileChunker fileChunker = new FileChunker(frameCodec.getPayloadCapacity(), Constants.CHUNK_READ_AHEAD);
+        String name = input.getFileName().toString();
+        ChunkSource chunkSource = Files.isDirectory(input)
+                ? fileChunker.openDirectory(input, name, deferredHash)
+                : fileChunker.open(input, name, deferredHash);
+        TransferEncoder encoder = new TransferEncoder(frameCodec, chunkSource, deferredHash);
+        SimulatedChannel channel = new SimulatedChannel(impairments);
+        SimulatedSource source = new SimulatedSource(encoder, channel);
+
+        AtomicReference<ReceiverStatus> latest = new AtomicReference<>();
+        AtomicReference<Path> completed = new AtomicReference<>();
+        ReceiverController controller = new ReceiverController();
+        controller.setSaveDirectory(outputDir);
+        controller.setListener(new ReceiverController.Listener() {
+            @Override
+            public void onStatus(ReceiverStatus status) {
+                latest.set(status);
+            }
+
+            @Override
+            public void onCompleted(Path outputFile) {
+                completed.set(outputFile);
+            }
+        });
+
+        int totalFrames = encoder.getTotalFrames();
+        System.out.println("输入: " + input + " (" + chunkSource.getFileSize() + " 字节, " + totalFrames + " 帧)");
+        System.out.println("信道: " + impairments.format() + (deferredHash ? "  延迟校验和" : ""));
+
+        long startTime = System.currentTimeMillis();
+        source.send(FrameSchedule.full(totalFrames, encoder.getManifestFrames()));
+        controller.startCapture(source);
+
+        int rounds = 0;
+        int missingAfterFirstPass = -1;
+        long drainedSince = 0;
+        boolean success = false;
+        try {
+            while (System.currentTimeMillis() - startTime < timeoutMs) {
+                Thread.sleep(POLL_INTERVAL_MS);
+                if (completed.get() != null) {
+                    success = true;
+                    break;
+                }
+                ReceiverStatus status = latest.get();
+                if (status != null && status.state() == ReceiverState.ERROR) {
+                    System.out.println("接收失败: " + status.message());
+                    break;
+                }
+                long now = System.currentTimeMillis();
+                if (!source.isDrained()) {
+                    drainedSince = 0;
+                    continue;
+                }
+                if (drainedSince == 0) {
+                    drainedSince = now;
+                    continue;
+                }
+                if (now - drainedSince < RESEND_SETTLE_MS || status == null) {
+                    continue;
+                }
+                FrameRanges missing = status.missingFrames();
+                if (status.state() != ReceiverState.WAITING_RESEND || missing == null || missing.isEmpty()) {
+                    // 发送完毕且接收端不再需要补帧（例如 START 帧全部丢失），没有可补发的内容
+                    System.out.println("发送结束，接收端状态: " + status.state().getDescription());
+                    break;
+                }
+                if (missingAfterFirstPass < 0) {
+                    missingAfterFirstPass = missing.size();
+                }
+                if (rounds >= resendRounds) {
+                    System.out.println("补发次数已用完，仍缺 " + missing.size() + " 帧: " + missing.format(12));
+                    break;
+                }
+                rounds++;
+                System.out.println("第 " + rounds + " 轮补发 " + missing.size() + " 帧: " + missing.format(12));
+                source.send(FrameSchedule.resend(totalFrames, missing));
+                drainedSince = 0;
+            }
+        } finally {
+            controller.close();
+            chunkSource.close();
+        }
+
+        long elapsedMs = Math.max(System.currentTimeMillis() - startTime, 1);
+        long fileSize = chunkSource.getFileSize();
+        long framesSent = channel.getFramesIn();
+        ReceiverStats.Snapshot stats = controller.getStats().snapshot();
+
+        System.out.println();
+        System.out.println("结果: " + (success ? "成功 -> " + completed.get() : "失败"));
+        System.out.printf("发送帧数: %d  信道输出: %d  丢帧: %d  重复: %d  撕裂: %d%n",
+                framesSent, channel.getFramesOut(), channel.getDropped(), channel.getDuplicated(),
+                channel.getTorn());
+        for (Map.Entry<String, Long> counter : stats.counters().entrySet()) {
+            System.out.printf("%s: %d%n", counter.getKey(), counter.getValue());
+        }
+        System.out.printf("首轮后缺帧: %d  补发轮数: %d%n", Math.max(missingAfterFirstPass, 0), rounds);
+        System.out.printf("耗时: %.2f s  实际吞吐: %.1f KB/s%n", elapsedMs / 1000.0,
+                fileSize * 1000.0 / elapsedMs / 1024);
+        if (framesSent > 0) {
+            // 按 TARGET_FPS 换算：真实链路上发送这些帧所需时间内的有效吞吐
+            double linkSeconds = framesSent / (double) Constants.TARGET_FPS;
+            System.out.printf("%d fps 下等效吞吐: %.1f KB/s (%.1f s)%n", Constants.TARGET_FPS,
+                    fileSize / linkSeconds / 1024, linkSeconds);
+        }
+        return success;
+    }
+}
@@ -0,0 +1,307 @@
+package dev.cheng.dov.argus.sim;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟 HDMI 采集信道
+ * <p>
+ * 对发送端帧图像依次施加平移、缩放、伽马、4:2:0 色度抽样、高斯噪声和 JPEG 压缩，
+ * 再按概率丢帧、重复帧或与上一帧拼接成撕裂帧。所有随机量都来自同一个种子，同样的参数得到同样的输出。
+ * 单线程使用。
+ */
+public class SimulatedChannel {
+
+    private static final int NOISE_TABLE_SIZE = 1 << 12;
+
+    private final Impairments impairments;
+    private final SplittableRandom random;
+    private final int[] gammaTable;
+    private final int[] noiseTable;
+    private long noiseState;
+    private BufferedImage previous;
+
+    private final AtomicLong framesIn = new AtomicLong();
+    private final AtomicLong framesOut = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong duplicated = new AtomicLong();
+    private final AtomicLong torn = new AtomicLong();
+
+    /**
+     * 信道损伤参数
+     *
+     * @param jpegQuality       JPEG 质量（1-100），0 表示不压缩
+     * @param chromaSubsampling 是否做 4:2:0 色度抽样
+     * @param scale             采集分辨率相对发送分辨率的比例，1 表示不缩放
+     * @param offsetX           画面水平偏移（像素）
+     * @param offsetY           画面垂直偏移（像素）
+     * @param noiseSigma        每个通道叠加的高斯噪声标准差，0 表示无噪声
+     * @param gamma             伽马，1 表示不变
+     * @param dropRate          丢帧概率
+     * @param duplicateRate     重复帧概率
+     * @param tearRate          撕裂帧概率
+     * @param seed              随机种子
+     */
+    public record Impairments(int jpegQuality, boolean chromaSubsampling, double scale, int offsetX, int offsetY,
+                              double noiseSigma, double gamma, double dropRate, double duplicateRate,
+                              double tearRate, long seed) {
+
+        /**
+         * 无损信道
+         */
+        public static Impairments none() {
+            return new Impairments(0, false, 1.0, 0, 0, 0, 1.0, 0, 0, 0, 1);
+        }
+
+        /**
+         * 格式化为一行文本
+         */
+        public String format() {
+            return String.format("jpeg=%d chroma=%s scale=%.2f offset=%d,%d noise=%.1f gamma=%.2f "
+                            + "drop=%.3f dup=%.3f tear=%.3f seed=%d",
+                    jpegQuality, chromaSubsampling ? "4:2:0" : "off", scale, offsetX, offsetY, noiseSigma, gamma,
+                    dropRate, duplicateRate, tearRate, seed);
+        }
+    }
+
+    public SimulatedChannel(Impairments impairments) {
+        this.impairments = impairments;
+        this.random = new SplittableRandom(impairments.seed());
+        this.noiseState = impairments.seed() ^ 0x9E3779B97F4A7C15L;
+        if (noiseState == 0) {
+            noiseState = 1;
+        }
+        this.gammaTable = buildGammaTable(impairments.gamma());
+        this.noiseTable = buildNoiseTable(impairments.noiseSigma(), random.split());
+    }
+
+    /**
+     * 发送一帧，返回采集端看到的帧（丢帧时为空，重复帧时为两帧）
+     */
+    public List<BufferedImage> transmit(BufferedImage frame) throws IOException {
+        framesIn.incrementAndGet();
+        if (impairments.dropRate() > 0 && random.nextDouble() < impairments.dropRate()) {
+            dropped.incrementAndGet();
+            return List.of();
+        }
+
+        BufferedImage captured = impair(frame);
+        BufferedImage output = captured;
+        if (impairments.tearRate() > 0 && previous != null && random.nextDouble() < impairments.tearRate()
+                && captured.getHeight() > 1 && previous.getWidth() == captured.getWidth()
+                && previous.getHeight() == captured.getHeight()) {
+            output = tear(captured, previous, 1 + random.nextInt(captured.getHeight() - 1));
+            torn.incrementAndGet();
+        }
+        previous = captured;
+
+        if (impairments.duplicateRate() > 0 && random.nextDouble() < impairments.duplicateRate()) {
+            duplicated.incrementAndGet();
+            framesOut.addAndGet(2);
+            return List.of(output, output);
+        }
+        framesOut.incrementAndGet();
+        return List.of(output);
+    }
+
+    public Impairments getImpairments() {
+        return impairments;
+    }
+
+    public long getFramesIn() {
+        return framesIn.get();
+    }
+
+    public long getFramesOut() {
+        return framesOut.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getDuplicated() {
+        return duplicated.get();
+    }
+
+    public long getTorn() {
+        return torn.get();
+    }
+
+    private BufferedImage impair(BufferedImage frame) throws IOException {
+        BufferedImage image = transform(frame);
+        if (gammaTable != null || impairments.chromaSubsampling() || noiseTable != null) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            if (gammaTable != null) {
+                applyGamma(pixels);
+            }
+            if (impairments.chromaSubsampling()) {
+                subsampleChroma(pixels, width, height);
+            }
+            if (noiseTable != null) {
+                addNoise(pixels);
+            }
+            image.setRGB(0, 0, width, height, pixels, 0, width);
+        }
+        if (impairments.jpegQuality() > 0) {
+            image = jpeg(image, impairments.jpegQuality() / 100f);
+        }
+        return image;
+    }
+
+    /**
+     * 平移和缩放，总是返回新的 TYPE_INT_RGB 图像，后续步骤可以原地修改
+     */
+    private BufferedImage transform(BufferedImage frame) {
+        int width = Math.max((int) Math.round(frame.getWidth() * impairments.scale()), 1);
+        int height = Math.max((int) Math.round(frame.getHeight() * impairments.scale()), 1);
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = target.createGraphics();
+        try {
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(0, 0, width, height);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            int dx = (int) Math.round(impairments.offsetX() * impairments.scale());
+            int dy = (int) Math.round(impairments.offsetY() * impairments.scale());
+            g2d.drawImage(frame, dx, dy, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+        return target;
+    }
+
+    private void applyGamma(int[] pixels) {
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = pixels[i];
+            pixels[i] = (gammaTable[(rgb >> 16) & 0xFF] << 16)
+                    | (gammaTable[(rgb >> 8) & 0xFF] << 8)
+                    | gammaTable[rgb & 0xFF];
+        }
+    }
+
+    /**
+     * 亮度保留，色差按 2x2 块取平均（BT.601）
+     */
+    private static void subsampleChroma(int[] pixels, int width, int height) {
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) {
+                int x1 = Math.min(x + 1, width - 1);
+                int y1 = Math.min(y + 1, height - 1);
+                int[] indices = {y * width + x, y * width + x1, y1 * width + x, y1 * width + x1};
+                double cb = 0;
+                double cr = 0;
+                for (int index : indices) {
+                    int rgb = pixels[index];
+                    int r = (rgb >> 16) & 0xFF;
+                    int g = (rgb >> 8) & 0xFF;
+                    int b = rgb & 0xFF;
+                    cb += -0.168736 * r - 0.331264 * g + 0.5 * b;
+                    cr += 0.5 * r - 0.418688 * g - 0.081312 * b;
+                }
+                cb /= 4;
+                cr /= 4;
+                for (int index : indices) {
+                    int rgb = pixels[index];
+                    double luma = 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                    int r = clamp(luma + 1.402 * cr);
+                    int g = clamp(luma - 0.344136 * cb - 0.714136 * cr);
+                    int b = clamp(luma + 1.772 * cb);
+                    pixels[index] = (r << 16) | (g << 8) | b;
+                }
+            }
+        }
+    }
+
+    private void addNoise(int[] pixels) {
+        long state = noiseState;
+        int mask = NOISE_TABLE_SIZE - 1;
+        for (int i = 0; i < pixels.length; i++) {
+            // xorshift64，每次取三组 12 位作为三个通道的噪声表索引
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            int rgb = pixels[i];
+            int r = clamp(((rgb >> 16) & 0xFF) + noiseTable[(int) state & mask]);
+            int g = clamp(((rgb >> 8) & 0xFF) + noiseTable[(int) (state >>> 12) & mask]);
+            int b = clamp((rgb & 0xFF) + noiseTable[(int) (state >>> 24) & mask]);
+            pixels[i] = (r << 16) | (g << 8) | b;
+        }
+        noiseState = state;
+    }
+
+    private static BufferedImage tear(BufferedImage current, BufferedImage previous, int splitRow) {
+        BufferedImage torn = new BufferedImage(current.getWidth(), current.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = torn.createGraphics();
+        try {
+            g2d.drawImage(previous, 0, 0, null);
+            g2d.drawImage(current.getSubimage(0, 0, current.getWidth(), splitRow), 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return torn;
+    }
+
+    private static BufferedImage jpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static int[] buildGammaTable(double gamma) {
+        if (gamma <= 0 || gamma == 1.0) {
+            return null;
+        }
+        int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = clamp(255.0 * Math.pow(i / 255.0, gamma));
+        }
+        return table;
+    }
+
+    private static int[] buildNoiseTable(double sigma, SplittableRandom random) {
+        if (sigma <= 0) {
+            return null;
+        }
+        int[] table = new int[NOISE_TABLE_SIZE];
+        for (int i = 0; i < NOISE_TABLE_SIZE; i++) {
+            // Box-Muller
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            double gaussian = Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+            table[i] = (int) Math.round(gaussian * sigma);
+        }
+        return table;
+    }
+
+    private static int clamp(double value) {
+        return clamp((int) Math.round(value));
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+}
@@ -0,0 +1,127 @@
+package dev.cheng.dov.argus.sim;
+
+import dev.cheng.dov.argus.FrameSource;
+import dev.cheng.dov.protocol.codec.TransferEncoder;
+import dev.cheng.dov.protocol.frame.FrameSchedule;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模拟信道帧来源
+ * <p>
+ * 按排队的 {@link FrameSchedule} 逐帧编码，经 {@link SimulatedChannel} 处理后交给接收端。
+ * 帧按需生成，内存中只保留当前 DATA 帧和信道输出的少量帧。非实时来源，接收端分析多快就跑多快。
+ */
+public class SimulatedSource implements FrameSource {
+
+    private static final long IDLE_SLEEP_MS = 50;
+
+    private final TransferEncoder encoder;
+    private final SimulatedChannel channel;
+    private final Queue<FrameSchedule> schedules = new ConcurrentLinkedQueue<>();
+    private final Queue<BufferedImage> output = new ArrayDeque<>();
+
+    private Iterator<FrameSchedule.Slot> current;
+    private int cachedIndex = -1;
+    private BufferedImage cachedFrame;
+    // 已排队但尚未全部交给接收端的轮数
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public SimulatedSource(TransferEncoder encoder, SimulatedChannel channel) {
+        this.encoder = encoder;
+        this.channel = channel;
+    }
+
+    /**
+     * 排队一轮发送
+     */
+    public void send(FrameSchedule schedule) {
+        pending.incrementAndGet();
+        schedules.add(schedule);
+    }
+
+    /**
+     * 排队的帧是否已全部交给接收端
+     */
+    public boolean isDrained() {
+        return pending.get() == 0;
+    }
+
+    @Override
+    public BufferedImage read() throws Exception {
+        while (output.isEmpty()) {
+            FrameSchedule.Slot slot = nextSlot();
+            if (slot == null) {
+                Thread.sleep(IDLE_SLEEP_MS);
+                return null;
+            }
+            BufferedImage frame = encode(slot);
+            if (frame != null) {
+                output.addAll(channel.transmit(frame));
+            }
+        }
+        return output.poll();
+    }
+
+    @Override
+    public void close() {
+        schedules.clear();
+        pending.set(0);
+        output.clear();
+        current = null;
+        cachedFrame = null;
+    }
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    private FrameSchedule.Slot nextSlot() {
+        while (current == null || !current.hasNext()) {
+            if (current != null) {
+                pending.decrementAndGet();
+                current = null;
+            }
+            FrameSchedule schedule = schedules.poll();
+            if (schedule == null) {
+                return null;
+            }
+            current = schedule.iterator();
+        }
+        return current.next();
+    }
+
+    private BufferedImage encode(FrameSchedule.Slot slot) throws Exception {
+        return switch (slot.type()) {
+            case START -> encoder.encodeStartFrame();
+            case DATA -> {
+                // 同一帧连续重复发送，只编码一次
+                if (slot.index() != cachedIndex) {
+                    cachedFrame = encoder.encodeDataFrame(slot.index(), encoder.readChunk(slot.index()));
+                    cachedIndex = slot.index();
+                }
+                yield cachedFrame;
+            }
+            case EOF -> awaitEofFrame();
+            default -> null;
+        };
+    }
+
+    /**
+     * 延迟校验和模式下与 Hermes 相同，等待后台校验和计算完成再发送 EOF 帧
+     */
+    private BufferedImage awaitEofFrame() throws Exception {
+        BufferedImage frame = encoder.encodeEofFrame();
+        while (frame == null) {
+            Thread.sleep(IDLE_SLEEP_MS);
+            frame = encoder.encodeEofFrame();
+        }
+        return frame;
+    }
+}
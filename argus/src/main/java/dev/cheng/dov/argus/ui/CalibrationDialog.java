@@ -0,0 +1,76 @@
+package dev.cheng.dov.argus.ui;
+
+import dev.cheng.dov.argus.calibration.CalibrationCollector;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * 链路校准报告面板
+ * <p>
+ * Hermes 播放校准帧期间每秒刷新一次各配置的丢帧率、误码率、撕裂率与预期有效吞吐，
+ * 并给出当前传输编码可用的最快配置。
+ */
+public class CalibrationDialog extends JDialog {
+
+    private static final int REFRESH_INTERVAL_MS = 1000;
+
+    private final CalibrationCollector calibration;
+    private final JTextArea textArea = new JTextArea(30, 100);
+    private final Timer refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+
+    public CalibrationDialog(JFrame owner, CalibrationCollector calibration) {
+        super(owner, "链路校准", false);
+        this.calibration = calibration;
+
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton resetButton = new JButton("清零");
+        resetButton.addActionListener(e -> {
+            calibration.reset();
+            refresh();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(resetButton);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(new JScrollPane(textArea), BorderLayout.CENTER);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        setContentPane(content);
+        pack();
+        setLocationRelativeTo(owner);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+    }
+
+    /**
+     * 显示面板并开始定时刷新
+     */
+    public void open() {
+        refresh();
+        refreshTimer.start();
+        setVisible(true);
+    }
+
+    private void refresh() {
+        textArea.setText(calibration.snapshot().format());
+    }
+}
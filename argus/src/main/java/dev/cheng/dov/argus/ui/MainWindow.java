@@ -3,10 +3,14 @@ package dev.cheng.dov.argus.ui;
 import dev.cheng.dov.argus.CaptureDevice;
 import dev.cheng.dov.argus.ReceiverController;
 import dev.cheng.dov.argus.ReceiverState;
+import dev.cheng.dov.argus.ReceiverStatus;
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -19,10 +23,13 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.awt.image.BufferedImage;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
-import java.util.List;
+import java.util.Objects;
 
 /**
  * Argus (Receiver) 主窗口
@@ -33,7 +40,13 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
     private final JComboBox<CaptureDevice.DeviceInfo> deviceSelector = new JComboBox<>();
     private final JButton startButton = new JButton("开始接收");
     private final JButton stopButton = new JButton("停止");
+    private final JButton statsButton = new JButton("统计");
+    private final JButton calibrationButton = new JButton("校准报告");
+    private final JButton recordingButton = new JButton("打开录制...");
     private final JButton refreshButton = new JButton("刷新");
+    private final JCheckBox pausePreviewBox = new JCheckBox("接收时暂停预览", Constants.PREVIEW_PAUSE_WHILE_RECEIVING);
+    private final JCheckBox heatmapBox = new JCheckBox("误码热力图");
+    private final JButton exportMaskButton = new JButton("导出掩码...");
     private final JLabel statusLabel = new JLabel("状态: 未启动");
     private final JLabel fileLabel = new JLabel("当前文件: -");
     private final JLabel sizeLabel = new JLabel("文件大小: -");
@@ -47,11 +60,10 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
     private final JButton changePathButton = new JButton("更改...");
     private final PreviewPanel previewPanel = new PreviewPanel();
 
-    private int missingCount = 0;
-    private int currentTotalFrames = 0;
-    private int currentReceivedFrames = 0;
-    private long currentFileSize = 0;
-    private double lastRate = -1;
+    // 上次刷新的状态快照（仅在 EDT 访问）
+    private ReceiverStatus lastStatus;
+    private StatsDialog statsDialog;
+    private CalibrationDialog calibrationDialog;
 
     public MainWindow(ReceiverController controller) {
         this.controller = controller;
@@ -59,6 +71,12 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
 
         setTitle("DOV Argus");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                controller.close();
+            }
+        });
         setLayout(new BorderLayout(10, 10));
 
         add(createTopPanel(), BorderLayout.NORTH);
@@ -79,8 +97,21 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
         panel.add(new JLabel("采集设备:"));
         panel.add(deviceSelector);
         panel.add(refreshButton);
+        panel.add(pausePreviewBox);
+        panel.add(heatmapBox);
+        panel.add(exportMaskButton);
 
         refreshButton.addActionListener(e -> refreshDevices());
+        heatmapBox.addActionListener(e -> {
+            controller.getHeatmap().setDataSampling(heatmapBox.isSelected());
+            updateOverlay();
+        });
+        exportMaskButton.addActionListener(e -> exportMask());
+        pausePreviewBox.addActionListener(e -> {
+            if (lastStatus != null) {
+                updatePreviewPause(lastStatus.state());
+            }
+        });
         return panel;
     }
 
@@ -118,9 +149,15 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         buttonPanel.add(startButton);
         buttonPanel.add(stopButton);
+        buttonPanel.add(recordingButton);
+        buttonPanel.add(statsButton);
+        buttonPanel.add(calibrationButton);
 
         startButton.addActionListener(e -> startCapture());
         stopButton.addActionListener(e -> controller.stopCapture());
+        recordingButton.addActionListener(e -> chooseRecording());
+        statsButton.addActionListener(e -> showStats());
+        calibrationButton.addActionListener(e -> showCalibration());
 
         panel.add(statusLabel);
         panel.add(fileInfoPanel);
@@ -153,6 +190,16 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
         }
     }
 
+    private void chooseRecording() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("选择图片序列目录或 .y4m 文件");
+        chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        int result = chooser.showOpenDialog(this);
+        if (result == JFileChooser.APPROVE_OPTION) {
+            controller.startRecording(chooser.getSelectedFile().toPath());
+        }
+    }
+
     private void chooseSaveDirectory() {
         JFileChooser chooser = new JFileChooser();
         chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -164,108 +211,118 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
         }
     }
 
-    private void updateButtons(ReceiverState state) {
-        boolean running = state != ReceiverState.STOPPED;
-        startButton.setEnabled(!running);
-        stopButton.setEnabled(running);
-        deviceSelector.setEnabled(!running);
-        refreshButton.setEnabled(!running);
+    /**
+     * 按误码热力图导出块排除掩码，发送端与本地配置 dov.blockMask 指向该文件后生效
+     */
+    private void exportMask() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("导出块排除掩码");
+        chooser.setSelectedFile(new File("dov-mask.properties"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        try {
+            LayoutProfile masked = controller.getHeatmap().exportMask(path);
+            if (masked == null) {
+                statusLabel.setText("状态: 尚无误码统计，未导出掩码");
+                return;
+            }
+            statusLabel.setText(String.format("状态: 已导出掩码 %s（排除 %d 行 %d 列，每帧 %d 块）",
+                    path.getFileName(), masked.mask().excludedRowCount(), masked.mask().excludedColCount(),
+                    masked.dataBlocksPerFrame()));
+        } catch (IOException e) {
+            statusLabel.setText("状态: 导出掩码失败 - " + e.getMessage());
+        }
     }
 
-    @Override
-    public void onPreviewFrame(BufferedImage image) {
-        runOnEdt(() -> previewPanel.setImage(image));
+    private void updateOverlay() {
+        previewPanel.setOverlay(heatmapBox.isSelected() ? controller.getHeatmap().overlay() : null);
     }
 
-    @Override
-    public void onStateChanged(ReceiverState state, String message) {
-        runOnEdt(() -> {
-            statusLabel.setText("状态: " + message);
-            updateButtons(state);
-        });
+    private void showStats() {
+        if (statsDialog == null) {
+            statsDialog = new StatsDialog(this, controller.getStats());
+        }
+        statsDialog.open();
     }
 
-    @Override
-    public void onFileInfo(String fileName, long fileSize, int totalFrames) {
-        runOnEdt(() -> {
-            missingCount = 0;
-            currentTotalFrames = totalFrames;
-            currentReceivedFrames = 0;
-            currentFileSize = fileSize;
-            lastRate = -1;
-            if (fileName == null || fileName.isBlank()) {
-                fileLabel.setText("当前文件: -");
-                sizeLabel.setText("文件大小: -");
-                frameLabel.setText("帧: 0/0  丢失: 0");
-                frameIndexLabel.setText("最新帧序号: -");
-                missingFramesLabel.setText("丢失帧序号: -");
-                rateLabel.setText("速率: -");
-                etaLabel.setText("剩余时间: -");
-                progressBar.setValue(0);
-                progressBar.setString("0%");
-                return;
-            }
-            fileLabel.setText("当前文件: " + fileName);
-            sizeLabel.setText("文件大小: " + formatSize(fileSize));
-            frameLabel.setText(String.format("帧: 0/%d  丢失: 0", totalFrames));
-            frameIndexLabel.setText("最新帧序号: -");
-            missingFramesLabel.setText("丢失帧序号: -");
-            rateLabel.setText("速率: 0 B/s");
-            etaLabel.setText("剩余时间: -");
-            progressBar.setValue(0);
-            progressBar.setString("0%");
-        });
+    private void showCalibration() {
+        if (calibrationDialog == null) {
+            calibrationDialog = new CalibrationDialog(this, controller.getCalibration());
+        }
+        calibrationDialog.open();
     }
 
-    @Override
-    public void onProgress(int receivedFrames, int totalFrames) {
-        runOnEdt(() -> {
-            currentReceivedFrames = receivedFrames;
-            currentTotalFrames = totalFrames;
-            int percent = totalFrames > 0 ? (int) (receivedFrames * 100.0 / totalFrames) : 0;
-            progressBar.setValue(percent);
-            progressBar.setString(percent + "%");
-            frameLabel.setText(String.format("帧: %d/%d  丢失: %d", receivedFrames, totalFrames, missingCount));
-            updateEta();
-        });
+    private void updateButtons(ReceiverState state) {
+        boolean running = state != ReceiverState.STOPPED;
+        startButton.setEnabled(!running);
+        recordingButton.setEnabled(!running);
+        stopButton.setEnabled(running);
+        deviceSelector.setEnabled(!running);
+        refreshButton.setEnabled(!running);
     }
 
     @Override
-    public void onTransferRate(double bytesPerSecond) {
-        runOnEdt(() -> {
-            if (bytesPerSecond < 0) {
-                rateLabel.setText("速率: -");
-                lastRate = -1;
-            } else {
-                rateLabel.setText("速率: " + formatRate(bytesPerSecond));
-                lastRate = bytesPerSecond;
-            }
-            updateEta();
-        });
+    public void onStatus(ReceiverStatus status) {
+        runOnEdt(() -> render(status));
     }
 
     @Override
-    public void onFrameIndex(int frameIndex) {
-        runOnEdt(() -> frameIndexLabel.setText("最新帧序号: " + frameIndex));
+    public void onCompleted(Path outputFile) {
+        runOnEdt(() -> statusLabel.setText("状态: 接收完成 - " + outputFile.getFileName()));
     }
 
-    @Override
-    public void onMissingFrames(List<Integer> missingFrames) {
-        runOnEdt(() -> {
-            missingCount = missingFrames.size();
-            frameLabel.setText(String.format("帧: %d/%d  丢失: %d", currentReceivedFrames, currentTotalFrames, missingCount));
-            missingFramesLabel.setText("丢失帧序号: " + formatMissingFrames(missingFrames));
-        });
-    }
+    /**
+     * 按状态快照刷新界面（EDT）
+     */
+    private void render(ReceiverStatus status) {
+        ReceiverStatus previous = lastStatus;
+        lastStatus = status;
+
+        updatePreviewPause(status.state());
+        updateOverlay();
+        if (status.preview() != null && (previous == null || previous.preview() != status.preview())) {
+            previewPanel.setImage(status.preview());
+        }
+        // 状态文字只在变化时更新，保留接收完成时显示的输出文件名
+        if (previous == null || previous.state() != status.state()
+                || !Objects.equals(previous.message(), status.message())) {
+            statusLabel.setText("状态: " + status.message());
+            updateButtons(status.state());
+        }
 
-    @Override
-    public void onCompleted(Path outputFile) {
-        runOnEdt(() -> statusLabel.setText("状态: 接收完成 - " + outputFile.getFileName()));
+        if (status.fileName() == null || status.fileName().isBlank()) {
+            fileLabel.setText("当前文件: -");
+            sizeLabel.setText("文件大小: -");
+        } else {
+            fileLabel.setText("当前文件: " + status.fileName());
+            sizeLabel.setText("文件大小: " + formatSize(status.fileSize()));
+        }
+
+        int receivedFrames = status.receivedFrames();
+        int totalFrames = status.totalFrames();
+        int percent = totalFrames > 0 ? (int) (receivedFrames * 100.0 / totalFrames) : 0;
+        progressBar.setValue(percent);
+        progressBar.setString(percent + "%");
+        frameLabel.setText(String.format("帧: %d/%d  丢失: %d", receivedFrames, totalFrames,
+                status.missingFrames().size()));
+        frameIndexLabel.setText("最新帧序号: " + (status.frameIndex() >= 0 ? status.frameIndex() : "-"));
+        missingFramesLabel.setText("丢失帧序号: " + status.missingFrames().format(12));
+
+        if (status.bytesPerSecond() < 0) {
+            rateLabel.setText("速率: -");
+        } else {
+            rateLabel.setText("速率: " + formatRate(status.bytesPerSecond()));
+        }
+        updateEta(status);
     }
 
-    @Override
-    public void onError(String message) {
-        runOnEdt(() -> statusLabel.setText("状态: " + message));
+    private void updatePreviewPause(ReceiverState state) {
+        boolean transferring = state == ReceiverState.RECEIVING
+                || state == ReceiverState.WAITING_RESEND
+                || state == ReceiverState.ASSEMBLING;
+        previewPanel.setPaused(pausePreviewBox.isSelected() && transferring);
     }
 
     private void runOnEdt(Runnable runnable) {
@@ -304,34 +361,16 @@ public class MainWindow extends JFrame implements ReceiverController.Listener {
         return new DecimalFormat("0.##").format(value) + " " + units[unitIndex];
     }
 
-    private String formatMissingFrames(List<Integer> missingFrames) {
-        if (missingFrames == null || missingFrames.isEmpty()) {
-            return "-";
-        }
-        int limit = 12;
-        int count = Math.min(missingFrames.size(), limit);
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < count; i++) {
-            if (i > 0) {
-                builder.append(", ");
-            }
-            builder.append(missingFrames.get(i));
-        }
-        if (missingFrames.size() > limit) {
-            builder.append(" ...");
-        }
-        return builder.toString();
-    }
-
-    private void updateEta() {
-        if (lastRate <= 0 || currentFileSize <= 0 || currentTotalFrames <= 0) {
+    private void updateEta(ReceiverStatus status) {
+        long fileSize = status.fileSize();
+        if (status.bytesPerSecond() <= 0 || fileSize <= 0 || status.totalFrames() <= 0) {
             etaLabel.setText("剩余时间: -");
             return;
         }
-        double ratio = currentReceivedFrames / (double) currentTotalFrames;
-        long receivedBytes = Math.round(currentFileSize * Math.min(Math.max(ratio, 0.0), 1.0));
-        long remainingBytes = Math.max(currentFileSize - receivedBytes, 0);
-        long seconds = (long) Math.ceil(remainingBytes / lastRate);
+        double ratio = status.receivedFrames() / (double) status.totalFrames();
+        long receivedBytes = Math.round(fileSize * Math.min(Math.max(ratio, 0.0), 1.0));
+        long remainingBytes = Math.max(fileSize - receivedBytes, 0);
+        long seconds = (long) Math.ceil(remainingBytes / status.bytesPerSecond());
         etaLabel.setText("剩余时间: " + formatDuration(seconds));
     }
 
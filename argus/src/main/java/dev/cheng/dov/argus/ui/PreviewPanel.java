@@ -1,46 +1,157 @@
 package dev.cheng.dov.argus.ui;
 
+import dev.cheng.dov.argus.heatmap.ErrorHeatmap;
+import dev.cheng.dov.protocol.Constants;
+
 import javax.swing.JPanel;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 预览面板
+ * <p>
+ * 采集画面在后台线程按面板尺寸缩小到复用的缓冲图中，EDT 只做 1:1 绘制。
+ * 刷新频率不超过 PREVIEW_FPS，渲染线程繁忙时只保留最新一帧；暂停后不再处理采集画面。
+ * 设置了误码热力图叠加图时，渲染时按帧尺寸比例缩放后叠加在数据区上。
  */
 public class PreviewPanel extends JPanel {
 
-    private BufferedImage image;
+    private final long minIntervalMs = Constants.PREVIEW_FPS > 0 ? 1000L / Constants.PREVIEW_FPS : 0;
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "PreviewRenderer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicReference<BufferedImage> pending = new AtomicReference<>();
+    private final Object bufferLock = new Object();
+
+    private volatile boolean paused;
+    private volatile ErrorHeatmap.Overlay overlay;
+    private volatile int targetWidth;
+    private volatile int targetHeight;
+    private long lastSubmitTime;
+
+    // front 由 bufferLock 保护，back 仅在渲染线程访问
+    private BufferedImage front;
+    private BufferedImage back;
 
     public PreviewPanel() {
         setBackground(Color.BLACK);
     }
 
+    /**
+     * 提交采集画面（EDT 调用），超过刷新频率或暂停时直接丢弃
+     */
     public void setImage(BufferedImage image) {
-        this.image = image;
+        if (image == null || paused || minIntervalMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastSubmitTime < minIntervalMs) {
+            return;
+        }
+        lastSubmitTime = now;
+        targetWidth = getWidth();
+        targetHeight = getHeight();
+        if (pending.getAndSet(image) == null) {
+            renderer.execute(this::renderPending);
+        }
+    }
+
+    /**
+     * 设置叠加的误码热力图（null 表示不叠加），下一帧预览生效
+     */
+    public void setOverlay(ErrorHeatmap.Overlay overlay) {
+        this.overlay = overlay;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 暂停或恢复预览，暂停时释放缓冲图
+     */
+    public void setPaused(boolean paused) {
+        if (this.paused == paused) {
+            return;
+        }
+        this.paused = paused;
+        if (paused) {
+            pending.set(null);
+            synchronized (bufferLock) {
+                front = null;
+            }
+        }
         repaint();
     }
 
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        if (image == null) {
+    private void renderPending() {
+        BufferedImage image = pending.getAndSet(null);
+        if (image == null || paused) {
+            return;
+        }
+        int panelWidth = targetWidth;
+        int panelHeight = targetHeight;
+        if (panelWidth <= 0 || panelHeight <= 0) {
             return;
         }
+        double scale = Math.min(panelWidth / (double) image.getWidth(), panelHeight / (double) image.getHeight());
+        int drawWidth = Math.max((int) (image.getWidth() * scale), 1);
+        int drawHeight = Math.max((int) (image.getHeight() * scale), 1);
 
-        Graphics2D g2d = (Graphics2D) g;
-        int panelWidth = getWidth();
-        int panelHeight = getHeight();
-        int imageWidth = image.getWidth();
-        int imageHeight = image.getHeight();
+        if (back == null || back.getWidth() != drawWidth || back.getHeight() != drawHeight) {
+            back = new BufferedImage(drawWidth, drawHeight, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g2d = back.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(image, 0, 0, drawWidth, drawHeight, null);
+            ErrorHeatmap.Overlay heatmap = overlay;
+            if (heatmap != null) {
+                double scaleX = drawWidth / (double) heatmap.frameWidth();
+                double scaleY = drawHeight / (double) heatmap.frameHeight();
+                Rectangle area = heatmap.area();
+                g2d.drawImage(heatmap.image(), (int) (area.x * scaleX), (int) (area.y * scaleY),
+                        (int) Math.ceil(area.width * scaleX), (int) Math.ceil(area.height * scaleY), null);
+            }
+        } finally {
+            g2d.dispose();
+        }
 
-        double scale = Math.min(panelWidth / (double) imageWidth, panelHeight / (double) imageHeight);
-        int drawWidth = (int) (imageWidth * scale);
-        int drawHeight = (int) (imageHeight * scale);
-        int x = (panelWidth - drawWidth) / 2;
-        int y = (panelHeight - drawHeight) / 2;
+        synchronized (bufferLock) {
+            if (paused) {
+                return;
+            }
+            BufferedImage rendered = back;
+            back = front;
+            front = rendered;
+        }
+        repaint();
+    }
 
-        g2d.drawImage(image, x, y, drawWidth, drawHeight, null);
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (paused) {
+            g.setColor(Color.GRAY);
+            g.drawString("预览已暂停", 10, 20);
+            return;
+        }
+        synchronized (bufferLock) {
+            if (front == null) {
+                return;
+            }
+            int x = (getWidth() - front.getWidth()) / 2;
+            int y = (getHeight() - front.getHeight()) / 2;
+            g.drawImage(front, x, y, null);
+        }
     }
 }
@@ -0,0 +1,75 @@
+package dev.cheng.dov.argus.ui;
+
+import dev.cheng.dov.argus.ReceiverStats;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/**
+ * 接收统计面板
+ * <p>
+ * 每秒刷新一次各阶段耗时分位数、重试次数与事件计数，用于调整 blockSize / targetFps 等参数。
+ */
+public class StatsDialog extends JDialog {
+
+    private static final int REFRESH_INTERVAL_MS = 1000;
+
+    private final ReceiverStats stats;
+    private final JTextArea textArea = new JTextArea(22, 80);
+    private final Timer refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+
+    public StatsDialog(JFrame owner, ReceiverStats stats) {
+        super(owner, "接收统计", false);
+        this.stats = stats;
+
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton resetButton = new JButton("清零");
+        resetButton.addActionListener(e -> {
+            stats.reset();
+            refresh();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(resetButton);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(new JScrollPane(textArea), BorderLayout.CENTER);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        setContentPane(content);
+        pack();
+        setLocationRelativeTo(owner);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+    }
+
+    /**
+     * 显示面板并开始定时刷新
+     */
+    public void open() {
+        refresh();
+        refreshTimer.start();
+        setVisible(true);
+    }
+
+    private void refresh() {
+        textArea.setText(stats.snapshot().format());
+    }
+}
@@ -0,0 +1,112 @@
+package dev.cheng.dov.argus.opencv;
+
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.LumaFrame;
+import dev.cheng.dov.protocol.frame.FrameDetector;
+import dev.cheng.dov.protocol.frame.FrameHeader;
+import dev.cheng.dov.protocol.frame.FrameType;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.Loader;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 本地 OpenCV 路径：带透视畸变的帧经校正后按块分辨率解码帧头与负载。
+ * 当前平台没有 OpenCV 本地库时跳过。
+ */
+class BlockRectifierTest {
+
+    private static final LayoutProfile PROFILE = new LayoutProfile(1920, 1080, 8, 16, 32, 3, 2);
+
+    private static boolean nativeAvailable;
+
+    @BeforeAll
+    static void loadNative() {
+        try {
+            Loader.load(opencv_imgproc.class);
+            nativeAvailable = true;
+        } catch (LinkageError | RuntimeException e) {
+            nativeAvailable = false;
+        }
+    }
+
+    private static byte[] payload(FrameCodec codec) {
+        byte[] payload = new byte[codec.getPayloadCapacity()];
+        new Random(11).nextBytes(payload);
+        return payload;
+    }
+
+    /**
+     * 编码 DATA 帧，转为灰度 Mat 后按四角位移做透视变换
+     */
+    private static Mat distortedFrame(FrameCodec codec, byte[] payload) {
+        LumaFrame luma = LumaFrame.of(codec.encodeDataFrame(7, payload));
+        int width = luma.getWidth();
+        int height = luma.getHeight();
+        Mat source = new Mat(height, width, opencv_core.CV_8UC1);
+        source.data().put(luma.array(), 0, width * height);
+
+        float[] from = {0, 0, width, 0, 0, height, width, height};
+        float[] to = {5, 3, width - 4, 6, 2, height - 5, width - 6, height - 1};
+        Mat distorted = new Mat();
+        try (FloatPointer fromPoints = new FloatPointer(from);
+             FloatPointer toPoints = new FloatPointer(to);
+             Mat fromMat = new Mat(4, 1, opencv_core.CV_32FC2, fromPoints);
+             Mat toMat = new Mat(4, 1, opencv_core.CV_32FC2, toPoints);
+             Mat transform = opencv_imgproc.getPerspectiveTransform(fromMat, toMat)) {
+            opencv_imgproc.warpPerspective(source, distorted, transform, new Size(width, height));
+        }
+        return distorted;
+    }
+
+    @Test
+    void rectifiesPerspectiveFromGrayMat() {
+        assumeTrue(nativeAvailable, "OpenCV 本地库不可用");
+        FrameCodec codec = new FrameCodec(PROFILE);
+        FrameCodec gridCodec = new FrameCodec(PROFILE.blockGrid());
+        byte[] payload = payload(codec);
+        GrayMatImage image = new GrayMatImage(distortedFrame(codec, payload));
+
+        FrameDetector detector = new FrameDetector(codec.getLayout());
+        FrameDetector.DetectionResult detection = detector.detect(image.luma());
+        assertTrue(detection.isValid());
+        float[] corners = detector.locateCorners(image.luma(), detection.getOffsetX(), detection.getOffsetY());
+
+        LumaFrame blocks = new BlockRectifier().rectify(image.mat(), codec.getLayout(), corners);
+        assertEquals(PROFILE.gridCols(), blocks.getWidth());
+        assertEquals(PROFILE.gridRows(), blocks.getHeight());
+
+        FrameHeader header = gridCodec.decodeHeader(blocks, 0, 0);
+        assertNotNull(header);
+        assertEquals(FrameType.DATA, header.getFrameType());
+        assertEquals(7, header.getFrameIndex());
+        assertArrayEquals(payload, gridCodec.decodeDataWithCrc(blocks, header.getDataLength(), 0, 0));
+    }
+
+    @Test
+    void lumaAndMatInputsAgree() {
+        assumeTrue(nativeAvailable, "OpenCV 本地库不可用");
+        FrameCodec codec = new FrameCodec(PROFILE);
+        GrayMatImage image = new GrayMatImage(distortedFrame(codec, payload(codec)));
+        FrameDetector detector = new FrameDetector(codec.getLayout());
+        FrameDetector.DetectionResult detection = detector.detect(image.luma());
+        float[] corners = detector.locateCorners(image.luma(), detection.getOffsetX(), detection.getOffsetY());
+
+        byte[] fromMat = new BlockRectifier().rectify(image.mat(), codec.getLayout(), corners).array().clone();
+        byte[] fromLuma = new BlockRectifier().rectify(image.luma(), codec.getLayout(), corners).array();
+        assertArrayEquals(fromMat, fromLuma);
+    }
+}
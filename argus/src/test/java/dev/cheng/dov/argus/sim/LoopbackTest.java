@@ -0,0 +1,65 @@
+package dev.cheng.dov.argus.sim;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 经模拟信道的端到端传输：平移、噪声、丢帧和重复帧，丢失的帧由补发补齐
+ */
+class LoopbackTest {
+
+    private static final SimulatedChannel.Impairments CHANNEL = new SimulatedChannel.Impairments(
+            0, false, 1.0, 1, 1, 20, 1.0, 0.02, 0.01, 0, 7);
+    private static final long TIMEOUT_MS = 120_000;
+
+    @TempDir
+    Path dir;
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    @ParameterizedTest(name = "deferredHash={0}")
+    @ValueSource(booleans = {false, true})
+    void file(boolean deferredHash) throws Exception {
+        Path input = dir.resolve("input.bin");
+        byte[] content = randomBytes(150_000, 1);
+        Files.write(input, content);
+        Path output = Files.createDirectory(dir.resolve("out"));
+
+        assertTrue(LoopbackRunner.run(input, CHANNEL, deferredHash, 5, TIMEOUT_MS, output));
+        assertArrayEquals(content, Files.readAllBytes(output.resolve("input.bin")));
+    }
+
+    @ParameterizedTest(name = "deferredHash={0}")
+    @ValueSource(booleans = {false, true})
+    void directory(boolean deferredHash) throws Exception {
+        Path input = Files.createDirectories(dir.resolve("input/sub"));
+        write(input.resolve("a.bin"), randomBytes(60_000, 2));
+        write(input.resolve("b.bin"), randomBytes(300, 3));
+        write(dir.resolve("input/empty.txt"), new byte[0]);
+        Path output = Files.createDirectory(dir.resolve("out"));
+
+        assertTrue(LoopbackRunner.run(dir.resolve("input"), CHANNEL, deferredHash, 5, TIMEOUT_MS, output));
+        assertArrayEquals(Files.readAllBytes(input.resolve("a.bin")),
+                Files.readAllBytes(output.resolve("input/sub/a.bin")));
+        assertArrayEquals(Files.readAllBytes(input.resolve("b.bin")),
+                Files.readAllBytes(output.resolve("input/sub/b.bin")));
+        assertArrayEquals(new byte[0], Files.readAllBytes(output.resolve("input/empty.txt")));
+    }
+
+    private static void write(Path path, byte[] content) throws IOException {
+        Files.write(path, content);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.cheng.dov.benchmarks;
+
+import dev.cheng.dov.argus.FrameAnalyzer;
+import dev.cheng.dov.argus.ReceiverStats;
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 完整的单帧分析（尺寸归一化、角标检测、帧头与数据区解码含偏移重试）
+ * <p>
+ * 分析器在迭代之间保留上一帧的偏移，与实际连续接收时的状态一致。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class AnalyzerBenchmark {
+
+    @Param({"CLEAN", "SHIFTED", "SCALED", "JPEG"})
+    public SyntheticFrames.Distortion distortion;
+
+    /**
+     * 块大小，0 表示使用配置文件中的布局
+     */
+    @Param({"0"})
+    public int blockSize;
+
+    private FrameAnalyzer analyzer;
+    private BufferedImage frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LayoutProfile profile = SyntheticFrames.profile(blockSize);
+        FrameCodec codec = new FrameCodec(profile);
+        frame = SyntheticFrames.distort(codec.encodeDataFrame(7, SyntheticFrames.payload(codec)), distortion);
+        analyzer = new FrameAnalyzer(new ReceiverStats(), new AtomicReference<>(profile));
+    }
+
+    @Benchmark
+    public FrameAnalyzer.AnalyzedFrame analyze() {
+        return analyzer.analyze(frame);
+    }
+}
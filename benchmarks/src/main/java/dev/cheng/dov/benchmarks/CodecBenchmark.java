@@ -0,0 +1,90 @@
+package dev.cheng.dov.benchmarks;
+
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.LumaFrame;
+import dev.cheng.dov.protocol.frame.FrameDetector;
+import dev.cheng.dov.protocol.frame.FrameHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收端解码热路径：亮度转换、帧头解码、数据区解码与 CRC 校验、角标检测
+ * <p>
+ * 接收端每帧只做一次亮度转换，帧头与数据区解码在预先转换好的亮度平面上测量。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    @Param({"CLEAN", "SHIFTED", "SCALED", "JPEG"})
+    public SyntheticFrames.Distortion distortion;
+
+    /**
+     * 块大小，0 表示使用配置文件中的布局；同一进程内可对比多种布局
+     */
+    @Param({"0"})
+    public int blockSize;
+
+    /**
+     * 帧宽度，高度按 16:9 计算；0 表示配置文件中的帧尺寸，3840 对应 4K 采集
+     */
+    @Param({"0", "3840"})
+    public int frameWidth;
+
+    private FrameCodec codec;
+    private FrameDetector detector;
+    private BufferedImage frame;
+    private LumaFrame luma;
+    private int dataLength;
+    private int offsetX;
+    private int offsetY;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = new FrameCodec(SyntheticFrames.profile(blockSize, frameWidth));
+        detector = new FrameDetector(codec.getLayout());
+        byte[] payload = SyntheticFrames.payload(codec);
+        dataLength = payload.length;
+        frame = SyntheticFrames.distort(codec.encodeDataFrame(7, payload), distortion);
+        offsetX = SyntheticFrames.offsetX(distortion);
+        offsetY = SyntheticFrames.offsetY(distortion);
+        luma = LumaFrame.of(frame);
+    }
+
+    @Benchmark
+    public LumaFrame lumaConversion() {
+        return LumaFrame.of(frame, luma);
+    }
+
+    @Benchmark
+    public FrameHeader decodeHeader() {
+        return codec.decodeHeader(luma, offsetX, offsetY);
+    }
+
+    @Benchmark
+    public byte[] decodeDataWithCrc() {
+        return codec.decodeDataWithCrc(luma, dataLength, offsetX, offsetY);
+    }
+
+    @Benchmark
+    public FrameDetector.DetectionResult detect() {
+        return detector.detect(luma);
+    }
+}
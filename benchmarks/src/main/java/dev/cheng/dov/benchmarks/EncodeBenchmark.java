@@ -0,0 +1,63 @@
+package dev.cheng.dov.benchmarks;
+
+import dev.cheng.dov.protocol.codec.BlockCodec;
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送端编码热路径与位转换
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodeBenchmark {
+
+    /**
+     * 块大小，0 表示使用配置文件中的布局
+     */
+    @Param({"0"})
+    public int blockSize;
+
+    private FrameCodec codec;
+    private byte[] payload;
+    private int[] bits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = new FrameCodec(SyntheticFrames.profile(blockSize));
+        payload = SyntheticFrames.payload(codec);
+        bits = BlockCodec.bytesToBits(payload);
+    }
+
+    @Benchmark
+    public BufferedImage encodeDataFrame() {
+        return codec.encodeDataFrame(7, payload);
+    }
+
+    @Benchmark
+    public int[] bytesToBits() {
+        return BlockCodec.bytesToBits(payload);
+    }
+
+    @Benchmark
+    public byte[] bitsToBytes() {
+        return BlockCodec.bitsToBytes(bits);
+    }
+}
@@ -0,0 +1,102 @@
+package dev.cheng.dov.benchmarks;
+
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.LumaFrame;
+import dev.cheng.dov.protocol.codec.LumaKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 亮度内核对比：标量实现与向量实现在整帧亮度转换和数据区解码（块行求和、阈值打包）上的耗时
+ * <p>
+ * 向量实现不可用（JVM 未加入 jdk.incubator.vector 或向量宽度不足 256 位）时 vector 组合直接失败。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class KernelBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    @Param({"2", "4", "8"})
+    public int blockSize;
+
+    /**
+     * 帧宽度，高度按 16:9 计算
+     */
+    @Param({"1920", "3840"})
+    public int frameWidth;
+
+    /**
+     * 采集画面的像素格式：INT_RGB（编码器输出）或 3BYTE_BGR（采集卡常见格式）
+     */
+    @Param({"INT_RGB", "3BYTE_BGR"})
+    public String imageType;
+
+    private LumaKernels lumaKernels;
+    private FrameCodec codec;
+    private BufferedImage frame;
+    private LumaFrame luma;
+    private int dataLength;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lumaKernels = "vector".equals(kernels) ? LumaKernels.vector() : LumaKernels.scalar();
+        if (lumaKernels == null) {
+            throw new IllegalStateException("向量内核不可用");
+        }
+        codec = new FrameCodec(SyntheticFrames.profile(blockSize, frameWidth));
+        byte[] payload = SyntheticFrames.payload(codec);
+        dataLength = payload.length;
+        frame = toType(codec.encodeDataFrame(7, payload), imageType);
+        luma = LumaFrame.of(frame, null, lumaKernels);
+    }
+
+    private static BufferedImage toType(BufferedImage image, String type) {
+        if ("INT_RGB".equals(type)) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = converted.createGraphics();
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return converted;
+    }
+
+    @Benchmark
+    public LumaFrame lumaConversion() {
+        return LumaFrame.of(frame, luma, lumaKernels);
+    }
+
+    @Benchmark
+    public byte[] decodeDataWithCrc() {
+        return codec.decodeDataWithCrc(luma, dataLength, 0, 0);
+    }
+
+    /**
+     * 接收端每帧的解码阶段：亮度转换 + 数据区解码
+     */
+    @Benchmark
+    public byte[] decodeFrame() {
+        return codec.decodeDataWithCrc(LumaFrame.of(frame, luma, lumaKernels), dataLength, 0, 0);
+    }
+}
@@ -0,0 +1,155 @@
+package dev.cheng.dov.benchmarks;
+
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成帧
+ * <p>
+ * 负载使用固定种子生成，每次运行得到相同的帧，便于对比修改前后的结果。
+ */
+public final class SyntheticFrames {
+
+    public static final long SEED = 0x444F56L;
+    public static final int SHIFT_X = 3;
+    public static final int SHIFT_Y = 2;
+    private static final float JPEG_QUALITY = 0.75f;
+
+    /**
+     * 采集链路上常见的画面失真
+     */
+    public enum Distortion {
+        /**
+         * 与发送端完全一致
+         */
+        CLEAN,
+        /**
+         * 整体平移 (SHIFT_X, SHIFT_Y) 像素
+         */
+        SHIFTED,
+        /**
+         * 缩小到 2/3 后再放大回原尺寸（双线性），模拟采集卡缩放
+         */
+        SCALED,
+        /**
+         * JPEG 压缩后解码，模拟 MJPEG 采集
+         */
+        JPEG
+    }
+
+    private SyntheticFrames() {
+    }
+
+    /**
+     * 基准测试使用的布局
+     *
+     * @param blockSize 块大小，0 表示使用配置文件中的布局
+     */
+    public static LayoutProfile profile(int blockSize) {
+        return blockSize > 0 ? LayoutProfile.DEFAULT.withBlockSize(blockSize) : LayoutProfile.DEFAULT;
+    }
+
+    /**
+     * 指定帧宽度的布局，高度按 16:9 计算，其余参数同 {@link #profile(int)}
+     *
+     * @param frameWidth 帧宽度，0 表示使用配置文件中的帧尺寸
+     */
+    public static LayoutProfile profile(int blockSize, int frameWidth) {
+        LayoutProfile base = profile(blockSize);
+        if (frameWidth <= 0) {
+            return base;
+        }
+        return new LayoutProfile(frameWidth, frameWidth * 9 / 16, base.blockSize(), base.safeMargin(),
+                base.cornerSize(), base.headerRows(), base.checksumRows());
+    }
+
+    /**
+     * 生成填满数据区的随机负载
+     */
+    public static byte[] payload(FrameCodec codec) {
+        byte[] payload = new byte[codec.getPayloadCapacity()];
+        new Random(SEED).nextBytes(payload);
+        return payload;
+    }
+
+    /**
+     * 对帧施加失真
+     */
+    public static BufferedImage distort(BufferedImage frame, Distortion distortion) {
+        return switch (distortion) {
+            case CLEAN -> frame;
+            case SHIFTED -> shift(frame, SHIFT_X, SHIFT_Y);
+            case SCALED -> rescale(frame, frame.getWidth() * 2 / 3, frame.getHeight() * 2 / 3);
+            case JPEG -> jpeg(frame, JPEG_QUALITY);
+        };
+    }
+
+    /**
+     * 失真后帧内容相对标准位置的偏移
+     */
+    public static int offsetX(Distortion distortion) {
+        return distortion == Distortion.SHIFTED ? SHIFT_X : 0;
+    }
+
+    public static int offsetY(Distortion distortion) {
+        return distortion == Distortion.SHIFTED ? SHIFT_Y : 0;
+    }
+
+    private static BufferedImage shift(BufferedImage frame, int dx, int dy) {
+        BufferedImage shifted = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = shifted.createGraphics();
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, shifted.getWidth(), shifted.getHeight());
+        g2d.drawImage(frame, dx, dy, null);
+        g2d.dispose();
+        return shifted;
+    }
+
+    private static BufferedImage rescale(BufferedImage frame, int width, int height) {
+        BufferedImage small = resize(frame, width, height);
+        return resize(small, frame.getWidth(), frame.getHeight());
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = target.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(source, 0, 0, width, height, null);
+        g2d.dispose();
+        return target;
+    }
+
+    private static BufferedImage jpeg(BufferedImage frame, float quality) {
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.write(null, new IIOImage(frame, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
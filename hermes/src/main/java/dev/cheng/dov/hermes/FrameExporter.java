@@ -0,0 +1,327 @@
+package dev.cheng.dov.hermes;
+
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.codec.TransferEncoder;
+import dev.cheng.dov.protocol.frame.FrameSchedule;
+import dev.cheng.dov.protocol.frame.FrameType;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 传输预渲染导出
+ * <p>
+ * 把一次传输的帧序列（可选 IDLE 引导帧、START、带重复的 DATA、EOF）预先渲染成无损帧序列或原始视频，
+ * 之后由任意播放器或信号发生器按固定帧率播放，发送端不再受实时编码和定时精度限制。
+ * 不同的帧在线程池中并行编码，调用线程按序写出；同一帧的重复只编码一次。不依赖 JavaFX。
+ */
+public class FrameExporter {
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        /**
+         * PNG 图片序列（frame_000000.png ...），输出为目录
+         */
+        PNG,
+        /**
+         * 无头原始视频，每帧 rgb24 按行存放，输出为单个文件
+         */
+        RGB,
+        /**
+         * YUV4MPEG2 视频，4:4:4 full range；帧内只有灰阶时转换无损
+         */
+        Y4M
+    }
+
+    /**
+     * 导出进度
+     *
+     * @param frames      已写出的帧数（含重复）
+     * @param totalFrames 总帧数
+     * @param bytes       已写出的字节数
+     * @param elapsedMs   已用时间
+     */
+    public record Progress(long frames, long totalFrames, long bytes, long elapsedMs) {
+
+        public double framesPerSecond() {
+            return frames * 1000.0 / Math.max(elapsedMs, 1);
+        }
+    }
+
+    /**
+     * 进度监听器，在调用线程中按报告间隔回调
+     */
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    private final TransferEncoder encoder;
+    private final int threads;
+
+    /**
+     * @param encoder 传输帧编码器
+     * @param threads 编码线程数
+     */
+    public FrameExporter(TransferEncoder encoder, int threads) {
+        this.encoder = encoder;
+        this.threads = Math.max(threads, 1);
+    }
+
+    /**
+     * 导出帧序列
+     *
+     * @param schedule         帧序列
+     * @param idleFrames       序列前插入的 IDLE 帧数，便于接收端先锁定画面
+     * @param format           导出格式
+     * @param output           PNG 为输出目录，其他格式为输出文件
+     * @param reportIntervalMs 进度报告间隔
+     * @param listener         进度监听器，可为 null
+     * @return 最终进度
+     */
+    public Progress export(FrameSchedule schedule, int idleFrames, Format format, Path output,
+                           long reportIntervalMs, ProgressListener listener) throws IOException {
+        long totalFrames = idleFrames + schedule.size();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "FrameExporter");
+            t.setDaemon(true);
+            return t;
+        });
+        try (FrameWriter writer = openWriter(format, output)) {
+            // 按序排队的编码任务，队首由调用线程写出
+            Deque<PendingFrame> pending = new ArrayDeque<>();
+            int window = threads * 2;
+            ProgressReporter reporter = new ProgressReporter(writer, totalFrames, reportIntervalMs, listener);
+
+            if (idleFrames > 0) {
+                pending.add(new PendingFrame(pool.submit(() -> toBytes(encoder.encodeIdleFrame(), format)),
+                        idleFrames));
+            }
+            PendingFrame current = null;
+            for (FrameSchedule.Slot slot : schedule) {
+                if (slot.repeat() > 1 && current != null) {
+                    current.repeat++;
+                    continue;
+                }
+                if (current != null) {
+                    pending.add(current);
+                }
+                current = new PendingFrame(pool.submit(() -> toBytes(render(slot), format)), 1);
+                while (pending.size() >= window) {
+                    writer.write(pending.poll());
+                    reporter.maybeReport();
+                }
+            }
+            if (current != null) {
+                pending.add(current);
+            }
+            while (!pending.isEmpty()) {
+                writer.write(pending.poll());
+                reporter.maybeReport();
+            }
+            return reporter.current();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private BufferedImage render(FrameSchedule.Slot slot) throws IOException {
+        BufferedImage image;
+        if (slot.type() == FrameType.START) {
+            image = encoder.encodeStartFrame();
+        } else if (slot.type() == FrameType.DATA) {
+            image = encoder.encodeDataFrame(slot.index(), encoder.readChunk(slot.index()));
+        } else if (slot.type() == FrameType.EOF) {
+            image = encoder.encodeEofFrame();
+        } else {
+            throw new IllegalStateException("意外的帧类型: " + slot.type());
+        }
+        if (image == null) {
+            throw new IOException("校验和尚未计算完成，无法生成 EOF 帧");
+        }
+        return image;
+    }
+
+    /**
+     * 在编码线程中把图像转换为目标格式的字节
+     */
+    private static byte[] toBytes(BufferedImage image, Format format) throws IOException {
+        return switch (format) {
+            case PNG -> {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+                ImageIO.write(image, "png", bytes);
+                yield bytes.toByteArray();
+            }
+            case RGB -> toRgb24(image);
+            case Y4M -> toYuv444(image);
+        };
+    }
+
+    private static byte[] toRgb24(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        byte[] rgb = new byte[pixels.length * 3];
+        for (int i = 0, j = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            rgb[j++] = (byte) (pixel >> 16);
+            rgb[j++] = (byte) (pixel >> 8);
+            rgb[j++] = (byte) pixel;
+        }
+        return rgb;
+    }
+
+    /**
+     * BT.601 full range 平面 YUV 4:4:4（Y、U、V 三个平面依次存放）
+     */
+    private static byte[] toYuv444(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int planeSize = pixels.length;
+        byte[] yuv = new byte[planeSize * 3];
+        for (int i = 0; i < planeSize; i++) {
+            int pixel = pixels[i];
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+            // 系数放大 2^16，r = g = b 时 Y 等于原值、U / V 为 128
+            yuv[i] = (byte) clamp((19595 * r + 38470 * g + 7471 * b + 32768) >> 16);
+            yuv[planeSize + i] = (byte) clamp(((-11059 * r - 21709 * g + 32768 * b + 32768) >> 16) + 128);
+            yuv[planeSize * 2 + i] = (byte) clamp(((32768 * r - 27439 * g - 5329 * b + 32768) >> 16) + 128);
+        }
+        return yuv;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    private FrameWriter openWriter(Format format, Path output) throws IOException {
+        if (format == Format.PNG) {
+            Files.createDirectories(output);
+            return new FrameWriter(format, output, null);
+        }
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FrameWriter writer = new FrameWriter(format, null,
+                new BufferedOutputStream(Files.newOutputStream(output), 1 << 20));
+        if (format == Format.Y4M) {
+            LayoutProfile profile = encoder.getProfile();
+            String header = "YUV4MPEG2 W" + profile.frameWidth() + " H" + profile.frameHeight()
+                    + " F" + Constants.TARGET_FPS + ":1 Ip A1:1 C444 XCOLORRANGE=FULL\n";
+            byte[] headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+            writer.stream.write(headerBytes);
+            writer.bytes += headerBytes.length;
+        }
+        return writer;
+    }
+
+    private static final class ProgressReporter {
+        private final FrameWriter writer;
+        private final long totalFrames;
+        private final long intervalMs;
+        private final ProgressListener listener;
+        private final long startTime = System.currentTimeMillis();
+        private long lastReport = startTime;
+
+        private ProgressReporter(FrameWriter writer, long totalFrames, long intervalMs, ProgressListener listener) {
+            this.writer = writer;
+            this.totalFrames = totalFrames;
+            this.intervalMs = intervalMs;
+            this.listener = listener;
+        }
+
+        void maybeReport() {
+            long now = System.currentTimeMillis();
+            if (listener != null && now - lastReport >= intervalMs) {
+                lastReport = now;
+                listener.onProgress(current());
+            }
+        }
+
+        Progress current() {
+            return new Progress(writer.frames, totalFrames, writer.bytes, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private static final class PendingFrame {
+        private final Future<byte[]> bytes;
+        private int repeat;
+
+        private PendingFrame(Future<byte[]> bytes, int repeat) {
+            this.bytes = bytes;
+            this.repeat = repeat;
+        }
+    }
+
+    /**
+     * 按序写出：PNG 每帧一个文件，视频格式追加到同一个流
+     */
+    private static final class FrameWriter implements AutoCloseable {
+        private static final byte[] Y4M_FRAME = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+
+        private final Format format;
+        private final Path directory;
+        private final OutputStream stream;
+        private long frames;
+        private long bytes;
+
+        private FrameWriter(Format format, Path directory, OutputStream stream) {
+            this.format = format;
+            this.directory = directory;
+            this.stream = stream;
+        }
+
+        void write(PendingFrame frame) throws IOException {
+            byte[] data;
+            try {
+                data = frame.bytes.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("导出被中断");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+            }
+            for (int i = 0; i < frame.repeat; i++) {
+                if (format == Format.PNG) {
+                    Files.write(directory.resolve(String.format("frame_%06d.png", frames)), data);
+                } else {
+                    if (format == Format.Y4M) {
+                        stream.write(Y4M_FRAME);
+                        bytes += Y4M_FRAME.length;
+                    }
+                    stream.write(data);
+                }
+                bytes += data.length;
+                frames++;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
@@ -1,29 +1,37 @@
 package dev.cheng.dov.hermes;
 
+import dev.cheng.dov.hermes.jfr.FrameEncodedEvent;
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
 import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.TransferEncoder;
+import dev.cheng.dov.protocol.file.ChunkSource;
 import dev.cheng.dov.protocol.file.FileChunker;
+import dev.cheng.dov.protocol.frame.FrameType;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 帧渲染器
  * <p>
  * 负责将文件数据编码为帧图像。
- * 采用按需生成策略，只保存数据块，帧图像在需要时实时生成。
+ * 采用按需生成策略，数据块按需从文件读取，帧图像在需要时实时生成。
+ * <p>
+ * 4K 帧的编码和转换接近一个帧间隔，发送循环通过 {@link #prefetchDataFrame(int)} 在后台线程提前编码下一帧，
+ * START/EOF 帧每次传输只生成一次。编码器同一时间只被一个线程使用。
  */
 public class FrameRenderer {
 
@@ -33,22 +41,31 @@ public class FrameRenderer {
     // 预生成的固定帧
     private Image idleFrame;
 
-    // 文件数据（只保存原始数据，按需生成帧图像）
-    private List<byte[]> chunks;
+    // 文件数据（按需读取分片，按需生成帧图像）
+    private TransferEncoder encoder;
     private String fileName;
     private long fileSize;
     private int totalFrames;
-    private byte[] sha256;
-    private boolean directoryTransfer;
-    private Path tempArchivePath;
 
     // 缓存当前帧（避免重复生成）
     private int cachedFrameIndex = -1;
     private Image cachedDataFrame;
+    private Image startFrame;
+    private Image eofFrame;
+
+    // 后台预编码的下一帧
+    private final ExecutorService encodeExecutor;
+    private Future<Image> prefetchedFrame;
+    private int prefetchedIndex = -1;
 
     public FrameRenderer() {
         this.frameCodec = new FrameCodec();
-        this.fileChunker = new FileChunker(frameCodec.getPayloadCapacity());
+        this.fileChunker = new FileChunker(frameCodec.getPayloadCapacity(), Constants.CHUNK_READ_AHEAD);
+        this.encodeExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "FrameEncoder");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         // 预生成 IDLE 帧
         generateIdleFrame();
@@ -59,7 +76,7 @@ public class FrameRenderer {
      */
     private void generateIdleFrame() {
         BufferedImage bufferedImage = frameCodec.encodeIdleFrame();
-        this.idleFrame = SwingFXUtils.toFXImage(bufferedImage, null);
+        this.idleFrame = toFxImage(bufferedImage);
     }
 
     /**
@@ -69,17 +86,12 @@ public class FrameRenderer {
      * @param listener 进度监听器
      */
     public void prepareFile(Path filePath, PrepareListener listener) throws IOException {
-        cleanupTempArchive();
-        directoryTransfer = false;
-        // 分块文件
-        listener.onProgress("正在读取文件...", 0);
-        FileChunker.ChunkResult result = fileChunker.chunkFile(filePath);
-
-        this.fileName = result.getFileName();
-        this.fileSize = result.getFileSize();
-        this.totalFrames = result.getTotalFrames();
-        this.sha256 = result.getSha256();
-        this.chunks = result.getChunks();
+        closeChunkSource();
+        // 打开分片数据源（延迟校验和模式下 SHA-256 在后台计算）
+        listener.onProgress("正在计算校验和...", 0);
+        boolean deferredHash = Constants.DEFER_HASH;
+        applyChunkSource(fileChunker.open(filePath, filePath.getFileName().toString(), deferredHash),
+                deferredHash);
 
         listener.onProgress("准备完成", 100);
         listener.onComplete();
@@ -92,25 +104,28 @@ public class FrameRenderer {
      * @param listener      进度监听器
      */
     public void prepareDirectory(Path directoryPath, PrepareListener listener) throws IOException {
-        cleanupTempArchive();
-        directoryTransfer = true;
-
-        listener.onProgress("正在压缩文件夹...", 0);
-        tempArchivePath = createZipFromDirectory(directoryPath);
-
-        listener.onProgress("正在读取压缩包...", 10);
-        FileChunker.ChunkResult result = fileChunker.chunkFile(tempArchivePath);
-
-        this.fileName = directoryPath.getFileName().toString();
-        this.fileSize = result.getFileSize();
-        this.totalFrames = result.getTotalFrames();
-        this.sha256 = result.getSha256();
-        this.chunks = result.getChunks();
+        closeChunkSource();
+        // 生成清单（逐个文件计算校验和），文件内容按清单顺序直接从原文件读取
+        listener.onProgress("正在生成文件清单...", 0);
+        boolean deferredHash = Constants.DEFER_HASH;
+        applyChunkSource(fileChunker.openDirectory(directoryPath, directoryPath.getFileName().toString(),
+                deferredHash), deferredHash);
 
         listener.onProgress("准备完成", 100);
         listener.onComplete();
     }
 
+    private void applyChunkSource(ChunkSource source, boolean deferredHash) {
+        this.encoder = new TransferEncoder(frameCodec, source, deferredHash);
+        this.fileName = source.getFileName();
+        this.fileSize = source.getFileSize();
+        this.totalFrames = source.getTotalFrames();
+        this.cachedFrameIndex = -1;
+        this.cachedDataFrame = null;
+        this.startFrame = null;
+        this.eofFrame = null;
+    }
+
     /**
      * 获取 IDLE 帧
      */
@@ -119,22 +134,27 @@ public class FrameRenderer {
     }
 
     /**
-     * 获取 START 帧（按需生成）
+     * 获取 START 帧（首次调用时生成）
      */
-    public Image getStartFrame() {
+    public Image getStartFrame() throws IOException {
         if (fileName == null) {
             return null;
         }
-        int flags = directoryTransfer ? Constants.START_FLAG_DIRECTORY : 0;
-        BufferedImage image = frameCodec.encodeStartFrame(fileName, fileSize, totalFrames, sha256, flags);
-        return SwingFXUtils.toFXImage(image, null);
+        if (startFrame == null) {
+            discardPrefetch();
+            FrameEncodedEvent event = FrameEncodedEvent.beginIfEnabled();
+            BufferedImage image = encoder.encodeStartFrame();
+            startFrame = toFxImage(image);
+            commitEncoded(event, FrameType.START, -1, 0);
+        }
+        return startFrame;
     }
 
     /**
      * 获取指定索引的 DATA 帧（按需生成，带缓存）
      */
-    public Image getDataFrame(int index) {
-        if (chunks == null || index < 0 || index >= chunks.size()) {
+    public Image getDataFrame(int index) throws IOException {
+        if (encoder == null || index < 0 || index >= totalFrames) {
             return null;
         }
 
@@ -143,22 +163,145 @@ public class FrameRenderer {
             return cachedDataFrame;
         }
 
-        BufferedImage image = frameCodec.encodeDataFrame(index, chunks.get(index));
-        cachedDataFrame = SwingFXUtils.toFXImage(image, null);
+        Image frame = takePrefetched(index);
+        if (frame == null) {
+            frame = encodeDataFrame(encoder, index);
+        }
+        cachedDataFrame = frame;
         cachedFrameIndex = index;
+        return frame;
+    }
+
+    /**
+     * 在后台线程提前编码指定 DATA 帧，之后的 {@link #getDataFrame(int)} 直接取用结果
+     */
+    public void prefetchDataFrame(int index) {
+        if (encoder == null || index < 0 || index >= totalFrames
+                || index == cachedFrameIndex || index == prefetchedIndex) {
+            return;
+        }
+        // 编码器不是线程安全的，先等待上一次预编码结束
+        discardPrefetch();
+        TransferEncoder current = encoder;
+        prefetchedIndex = index;
+        prefetchedFrame = encodeExecutor.submit(() -> encodeDataFrame(current, index));
+    }
+
+    private Image encodeDataFrame(TransferEncoder transferEncoder, int index) throws IOException {
+        FrameEncodedEvent event = FrameEncodedEvent.beginIfEnabled();
+        byte[] chunk = transferEncoder.readChunk(index);
+        BufferedImage image = transferEncoder.encodeDataFrame(index, chunk);
+        Image frame = toFxImage(image);
+        commitEncoded(event, FrameType.DATA, index, chunk.length);
+        return frame;
+    }
+
+    /**
+     * 取出预编码结果（等待其完成）
+     *
+     * @return 预编码的不是指定帧或预编码失败时返回 null，读取文件失败时抛出原异常
+     */
+    private Image takePrefetched(int index) throws IOException {
+        Future<Image> future = prefetchedFrame;
+        int futureIndex = prefetchedIndex;
+        if (future == null) {
+            return null;
+        }
+        prefetchedFrame = null;
+        prefetchedIndex = -1;
+        try {
+            Image frame = future.get();
+            return futureIndex == index ? frame : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (futureIndex == index && e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            return null;
+        }
+    }
 
-        return cachedDataFrame;
+    /**
+     * 丢弃预编码结果，等待后台编码结束
+     */
+    private void discardPrefetch() {
+        try {
+            takePrefetched(-1);
+        } catch (IOException ignored) {
+            // 不会发生：索引 -1 的结果总是被丢弃
+        }
     }
 
     /**
-     * 获取 EOF 帧（按需生成）
+     * 获取 EOF 帧（按需生成，校验和尚未计算完成时返回 null）
      */
-    public Image getEofFrame() {
-        if (sha256 == null) {
+    public Image getEofFrame() throws IOException {
+        if (encoder == null) {
             return null;
         }
-        BufferedImage image = frameCodec.encodeEofFrame(totalFrames, sha256);
-        return SwingFXUtils.toFXImage(image, null);
+        if (eofFrame == null) {
+            discardPrefetch();
+            FrameEncodedEvent event = FrameEncodedEvent.beginIfEnabled();
+            BufferedImage image = encoder.encodeEofFrame();
+            if (image == null) {
+                return null;
+            }
+            eofFrame = toFxImage(image);
+            commitEncoded(event, FrameType.EOF, -1, 0);
+        }
+        return eofFrame;
+    }
+
+    /**
+     * 生成校准测试帧
+     */
+    public Image getCalibrationFrame(CalibrationProfile profile, int sequence) {
+        FrameEncodedEvent event = FrameEncodedEvent.beginIfEnabled();
+        Image frame = toFxImage(frameCodec.encodeCalibrationFrame(profile, sequence));
+        commitEncoded(event, FrameType.CALIBRATION, sequence, 0);
+        return frame;
+    }
+
+    /**
+     * 生成校准结束帧
+     */
+    public Image getCalibrationEndFrame(CalibrationProfile profile, int frameCount) {
+        return toFxImage(frameCodec.encodeCalibrationEndFrame(profile, frameCount));
+    }
+
+    /**
+     * 转换为 JavaFX 图像
+     * <p>
+     * 编码器为每帧新建 INT_RGB 图像，其像素数组的最高字节不参与颜色，原地补上不透明 alpha 后整帧一次写入，
+     * 避免 {@link SwingFXUtils#toFXImage} 先整帧重绘为 ARGB 图像。alpha 全为 0xFF 时预乘与非预乘格式相同，
+     * 按预乘格式写入省去逐像素预乘。
+     */
+    private static Image toFxImage(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            return SwingFXUtils.toFXImage(image, null);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        WritableRaster raster = image.getRaster();
+        int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+        int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] |= 0xFF000000;
+        }
+        WritableImage frame = new WritableImage(width, height);
+        frame.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, stride);
+        return frame;
+    }
+
+    private void commitEncoded(FrameEncodedEvent event, FrameType type, int index, int payloadBytes) {
+        if (event != null && event.shouldCommit()) {
+            event.frameType = type.name();
+            event.frameIndex = index;
+            event.payloadBytes = payloadBytes;
+            event.commit();
+        }
     }
 
     /**
@@ -168,6 +311,13 @@ public class FrameRenderer {
         return totalFrames;
     }
 
+    /**
+     * 获取清单占用的帧数（从 0 开始），单文件传输返回 0
+     */
+    public int getManifestFrames() {
+        return encoder != null ? encoder.getManifestFrames() : 0;
+    }
+
     /**
      * 获取文件名
      */
@@ -186,56 +336,23 @@ public class FrameRenderer {
      * 清理数据
      */
     public void clear() {
-        this.chunks = null;
+        closeChunkSource();
         this.fileName = null;
         this.fileSize = 0;
         this.totalFrames = 0;
-        this.sha256 = null;
         this.cachedFrameIndex = -1;
         this.cachedDataFrame = null;
-        this.directoryTransfer = false;
-        cleanupTempArchive();
-    }
-
-    private void cleanupTempArchive() {
-        if (tempArchivePath != null) {
-            try {
-                Files.deleteIfExists(tempArchivePath);
-            } catch (IOException ignored) {
-                // ignore
-            }
-            tempArchivePath = null;
-        }
+        this.startFrame = null;
+        this.eofFrame = null;
     }
 
-    private Path createZipFromDirectory(Path directoryPath) throws IOException {
-        Path zipPath = Files.createTempFile("dov-", ".zip");
-        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath, StandardOpenOption.WRITE))) {
-            Path root = directoryPath.toAbsolutePath().normalize();
-            Files.walkFileTree(root, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (!root.equals(dir)) {
-                        String entryName = root.relativize(dir).toString().replace('\\', '/') + "/";
-                        zos.putNextEntry(new ZipEntry(entryName));
-                        zos.closeEntry();
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    String entryName = root.relativize(file).toString().replace('\\', '/');
-                    zos.putNextEntry(new ZipEntry(entryName));
-                    try (InputStream is = Files.newInputStream(file)) {
-                        is.transferTo(zos);
-                    }
-                    zos.closeEntry();
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+    private void closeChunkSource() {
+        // 后台编码可能仍在读取分片
+        discardPrefetch();
+        if (encoder != null) {
+            encoder.getChunkSource().close();
+            encoder = null;
         }
-        return zipPath;
     }
 
     /**
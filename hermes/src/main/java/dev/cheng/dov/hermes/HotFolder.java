@@ -0,0 +1,135 @@
+package dev.cheng.dov.hermes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 监视文件夹
+ * <p>
+ * 定期扫描目录中的普通文件，大小和修改时间在相邻两次扫描间不再变化（已写完）后交给发送队列。
+ * 发送完成的文件移入目录下的 sent 子目录，程序重启后不会重复发送。
+ * 子目录、隐藏文件以及 .part / .tmp 临时文件不参与发送。
+ */
+public class HotFolder {
+
+    private static final String SENT_DIRECTORY = "sent";
+
+    private final Path directory;
+    private final long scanIntervalMs;
+    private final Consumer<List<Path>> onReady;
+    private final ScheduledExecutorService scanner;
+
+    // 以下状态仅在扫描线程访问
+    private final Map<Path, FileState> candidates = new HashMap<>();
+    // 已交给队列、尚未移走的文件（发送失败的文件留在原处，本次运行不再重复发送）
+    private final Set<Path> dispatched = new HashSet<>();
+
+    private record FileState(long size, long modifiedTime) {
+    }
+
+    /**
+     * @param directory      监视目录
+     * @param scanIntervalMs 扫描间隔
+     * @param onReady        发现已写完的新文件时回调（在扫描线程调用，按文件名排序）
+     */
+    public HotFolder(Path directory, long scanIntervalMs, Consumer<List<Path>> onReady) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.scanIntervalMs = scanIntervalMs;
+        this.onReady = onReady;
+        this.scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "HotFolderScanner");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        scanner.scheduleWithFixedDelay(this::scan, 0, scanIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scanner.shutdownNow();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void scan() {
+        List<Path> ready = new ArrayList<>();
+        Set<Path> seen = new HashSet<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) stream.sorted()::iterator) {
+                if (!isCandidate(file)) {
+                    continue;
+                }
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (!attrs.isRegularFile()) {
+                    continue;
+                }
+                seen.add(file);
+                if (dispatched.contains(file)) {
+                    continue;
+                }
+                FileState current = new FileState(attrs.size(), attrs.lastModifiedTime().toMillis());
+                FileState previous = candidates.put(file, current);
+                if (current.equals(previous)) {
+                    candidates.remove(file);
+                    dispatched.add(file);
+                    ready.add(file);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return;
+        }
+        candidates.keySet().retainAll(seen);
+        dispatched.retainAll(seen);
+        if (!ready.isEmpty()) {
+            onReady.accept(ready);
+        }
+    }
+
+    private boolean isCandidate(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && !name.endsWith(".part") && !name.endsWith(".tmp");
+    }
+
+    /**
+     * 将发送完成的文件移入 sent 子目录，重名时追加时间戳
+     */
+    public void markSent(Path file) throws IOException {
+        Path sentDirectory = directory.resolve(SENT_DIRECTORY);
+        Files.createDirectories(sentDirectory);
+        Path target = sentDirectory.resolve(file.getFileName());
+        if (Files.exists(target)) {
+            target = sentDirectory.resolve(file.getFileName() + "." + System.currentTimeMillis());
+        }
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 判断文件是否来自此监视目录
+     */
+    public boolean contains(Path file) {
+        return directory.equals(file.toAbsolutePath().normalize().getParent());
+    }
+}
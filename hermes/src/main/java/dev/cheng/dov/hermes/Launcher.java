@@ -3,10 +3,13 @@ package dev.cheng.dov.hermes;
 /**
  * 启动器类
  * <p>
- * 用于绕过 JavaFX 模块化检查
+ * 用于绕过 JavaFX 模块化检查；第一个参数为命令行子命令（如 render）时不启动界面
  */
 public class Launcher {
     public static void main(String[] args) {
+        if (args.length > 0 && SenderCli.isCommand(args[0])) {
+            System.exit(SenderCli.run(args));
+        }
         SenderApp.main(args);
     }
 }
@@ -1,6 +1,7 @@
 package dev.cheng.dov.hermes;
 
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.file.FrameRanges;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.animation.PauseTransition;
@@ -29,9 +30,7 @@ import javafx.util.Duration;
 
 import java.io.File;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.TreeSet;
 
 /**
  * Hermes (Sender) 主程序
@@ -49,6 +48,10 @@ public class SenderApp extends Application {
     private Label fileLabel;
     private Button selectFileButton;
     private Button selectFolderButton;
+    private Button queueButton;
+    private Button watchButton;
+    private Button calibrateButton;
+    private Label queueLabel;
     private Button cancelButton;
     private Button resendButton;
     private TextField resendField;
@@ -68,6 +71,8 @@ public class SenderApp extends Application {
         frameView.setFitWidth(Constants.FRAME_WIDTH);
         frameView.setFitHeight(Constants.FRAME_HEIGHT);
         frameView.setPreserveRatio(false);
+        // 帧按物理像素 1:1 显示，不做插值
+        frameView.setSmooth(false);
 
         // 创建控制面板
         controlPanel = createControlPanel(primaryStage);
@@ -98,8 +103,12 @@ public class SenderApp extends Application {
         primaryStage.setFullScreenExitHint("按 ESC 显示控制面板，按 Q 退出");
 
         primaryStage.setOnCloseRequest(e -> exitApp());
+        // 缩放比例随所在屏幕变化（移动到其他屏幕时）
+        primaryStage.outputScaleXProperty().addListener((obs, oldValue, newValue) -> updateFrameViewSize());
+        primaryStage.outputScaleYProperty().addListener((obs, oldValue, newValue) -> updateFrameViewSize());
 
         primaryStage.show();
+        updateFrameViewSize();
         moveToSecondScreenIfAvailable();
 
         // 启动控制器
@@ -115,7 +124,7 @@ public class SenderApp extends Application {
         panel.setAlignment(Pos.CENTER);
         panel.setStyle("-fx-background-color: rgba(0, 0, 0, 0.8); -fx-background-radius: 10;");
         panel.setMaxWidth(600);
-        panel.setMaxHeight(250);
+        panel.setMaxHeight(300);
 
         // 状态标签
         statusLabel = new Label("状态: 空闲");
@@ -127,6 +136,11 @@ public class SenderApp extends Application {
         fileLabel.setTextFill(Color.LIGHTGRAY);
         fileLabel.setStyle("-fx-font-size: 14px;");
 
+        // 队列标签
+        queueLabel = new Label("");
+        queueLabel.setTextFill(Color.LIGHTGRAY);
+        queueLabel.setStyle("-fx-font-size: 13px;");
+
         // 补发输入
         HBox resendBox = createResendBox();
 
@@ -140,6 +154,15 @@ public class SenderApp extends Application {
         selectFolderButton = new Button("选择文件夹");
         selectFolderButton.setOnAction(e -> selectFolder(stage));
 
+        queueButton = new Button("批量发送");
+        queueButton.setOnAction(e -> selectQueueFiles(stage));
+
+        watchButton = new Button("监视文件夹");
+        watchButton.setOnAction(e -> toggleWatchFolder(stage));
+
+        calibrateButton = new Button("链路校准");
+        calibrateButton.setOnAction(e -> controller.beginCalibration());
+
         cancelButton = new Button("取消");
         cancelButton.setOnAction(e -> controller.cancel());
         cancelButton.setDisable(true);
@@ -149,9 +172,10 @@ public class SenderApp extends Application {
 
         HBox buttonBox = new HBox(10);
         buttonBox.setAlignment(Pos.CENTER);
-        buttonBox.getChildren().addAll(selectFileButton, selectFolderButton, cancelButton, exitButton);
+        buttonBox.getChildren().addAll(selectFileButton, selectFolderButton, queueButton, watchButton,
+                calibrateButton, cancelButton, exitButton);
 
-        panel.getChildren().addAll(statusLabel, fileLabel, resendBox, screenBox, buttonBox);
+        panel.getChildren().addAll(statusLabel, fileLabel, queueLabel, resendBox, screenBox, buttonBox);
 
         return panel;
     }
@@ -264,6 +288,27 @@ public class SenderApp extends Application {
         Platform.runLater(() -> stage.setFullScreen(true));
     }
 
+    /**
+     * 按屏幕缩放比例设置帧视图尺寸
+     * <p>
+     * HiDPI 屏幕上 JavaFX 以逻辑像素布局，帧尺寸除以缩放比例后每个帧像素正好对应一个物理像素，
+     * 否则 4K 帧在 150% 缩放的屏幕上会被放大并裁切。
+     */
+    private void updateFrameViewSize() {
+        double scaleX = primaryStage.getOutputScaleX();
+        double scaleY = primaryStage.getOutputScaleY();
+        frameView.setFitWidth(Constants.FRAME_WIDTH / scaleX);
+        frameView.setFitHeight(Constants.FRAME_HEIGHT / scaleY);
+
+        Rectangle2D bounds = getCurrentScreen().getBounds();
+        int screenWidth = (int) Math.round(bounds.getWidth() * scaleX);
+        int screenHeight = (int) Math.round(bounds.getHeight() * scaleY);
+        if (screenWidth < Constants.FRAME_WIDTH || screenHeight < Constants.FRAME_HEIGHT) {
+            statusLabel.setText(String.format("状态: 屏幕分辨率 %dx%d 小于帧尺寸 %dx%d，帧会被裁切",
+                    screenWidth, screenHeight, Constants.FRAME_WIDTH, Constants.FRAME_HEIGHT));
+        }
+    }
+
     private void moveToSecondScreenIfAvailable() {
         var screens = Screen.getScreens();
         if (screens.size() < 2) {
@@ -309,6 +354,34 @@ public class SenderApp extends Application {
         }
     }
 
+    /**
+     * 选择多个文件加入发送队列
+     */
+    private void selectQueueFiles(Stage stage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("选择要批量发送的文件");
+        List<File> files = fileChooser.showOpenMultipleDialog(stage);
+        if (files != null && !files.isEmpty()) {
+            controller.enqueueFiles(files.stream().map(File::toPath).toList());
+        }
+    }
+
+    /**
+     * 开始或停止监视文件夹
+     */
+    private void toggleWatchFolder(Stage stage) {
+        if (controller.isWatching()) {
+            controller.stopWatching();
+            return;
+        }
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("选择要监视的文件夹");
+        File directory = chooser.showDialog(stage);
+        if (directory != null) {
+            controller.watchDirectory(directory.toPath());
+        }
+    }
+
     /**
      * 退出应用
      */
@@ -349,7 +422,7 @@ public class SenderApp extends Application {
 
     private void resendFrames() {
         int totalFrames = controller.getTotalFrames();
-        List<Integer> indices = parseFrameIndices(resendField.getText(), totalFrames);
+        List<Integer> indices = FrameRanges.parse(resendField.getText(), totalFrames).toList();
         if (indices.isEmpty()) {
             statusLabel.setText("状态: 补发帧序号无效");
             return;
@@ -357,51 +430,6 @@ public class SenderApp extends Application {
         controller.beginResend(indices);
     }
 
-    private List<Integer> parseFrameIndices(String input, int totalFrames) {
-        if (input == null || input.isBlank() || totalFrames <= 0) {
-            return List.of();
-        }
-        String cleaned = input.trim();
-        String[] parts = cleaned.split("[,;\\s]+");
-        TreeSet<Integer> result = new TreeSet<>();
-        for (String part : parts) {
-            if (part.isBlank()) {
-                continue;
-            }
-            int dashIndex = part.indexOf('-');
-            if (dashIndex > 0 && dashIndex < part.length() - 1) {
-                String left = part.substring(0, dashIndex).trim();
-                String right = part.substring(dashIndex + 1).trim();
-                Integer start = parseIndex(left);
-                Integer end = parseIndex(right);
-                if (start == null || end == null) {
-                    continue;
-                }
-                int from = Math.min(start, end);
-                int to = Math.max(start, end);
-                for (int i = from; i <= to; i++) {
-                    if (i >= 0 && i < totalFrames) {
-                        result.add(i);
-                    }
-                }
-            } else {
-                Integer index = parseIndex(part);
-                if (index != null && index >= 0 && index < totalFrames) {
-                    result.add(index);
-                }
-            }
-        }
-        return new ArrayList<>(result);
-    }
-
-    private Integer parseIndex(String token) {
-        try {
-            return Integer.parseInt(token);
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-
     /**
      * 控制器事件监听器
      */
@@ -416,6 +444,7 @@ public class SenderApp extends Application {
                 case IDLE:
                     selectFileButton.setDisable(false);
                     selectFolderButton.setDisable(false);
+                    queueButton.setDisable(false);
                     cancelButton.setDisable(true);
                     resendButton.setDisable(true);
                     resendField.setDisable(true);
@@ -428,6 +457,7 @@ public class SenderApp extends Application {
                 case PREPARING:
                     selectFileButton.setDisable(true);
                     selectFolderButton.setDisable(true);
+                    queueButton.setDisable(true);
                     cancelButton.setDisable(true);
                     resendButton.setDisable(true);
                     resendField.setDisable(true);
@@ -437,6 +467,7 @@ public class SenderApp extends Application {
                 case READY:
                     selectFileButton.setDisable(true);
                     selectFolderButton.setDisable(true);
+                    queueButton.setDisable(true);
                     cancelButton.setDisable(false);
                     resendButton.setDisable(true);
                     resendField.setDisable(true);
@@ -450,6 +481,7 @@ public class SenderApp extends Application {
                 case READY_RESEND:
                     selectFileButton.setDisable(true);
                     selectFolderButton.setDisable(true);
+                    queueButton.setDisable(false);
                     cancelButton.setDisable(false);
                     resendButton.setDisable(false);
                     resendField.setDisable(false);
@@ -463,8 +495,10 @@ public class SenderApp extends Application {
                 case SENDING_START:
                 case SENDING_DATA:
                 case SENDING_EOF:
+                case CALIBRATING:
                     selectFileButton.setDisable(true);
                     selectFolderButton.setDisable(true);
+                    queueButton.setDisable(true);
                     cancelButton.setDisable(false);
                     resendButton.setDisable(true);
                     resendField.setDisable(true);
@@ -477,6 +511,7 @@ public class SenderApp extends Application {
                     fileLabel.setText("");
                     break;
             }
+            calibrateButton.setDisable(state != SenderState.IDLE);
         }
 
         @Override
@@ -507,6 +542,22 @@ public class SenderApp extends Application {
             }
         }
 
+        @Override
+        public void onQueueChanged(int pendingFiles, Path watchedDirectory) {
+            watchButton.setText(watchedDirectory != null ? "停止监视" : "监视文件夹");
+            StringBuilder text = new StringBuilder();
+            if (pendingFiles > 0) {
+                text.append("队列: ").append(pendingFiles).append(" 个文件待发送");
+            }
+            if (watchedDirectory != null) {
+                if (!text.isEmpty()) {
+                    text.append("  ");
+                }
+                text.append("监视: ").append(watchedDirectory);
+            }
+            queueLabel.setText(text.toString());
+        }
+
         @Override
         public void onError(String error) {
             statusLabel.setText("状态: " + error);
@@ -533,7 +584,8 @@ public class SenderApp extends Application {
         }
         if (state == SenderState.SENDING_START
                 || state == SenderState.SENDING_DATA
-                || state == SenderState.SENDING_EOF) {
+                || state == SenderState.SENDING_EOF
+                || state == SenderState.CALIBRATING) {
             scene.setCursor(Cursor.NONE);
         } else {
             scene.setCursor(Cursor.DEFAULT);
@@ -0,0 +1,148 @@
+package dev.cheng.dov.hermes;
+
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.codec.FrameCodec;
+import dev.cheng.dov.protocol.codec.TransferEncoder;
+import dev.cheng.dov.protocol.file.ChunkSource;
+import dev.cheng.dov.protocol.file.FileChunker;
+import dev.cheng.dov.protocol.file.FrameRanges;
+import dev.cheng.dov.protocol.frame.FrameSchedule;
+import dev.cheng.dov.protocol.stats.JsonLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Hermes 命令行模式（不启动 JavaFX）
+ * <p>
+ * {@code render} 按发送规则把一次传输的全部帧（START、带重复的 DATA、EOF）并行渲染为
+ * PNG 序列、rgb24 原始视频或 Y4M 视频（见 {@link FrameExporter}），
+ * 进度与结果以 JSON Lines 输出到标准输出，提示信息输出到标准错误。
+ * <pre>
+ * java -jar hermes.jar render &lt;文件或文件夹&gt; --out &lt;目录或文件&gt; [--format png|rgb|y4m]
+ *     [--resend 0,3,5-7] [--idle 帧数] [--threads 线程数] [--interval 1000]
+ * </pre>
+ */
+public final class SenderCli {
+
+    private static final String USAGE = "用法: render <文件或文件夹> --out <目录或文件> [--format png|rgb|y4m]"
+            + " [--resend 帧序号] [--idle 帧数] [--threads 线程数] [--interval 毫秒]";
+
+    private SenderCli() {
+    }
+
+    /**
+     * 是否为命令行子命令
+     */
+    public static boolean isCommand(String arg) {
+        return "render".equals(arg);
+    }
+
+    /**
+     * 执行子命令
+     *
+     * @return 进程退出码
+     */
+    public static int run(String[] args) {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        Path input = Path.of(args[1]);
+        Path output = null;
+        String resend = null;
+        FrameExporter.Format format = FrameExporter.Format.PNG;
+        int idleFrames = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long intervalMs = 1000;
+        int i = 2;
+        try {
+            for (; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out" -> output = Path.of(args[++i]);
+                    case "--resend" -> resend = args[++i];
+                    case "--format" -> format = FrameExporter.Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    case "--idle" -> idleFrames = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--interval" -> intervalMs = Long.parseLong(args[++i]);
+                    default -> {
+                        System.err.println("未知参数: " + args[i]);
+                        System.err.println(USAGE);
+                        return 2;
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            // 选项缺少取值，或取值不是数字、不是支持的格式
+            System.err.println("参数缺失或无效: " + (i < args.length ? args[i - 1] + " " + args[i] : args[i - 1]));
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (output == null) {
+            System.err.println(USAGE);
+            return 2;
+        }
+        try {
+            render(input, output, resend, format, idleFrames, threads, intervalMs);
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            System.out.println(new JsonLine("error").put("message", String.valueOf(e.getMessage())));
+            return 1;
+        }
+    }
+
+    private static void render(Path input, Path output, String resend, FrameExporter.Format format, int idleFrames,
+                               int threads, long intervalMs) throws IOException {
+        FrameCodec frameCodec = new FrameCodec();
+        FileChunker fileChunker = new FileChunker(frameCodec.getPayloadCapacity(), Constants.CHUNK_READ_AHEAD);
+        String name = input.getFileName().toString();
+        // 预渲染不需要边发边算，START 帧直接携带校验和
+        ChunkSource chunkSource = Files.isDirectory(input)
+                ? fileChunker.openDirectory(input, name, false)
+                : fileChunker.open(input, name, false);
+        try {
+            TransferEncoder encoder = new TransferEncoder(frameCodec, chunkSource, false);
+            int totalFrames = encoder.getTotalFrames();
+            FrameSchedule schedule;
+            if (resend != null) {
+                FrameRanges frames = FrameRanges.parse(resend, totalFrames);
+                if (frames.isEmpty()) {
+                    throw new IllegalArgumentException("补发帧序号无效: " + resend);
+                }
+                schedule = FrameSchedule.resend(totalFrames, frames);
+            } else {
+                schedule = FrameSchedule.full(totalFrames, encoder.getManifestFrames());
+            }
+            System.out.println(new JsonLine("start")
+                    .put("file", name)
+                    .put("fileSize", chunkSource.getFileSize())
+                    .put("dataFrames", totalFrames)
+                    .put("scheduleFrames", idleFrames + schedule.size())
+                    .put("format", format.name().toLowerCase(Locale.ROOT))
+                    .put("threads", threads)
+                    .put("out", output.toString()));
+
+            FrameExporter exporter = new FrameExporter(encoder, threads);
+            FrameExporter.Progress result = exporter.export(schedule, idleFrames, format, output, intervalMs,
+                    progress -> System.out.println(new JsonLine("progress")
+                            .put("frames", progress.frames())
+                            .put("scheduleFrames", progress.totalFrames())
+                            .put("elapsedMs", progress.elapsedMs())
+                            .put("fps", progress.framesPerSecond())));
+            // 播放参数：按 TARGET_FPS 逐帧播放，不得缩放或插帧
+            System.out.println(new JsonLine("done")
+                    .put("frames", result.frames())
+                    .put("bytes", result.bytes())
+                    .put("elapsedMs", result.elapsedMs())
+                    .put("fps", result.framesPerSecond())
+                    .put("width", frameCodec.getProfile().frameWidth())
+                    .put("height", frameCodec.getProfile().frameHeight())
+                    .put("playbackFps", Constants.TARGET_FPS)
+                    .put("playbackSeconds", result.frames() / (double) Constants.TARGET_FPS));
+        } finally {
+            chunkSource.close();
+        }
+    }
+}
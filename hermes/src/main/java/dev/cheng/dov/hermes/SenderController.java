@@ -1,13 +1,18 @@
 package dev.cheng.dov.hermes;
 
+import dev.cheng.dov.hermes.jfr.FramePresentedEvent;
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
+import dev.cheng.dov.protocol.frame.FrameSchedule;
 import javafx.application.Platform;
 import javafx.scene.image.Image;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -33,6 +38,18 @@ public class SenderController {
     private int resendPosition = 0;
     private List<Integer> resendIndices = null;
 
+    // 链路校准
+    private List<CalibrationProfile> calibrationProfiles;
+    private int calibrationPosition;
+
+    // 发送队列（队列中的文件连续发送，文件之间只用简短的 EOF/START 分隔）
+    private final ConcurrentLinkedDeque<Path> sendQueue = new ConcurrentLinkedDeque<>();
+    private volatile boolean queueActive = false;
+    private boolean boundaryStart = false;
+    private Path queueItem;
+    private boolean queueItemSent;
+    private HotFolder hotFolder;
+
     // UI 回调
     private StateListener stateListener;
 
@@ -65,6 +82,10 @@ public class SenderController {
      */
     public void stop() {
         stopFrameTask();
+        releaseQueueItem();
+        stopWatching();
+        sendQueue.clear();
+        queueActive = false;
         scheduler.shutdown();
         try {
             // 等待调度器完全停止，避免在窗口关闭后还有任务访问 UI
@@ -112,6 +133,132 @@ public class SenderController {
                 "压缩文件夹失败");
     }
 
+    /**
+     * 将文件加入发送队列
+     * <p>
+     * 空闲或上一次发送已完成时立即开始发送队首文件，否则排在当前文件之后。
+     */
+    public void enqueueFiles(List<Path> files) {
+        for (Path file : files) {
+            if (Files.isRegularFile(file)) {
+                sendQueue.add(file);
+            }
+        }
+        notifyQueueChanged();
+        if (!sendQueue.isEmpty() && (state == SenderState.IDLE || state == SenderState.READY_RESEND)) {
+            startNextInQueue(false);
+        }
+    }
+
+    /**
+     * 监视文件夹，新文件写完后自动加入发送队列
+     */
+    public void watchDirectory(Path directory) {
+        stopWatching();
+        hotFolder = new HotFolder(directory, Constants.HOT_FOLDER_SCAN_MS,
+                files -> Platform.runLater(() -> enqueueFiles(files)));
+        hotFolder.start();
+        notifyQueueChanged();
+    }
+
+    /**
+     * 停止监视文件夹
+     */
+    public void stopWatching() {
+        if (hotFolder != null) {
+            hotFolder.stop();
+            hotFolder = null;
+            notifyQueueChanged();
+        }
+    }
+
+    public boolean isWatching() {
+        return hotFolder != null;
+    }
+
+    /**
+     * 开始发送队列中的下一个文件
+     *
+     * @param boundary 是否紧接在上一个文件的 EOF 之后（START 帧使用较少的重复次数）
+     */
+    private void startNextInQueue(boolean boundary) {
+        Path next = sendQueue.poll();
+        releaseQueueItem();
+        if (next == null) {
+            queueActive = false;
+            notifyQueueChanged();
+            return;
+        }
+        queueItem = next;
+        queueItemSent = false;
+        queueActive = true;
+        boundaryStart = boundary;
+        resendIndices = null;
+        resendPosition = 0;
+        sendMode = SendMode.FULL;
+        notifyQueueChanged();
+
+        setState(SenderState.PREPARING);
+        stopFrameTask();
+        startPrepareThread(() -> frameRenderer.prepareFile(next, createPrepareListener()),
+                "读取文件失败");
+    }
+
+    /**
+     * 释放当前队列文件：关闭分片数据源，已完整发送的监视文件夹文件移入 sent 目录
+     */
+    private void releaseQueueItem() {
+        Path item = queueItem;
+        boolean sent = queueItemSent;
+        queueItem = null;
+        queueItemSent = false;
+        frameRenderer.clear();
+        HotFolder folder = hotFolder;
+        if (item != null && sent && folder != null && folder.contains(item)) {
+            try {
+                folder.markSent(item);
+            } catch (IOException e) {
+                if (stateListener != null) {
+                    stateListener.onError("移动已发送文件失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 队列中的文件准备或发送失败时跳过该文件，继续发送下一个
+     *
+     * @return 是否处于队列发送中（已处理）
+     */
+    private boolean skipQueueItem() {
+        if (!queueActive) {
+            return false;
+        }
+        stopFrameTask();
+        queueItemSent = false;
+        if (!sendQueue.isEmpty()) {
+            startNextInQueue(false);
+        } else {
+            releaseQueueItem();
+            queueActive = false;
+            notifyQueueChanged();
+            setState(SenderState.IDLE);
+            startIdleLoop();
+        }
+        return true;
+    }
+
+    private void notifyQueueChanged() {
+        int pendingFiles = sendQueue.size();
+        HotFolder folder = hotFolder;
+        Path watchedDirectory = folder != null ? folder.getDirectory() : null;
+        Platform.runLater(() -> {
+            if (stateListener != null) {
+                stateListener.onQueueChanged(pendingFiles, watchedDirectory);
+            }
+        });
+    }
+
     /**
      * 开始发送（准备完成后手动触发）
      */
@@ -156,6 +303,33 @@ public class SenderController {
         startSendingInternal(SendMode.RESEND);
     }
 
+    /**
+     * 开始链路校准：按配置文件的扫描列表依次以各自的帧率播放测试帧，每组之后发送结束帧
+     */
+    public void beginCalibration() {
+        if (state != SenderState.IDLE) {
+            return;
+        }
+        List<CalibrationProfile> profiles;
+        try {
+            profiles = CalibrationProfile.sweep();
+        } catch (IllegalArgumentException e) {
+            if (stateListener != null) {
+                stateListener.onError("校准配置无效: " + e.getMessage());
+            }
+            return;
+        }
+        if (profiles.isEmpty()) {
+            return;
+        }
+        calibrationProfiles = profiles;
+        calibrationPosition = 0;
+        repeatCount = 0;
+        currentFrameIndex = 0;
+        setState(SenderState.CALIBRATING);
+        startCalibrationLoop(0);
+    }
+
     /**
      * 取消发送
      */
@@ -165,7 +339,12 @@ public class SenderController {
         }
 
         stopFrameTask();
-        frameRenderer.clear();
+        // 取消同时结束队列和文件夹监视（已完整发送的文件仍移入 sent 目录）
+        sendQueue.clear();
+        queueActive = false;
+        releaseQueueItem();
+        stopWatching();
+        notifyQueueChanged();
         resendIndices = null;
         resendPosition = 0;
         sendMode = SendMode.FULL;
@@ -192,6 +371,11 @@ public class SenderController {
      * 进入准备完成状态
      */
     private void enterReadyState() {
+        if (queueActive) {
+            // 队列发送不等待手动开始
+            startSendingInternal(SendMode.FULL);
+            return;
+        }
         setState(SenderState.READY);
         startIdleLoop();
     }
@@ -222,6 +406,20 @@ public class SenderController {
         );
     }
 
+    /**
+     * 按当前校准配置的帧率启动校准循环
+     */
+    private void startCalibrationLoop(long initialDelayMicros) {
+        stopFrameTask();
+        CalibrationProfile profile = calibrationProfiles.get(calibrationPosition);
+        frameTask = scheduler.scheduleAtFixedRate(
+                this::onCalibrationTick,
+                initialDelayMicros,
+                1_000_000L / profile.fps(),
+                TimeUnit.MICROSECONDS
+        );
+    }
+
     /**
      * 停止帧任务
      */
@@ -251,15 +449,26 @@ public class SenderController {
         Image frame = null;
         int progress = 0;
         String status = "";
+        SenderState tickState = state;
+        int presentedIndex = -1;
+        int presentedRepeat = 0;
+        FramePresentedEvent presented = FramePresentedEvent.beginIfEnabled();
 
         switch (state) {
             case SENDING_START:
-                frame = frameRenderer.getStartFrame();
+                try {
+                    frame = frameRenderer.getStartFrame();
+                } catch (IOException e) {
+                    failSending("读取文件失败: " + e.getMessage());
+                    return;
+                }
                 repeatCount++;
-                status = String.format("发送开始帧 %d/%d", repeatCount, Constants.START_REPEAT);
+                presentedRepeat = repeatCount;
+                int startRepeat = boundaryStart ? Constants.BOUNDARY_REPEAT : Constants.START_REPEAT;
+                status = String.format("发送开始帧 %d/%d", repeatCount, startRepeat);
                 progress = 0;
 
-                if (repeatCount >= Constants.START_REPEAT) {
+                if (repeatCount >= startRepeat) {
                     repeatCount = 0;
                     currentFrameIndex = 0;
                     setState(SenderState.SENDING_DATA);
@@ -282,18 +491,18 @@ public class SenderController {
                     progressTotal = resendIndices.size();
                 }
 
-                frame = frameRenderer.getDataFrame(frameIndex);
+                try {
+                    frame = frameRenderer.getDataFrame(frameIndex);
+                } catch (IOException e) {
+                    failSending("读取文件失败: " + e.getMessage());
+                    return;
+                }
                 repeatCount++;
+                presentedRepeat = repeatCount;
+                presentedIndex = frameIndex;
 
-                int repeatTarget = Constants.DATA_REPEAT;
-                if (sendMode == SendMode.FULL) {
-                    int remainingFrames = totalFrames - currentFrameIndex;
-                    if (Constants.TAIL_FRAMES > 0 && remainingFrames <= Constants.TAIL_FRAMES) {
-                        repeatTarget = Math.max(repeatTarget, Constants.TAIL_REPEAT);
-                    }
-                } else {
-                    repeatTarget = Math.max(repeatTarget, Constants.RESEND_REPEAT);
-                }
+                int repeatTarget = FrameSchedule.dataRepeat(sendMode == SendMode.RESEND, frameIndex,
+                        totalFrames, frameRenderer.getManifestFrames());
                 progress = (int) (progressIndex * 100.0 / Math.max(progressTotal, 1));
                 if (sendMode == SendMode.RESEND) {
                     status = String.format("补发数据帧 %d/%d (帧 %d, 重复 %d/%d)",
@@ -320,23 +529,28 @@ public class SenderController {
                 break;
 
             case SENDING_EOF:
-                frame = frameRenderer.getEofFrame();
+                try {
+                    frame = frameRenderer.getEofFrame();
+                } catch (IOException e) {
+                    failSending("计算校验和失败: " + e.getMessage());
+                    return;
+                }
+                if (frame == null) {
+                    // 校验和尚未计算完成，保持当前画面等待
+                    return;
+                }
                 repeatCount++;
-                status = String.format("发送结束帧 %d/%d", repeatCount, Constants.EOF_REPEAT);
+                presentedRepeat = repeatCount;
+                // 队列中还有文件时 EOF 只作为简短分隔，紧接着发送下一个文件的 START
+                int eofRepeat = queueActive && !sendQueue.isEmpty() && sendMode == SendMode.FULL
+                        ? Constants.BOUNDARY_REPEAT : Constants.EOF_REPEAT;
+                status = String.format("发送结束帧 %d/%d", repeatCount, eofRepeat);
                 progress = 100;
 
-                if (repeatCount >= Constants.EOF_REPEAT) {
+                if (repeatCount >= eofRepeat) {
                     // 发送完成
-                    Platform.runLater(() -> {
-                        if (stateListener != null) {
-                            stateListener.onSendComplete();
-                        }
-                        resendIndices = null;
-                        resendPosition = 0;
-                        sendMode = SendMode.FULL;
-                        setState(SenderState.READY_RESEND);
-                        startIdleLoop();
-                    });
+                    stopFrameTask();
+                    Platform.runLater(this::onTransferFinished);
                     return;
                 }
                 break;
@@ -345,6 +559,15 @@ public class SenderController {
                 return;
         }
 
+        if (presented != null) {
+            presented.state = tickState.name();
+            presented.frameIndex = presentedIndex;
+            presented.repeat = presentedRepeat;
+        }
+
+        // 在显示本帧的同时编码下一帧
+        frameRenderer.prefetchDataFrame(nextDataIndex());
+
         final Image finalFrame = frame;
         final int finalProgress = progress;
         final String finalStatus = status;
@@ -352,6 +575,9 @@ public class SenderController {
         Platform.runLater(() -> {
             if (stateListener != null) {
                 stateListener.onFrameUpdate(finalFrame);
+                if (presented != null && presented.shouldCommit()) {
+                    presented.commit();
+                }
                 int progressCurrent = sendMode == SendMode.RESEND ? resendPosition : currentFrameIndex;
                 int progressTotal = sendMode == SendMode.RESEND
                         ? (resendIndices == null ? 0 : resendIndices.size())
@@ -362,6 +588,112 @@ public class SenderController {
         });
     }
 
+    /**
+     * 下一个要发送的 DATA 帧序号，没有时返回 -1
+     */
+    private int nextDataIndex() {
+        if (state != SenderState.SENDING_START && state != SenderState.SENDING_DATA) {
+            return -1;
+        }
+        if (sendMode == SendMode.RESEND) {
+            return resendIndices != null && resendPosition < resendIndices.size()
+                    ? resendIndices.get(resendPosition) : -1;
+        }
+        return currentFrameIndex;
+    }
+
+    /**
+     * 校准状态的帧回调
+     */
+    private void onCalibrationTick() {
+        if (state != SenderState.CALIBRATING) {
+            return;
+        }
+        CalibrationProfile profile = calibrationProfiles.get(calibrationPosition);
+        int profileCount = calibrationProfiles.size();
+        Image frame;
+        String status;
+        boolean finished = false;
+        if (currentFrameIndex < Constants.CALIBRATION_FRAMES) {
+            frame = frameRenderer.getCalibrationFrame(profile, currentFrameIndex);
+            currentFrameIndex++;
+            status = String.format("链路校准 %d/%d: %s 测试帧 %d/%d", calibrationPosition + 1, profileCount,
+                    profile, currentFrameIndex, Constants.CALIBRATION_FRAMES);
+        } else {
+            frame = frameRenderer.getCalibrationEndFrame(profile, Constants.CALIBRATION_FRAMES);
+            repeatCount++;
+            status = String.format("链路校准 %d/%d: %s 结束帧 %d/%d", calibrationPosition + 1, profileCount,
+                    profile, repeatCount, Constants.CALIBRATION_END_REPEAT);
+            if (repeatCount >= Constants.CALIBRATION_END_REPEAT) {
+                repeatCount = 0;
+                currentFrameIndex = 0;
+                calibrationPosition++;
+                if (calibrationPosition >= profileCount) {
+                    stopFrameTask();
+                    finished = true;
+                } else {
+                    // 新帧率从下一个帧间隔开始，保证本帧完整显示
+                    startCalibrationLoop(1_000_000L / profile.fps());
+                }
+            }
+        }
+
+        int progress = calibrationPosition * 100 / profileCount;
+        int position = Math.min(calibrationPosition + 1, profileCount);
+        boolean done = finished;
+        Platform.runLater(() -> {
+            if (stateListener != null) {
+                stateListener.onFrameUpdate(frame);
+                stateListener.onSendProgress(status, progress, position, profileCount);
+            }
+            if (done) {
+                calibrationProfiles = null;
+                setState(SenderState.IDLE);
+                startIdleLoop();
+            }
+        });
+    }
+
+    /**
+     * 一个文件发送完成（EOF 已发完）
+     */
+    private void onTransferFinished() {
+        if (queueActive && sendMode == SendMode.FULL) {
+            queueItemSent = true;
+        }
+        resendIndices = null;
+        resendPosition = 0;
+        sendMode = SendMode.FULL;
+        if (!sendQueue.isEmpty()) {
+            // 不回到 IDLE，也不弹出控制面板，直接准备下一个文件
+            startNextInQueue(queueActive);
+            return;
+        }
+        if (stateListener != null) {
+            stateListener.onSendComplete();
+        }
+        // 队列已空：保留最后一个文件以便补发，新文件入队时再继续
+        queueActive = false;
+        notifyQueueChanged();
+        setState(SenderState.READY_RESEND);
+        startIdleLoop();
+    }
+
+    /**
+     * 发送过程中出错，提示并取消发送（队列发送时跳过该文件）
+     */
+    private void failSending(String message) {
+        stopFrameTask();
+        Platform.runLater(() -> {
+            if (stateListener != null) {
+                stateListener.onError(message);
+            }
+            if (!skipQueueItem()) {
+                cancel();
+            }
+        });
+    }
+
     /**
      * 设置状态
      */
@@ -383,8 +715,10 @@ public class SenderController {
                     if (stateListener != null) {
                         stateListener.onError(errorPrefix + ": " + e.getMessage());
                     }
-                    setState(SenderState.IDLE);
-                    startIdleLoop();
+                    if (!skipQueueItem()) {
+                        setState(SenderState.IDLE);
+                        startIdleLoop();
+                    }
                 });
             }
         }, "PrepareThread");
@@ -414,8 +748,10 @@ public class SenderController {
                     if (stateListener != null) {
                         stateListener.onError(error);
                     }
-                    setState(SenderState.IDLE);
-                    startIdleLoop();
+                    if (!skipQueueItem()) {
+                        setState(SenderState.IDLE);
+                        startIdleLoop();
+                    }
                 });
             }
         };
@@ -469,6 +805,8 @@ public class SenderController {
 
         void onSendComplete();
 
+        void onQueueChanged(int pendingFiles, Path watchedDirectory);
+
         void onError(String error);
     }
 }
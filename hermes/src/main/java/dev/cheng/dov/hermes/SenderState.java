@@ -38,7 +38,12 @@ public enum SenderState {
     /**
      * 发送 EOF 帧
      */
-    SENDING_EOF("发送结束帧");
+    SENDING_EOF("发送结束帧"),
+
+    /**
+     * 链路校准，依次播放各组配置的测试帧
+     */
+    CALIBRATING("链路校准");
 
     private final String description;
 
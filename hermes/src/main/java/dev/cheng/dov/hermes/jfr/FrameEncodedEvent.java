@@ -0,0 +1,44 @@
+package dev.cheng.dov.hermes.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：生成一帧图像（编码并转换为 JavaFX Image）
+ */
+@Name("dev.cheng.dov.FrameEncoded")
+@Label("Frame Encoded")
+@Category({"DOV", "Hermes"})
+@Description("编码一帧并转换为 JavaFX 图像")
+@StackTrace(false)
+public class FrameEncodedEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(FrameEncodedEvent.class);
+
+    @Label("Frame Type")
+    public String frameType;
+
+    @Label("Frame Index")
+    @Description("DATA 帧序号，其他帧为 -1")
+    public int frameIndex;
+
+    @Label("Payload Bytes")
+    public int payloadBytes;
+
+    /**
+     * 事件启用时创建并开始计时，否则返回 null，未录制时编码（含预编码线程）不分配事件对象
+     */
+    public static FrameEncodedEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        FrameEncodedEvent event = new FrameEncodedEvent();
+        event.begin();
+        return event;
+    }
+}
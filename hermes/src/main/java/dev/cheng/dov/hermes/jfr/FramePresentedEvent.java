@@ -0,0 +1,47 @@
+package dev.cheng.dov.hermes.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：一帧从发送定时器触发到交给界面显示
+ * <p>
+ * 持续时间包含取帧（可能含编码）和等待 JavaFX Application Thread 的时间。
+ */
+@Name("dev.cheng.dov.FramePresented")
+@Label("Frame Presented")
+@Category({"DOV", "Hermes"})
+@Description("发送定时器触发到帧交给界面显示")
+@StackTrace(false)
+public class FramePresentedEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(FramePresentedEvent.class);
+
+    @Label("Sender State")
+    public String state;
+
+    @Label("Frame Index")
+    @Description("DATA 帧序号，其他帧为 -1")
+    public int frameIndex;
+
+    @Label("Repeat")
+    @Description("当前帧的第几次重复")
+    public int repeat;
+
+    /**
+     * 事件启用时创建并开始计时，否则返回 null，未录制时发送定时器每帧不分配事件对象
+     */
+    public static FramePresentedEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        FramePresentedEvent event = new FramePresentedEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Properties;
 
 /**
@@ -45,7 +46,7 @@ public final class Constants {
     // === 帧头区域 ===
     public static final int HEADER_START_ROW = CORNER_BLOCKS;  // 角标下方
     public static final int HEADER_ROWS = readInt("dov.headerRows", 3);  // 帧头行数
-    public static final int HEADER_SIZE_BYTES = 10;            // 帧头字节数
+    public static final int HEADER_SIZE_BYTES = 19;            // 帧头字节数（v2）
 
     // === 数据区域 ===
     public static final int DATA_START_ROW = HEADER_START_ROW + HEADER_ROWS;
@@ -58,11 +59,16 @@ public final class Constants {
     public static final int DATA_BLOCKS_PER_FRAME = DATA_ROWS * DATA_COLS;
     // 每帧数据容量 (字节)
     public static final int DATA_BYTES_PER_FRAME = DATA_BLOCKS_PER_FRAME / 8;
+    // 块排除掩码文件（由 Argus 按误码热力图导出，两端共用），空表示不排除
+    public static final String BLOCK_MASK = readString("dov.blockMask", "");
 
     // === 协议常量 ===
     public static final byte[] MAGIC = {0x44, 0x56};  // "DV"
     public static final int START_PARAMS_BYTES = 4;   // START 帧参数长度
     public static final int START_FLAG_DIRECTORY = 0x01; // 发送目录标记
+    public static final int START_FLAG_DEFERRED_HASH = 0x02; // START 帧不携带校验和，以 EOF 帧为准
+    public static final int START_FLAG_MANIFEST = 0x04; // 目录以清单方式传输，flags 后追加 4 字节清单长度
+    public static final int START_FLAG_BLOCK_MASK = 0x08; // 布局带块排除掩码，追加在 flags（及清单长度）之后
 
     // === 发送参数 ===
     public static final int TARGET_FPS = readInt("dov.targetFps", 30); // 目标帧率
@@ -70,10 +76,14 @@ public final class Constants {
     public static final int DATA_REPEAT = 1;          // DATA 帧重复次数
     public static final int RESEND_REPEAT = readInt("dov.resendRepeat", 3); // 补发 DATA 帧重复次数
     public static final int EOF_REPEAT = 5;           // EOF 帧重复次数
+    public static final int BOUNDARY_REPEAT = readInt("dov.boundaryRepeat", 3); // 队列发送时文件间 EOF/START 重复次数
     public static final int TAIL_FRAMES = readInt("dov.tailFrames", 5);   // 尾部加重帧数
     public static final int TAIL_REPEAT = readInt("dov.tailRepeat", 3);   // 尾部重复次数
     public static final int FRAME_INTERVAL_MS = 1000 / TARGET_FPS; // 帧间隔
     public static final int IDLE_INTERVAL_MS = 200;   // IDLE 帧间隔
+    public static final int CHUNK_READ_AHEAD = 8;     // 发送端分片预读帧数
+    public static final int HOT_FOLDER_SCAN_MS = readInt("dov.hotFolderScanMs", 2000); // 监视文件夹扫描间隔
+    public static final boolean DEFER_HASH = readBoolean("dov.deferHash", false); // 边发送边计算校验和（START 帧不携带校验和）
     public static final int EOF_GRACE_MS = readInt("dov.eofGraceMs", 1500); // EOF 后等待补齐
 
     // === 检测阈值 ===
@@ -86,6 +96,30 @@ public final class Constants {
     public static final int FRAME_TIMEOUT_MS = 10_000;     // 帧超时 (10s)
     public static final int CONNECTION_TIMEOUT_MS = 60_000; // 连接超时 (60s)
     public static final int FRAME_QUEUE_SIZE = 10;          // 采集队列长度
+    public static final boolean ACCEPT_V1_HEADER = readBoolean("dov.acceptV1Header", false); // 解码旧版 Hermes 的 v1 帧头（无校验）
+    public static final int SINK_SYNC_BYTES = 8 * 1024 * 1024; // 写盘批量 fsync 阈值
+    public static final int DIGEST_CATCH_UP_BYTES = 1024 * 1024; // 分析线程每轮最多读回累加校验和的字节数
+    public static final int JOURNAL_INTERVAL_MS = readInt("dov.journalIntervalMs", 2000); // 接收日志保存间隔，0 表示关闭
+    public static final int UI_UPDATE_INTERVAL_MS = readInt("dov.uiUpdateIntervalMs", 100); // 接收界面刷新间隔
+    public static final int PREVIEW_FPS = readInt("dov.previewFps", 5); // 预览刷新帧率，0 表示关闭预览
+    public static final boolean PREVIEW_PAUSE_WHILE_RECEIVING = readBoolean("dov.previewPauseWhileReceiving", false); // 接收文件时暂停预览
+    public static final int DECODE_THREADS = readInt("dov.decodeThreads", 0); // 录制文件等非实时来源的解码线程数，0 表示按 CPU 核数
+    public static final int LIVE_DECODE_THREADS = readInt("dov.liveDecodeThreads", 0); // 实时采集的解码线程数，0 表示 CPU 核数 - 1，1 表示在分析线程中解码
+    public static final boolean SIMD = readBoolean("dov.simd", true); // 亮度转换与块判定使用向量实现（需 --add-modules jdk.incubator.vector）
+    public static final String ANALYSIS_BACKEND = readString("dov.analysisBackend", "java"); // 帧分析后端：java 或 opencv（灰度转换与透视校正在本地代码中完成）
+
+    // === 采集设备 ===
+    public static final int CAPTURE_WIDTH = readInt("dov.captureWidth", FRAME_WIDTH);   // 请求的采集分辨率
+    public static final int CAPTURE_HEIGHT = readInt("dov.captureHeight", FRAME_HEIGHT);
+    public static final int CAPTURE_FPS = readInt("dov.captureFps", TARGET_FPS);        // 请求的采集帧率，也是单帧解码预算
+    public static final String CAPTURE_FORMAT = readString("dov.captureFormat", "");   // 采集像素格式 FOURCC（如 NV12、YUY2），空表示驱动默认
+
+    // === 链路校准 ===
+    public static final int[] CALIBRATION_BLOCK_SIZES = readIntList("dov.calibrationBlockSizes", 1, 2, 4, 8); // 扫描的块大小
+    public static final int[] CALIBRATION_LEVELS = readIntList("dov.calibrationLevels", 2, 4); // 扫描的符号灰阶数
+    public static final int[] CALIBRATION_FPS = readIntList("dov.calibrationFps", 15, 20, 30); // 扫描的帧率
+    public static final int CALIBRATION_FRAMES = readInt("dov.calibrationFrames", 60); // 每组配置的测试帧数
+    public static final int CALIBRATION_END_REPEAT = 5; // 每组配置结束帧重复次数
 
     // === 颜色常量 ===
     public static final int COLOR_BLACK = 0xFF000000;
@@ -125,12 +159,33 @@ public final class Constants {
         if (TAIL_FRAMES < 0 || TAIL_REPEAT < 1) {
             throw new IllegalArgumentException("Invalid tail repeat settings");
         }
+        if (BOUNDARY_REPEAT < 1 || HOT_FOLDER_SCAN_MS <= 0) {
+            throw new IllegalArgumentException("Invalid queue settings");
+        }
         if (EOF_GRACE_MS < 0) {
             throw new IllegalArgumentException("Invalid EOF grace");
         }
+        if (JOURNAL_INTERVAL_MS < 0) {
+            throw new IllegalArgumentException("Invalid journal interval");
+        }
+        if (UI_UPDATE_INTERVAL_MS <= 0 || PREVIEW_FPS < 0) {
+            throw new IllegalArgumentException("Invalid UI update interval");
+        }
+        if (DECODE_THREADS < 0 || LIVE_DECODE_THREADS < 0) {
+            throw new IllegalArgumentException("Invalid decode threads");
+        }
+        if (CAPTURE_WIDTH <= 0 || CAPTURE_HEIGHT <= 0 || CAPTURE_FPS <= 0) {
+            throw new IllegalArgumentException("Invalid capture settings");
+        }
+        if (!ANALYSIS_BACKEND.equals("java") && !ANALYSIS_BACKEND.equals("opencv")) {
+            throw new IllegalArgumentException("Invalid analysis backend");
+        }
         if (PAYLOAD_RETRY_RANGE < 0) {
             throw new IllegalArgumentException("Invalid payload retry range");
         }
+        if (CALIBRATION_FRAMES < 1 || CALIBRATION_FRAMES > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid calibration frames");
+        }
     }
 
     private static Properties loadProperties() {
@@ -146,6 +201,38 @@ public final class Constants {
         return properties;
     }
 
+    private static boolean readBoolean(String key, boolean defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    private static String readString(String key, String defaultValue) {
+        String value = PROPERTIES.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    private static int[] readIntList(String key, int... defaultValues) {
+        String value = PROPERTIES.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValues;
+        }
+        try {
+            return Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(item -> !item.isEmpty())
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+        } catch (NumberFormatException e) {
+            return defaultValues;
+        }
+    }
+
     private static int readInt(String key, int defaultValue) {
         String value = PROPERTIES.getProperty(key);
         if (value == null || value.isBlank()) {
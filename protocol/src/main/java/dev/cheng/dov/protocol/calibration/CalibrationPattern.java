@@ -0,0 +1,283 @@
+package dev.cheng.dov.protocol.calibration;
+
+import dev.cheng.dov.protocol.frame.FrameLayout;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+/**
+ * 校准测试图案
+ * <p>
+ * 在数据区绘制由（配置, 测试帧序号）决定的伪随机灰阶块，接收端用同样的种子重建期望图案，
+ * 逐块比较得到误码数。每个块行单独取种子，抽样测量时可以跳过不需要的行。
+ * 灰阶按格雷码映射，相邻灰阶误判只计 1 位错误。
+ * 数据区按行分为若干水平条带分别统计，用于识别撕裂帧。
+ * 测试图案始终覆盖整个数据区（不受块排除掩码影响），逐块的误码可交给 {@link BlockErrors} 统计空间分布。
+ */
+public final class CalibrationPattern {
+
+    /**
+     * 撕裂检测的水平条带数
+     */
+    private static final int TEAR_BANDS = 8;
+    /**
+     * 条带误码率高于此值视为来自另一帧
+     */
+    private static final double TEAR_BAD_RATE = 0.25;
+    /**
+     * 条带误码率低于此值视为与期望图案一致
+     */
+    private static final double TEAR_GOOD_RATE = 0.05;
+
+    private CalibrationPattern() {
+    }
+
+    /**
+     * 测试区域（像素）：与帧布局的数据区一致
+     */
+    private record Area(int x, int y, int width, int height) {
+        static Area of(FrameLayout layout) {
+            LayoutProfile profile = layout.getProfile();
+            int[] origin = layout.blockToPixel(layout.getDataStartCol(), layout.getDataStartRow());
+            return new Area(origin[0], origin[1], profile.dataCols() * profile.blockSize(),
+                    profile.dataRows() * profile.blockSize());
+        }
+    }
+
+    /**
+     * 在基础帧的数据区绘制测试图案
+     *
+     * @param layout 基础帧的布局
+     */
+    public static void render(BufferedImage image, FrameLayout layout, CalibrationProfile profile, int sequence) {
+        Area area = Area.of(layout);
+        int size = profile.blockSize();
+        int cols = area.width() / size;
+        int rows = area.height() / size;
+        int[] colors = levelColors(profile.levels());
+        SymbolStream symbols = new SymbolStream(profile, sequence);
+        int[] line = new int[cols * size];
+        for (int row = 0; row < rows; row++) {
+            symbols.seekRow(row);
+            for (int col = 0; col < cols; col++) {
+                int color = colors[symbols.next()];
+                int start = col * size;
+                for (int dx = 0; dx < size; dx++) {
+                    line[start + dx] = color;
+                }
+            }
+            int y = area.y() + row * size;
+            for (int dy = 0; dy < size; dy++) {
+                image.setRGB(area.x(), y + dy, line.length, 1, line, 0, line.length);
+            }
+        }
+    }
+
+    /**
+     * 搜索对齐偏移时每隔多少块行抽样一行
+     */
+    private static final int SEARCH_ROW_STEP = 16;
+
+    /**
+     * 测量采集画面中的测试图案
+     * <p>
+     * 帧头按当前块大小解码，得到的偏移对更小的测试块可能差一两个像素，
+     * 因此先在 ±searchRange 像素内抽样比较，取误码最少的偏移再完整测量。
+     *
+     * @param image       采集画面（已归一化到帧尺寸）
+     * @param layout      帧头解码使用的布局
+     * @param offsetX     帧头解码得到的水平偏移
+     * @param offsetY     帧头解码得到的垂直偏移
+     * @param searchRange 对齐偏移搜索范围（像素）
+     */
+    public static CalibrationSample measure(BufferedImage image, FrameLayout layout, int offsetX, int offsetY,
+                                            CalibrationProfile profile, int sequence, int searchRange) {
+        return measure(image, layout, offsetX, offsetY, profile, sequence, searchRange, null);
+    }
+
+    /**
+     * 测量采集画面中的测试图案，并把对齐后每个测试块的误码交给 blocks
+     *
+     * @param blocks 逐块误码的接收方，为 null 时不输出
+     */
+    public static CalibrationSample measure(BufferedImage image, FrameLayout layout, int offsetX, int offsetY,
+                                            CalibrationProfile profile, int sequence, int searchRange,
+                                            BlockErrors blocks) {
+        Area area = Area.of(layout);
+        int bestX = offsetX;
+        int bestY = offsetY;
+        if (searchRange > 0) {
+            long bestErrors = measureAt(image, area, offsetX, offsetY, profile, sequence, SEARCH_ROW_STEP, null)
+                    .bitErrors();
+            // 由近及远逐圈搜索，找到无误码的偏移即停止
+            for (int ring = 1; ring <= searchRange && bestErrors > 0; ring++) {
+                for (int dy = -ring; dy <= ring && bestErrors > 0; dy++) {
+                    for (int dx = -ring; dx <= ring && bestErrors > 0; dx++) {
+                        if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) {
+                            continue;
+                        }
+                        CalibrationSample sample = measureAt(image, area, offsetX + dx, offsetY + dy,
+                                profile, sequence, SEARCH_ROW_STEP, null);
+                        if (sample.bits() > 0 && sample.bitErrors() < bestErrors) {
+                            bestErrors = sample.bitErrors();
+                            bestX = offsetX + dx;
+                            bestY = offsetY + dy;
+                        }
+                    }
+                }
+            }
+        }
+        return measureAt(image, area, bestX, bestY, profile, sequence, 1, blocks);
+    }
+
+    /**
+     * 在指定偏移处逐块比较
+     *
+     * @param rowStep 每隔多少块行测量一行，1 表示全部测量
+     * @param blocks  逐块误码的接收方，可为 null
+     */
+    private static CalibrationSample measureAt(BufferedImage image, Area area, int offsetX, int offsetY,
+                                               CalibrationProfile profile, int sequence, int rowStep,
+                                               BlockErrors blocks) {
+        int size = profile.blockSize();
+        int cols = area.width() / size;
+        int rows = area.height() / size;
+        int levels = profile.levels();
+        int bitsPerSymbol = profile.bitsPerSymbol();
+        int originX = area.x() + offsetX;
+        int originY = area.y() + offsetY;
+
+        // 超出画面的块不参与比较
+        int firstCol = originX < 0 ? (-originX + size - 1) / size : 0;
+        int lastCol = Math.min(cols, (image.getWidth() - originX) / size);
+        int firstRow = originY < 0 ? (-originY + size - 1) / size : 0;
+        int lastRow = Math.min(rows, (image.getHeight() - originY) / size);
+
+        long[] bandBits = new long[TEAR_BANDS];
+        long[] bandErrors = new long[TEAR_BANDS];
+        SymbolStream symbols = new SymbolStream(profile, sequence);
+        int width = Math.max(lastCol - firstCol, 0) * size;
+        int[] pixels = new int[Math.max(width, 1) * size];
+        int[] sums = new int[cols];
+        int pixelsPerBlock = size * size;
+        for (int row = 0; row < rows; row++) {
+            boolean visible = row >= firstRow && row < lastRow && width > 0 && row % rowStep == 0;
+            if (visible) {
+                image.getRGB(originX + firstCol * size, originY + row * size, width, size, pixels, 0, width);
+                for (int col = firstCol; col < lastCol; col++) {
+                    int start = (col - firstCol) * size;
+                    int sum = 0;
+                    for (int dy = 0; dy < size; dy++) {
+                        int offset = dy * width + start;
+                        for (int dx = 0; dx < size; dx++) {
+                            int rgb = pixels[offset + dx];
+                            sum += (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3;
+                        }
+                    }
+                    sums[col] = sum;
+                }
+            }
+            if (!visible) {
+                continue;
+            }
+            int band = row * TEAR_BANDS / rows;
+            symbols.seekRow(row);
+            for (int col = 0; col < cols; col++) {
+                int expected = symbols.next();
+                if (col < firstCol || col >= lastCol) {
+                    continue;
+                }
+                int brightness = sums[col] / pixelsPerBlock;
+                int measured = (brightness * (levels - 1) + 127) / 255;
+                int errors = Integer.bitCount(gray(expected) ^ gray(measured));
+                bandErrors[band] += errors;
+                bandBits[band] += bitsPerSymbol;
+                if (blocks != null) {
+                    blocks.record(col * size, row * size, size, bitsPerSymbol, errors);
+                }
+            }
+        }
+
+        long bits = 0;
+        long errors = 0;
+        double worst = 0;
+        double best = 1;
+        for (int band = 0; band < TEAR_BANDS; band++) {
+            bits += bandBits[band];
+            errors += bandErrors[band];
+            if (bandBits[band] > 0) {
+                double rate = bandErrors[band] / (double) bandBits[band];
+                worst = Math.max(worst, rate);
+                best = Math.min(best, rate);
+            }
+        }
+        boolean torn = worst >= TEAR_BAD_RATE && best <= TEAR_GOOD_RATE;
+        return new CalibrationSample(bits, errors, torn);
+    }
+
+    /**
+     * 逐块误码的接收方
+     */
+    @FunctionalInterface
+    public interface BlockErrors {
+        /**
+         * @param x      测试块左上角的水平位置（像素，相对数据区）
+         * @param y      测试块左上角的垂直位置（像素，相对数据区）
+         * @param size   测试块边长（像素）
+         * @param bits   该块承载的位数
+         * @param errors 该块的误码位数
+         */
+        void record(int x, int y, int size, int bits, int errors);
+    }
+
+    private static int[] levelColors(int levels) {
+        int[] colors = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            int value = level * 255 / (levels - 1);
+            colors[level] = 0xFF000000 | value << 16 | value << 8 | value;
+        }
+        return colors;
+    }
+
+    private static int gray(int value) {
+        return value ^ (value >>> 1);
+    }
+
+    /**
+     * 伪随机灰阶序列，发送端和接收端由同一种子生成
+     */
+    private static final class SymbolStream {
+        private final long seed;
+        private final int bits;
+        private final int mask;
+        private SplittableRandom random;
+        private long buffer;
+        private int available;
+
+        private SymbolStream(CalibrationProfile profile, int sequence) {
+            this.seed = (long) profile.frameIndex(sequence) * 0x9E3779B97F4A7C15L;
+            this.bits = profile.bitsPerSymbol();
+            this.mask = (1 << bits) - 1;
+        }
+
+        /**
+         * 切换到指定块行的序列
+         */
+        void seekRow(int row) {
+            random = new SplittableRandom(seed + row * 0xBF58476D1CE4E5B9L);
+            available = 0;
+        }
+
+        int next() {
+            if (available < bits) {
+                buffer = random.nextLong();
+                available = 64;
+            }
+            int value = (int) (buffer & mask);
+            buffer >>>= bits;
+            available -= bits;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.cheng.dov.protocol.calibration;
+
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 链路校准的一组待测配置
+ * <p>
+ * 校准帧的帧头仍按发送端当前布局编码，只有数据区的测试图案按本配置的块大小和灰阶绘制；
+ * 配置编码在帧头的帧序号高 16 位中（块大小 6 位、每符号位数 2 位、帧率 8 位），低 16 位为测试帧序号，
+ * 接收端不需要事先知道扫描计划。
+ *
+ * @param blockSize 块边长（像素，1-63）
+ * @param levels    每块灰阶数（2、4 或 8）
+ * @param fps       播放帧率（1-255）
+ */
+public record CalibrationProfile(int blockSize, int levels, int fps) {
+
+    public CalibrationProfile {
+        if (blockSize < 1 || blockSize > 63) {
+            throw new IllegalArgumentException("Invalid calibration block size: " + blockSize);
+        }
+        if (levels != 2 && levels != 4 && levels != 8) {
+            throw new IllegalArgumentException("Invalid calibration levels: " + levels);
+        }
+        if (fps < 1 || fps > 255) {
+            throw new IllegalArgumentException("Invalid calibration fps: " + fps);
+        }
+    }
+
+    /**
+     * 按配置文件中的块大小、灰阶和帧率列表生成完整扫描计划（块大小从大到小，先测稳妥的配置）
+     */
+    public static List<CalibrationProfile> sweep() {
+        int[] blockSizes = Constants.CALIBRATION_BLOCK_SIZES.clone();
+        Arrays.sort(blockSizes);
+        List<CalibrationProfile> profiles = new ArrayList<>();
+        for (int i = blockSizes.length - 1; i >= 0; i--) {
+            for (int levels : Constants.CALIBRATION_LEVELS) {
+                for (int fps : Constants.CALIBRATION_FPS) {
+                    profiles.add(new CalibrationProfile(blockSizes[i], levels, fps));
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * 每块承载的位数
+     */
+    public int bitsPerSymbol() {
+        return Integer.numberOfTrailingZeros(levels);
+    }
+
+    /**
+     * 当前传输编码只支持黑白两级，多级符号的结果仅供参考
+     */
+    public boolean isTransferable() {
+        return levels == 2;
+    }
+
+    /**
+     * 帧头中的帧序号：高 16 位为配置编码，低 16 位为测试帧序号
+     */
+    public int frameIndex(int sequence) {
+        int code = blockSize << 10 | (bitsPerSymbol() - 1) << 8 | fps;
+        return code << 16 | (sequence & 0xFFFF);
+    }
+
+    /**
+     * 从帧序号还原配置
+     *
+     * @return 编码无效时返回 null
+     */
+    public static CalibrationProfile fromFrameIndex(int frameIndex) {
+        int code = frameIndex >>> 16;
+        int blockSize = code >>> 10;
+        int bits = ((code >>> 8) & 0x3) + 1;
+        int fps = code & 0xFF;
+        if (blockSize < 1 || bits > 3 || fps < 1) {
+            return null;
+        }
+        return new CalibrationProfile(blockSize, 1 << bits, fps);
+    }
+
+    /**
+     * 从帧序号取测试帧序号
+     */
+    public static int sequenceOf(int frameIndex) {
+        return frameIndex & 0xFFFF;
+    }
+
+    /**
+     * 在基础布局上改用本配置的块大小（边距和角标向上对齐到块大小）
+     *
+     * @return 无法对齐时返回 null
+     */
+    public LayoutProfile layout(LayoutProfile base) {
+        try {
+            return base.withBlockSize(blockSize);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在基础布局上按本配置传输时每帧的数据负载（字节，已扣除 CRC32）
+     */
+    public int payloadBytesPerFrame(LayoutProfile base) {
+        LayoutProfile layout = layout(base);
+        if (layout == null) {
+            return 0;
+        }
+        long capacity = (long) layout.dataBlocksPerFrame() * bitsPerSymbol() / 8 - 4;
+        return (int) Math.max(capacity, 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("块 %dpx / %d 级 / %d fps", blockSize, levels, fps);
+    }
+}
@@ -0,0 +1,18 @@
+package dev.cheng.dov.protocol.calibration;
+
+/**
+ * 单个校准帧的测量结果
+ *
+ * @param bits      比较的位数
+ * @param bitErrors 错误位数
+ * @param torn      是否为撕裂帧（部分水平条带与期望图案一致、部分接近随机）
+ */
+public record CalibrationSample(long bits, long bitErrors, boolean torn) {
+
+    /**
+     * 整帧无误码且未撕裂，按传输编码即可通过 CRC
+     */
+    public boolean isClean() {
+        return bitErrors == 0 && !torn;
+    }
+}
@@ -5,10 +5,10 @@ import dev.cheng.dov.protocol.Constants;
 import java.awt.image.BufferedImage;
 
 /**
- * 8x8 像素块编解码器
+ * 像素块编解码器
  * <p>
- * 编码：1 bit -> 8x8 像素块（黑/白）
- * 解码：8x8 像素块 -> 1 bit（根据平均亮度判定）
+ * 编码：1 bit -> blockSize x blockSize 像素块（黑/白）
+ * 解码：像素块 -> 1 bit（根据平均亮度判定）
  */
 public class BlockCodec {
 
@@ -18,18 +18,19 @@ public class BlockCodec {
     /**
      * 在图像上编码一个块
      *
-     * @param image  目标图像
-     * @param blockX 块的 X 坐标（以块为单位）
-     * @param blockY 块的 Y 坐标（以块为单位）
-     * @param bit    要编码的位（0 或 1）
+     * @param image     目标图像
+     * @param blockX    块的 X 坐标（以块为单位）
+     * @param blockY    块的 Y 坐标（以块为单位）
+     * @param blockSize 块边长（像素）
+     * @param bit       要编码的位（0 或 1）
      */
-    public static void encodeBlock(BufferedImage image, int blockX, int blockY, int bit) {
-        int pixelX = blockX * Constants.BLOCK_SIZE;
-        int pixelY = blockY * Constants.BLOCK_SIZE;
+    public static void encodeBlock(BufferedImage image, int blockX, int blockY, int blockSize, int bit) {
+        int pixelX = blockX * blockSize;
+        int pixelY = blockY * blockSize;
         int color = (bit == 0) ? Constants.COLOR_BLACK : Constants.COLOR_WHITE;
 
-        for (int dy = 0; dy < Constants.BLOCK_SIZE; dy++) {
-            for (int dx = 0; dx < Constants.BLOCK_SIZE; dx++) {
+        for (int dy = 0; dy < blockSize; dy++) {
+            for (int dx = 0; dx < blockSize; dx++) {
                 image.setRGB(pixelX + dx, pixelY + dy, color);
             }
         }
@@ -38,15 +39,16 @@ public class BlockCodec {
     /**
      * 从图像解码一个块
      *
-     * @param image  源图像
-     * @param blockX 块的 X 坐标（以块为单位）
-     * @param blockY 块的 Y 坐标（以块为单位）
+     * @param image     源图像
+     * @param blockX    块的 X 坐标（以块为单位）
+     * @param blockY    块的 Y 坐标（以块为单位）
+     * @param blockSize 块边长（像素）
      * @return 解码的位（0 或 1）
      */
-    public static int decodeBlock(BufferedImage image, int blockX, int blockY) {
-        int pixelX = blockX * Constants.BLOCK_SIZE;
-        int pixelY = blockY * Constants.BLOCK_SIZE;
-        return decodeBlockAt(image, pixelX, pixelY);
+    public static int decodeBlock(BufferedImage image, int blockX, int blockY, int blockSize) {
+        int pixelX = blockX * blockSize;
+        int pixelY = blockY * blockSize;
+        return decodeBlockAt(image, pixelX, pixelY, blockSize);
     }
 
     /**
@@ -62,16 +64,17 @@ public class BlockCodec {
     /**
      * 从图像解码一个块（像素坐标）
      *
-     * @param image  源图像
-     * @param pixelX 块的像素 X 坐标
-     * @param pixelY 块的像素 Y 坐标
+     * @param image     源图像
+     * @param pixelX    块的像素 X 坐标
+     * @param pixelY    块的像素 Y 坐标
+     * @param blockSize 块边长（像素）
      * @return 解码的位（0 或 1）
      */
-    public static int decodeBlockAt(BufferedImage image, int pixelX, int pixelY) {
+    public static int decodeBlockAt(BufferedImage image, int pixelX, int pixelY, int blockSize) {
         int startX = Math.max(0, pixelX);
         int startY = Math.max(0, pixelY);
-        int endX = Math.min(image.getWidth(), pixelX + Constants.BLOCK_SIZE);
-        int endY = Math.min(image.getHeight(), pixelY + Constants.BLOCK_SIZE);
+        int endX = Math.min(image.getWidth(), pixelX + blockSize);
+        int endY = Math.min(image.getHeight(), pixelY + blockSize);
 
         if (startX >= endX || startY >= endY) {
             return 0;
@@ -92,6 +95,19 @@ public class BlockCodec {
         return (avg >= 128) ? 1 : 0;
     }
 
+    /**
+     * 从亮度平面解码一个块（像素坐标），判定规则与 {@link #decodeBlockAt(BufferedImage, int, int, int)} 相同
+     *
+     * @param luma      源图像的亮度平面
+     * @param pixelX    块的像素 X 坐标
+     * @param pixelY    块的像素 Y 坐标
+     * @param blockSize 块边长（像素）
+     * @return 解码的位（0 或 1）
+     */
+    public static int decodeBlockAt(LumaFrame luma, int pixelX, int pixelY, int blockSize) {
+        return luma.blockAverage(pixelX, pixelY, blockSize) >= 128 ? 1 : 0;
+    }
+
     /**
      * 将字节数组编码为位数组
      */
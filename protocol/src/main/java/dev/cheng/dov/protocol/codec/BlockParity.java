@@ -0,0 +1,175 @@
+package dev.cheng.dov.protocol.codec;
+
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * 数据区的行/列奇偶校验
+ * <p>
+ * 数据区按行排列，每行 dataCols 个块。编码端在数据区下方的校验区写入奇偶位：先是各列的奇偶位（dataCols 位），
+ * 紧接着是各数据行的奇偶位（dataRows 位），与数据区相同按行排列。未写入数据的块按 0 计算。
+ * 校验区容纳不下 dataCols + dataRows 位时不写入（见 {@link #fits(LayoutProfile)}）。
+ * 布局带块排除掩码时，行列只计未被排除的部分，奇偶位也只写在校验区未被排除的列上。
+ * <p>
+ * 解码端只在 CRC 不通过时比较奇偶位：恰好一行一列不符时，交叉处就是出错的块，翻转后重新验证 CRC；
+ * 两行两列不符时两种配对各试一次。同一行内多个错误、错误落在校验区等情况无法定位，只报告不符的行和列。
+ * 超过四分之一的行或列不符时视为没有可用的奇偶位（旧版发送端不写校验区，或偏移错位），既不纠正也不报告。
+ */
+public final class BlockParity {
+
+    private static final int[] NONE = new int[0];
+
+    private BlockParity() {
+    }
+
+    /**
+     * 校验区能否容纳列奇偶位和行奇偶位
+     */
+    public static boolean fits(LayoutProfile profile) {
+        return (long) profile.checksumRows() * profile.usableDataCols() >= bitCount(profile);
+    }
+
+    /**
+     * 奇偶位总数：列奇偶 + 行奇偶
+     */
+    static int bitCount(LayoutProfile profile) {
+        return profile.usableDataCols() + profile.usableDataRows();
+    }
+
+    /**
+     * 计算数据区前 bitCount 位的奇偶位（列奇偶在前，行奇偶在后）
+     */
+    static byte[] compute(byte[] data, int bitCount, int cols, int rows) {
+        int rowBytes = (cols + 7) / 8;
+        byte[] columns = new byte[rowBytes];
+        byte[] line = new byte[rowBytes];
+        byte[] parity = new byte[(cols + rows + 7) / 8];
+        boolean[] rowParity = new boolean[rows];
+        for (int row = 0; row < rows && row * cols < bitCount; row++) {
+            int start = row * cols;
+            extract(data, start, Math.min(cols, bitCount - start), line);
+            int xor = 0;
+            for (int i = 0; i < rowBytes; i++) {
+                columns[i] ^= line[i];
+                xor ^= line[i];
+            }
+            rowParity[row] = (Integer.bitCount(xor & 0xFF) & 1) != 0;
+        }
+        // 列奇偶正好从第 0 位开始，末字节多余的位为 0
+        System.arraycopy(columns, 0, parity, 0, rowBytes);
+        for (int row = 0; row < rows; row++) {
+            if (rowParity[row]) {
+                flip(parity, cols + row);
+            }
+        }
+        return parity;
+    }
+
+    /**
+     * 比较解码得到的数据与奇偶位，尝试纠正单个（或两行两列交叉处的两个）出错块
+     *
+     * @param raw      数据区字节（含 CRC32），纠正时原地翻转
+     * @param parity   从校验区解码的奇偶位
+     * @param crcCheck 验证数据区 CRC 并返回负载，不通过返回 null
+     */
+    static Result correct(byte[] raw, int bitCount, byte[] parity, int cols, int rows,
+                          Function<byte[], byte[]> crcCheck) {
+        byte[] expected = compute(raw, bitCount, cols, rows);
+        int[] failedCols = mismatches(expected, parity, 0, cols);
+        int[] failedRows = mismatches(expected, parity, cols, rows);
+        if (failedRows.length > rows / 4 || failedCols.length > cols / 4) {
+            // 大面积不符：发送端未写校验区，或者偏移不对，不是孤立的块错误
+            return Result.of(null);
+        }
+        byte[] payload = null;
+        int corrected = 0;
+        if (failedRows.length == 1 && failedCols.length == 1) {
+            payload = tryFlip(raw, bitCount, cols, crcCheck, failedRows[0], failedCols[0]);
+            corrected = payload != null ? 1 : 0;
+        } else if (failedRows.length == 2 && failedCols.length == 2) {
+            payload = tryFlip(raw, bitCount, cols, crcCheck,
+                    failedRows[0], failedCols[0], failedRows[1], failedCols[1]);
+            if (payload == null) {
+                payload = tryFlip(raw, bitCount, cols, crcCheck,
+                        failedRows[0], failedCols[1], failedRows[1], failedCols[0]);
+            }
+            corrected = payload != null ? 2 : 0;
+        }
+        return new Result(payload, corrected, failedRows, failedCols);
+    }
+
+    /**
+     * 翻转 (row, col) 对给出的块后验证 CRC，不通过时翻转回去
+     */
+    private static byte[] tryFlip(byte[] raw, int bitCount, int cols,
+                                  Function<byte[], byte[]> crcCheck, int... blocks) {
+        for (int i = 0; i < blocks.length; i += 2) {
+            if (blocks[i] * cols + blocks[i + 1] >= bitCount) {
+                return null;
+            }
+        }
+        for (int i = 0; i < blocks.length; i += 2) {
+            flip(raw, blocks[i] * cols + blocks[i + 1]);
+        }
+        byte[] payload = crcCheck.apply(raw);
+        if (payload == null) {
+            for (int i = 0; i < blocks.length; i += 2) {
+                flip(raw, blocks[i] * cols + blocks[i + 1]);
+            }
+        }
+        return payload;
+    }
+
+    private static int[] mismatches(byte[] expected, byte[] actual, int from, int count) {
+        int[] result = new int[count];
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int bit = from + i;
+            if (((expected[bit >> 3] ^ actual[bit >> 3]) & (0x80 >>> (bit & 7))) != 0) {
+                result[found++] = i;
+            }
+        }
+        return found == 0 ? NONE : Arrays.copyOf(result, found);
+    }
+
+    /**
+     * 把 data 从 bitOffset 开始的 bitLength 位复制到 out 开头（按字节对齐），其余位清零
+     */
+    private static void extract(byte[] data, int bitOffset, int bitLength, byte[] out) {
+        int index = bitOffset >> 3;
+        int shift = bitOffset & 7;
+        int bytes = (bitLength + 7) / 8;
+        for (int i = 0; i < bytes; i++) {
+            int value = (data[index + i] & 0xFF) << shift;
+            if (shift != 0 && index + i + 1 < data.length) {
+                value |= (data[index + i + 1] & 0xFF) >>> (8 - shift);
+            }
+            out[i] = (byte) value;
+        }
+        if ((bitLength & 7) != 0) {
+            out[bytes - 1] &= (byte) (0xFF << (8 - (bitLength & 7)));
+        }
+        Arrays.fill(out, bytes, out.length, (byte) 0);
+    }
+
+    private static void flip(byte[] bytes, int bit) {
+        bytes[bit >> 3] ^= (byte) (0x80 >>> (bit & 7));
+    }
+
+    /**
+     * 带奇偶校验的解码结果
+     *
+     * @param payload         通过 CRC 的负载，无法纠正时为 null
+     * @param correctedBlocks 按奇偶位翻转的块数
+     * @param failedRows      奇偶位不符的数据行（相对数据区），CRC 直接通过或奇偶位不可用时为空
+     * @param failedCols      奇偶位不符的数据列（相对数据区），CRC 直接通过或奇偶位不可用时为空
+     */
+    public record Result(byte[] payload, int correctedBlocks, int[] failedRows, int[] failedCols) {
+
+        static Result of(byte[] payload) {
+            return new Result(payload, 0, NONE, NONE);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package dev.cheng.dov.protocol.codec;
 
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.calibration.CalibrationPattern;
+import dev.cheng.dov.protocol.calibration.CalibrationProfile;
+import dev.cheng.dov.protocol.frame.BlockMask;
 import dev.cheng.dov.protocol.frame.FrameHeader;
 import dev.cheng.dov.protocol.frame.FrameLayout;
 import dev.cheng.dov.protocol.frame.FrameType;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -15,17 +20,84 @@ import java.util.zip.CRC32;
 /**
  * 帧编解码器
  * <p>
- * 负责将数据编码为视频帧图像，以及从图像解码数据
+ * 负责将数据编码为视频帧图像，以及从图像解码数据。每个实例对应一个 {@link LayoutProfile}：
+ * DATA / EOF / 校准帧按该配置编码，IDLE / START 帧按同尺寸的信标布局编码并携带该配置，
+ * 数据区附加 CRC32。解码方法均按本实例的配置进行。
+ * <p>
+ * 配置带块排除掩码时，DATA / EOF 帧的数据和奇偶位只放在未被排除的行、列上，
+ * IDLE / START 帧在配置之后携带掩码（见 {@link #beaconLayout(FrameType, byte[])}）。
+ * <p>
+ * START / DATA / EOF 帧头携带本实例的会话 ID，一次传输使用 {@link #withSession(int)} 得到的实例编码。
  */
 public class FrameCodec {
 
+    // 直接写入 INT_RGB 栅格的颜色值（不含 alpha）
+    private static final int RASTER_BLACK = Constants.COLOR_BLACK & 0xFFFFFF;
+    private static final int RASTER_WHITE = Constants.COLOR_WHITE & 0xFFFFFF;
+    private static final int CONTENT_GRAY = 0x606060;
+
+    private final LayoutProfile profile;
+    private final FrameLayout layout;
+    private final FrameLayout beaconLayout;
+    private final int sessionId;
+
+    public FrameCodec() {
+        this(LayoutProfile.DEFAULT);
+    }
+
+    public FrameCodec(LayoutProfile profile) {
+        this(profile, 0);
+    }
+
+    private FrameCodec(LayoutProfile profile, int sessionId) {
+        this.profile = profile;
+        this.layout = new FrameLayout(profile);
+        this.beaconLayout = new FrameLayout(beaconOf(profile));
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * 相同布局、使用指定会话 ID 编码的实例
+     */
+    public FrameCodec withSession(int sessionId) {
+        return new FrameCodec(profile, sessionId);
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * 与配置同尺寸的信标布局；帧尺寸无法按信标布局对齐时退回配置本身，此时接收端需使用相同配置
+     */
+    private static LayoutProfile beaconOf(LayoutProfile profile) {
+        try {
+            return LayoutProfile.beacon(profile.frameWidth(), profile.frameHeight());
+        } catch (IllegalArgumentException e) {
+            return profile;
+        }
+    }
+
+    public LayoutProfile getProfile() {
+        return profile;
+    }
+
+    public FrameLayout getLayout() {
+        return layout;
+    }
+
     /**
      * 创建基础帧图像（包含安全边距和四角定位标）
      */
     public BufferedImage createBaseFrame() {
+        return createBaseFrame(layout);
+    }
+
+    private BufferedImage createBaseFrame(FrameLayout frameLayout) {
+        LayoutProfile frameProfile = frameLayout.getProfile();
         BufferedImage image = new BufferedImage(
-                Constants.FRAME_WIDTH,
-                Constants.FRAME_HEIGHT,
+                frameProfile.frameWidth(),
+                frameProfile.frameHeight(),
                 BufferedImage.TYPE_INT_RGB
         );
 
@@ -33,19 +105,19 @@ public class FrameCodec {
 
         // 填充安全边距为灰色
         g.setColor(new Color(Constants.COLOR_GRAY));
-        g.fillRect(0, 0, Constants.FRAME_WIDTH, Constants.FRAME_HEIGHT);
+        g.fillRect(0, 0, frameProfile.frameWidth(), frameProfile.frameHeight());
 
         // 内容区域填充为中灰
-        g.setColor(new Color(0x606060));
+        g.setColor(new Color(CONTENT_GRAY));
         g.fillRect(
-                Constants.SAFE_MARGIN,
-                Constants.SAFE_MARGIN,
-                Constants.CONTENT_WIDTH,
-                Constants.CONTENT_HEIGHT
+                frameProfile.safeMargin(),
+                frameProfile.safeMargin(),
+                frameProfile.contentWidth(),
+                frameProfile.contentHeight()
         );
 
         // 绘制四角定位标
-        drawCorners(g);
+        drawCorners(g, frameLayout);
 
         g.dispose();
         return image;
@@ -54,36 +126,41 @@ public class FrameCodec {
     /**
      * 绘制四角定位标
      */
-    private void drawCorners(Graphics2D g) {
+    private void drawCorners(Graphics2D g, FrameLayout frameLayout) {
+        int cornerSize = frameLayout.getProfile().cornerSize();
+
         // 左上角 - 黑色
-        int[] topLeft = FrameLayout.getTopLeftCorner();
+        int[] topLeft = frameLayout.getTopLeftCorner();
         g.setColor(Color.BLACK);
-        g.fillRect(topLeft[0], topLeft[1], Constants.CORNER_SIZE, Constants.CORNER_SIZE);
+        g.fillRect(topLeft[0], topLeft[1], cornerSize, cornerSize);
 
         // 右上角 - 白色
-        int[] topRight = FrameLayout.getTopRightCorner();
+        int[] topRight = frameLayout.getTopRightCorner();
         g.setColor(Color.WHITE);
-        g.fillRect(topRight[0], topRight[1], Constants.CORNER_SIZE, Constants.CORNER_SIZE);
+        g.fillRect(topRight[0], topRight[1], cornerSize, cornerSize);
 
         // 左下角 - 白色
-        int[] bottomLeft = FrameLayout.getBottomLeftCorner();
+        int[] bottomLeft = frameLayout.getBottomLeftCorner();
         g.setColor(Color.WHITE);
-        g.fillRect(bottomLeft[0], bottomLeft[1], Constants.CORNER_SIZE, Constants.CORNER_SIZE);
+        g.fillRect(bottomLeft[0], bottomLeft[1], cornerSize, cornerSize);
 
         // 右下角 - 黑色
-        int[] bottomRight = FrameLayout.getBottomRightCorner();
+        int[] bottomRight = frameLayout.getBottomRightCorner();
         g.setColor(Color.BLACK);
-        g.fillRect(bottomRight[0], bottomRight[1], Constants.CORNER_SIZE, Constants.CORNER_SIZE);
+        g.fillRect(bottomRight[0], bottomRight[1], cornerSize, cornerSize);
     }
 
     /**
-     * 编码 IDLE 帧
+     * 编码 IDLE 帧（信标布局，数据区为布局配置，带掩码时紧随其后）
      */
     public BufferedImage encodeIdleFrame() {
-        BufferedImage image = createBaseFrame();
-        FrameHeader header = new FrameHeader(FrameType.IDLE, 0, 0);
-        encodeHeader(image, header);
-        return image;
+        BlockMask mask = profile.mask();
+        ByteBuffer buffer = ByteBuffer.allocate(LayoutProfile.BYTES + (mask.isEmpty() ? 0 : mask.byteLength()));
+        buffer.put(profile.toBytes());
+        if (!mask.isEmpty()) {
+            mask.write(buffer);
+        }
+        return encodeBeaconFrame(FrameType.IDLE, 0, buffer.array());
     }
 
     /**
@@ -96,29 +173,103 @@ public class FrameCodec {
      * @param flags       传输标记
      */
     public BufferedImage encodeStartFrame(String fileName, long fileSize, int totalFrames, byte[] sha256, int flags) {
-        BufferedImage image = createBaseFrame();
+        return encodeStartFrame(fileName, fileSize, totalFrames, sha256, flags, 0);
+    }
 
-        // 构建 START 帧数据
+    /**
+     * 编码 START 帧
+     *
+     * @param fileName       文件名
+     * @param fileSize       传输流大小
+     * @param totalFrames    总帧数
+     * @param sha256         传输流 SHA-256 校验和
+     * @param flags          传输标记
+     * @param manifestLength 清单字节数（仅在设置 START_FLAG_MANIFEST 时写入）
+     */
+    public BufferedImage encodeStartFrame(String fileName, long fileSize, int totalFrames, byte[] sha256, int flags,
+                                          int manifestLength) {
+        // 构建 START 帧数据：布局配置在前，块排除掩码在最后
         byte[] fileNameBytes = fileName.getBytes(StandardCharsets.UTF_8);
-        int dataLength = 1 + fileNameBytes.length + 8 + 4 + 32 + Constants.START_PARAMS_BYTES;
+        boolean manifest = (flags & Constants.START_FLAG_MANIFEST) != 0;
+        BlockMask mask = profile.mask();
+        if (mask.isEmpty()) {
+            flags &= ~Constants.START_FLAG_BLOCK_MASK;
+        } else {
+            flags |= Constants.START_FLAG_BLOCK_MASK;
+        }
+        int dataLength = LayoutProfile.BYTES + 1 + fileNameBytes.length + 8 + 4 + 32
+                + Constants.START_PARAMS_BYTES + (manifest ? 4 : 0) + (mask.isEmpty() ? 0 : mask.byteLength());
 
         ByteBuffer buffer = ByteBuffer.allocate(dataLength);
+        buffer.put(profile.toBytes());
         buffer.put((byte) fileNameBytes.length);
         buffer.put(fileNameBytes);
         buffer.putLong(fileSize);
         buffer.putInt(totalFrames);
         buffer.put(sha256);
         buffer.putInt(flags);
+        if (manifest) {
+            buffer.putInt(manifestLength);
+        }
+        if (!mask.isEmpty()) {
+            mask.write(buffer);
+        }
 
-        byte[] data = buffer.array();
-
-        // 编码帧头
-        FrameHeader header = new FrameHeader(FrameType.START, 0, dataLength);
-        encodeHeader(image, header);
+        return encodeBeaconFrame(FrameType.START, sessionId, buffer.array());
+    }
 
-        // 编码数据区
-        encodeData(image, data);
+    /**
+     * 从 v2 的 IDLE / START 帧数据中取出发送端布局（含块排除掩码）
+     *
+     * @return 数据不足或参数无效时返回 null
+     */
+    public static LayoutProfile beaconLayout(FrameType type, byte[] data) {
+        LayoutProfile layout = LayoutProfile.fromBytes(data, 0);
+        if (layout == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, LayoutProfile.BYTES, data.length - LayoutProfile.BYTES);
+        if (type == FrameType.START) {
+            // 跳过文件名、大小、帧数和校验和，掩码跟在 flags（及清单长度）之后
+            int skip = buffer.hasRemaining() ? 1 + (buffer.get(LayoutProfile.BYTES) & 0xFF) + 8 + 4 + 32 : 0;
+            if (buffer.remaining() < skip + Constants.START_PARAMS_BYTES) {
+                return layout;
+            }
+            buffer.position(buffer.position() + skip);
+            int flags = buffer.getInt();
+            if ((flags & Constants.START_FLAG_BLOCK_MASK) == 0) {
+                return layout;
+            }
+            if ((flags & Constants.START_FLAG_MANIFEST) != 0) {
+                if (buffer.remaining() < 4) {
+                    return null;
+                }
+                buffer.getInt();
+            }
+        } else if (!buffer.hasRemaining()) {
+            return layout;
+        }
+        BlockMask mask = BlockMask.read(buffer);
+        if (mask == null) {
+            return null;
+        }
+        try {
+            return layout.withMask(mask);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
+    /**
+     * 按信标布局编码，数据附加 CRC32
+     */
+    private BufferedImage encodeBeaconFrame(FrameType type, int frameSessionId, byte[] data) {
+        if (data.length + 4 > beaconLayout.getPayloadCapacity()) {
+            throw new IllegalArgumentException("Frame data exceeds beacon capacity: " + data.length);
+        }
+        BufferedImage image = createBaseFrame(beaconLayout);
+        encodeHeader(image, beaconLayout, new FrameHeader(type, frameSessionId, 0, data.length));
+        encodeData(image, beaconLayout, withCrc(data));
         return image;
     }
 
@@ -131,27 +282,28 @@ public class FrameCodec {
     public BufferedImage encodeDataFrame(int frameIndex, byte[] payload) {
         BufferedImage image = createBaseFrame();
 
-        // 计算 CRC32
-        CRC32 crc = new CRC32();
-        crc.update(payload);
-        int crcValue = (int) crc.getValue();
-
-        // 构建完整数据（负载 + CRC32）
-        ByteBuffer buffer = ByteBuffer.allocate(payload.length + 4);
-        buffer.put(payload);
-        buffer.putInt(crcValue);
-        byte[] data = buffer.array();
-
         // 编码帧头
-        FrameHeader header = new FrameHeader(FrameType.DATA, frameIndex, payload.length);
-        encodeHeader(image, header);
+        FrameHeader header = new FrameHeader(FrameType.DATA, sessionId, frameIndex, payload.length);
+        encodeHeader(image, layout, header);
 
-        // 编码数据区
-        encodeData(image, data);
+        // 编码数据区（负载 + CRC32）
+        encodeData(image, layout, withCrc(payload));
 
         return image;
     }
 
+    /**
+     * 在数据末尾附加 CRC32
+     */
+    private static byte[] withCrc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(payload.length + 4);
+        buffer.put(payload);
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
     /**
      * 编码 EOF 帧
      *
@@ -168,58 +320,94 @@ public class FrameCodec {
         byte[] data = buffer.array();
 
         // 编码帧头
-        FrameHeader header = new FrameHeader(FrameType.EOF, 0, data.length);
-        encodeHeader(image, header);
+        FrameHeader header = new FrameHeader(FrameType.EOF, sessionId, 0, data.length);
+        encodeHeader(image, layout, header);
 
         // 编码数据区
-        encodeData(image, data);
+        encodeData(image, layout, data);
 
         return image;
     }
 
     /**
-     * 编码帧头到图像
+     * 编码校准测试帧
+     *
+     * @param profile  待测配置
+     * @param sequence 该配置内的测试帧序号
      */
-    private void encodeHeader(BufferedImage image, FrameHeader header) {
-        byte[] headerBytes = header.toBytes();
-        int[] bits = BlockCodec.bytesToBits(headerBytes);
-
-        for (int i = 0; i < bits.length; i++) {
-            int[] blockPos = FrameLayout.headerBitIndexToBlock(i);
-            int pixelX = Constants.CONTENT_START_X + blockPos[0] * Constants.BLOCK_SIZE;
-            int pixelY = Constants.CONTENT_START_Y + blockPos[1] * Constants.BLOCK_SIZE;
-
-            int color = (bits[i] == 0) ? Constants.COLOR_BLACK : Constants.COLOR_WHITE;
-            fillBlock(image, pixelX, pixelY, color);
-        }
+    public BufferedImage encodeCalibrationFrame(CalibrationProfile profile, int sequence) {
+        BufferedImage image = createBaseFrame();
+        encodeHeader(image, layout, new FrameHeader(FrameType.CALIBRATION, profile.frameIndex(sequence), 0));
+        CalibrationPattern.render(image, layout, profile, sequence);
+        return image;
     }
 
     /**
-     * 编码数据区到图像
+     * 编码校准结束帧，帧序号低 16 位为该配置已发送的测试帧数
+     *
+     * @param profile    待测配置
+     * @param frameCount 已发送的测试帧数
      */
-    private void encodeData(BufferedImage image, byte[] data) {
-        int[] bits = BlockCodec.bytesToBits(data);
+    public BufferedImage encodeCalibrationEndFrame(CalibrationProfile profile, int frameCount) {
+        BufferedImage image = createBaseFrame();
+        encodeHeader(image, layout, new FrameHeader(FrameType.CALIBRATION_END, profile.frameIndex(frameCount), 0));
+        return image;
+    }
 
-        for (int i = 0; i < bits.length && i < Constants.DATA_BLOCKS_PER_FRAME; i++) {
-            int[] blockPos = FrameLayout.dataBitIndexToBlock(i);
-            int pixelX = Constants.CONTENT_START_X + blockPos[0] * Constants.BLOCK_SIZE;
-            int pixelY = Constants.CONTENT_START_Y + blockPos[1] * Constants.BLOCK_SIZE;
+    /**
+     * 编码帧头到图像
+     */
+    private void encodeHeader(BufferedImage image, FrameLayout frameLayout, FrameHeader header) {
+        paintBits(image, frameLayout.blockToPixel(0, frameLayout.getHeaderStartRow()),
+                frameLayout.getProfile().gridCols(), frameLayout.getBlockSize(), header.toBytes(), Integer.MAX_VALUE,
+                null, null);
+    }
 
-            int color = (bits[i] == 0) ? Constants.COLOR_BLACK : Constants.COLOR_WHITE;
-            fillBlock(image, pixelX, pixelY, color);
+    /**
+     * 编码数据区到图像，校验区容纳得下时写入行/列奇偶位（见 {@link BlockParity}）
+     */
+    private void encodeData(BufferedImage image, FrameLayout frameLayout, byte[] data) {
+        paintBits(image, frameLayout.blockToPixel(frameLayout.getDataStartCol(), frameLayout.getDataStartRow()),
+                frameLayout.getDataColsPerRow(), frameLayout.getBlockSize(), data, frameLayout.getDataBlocks(),
+                frameLayout.getActiveDataRows(), frameLayout.getActiveDataCols());
+        LayoutProfile frameProfile = frameLayout.getProfile();
+        if (BlockParity.fits(frameProfile)) {
+            int bitCount = (int) Math.min(data.length * 8L, frameLayout.getDataBlocks());
+            byte[] parity = BlockParity.compute(data, bitCount, frameProfile.usableDataCols(),
+                    frameProfile.usableDataRows());
+            paintBits(image, frameLayout.blockToPixel(frameLayout.getDataStartCol(), frameLayout.getChecksumStartRow()),
+                    frameLayout.getDataColsPerRow(), frameLayout.getBlockSize(), parity,
+                    BlockParity.bitCount(frameProfile), null, frameLayout.getActiveDataCols());
         }
     }
 
     /**
-     * 填充一个 8x8 像素块
+     * 从 origin 开始按行绘制位块，每行 cols 个块。先在行缓冲中拼好一行像素，再按块高逐行写入栅格，
+     * 避免逐像素 setRGB（4K 帧有八百多万像素）。最后一行未用到的块和被排除的块保持内容区底色。
+     *
+     * @param rows    依次使用的行号（相对 origin），null 表示连续的行
+     * @param columns 每行使用的列号（相对 origin，升序），null 表示全部 cols 列
      */
-    private void fillBlock(BufferedImage image, int pixelX, int pixelY, int color) {
-        for (int dy = 0; dy < Constants.BLOCK_SIZE; dy++) {
-            for (int dx = 0; dx < Constants.BLOCK_SIZE; dx++) {
-                if (pixelX + dx < Constants.FRAME_WIDTH && pixelY + dy < Constants.FRAME_HEIGHT) {
-                    image.setRGB(pixelX + dx, pixelY + dy, color);
+    private static void paintBits(BufferedImage image, int[] origin, int cols, int blockSize, byte[] data,
+                                  int maxBits, int[] rows, int[] columns) {
+        int bitCount = (int) Math.min(data.length * 8L, maxBits);
+        int perRow = columns != null ? columns.length : cols;
+        WritableRaster raster = image.getRaster();
+        int[] line = new int[cols * blockSize];
+        int bit = 0;
+        for (int row = 0; bit < bitCount; row++) {
+            Arrays.fill(line, CONTENT_GRAY);
+            for (int col = 0; col < perRow && bit < bitCount; col++, bit++) {
+                int color = ((data[bit >> 3] >> (7 - (bit & 7))) & 1) == 0 ? RASTER_BLACK : RASTER_WHITE;
+                int pixel = (columns != null ? columns[col] : col) * blockSize;
+                for (int dx = 0; dx < blockSize; dx++) {
+                    line[pixel++] = color;
                 }
             }
+            int y = origin[1] + (rows != null ? rows[row] : row) * blockSize;
+            for (int dy = 0; dy < blockSize; dy++) {
+                raster.setDataElements(origin[0], y + dy, line.length, 1, line);
+            }
         }
     }
 
@@ -228,7 +416,7 @@ public class FrameCodec {
      */
     public int getPayloadCapacity() {
         // 数据区容量减去 CRC32 的 4 字节
-        return Constants.DATA_BYTES_PER_FRAME - 4;
+        return layout.getPayloadCapacity() - 4;
     }
 
     /**
@@ -240,18 +428,26 @@ public class FrameCodec {
      * @return FrameHeader，如果解码失败返回 null
      */
     public FrameHeader decodeHeader(BufferedImage image, int offsetX, int offsetY) {
-        int bitCount = Constants.HEADER_SIZE_BYTES * 8;
-        int[] bits = new int[bitCount];
-
-        for (int i = 0; i < bitCount; i++) {
-            int[] blockPos = FrameLayout.headerBitIndexToBlock(i);
-            int pixelX = Constants.CONTENT_START_X + blockPos[0] * Constants.BLOCK_SIZE + offsetX;
-            int pixelY = Constants.CONTENT_START_Y + blockPos[1] * Constants.BLOCK_SIZE + offsetY;
-            bits[i] = BlockCodec.decodeBlockAt(image, pixelX, pixelY);
-        }
+        return decodeHeader(LumaFrame.of(image), offsetX, offsetY);
+    }
 
-        byte[] headerBytes = BlockCodec.bitsToBytes(bits);
-        return FrameHeader.fromBytes(headerBytes);
+    /**
+     * 从亮度平面解码帧头（同一帧多次尝试不同偏移时只需转换一次）
+     *
+     * @param luma    源图像的亮度平面
+     * @param offsetX 水平偏移（像素）
+     * @param offsetY 垂直偏移（像素）
+     * @return FrameHeader，如果解码失败或数据长度超出本布局的容量返回 null
+     */
+    public FrameHeader decodeHeader(LumaFrame luma, int offsetX, int offsetY) {
+        byte[] headerBytes = decodeBits(luma, layout.blockToPixel(0, layout.getHeaderStartRow()),
+                profile.gridCols(), Constants.HEADER_SIZE_BYTES, offsetX, offsetY, null, null);
+        FrameHeader header = FrameHeader.fromBytes(headerBytes);
+        // v1 的非 DATA 帧不带 CRC32，可以占满数据区
+        if (header == null || header.getDataLength() > layout.getPayloadCapacity()) {
+            return null;
+        }
+        return header;
     }
 
     /**
@@ -264,7 +460,14 @@ public class FrameCodec {
      * @return 数据字节数组，失败返回 null
      */
     public byte[] decodeData(BufferedImage image, int dataLength, int offsetX, int offsetY) {
-        return decodeBytes(image, dataLength, offsetX, offsetY);
+        return decodeData(LumaFrame.of(image), dataLength, offsetX, offsetY);
+    }
+
+    /**
+     * 从亮度平面解码数据区（不包含 CRC 校验）
+     */
+    public byte[] decodeData(LumaFrame luma, int dataLength, int offsetX, int offsetY) {
+        return decodeBytes(luma, dataLength, offsetX, offsetY);
     }
 
     /**
@@ -277,12 +480,72 @@ public class FrameCodec {
      * @return 解码后的数据负载，CRC 校验失败返回 null
      */
     public byte[] decodeDataWithCrc(BufferedImage image, int dataLength, int offsetX, int offsetY) {
+        return decodeDataWithCrc(LumaFrame.of(image), dataLength, offsetX, offsetY);
+    }
+
+    /**
+     * 从亮度平面解码数据区并验证 CRC32，不做奇偶纠正（偏移重试时使用）
+     */
+    public byte[] decodeDataWithCrc(LumaFrame luma, int dataLength, int offsetX, int offsetY) {
         int totalLength = dataLength + 4;
-        byte[] raw = decodeBytes(image, totalLength, offsetX, offsetY);
+        byte[] raw = decodeBytes(luma, totalLength, offsetX, offsetY);
         if (raw == null || raw.length < totalLength) {
             return null;
         }
+        return checkCrc(raw, dataLength);
+    }
+
+    /**
+     * 从亮度平面解码数据区并验证 CRC32，不通过时按校验区的行/列奇偶位定位并翻转出错的块后再验证一次
+     *
+     * @return 解码结果，包含奇偶位不符的行和列（相对数据区，含被排除的行列）；CRC 直接通过时不检查奇偶位
+     */
+    public BlockParity.Result decodeDataWithParity(LumaFrame luma, int dataLength, int offsetX, int offsetY) {
+        int totalLength = dataLength + 4;
+        byte[] raw = decodeBytes(luma, totalLength, offsetX, offsetY);
+        if (raw == null || raw.length < totalLength) {
+            return BlockParity.Result.of(null);
+        }
+
+        byte[] payload = checkCrc(raw, dataLength);
+        if (payload != null || !BlockParity.fits(profile)) {
+            return BlockParity.Result.of(payload);
+        }
+
+        int parityBits = BlockParity.bitCount(profile);
+        byte[] parity = decodeBits(luma,
+                layout.blockToPixel(layout.getDataStartCol(), layout.getChecksumStartRow()),
+                layout.getDataColsPerRow(), (parityBits + 7) / 8, offsetX, offsetY, null, layout.getActiveDataCols());
+        BlockParity.Result result = BlockParity.correct(raw, totalLength * 8, parity,
+                profile.usableDataCols(), profile.usableDataRows(), bytes -> checkCrc(bytes, dataLength));
+        if (profile.mask().isEmpty()) {
+            return result;
+        }
+        return new BlockParity.Result(result.payload(), result.correctedBlocks(),
+                toDataIndices(result.failedRows(), layout.getActiveDataRows()),
+                toDataIndices(result.failedCols(), layout.getActiveDataCols()));
+    }
 
+    /**
+     * 把放置数据的行（列）序号换算为数据区中的行（列）号
+     */
+    private static int[] toDataIndices(int[] indices, int[] active) {
+        if (active == null || indices.length == 0) {
+            return indices;
+        }
+        int[] result = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = active[indices[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 验证 raw 末尾的 CRC32
+     *
+     * @return 不含 CRC 的负载，不通过返回 null
+     */
+    private static byte[] checkCrc(byte[] raw, int dataLength) {
         byte[] payload = Arrays.copyOf(raw, dataLength);
         int expectedCrc = ByteBuffer.wrap(raw, dataLength, 4).getInt();
 
@@ -296,20 +559,53 @@ public class FrameCodec {
         return payload;
     }
 
-    private byte[] decodeBytes(BufferedImage image, int byteLength, int offsetX, int offsetY) {
-        int maxBytes = Constants.DATA_BLOCKS_PER_FRAME / 8;
+    private byte[] decodeBytes(LumaFrame luma, int byteLength, int offsetX, int offsetY) {
+        int maxBytes = layout.getPayloadCapacity();
         if (byteLength <= 0 || byteLength > maxBytes) {
             return null;
         }
 
+        return decodeBits(luma, layout.blockToPixel(layout.getDataStartCol(), layout.getDataStartRow()),
+                layout.getDataColsPerRow(), byteLength, offsetX, offsetY,
+                layout.getActiveDataRows(), layout.getActiveDataCols());
+    }
+
+    /**
+     * 从 origin 开始按行读取位块（高位在前），行列的选取与 {@link #paintBits} 一致。
+     * 整行位于画面内时按行求和后统一判定（有被排除的列时先挑出使用的列），边缘处逐块判定
+     */
+    private byte[] decodeBits(LumaFrame luma, int[] origin, int cols, int byteLength, int offsetX, int offsetY,
+                              int[] rows, int[] columns) {
+        int blockSize = profile.blockSize();
         int bitCount = byteLength * 8;
-        int[] bits = new int[bitCount];
-        for (int i = 0; i < bitCount; i++) {
-            int[] blockPos = FrameLayout.dataBitIndexToBlock(i);
-            int pixelX = Constants.CONTENT_START_X + blockPos[0] * Constants.BLOCK_SIZE + offsetX;
-            int pixelY = Constants.CONTENT_START_Y + blockPos[1] * Constants.BLOCK_SIZE + offsetY;
-            bits[i] = BlockCodec.decodeBlockAt(image, pixelX, pixelY);
+        int perRow = columns != null ? columns.length : cols;
+        byte[] bytes = new byte[byteLength];
+        int[] sums = new int[cols];
+        int[] selected = columns != null ? new int[perRow] : sums;
+        int threshold = 128 * blockSize * blockSize;
+        int bit = 0;
+        for (int row = 0; bit < bitCount; row++) {
+            int y = origin[1] + offsetY + (rows != null ? rows[row] : row) * blockSize;
+            int x = origin[0] + offsetX;
+            int count = Math.min(perRow, bitCount - bit);
+            int span = columns != null ? columns[count - 1] + 1 : count;
+            if (luma.blockRowSums(x, y, blockSize, span, sums)) {
+                if (columns != null) {
+                    for (int col = 0; col < count; col++) {
+                        selected[col] = sums[columns[col]];
+                    }
+                }
+                luma.getKernels().packBits(selected, count, threshold, bytes, bit);
+                bit += count;
+                continue;
+            }
+            for (int col = 0; col < count; col++, bit++) {
+                int blockX = x + (columns != null ? columns[col] : col) * blockSize;
+                if (BlockCodec.decodeBlockAt(luma, blockX, y, blockSize) != 0) {
+                    bytes[bit >> 3] |= (byte) (0x80 >>> (bit & 7));
+                }
+            }
         }
-        return BlockCodec.bitsToBytes(bits);
+        return bytes;
     }
 }
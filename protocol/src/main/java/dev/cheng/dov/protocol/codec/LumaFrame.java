@@ -0,0 +1,217 @@
+package dev.cheng.dov.protocol.codec;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * 亮度平面
+ * <p>
+ * 解码前把整帧一次性转换为每像素一个字节的亮度 (R + G + B) / 3，之后的块判定和偏移重试只读这个数组，
+ * 不再逐像素调用 {@link BufferedImage#getRGB(int, int)}。INT_RGB 与采集卡常见的 3BYTE_BGR 等格式直接读取栅格数据，
+ * 已是灰度（BYTE_GRAY，如 OpenCV 分析后端的采集输出）时按行直接复制，其他格式按行批量读取。
+ * 逐像素循环由 {@link LumaKernels} 完成，默认按 {@code dov.simd} 选择向量或标量实现。
+ */
+public final class LumaFrame {
+
+    private final int width;
+    private final int height;
+    private final byte[] luma;
+    private LumaKernels kernels;
+
+    private LumaFrame(int width, int height, byte[] luma) {
+        this.width = width;
+        this.height = height;
+        this.luma = luma;
+    }
+
+    /**
+     * 转换整帧亮度
+     */
+    public static LumaFrame of(BufferedImage image) {
+        return of(image, null);
+    }
+
+    /**
+     * 转换整帧亮度
+     *
+     * @param reuse 尺寸相同时复用其缓冲区（调用方需保证其内容不再使用），可为 null
+     */
+    public static LumaFrame of(BufferedImage image, LumaFrame reuse) {
+        return of(image, reuse, LumaKernels.preferred());
+    }
+
+    /**
+     * 使用指定内核转换整帧亮度，之后的块求和也使用该内核
+     *
+     * @param reuse 尺寸相同时复用其缓冲区（调用方需保证其内容不再使用），可为 null
+     */
+    public static LumaFrame of(BufferedImage image, LumaFrame reuse, LumaKernels kernels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        LumaFrame frame = reuse != null && reuse.width == width && reuse.height == height
+                ? reuse
+                : new LumaFrame(width, height, new byte[width * height]);
+        frame.kernels = kernels;
+        if (!frame.convertRaster(image)) {
+            frame.convertRgb(image);
+        }
+        return frame;
+    }
+
+    /**
+     * 包装已有的亮度数据（行优先，每像素一个字节，不复制）
+     */
+    public static LumaFrame wrap(int width, int height, byte[] luma) {
+        if (luma.length < width * height) {
+            throw new IllegalArgumentException("Luma buffer too small");
+        }
+        LumaFrame frame = new LumaFrame(width, height, luma);
+        frame.kernels = LumaKernels.preferred();
+        return frame;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 亮度数据（行优先，不复制），供本地代码批量拷贝，调用方不得修改
+     */
+    public byte[] array() {
+        return luma;
+    }
+
+    /**
+     * 转换时使用的内核
+     */
+    public LumaKernels getKernels() {
+        return kernels;
+    }
+
+    /**
+     * 指定像素的亮度（0-255）
+     */
+    public int get(int x, int y) {
+        return luma[y * width + x] & 0xFF;
+    }
+
+    /**
+     * 块内平均亮度，超出画面的部分不计入
+     *
+     * @return 平均亮度，块完全在画面外时返回 -1
+     */
+    public int blockAverage(int x, int y, int blockSize) {
+        if (x >= 0 && y >= 0 && x + blockSize <= width && y + blockSize <= height) {
+            int sum = 0;
+            int offset = y * width + x;
+            for (int row = 0; row < blockSize; row++) {
+                for (int col = 0; col < blockSize; col++) {
+                    sum += luma[offset + col] & 0xFF;
+                }
+                offset += width;
+            }
+            return sum / (blockSize * blockSize);
+        }
+
+        int startX = Math.max(0, x);
+        int startY = Math.max(0, y);
+        int endX = Math.min(width, x + blockSize);
+        int endY = Math.min(height, y + blockSize);
+        if (startX >= endX || startY >= endY) {
+            return -1;
+        }
+        long sum = 0;
+        for (int row = startY; row < endY; row++) {
+            int offset = row * width;
+            for (int col = startX; col < endX; col++) {
+                sum += luma[offset + col] & 0xFF;
+            }
+        }
+        return (int) (sum / ((long) (endX - startX) * (endY - startY)));
+    }
+
+    /**
+     * 一行连续块的亮度之和
+     *
+     * @param x         第一个块的像素 X 坐标
+     * @param y         块行的像素 Y 坐标
+     * @param blockSize 块边长（像素）
+     * @param count     块数
+     * @param sums      输出，前 count 个元素为各块亮度之和
+     * @return 块行超出画面时返回 false，不写入 sums
+     */
+    boolean blockRowSums(int x, int y, int blockSize, int count, int[] sums) {
+        if (x < 0 || y < 0 || x + count * blockSize > width || y + blockSize > height) {
+            return false;
+        }
+        kernels.blockRowSums(luma, y * width + x, width, blockSize, count, sums);
+        return true;
+    }
+
+    /**
+     * 直接读取栅格数据
+     *
+     * @return 格式不支持时返回 false
+     */
+    private boolean convertRaster(BufferedImage image) {
+        Raster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        int originX = -raster.getSampleModelTranslateX();
+        int originY = -raster.getSampleModelTranslateY();
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR -> {
+                // 三个颜色分量各占 8 位，求和与分量顺序无关
+                int[] data = ((DataBufferInt) buffer).getData();
+                int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                int base = buffer.getOffset() + originY * stride + originX;
+                for (int y = 0; y < height; y++) {
+                    kernels.packedToLuma(data, base + y * stride, luma, y * width, width);
+                }
+                return true;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+                int stride = model.getScanlineStride();
+                int pixelStride = model.getPixelStride();
+                int[] bandOffsets = model.getBandOffsets();
+                int base = buffer.getOffset() + originY * stride + originX * pixelStride;
+                for (int y = 0; y < height; y++) {
+                    kernels.interleavedToLuma(data, base + y * stride, pixelStride, bandOffsets, luma, y * width,
+                            width);
+                }
+                return true;
+            }
+            case BufferedImage.TYPE_BYTE_GRAY -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+                int stride = model.getScanlineStride();
+                int base = buffer.getOffset() + originY * stride + originX;
+                for (int y = 0; y < height; y++) {
+                    System.arraycopy(data, base + y * stride, luma, y * width, width);
+                }
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private void convertRgb(BufferedImage image) {
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            kernels.packedToLuma(row, 0, luma, y * width, width);
+        }
+    }
+}
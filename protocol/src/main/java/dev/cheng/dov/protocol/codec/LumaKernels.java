@@ -0,0 +1,75 @@
+package dev.cheng.dov.protocol.codec;
+
+import dev.cheng.dov.protocol.Constants;
+
+/**
+ * 亮度平面计算内核
+ * <p>
+ * 解码热路径上的逐像素循环：颜色转亮度、块行求和、阈值判定并打包为位。
+ * 提供标量实现和基于 {@code jdk.incubator.vector} 的向量实现，两者结果逐位一致。
+ * 向量实现需要以 {@code --add-modules jdk.incubator.vector} 启动且硬件向量宽度不低于 256 位，
+ * 否则自动使用标量实现；{@code dov.simd=false} 可强制使用标量实现。
+ */
+public interface LumaKernels {
+
+    /**
+     * 实现名称（用于统计和基准测试输出）
+     */
+    String name();
+
+    /**
+     * 每像素一个 int 的 RGB 数据转亮度 (R + G + B) / 3，高 8 位忽略
+     */
+    void packedToLuma(int[] src, int srcOffset, byte[] dst, int dstOffset, int length);
+
+    /**
+     * 按字节交错存放的像素数据转亮度
+     *
+     * @param pixelStride 每像素字节数
+     * @param bandOffsets 红、绿、蓝分量在像素内的字节偏移（至少 3 个元素）
+     */
+    void interleavedToLuma(byte[] src, int srcOffset, int pixelStride, int[] bandOffsets,
+                           byte[] dst, int dstOffset, int length);
+
+    /**
+     * 一行连续块的亮度之和
+     *
+     * @param luma      亮度平面
+     * @param offset    第一个块左上角像素的下标
+     * @param stride    亮度平面的行宽
+     * @param blockSize 块边长（像素）
+     * @param count     块数
+     * @param sums      输出，前 count 个元素为各块亮度之和
+     */
+    void blockRowSums(byte[] luma, int offset, int stride, int blockSize, int count, int[] sums);
+
+    /**
+     * 块亮度之和不低于阈值的记为 1，按高位在前写入 bytes 从 bitOffset 开始的位置（只置位，不清零）
+     */
+    void packBits(int[] sums, int count, int threshold, byte[] bytes, int bitOffset);
+
+    /**
+     * 标量实现
+     */
+    static LumaKernels scalar() {
+        return ScalarLumaKernels.INSTANCE;
+    }
+
+    /**
+     * 向量实现
+     *
+     * @return 运行时未启用 jdk.incubator.vector 模块或硬件向量宽度不足时返回 null
+     */
+    static LumaKernels vector() {
+        return VectorKernelLoader.KERNELS;
+    }
+
+    /**
+     * 按配置选择的实现：{@code dov.simd} 开启且向量实现可用时使用向量实现。
+     * 向量实现在后台预热完成（JIT 编译）之前返回标量实现，两者结果一致，可以逐帧切换
+     */
+    static LumaKernels preferred() {
+        LumaKernels vector = VectorKernelLoader.ready();
+        return Constants.SIMD && vector != null ? vector : scalar();
+    }
+}
@@ -0,0 +1,77 @@
+package dev.cheng.dov.protocol.codec;
+
+import java.util.Arrays;
+
+/**
+ * 亮度内核的标量实现
+ */
+final class ScalarLumaKernels implements LumaKernels {
+
+    static final ScalarLumaKernels INSTANCE = new ScalarLumaKernels();
+
+    private ScalarLumaKernels() {
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void packedToLuma(int[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            int rgb = src[srcOffset + i];
+            dst[dstOffset + i] = (byte) ((((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3);
+        }
+    }
+
+    @Override
+    public void interleavedToLuma(byte[] src, int srcOffset, int pixelStride, int[] bandOffsets,
+                                  byte[] dst, int dstOffset, int length) {
+        int r = srcOffset + bandOffsets[0];
+        int g = srcOffset + bandOffsets[1];
+        int b = srcOffset + bandOffsets[2];
+        for (int i = 0; i < length; i++, r += pixelStride, g += pixelStride, b += pixelStride) {
+            dst[dstOffset + i] = (byte) (((src[r] & 0xFF) + (src[g] & 0xFF) + (src[b] & 0xFF)) / 3);
+        }
+    }
+
+    @Override
+    public void blockRowSums(byte[] luma, int offset, int stride, int blockSize, int count, int[] sums) {
+        blockRowSums(luma, offset, stride, blockSize, sums, 0, count);
+    }
+
+    /**
+     * 块行求和，结果写入 sums[from, from + count)
+     */
+    static void blockRowSums(byte[] luma, int offset, int stride, int blockSize, int[] sums, int from, int count) {
+        Arrays.fill(sums, from, from + count, 0);
+        for (int row = 0; row < blockSize; row++) {
+            int index = offset + row * stride;
+            for (int block = from; block < from + count; block++) {
+                int sum = 0;
+                for (int col = 0; col < blockSize; col++) {
+                    sum += luma[index++] & 0xFF;
+                }
+                sums[block] += sum;
+            }
+        }
+    }
+
+    @Override
+    public void packBits(int[] sums, int count, int threshold, byte[] bytes, int bitOffset) {
+        packBits(sums, 0, count, threshold, bytes, bitOffset);
+    }
+
+    /**
+     * 打包 sums[from, from + count)，第一个块写入 bitOffset
+     */
+    static void packBits(int[] sums, int from, int count, int threshold, byte[] bytes, int bitOffset) {
+        for (int i = 0; i < count; i++) {
+            if (sums[from + i] >= threshold) {
+                int bit = bitOffset + i;
+                bytes[bit >> 3] |= (byte) (0x80 >>> (bit & 7));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package dev.cheng.dov.protocol.codec;
+
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.file.ChunkSource;
+import dev.cheng.dov.protocol.file.DirectoryManifest;
+import dev.cheng.dov.protocol.frame.FrameHeader;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * 传输帧编码器
+ * <p>
+ * 把一个分片数据源编码为 START / DATA / EOF 帧图像，不依赖界面框架。
+ * Hermes 发送端和模拟信道共用，保证两边的帧内容和标志位一致。
+ * 每个实例是一次传输，START / DATA / EOF 帧携带随机生成的会话 ID。
+ */
+public class TransferEncoder {
+
+    private final FrameCodec frameCodec;
+    private final ChunkSource chunkSource;
+    private final boolean deferredHash;
+    private final int manifestLength;
+    private final int manifestFrames;
+
+    /**
+     * @param frameCodec   帧编解码器
+     * @param chunkSource  分片数据源
+     * @param deferredHash 数据源是否在后台计算校验和（START 帧不携带 SHA-256）
+     */
+    public TransferEncoder(FrameCodec frameCodec, ChunkSource chunkSource, boolean deferredHash) {
+        this.frameCodec = frameCodec.withSession(FrameHeader.newSessionId());
+        this.chunkSource = chunkSource;
+        this.deferredHash = deferredHash;
+        DirectoryManifest manifest = chunkSource.getManifest();
+        this.manifestLength = manifest != null ? manifest.getManifestLength() : 0;
+        this.manifestFrames = manifest != null
+                ? (int) (manifest.getDataOffset() / frameCodec.getPayloadCapacity()) : 0;
+    }
+
+    /**
+     * 编码 IDLE 帧
+     */
+    public BufferedImage encodeIdleFrame() {
+        return frameCodec.encodeIdleFrame();
+    }
+
+    /**
+     * 编码 START 帧
+     */
+    public BufferedImage encodeStartFrame() throws IOException {
+        int flags = manifestLength > 0 ? Constants.START_FLAG_MANIFEST : 0;
+        byte[] startSha256 = new byte[32];
+        if (deferredHash) {
+            flags |= Constants.START_FLAG_DEFERRED_HASH;
+        } else {
+            startSha256 = chunkSource.getSha256();
+        }
+        return frameCodec.encodeStartFrame(chunkSource.getFileName(), chunkSource.getFileSize(),
+                chunkSource.getTotalFrames(), startSha256, flags, manifestLength);
+    }
+
+    /**
+     * 读取指定帧的数据块
+     */
+    public byte[] readChunk(int index) throws IOException {
+        return chunkSource.getChunk(index);
+    }
+
+    /**
+     * 编码 DATA 帧
+     */
+    public BufferedImage encodeDataFrame(int index, byte[] chunk) {
+        return frameCodec.encodeDataFrame(index, chunk);
+    }
+
+    /**
+     * 编码 EOF 帧，校验和尚未计算完成时返回 null
+     */
+    public BufferedImage encodeEofFrame() throws IOException {
+        byte[] sha256 = chunkSource.getSha256();
+        if (sha256 == null) {
+            return null;
+        }
+        return frameCodec.encodeEofFrame(chunkSource.getTotalFrames(), sha256);
+    }
+
+    public int getSessionId() {
+        return frameCodec.getSessionId();
+    }
+
+    /**
+     * 帧布局配置
+     */
+    public LayoutProfile getProfile() {
+        return frameCodec.getProfile();
+    }
+
+    public ChunkSource getChunkSource() {
+        return chunkSource;
+    }
+
+    public int getTotalFrames() {
+        return chunkSource.getTotalFrames();
+    }
+
+    /**
+     * 清单占用的帧数（从 0 开始），单文件传输为 0
+     */
+    public int getManifestFrames() {
+        return manifestFrames;
+    }
+}
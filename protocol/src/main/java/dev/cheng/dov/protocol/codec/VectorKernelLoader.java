@@ -0,0 +1,80 @@
+package dev.cheng.dov.protocol.codec;
+
+import dev.cheng.dov.protocol.Constants;
+
+import java.util.Arrays;
+
+/**
+ * 按需加载向量内核
+ * <p>
+ * 只有 jdk.incubator.vector 模块已加入启动层时才会链接 {@link VectorLumaKernels}，
+ * 未加 {@code --add-modules} 启动时不会因缺少模块而失败。
+ * <p>
+ * 向量代码在 JIT 编译之前比标量慢两个数量级（首帧 1080p 解码超过 1 秒），
+ * 因此启用时先在后台线程预热，预热完成前 {@link LumaKernels#preferred()} 仍返回标量实现。
+ */
+final class VectorKernelLoader {
+
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int WARMUP_WIDTH = 1024;
+
+    static final LumaKernels KERNELS = load();
+
+    private static volatile boolean ready;
+
+    private VectorKernelLoader() {
+    }
+
+    /**
+     * @return 预热完成的向量内核，不可用或尚未预热完成时返回 null
+     */
+    static LumaKernels ready() {
+        return ready ? KERNELS : null;
+    }
+
+    private static LumaKernels load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        LumaKernels kernels;
+        try {
+            kernels = VectorLumaKernels.create();
+        } catch (LinkageError e) {
+            return null;
+        }
+        if (kernels != null && Constants.SIMD) {
+            Thread thread = new Thread(() -> warmUp(kernels), "LumaKernelWarmup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return kernels;
+    }
+
+    /**
+     * 在一小块合成数据上反复调用各内核，直到触发 JIT 编译
+     */
+    private static void warmUp(LumaKernels kernels) {
+        int[] rgb = new int[WARMUP_WIDTH];
+        byte[] interleaved = new byte[WARMUP_WIDTH * 4];
+        byte[] luma = new byte[WARMUP_WIDTH * 8];
+        int[] sums = new int[WARMUP_WIDTH / 2];
+        byte[] bits = new byte[WARMUP_WIDTH / 16];
+        int[] bgr = {2, 1, 0};
+        int[] abgr = {3, 2, 1};
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] = i * 0x010101;
+        }
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            kernels.packedToLuma(rgb, 0, luma, 0, WARMUP_WIDTH);
+            kernels.interleavedToLuma(interleaved, 0, 3, bgr, luma, 0, WARMUP_WIDTH);
+            kernels.interleavedToLuma(interleaved, 0, 4, abgr, luma, 0, WARMUP_WIDTH);
+            for (int blockSize = 2; blockSize <= 8; blockSize *= 2) {
+                int count = WARMUP_WIDTH / blockSize;
+                kernels.blockRowSums(luma, 0, WARMUP_WIDTH, blockSize, count, sums);
+                Arrays.fill(bits, (byte) 0);
+                kernels.packBits(sums, count, 128 * blockSize * blockSize, bits, 0);
+            }
+        }
+        ready = true;
+    }
+}
@@ -0,0 +1,227 @@
+package dev.cheng.dov.protocol.codec;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 亮度内核的向量实现（jdk.incubator.vector）
+ * <p>
+ * 除以 3 用乘 683 再右移 11 位代替，对 0-765 的分量和与整数除法结果相同。
+ * 块行求和把一个向量的字节重新解释为 2/4/8 字节宽的通道，在通道内完成块的水平求和，
+ * 再逐行累加；其他块大小、3/4 字节以外的像素步长以及每行末尾不足一个向量的部分使用标量实现。
+ */
+final class VectorLumaKernels implements LumaKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, INTS.vectorShape());
+    private static final VectorSpecies<Short> SHORTS = VectorSpecies.of(short.class, INTS.vectorShape());
+    private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, INTS.vectorShape());
+    private static final int INT_LANES = INTS.length();
+    private static final boolean SUPPORTED = INTS.vectorBitSize() >= 256;
+
+    // 一个 int 向量的亮度结果（每通道一个字节）和一个 long 向量的块和（每通道一个 int）；
+    // 向量宽度不足时不会使用，取任意合法形状
+    private static final VectorSpecies<Byte> LUMA_BYTES = SUPPORTED
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.vectorBitSize() / 4))
+            : ByteVector.SPECIES_64;
+    private static final VectorSpecies<Integer> HALF_INTS = SUPPORTED
+            ? VectorSpecies.of(int.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2))
+            : IntVector.SPECIES_64;
+
+    // 3 字节像素：从一个字节向量中取出 INT_LANES 个像素的同一分量
+    private static final VectorShuffle<Byte> BAND_0 = bandShuffle(0);
+    private static final VectorShuffle<Byte> BAND_1 = bandShuffle(1);
+    private static final VectorShuffle<Byte> BAND_2 = bandShuffle(2);
+
+    private static final int DIVIDE_BY_3_MULTIPLIER = 683;
+    private static final int DIVIDE_BY_3_SHIFT = 11;
+
+    private VectorLumaKernels() {
+    }
+
+    private static VectorShuffle<Byte> bandShuffle(int band) {
+        int[] indexes = new int[BYTES.length()];
+        for (int i = 0; i < INT_LANES; i++) {
+            indexes[i] = i * 3 + band;
+        }
+        return VectorShuffle.fromArray(BYTES, indexes, 0);
+    }
+
+    /**
+     * @return 硬件向量宽度低于 256 位时返回 null（亮度结果不足 64 位，没有对应的向量形状）
+     */
+    static LumaKernels create() {
+        return SUPPORTED ? new VectorLumaKernels() : null;
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + INTS.vectorBitSize();
+    }
+
+    @Override
+    public void packedToLuma(int[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        int i = 0;
+        for (; i + INT_LANES <= length; i += INT_LANES) {
+            IntVector rgb = IntVector.fromArray(INTS, src, srcOffset + i);
+            IntVector sum = rgb.and(0xFF)
+                    .add(rgb.lanewise(VectorOperators.LSHR, 8).and(0xFF))
+                    .add(rgb.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+            storeLuma(sum, dst, dstOffset + i);
+        }
+        ScalarLumaKernels.INSTANCE.packedToLuma(src, srcOffset + i, dst, dstOffset + i, length - i);
+    }
+
+    @Override
+    public void interleavedToLuma(byte[] src, int srcOffset, int pixelStride, int[] bandOffsets,
+                                  byte[] dst, int dstOffset, int length) {
+        int i = 0;
+        if (pixelStride == 4) {
+            int shiftR = bandOffsets[0] * 8;
+            int shiftG = bandOffsets[1] * 8;
+            int shiftB = bandOffsets[2] * 8;
+            for (; i + INT_LANES <= length; i += INT_LANES) {
+                // 每个 int 通道正好是一个像素，分量位置按小端字节序
+                IntVector pixels = ByteVector.fromArray(BYTES, src, srcOffset + i * 4).reinterpretAsInts();
+                IntVector sum = pixels.lanewise(VectorOperators.LSHR, shiftR).and(0xFF)
+                        .add(pixels.lanewise(VectorOperators.LSHR, shiftG).and(0xFF))
+                        .add(pixels.lanewise(VectorOperators.LSHR, shiftB).and(0xFF));
+                storeLuma(sum, dst, dstOffset + i);
+            }
+        } else if (pixelStride == 3) {
+            // 每次读入一个完整字节向量，只用前 3 * INT_LANES 个字节，末尾留给标量实现
+            int limit = Math.min(length, (src.length - srcOffset - BYTES.length()) / 3 + 1);
+            for (; i + INT_LANES <= limit; i += INT_LANES) {
+                ByteVector pixels = ByteVector.fromArray(BYTES, src, srcOffset + i * 3);
+                IntVector sum = band(pixels, bandOffsets[0])
+                        .add(band(pixels, bandOffsets[1]))
+                        .add(band(pixels, bandOffsets[2]));
+                storeLuma(sum, dst, dstOffset + i);
+            }
+        }
+        ScalarLumaKernels.INSTANCE.interleavedToLuma(src, srcOffset + i * pixelStride, pixelStride, bandOffsets,
+                dst, dstOffset + i, length - i);
+    }
+
+    private static IntVector band(ByteVector pixels, int band) {
+        VectorShuffle<Byte> shuffle = switch (band) {
+            case 0 -> BAND_0;
+            case 1 -> BAND_1;
+            default -> BAND_2;
+        };
+        return ((IntVector) pixels.rearrange(shuffle).convertShape(VectorOperators.B2I, INTS, 0)).and(0xFF);
+    }
+
+    private static void storeLuma(IntVector sum, byte[] dst, int offset) {
+        sum.mul(DIVIDE_BY_3_MULTIPLIER)
+                .lanewise(VectorOperators.LSHR, DIVIDE_BY_3_SHIFT)
+                .convertShape(VectorOperators.I2B, LUMA_BYTES, 0)
+                .reinterpretAsBytes()
+                .intoArray(dst, offset);
+    }
+
+    @Override
+    public void blockRowSums(byte[] luma, int offset, int stride, int blockSize, int count, int[] sums) {
+        int done = switch (blockSize) {
+            case 2 -> blockRowSums2(luma, offset, stride, count, sums);
+            case 4 -> blockRowSums4(luma, offset, stride, count, sums);
+            case 8 -> blockRowSums8(luma, offset, stride, count, sums);
+            default -> 0;
+        };
+        ScalarLumaKernels.blockRowSums(luma, offset + done * blockSize, stride, blockSize, sums, done,
+                count - done);
+    }
+
+    /**
+     * 2×2 块：每个 short 通道为一个块的一行
+     *
+     * @return 已处理的块数
+     */
+    private int blockRowSums2(byte[] luma, int offset, int stride, int count, int[] sums) {
+        int blocksPerVector = SHORTS.length();
+        int block = 0;
+        for (; block + blocksPerVector <= count; block += blocksPerVector) {
+            int index = offset + block * 2;
+            ShortVector acc = ShortVector.zero(SHORTS);
+            for (int row = 0; row < 2; row++, index += stride) {
+                ShortVector pairs = ByteVector.fromArray(BYTES, luma, index).reinterpretAsShorts();
+                acc = acc.add(pairs.and((short) 0xFF)).add(pairs.lanewise(VectorOperators.LSHR, 8));
+            }
+            acc.convertShape(VectorOperators.S2I, INTS, 0).reinterpretAsInts().intoArray(sums, block);
+            acc.convertShape(VectorOperators.S2I, INTS, 1).reinterpretAsInts().intoArray(sums, block + INT_LANES);
+        }
+        return block;
+    }
+
+    /**
+     * 4×4 块：每个 int 通道为一个块的一行
+     */
+    private int blockRowSums4(byte[] luma, int offset, int stride, int count, int[] sums) {
+        int block = 0;
+        for (; block + INT_LANES <= count; block += INT_LANES) {
+            int index = offset + block * 4;
+            IntVector acc = IntVector.zero(INTS);
+            for (int row = 0; row < 4; row++, index += stride) {
+                IntVector quads = ByteVector.fromArray(BYTES, luma, index).reinterpretAsInts();
+                IntVector pairs = quads.and(0x00FF00FF)
+                        .add(quads.lanewise(VectorOperators.LSHR, 8).and(0x00FF00FF));
+                acc = acc.add(pairs.and(0xFFFF)).add(pairs.lanewise(VectorOperators.LSHR, 16));
+            }
+            acc.intoArray(sums, block);
+        }
+        return block;
+    }
+
+    /**
+     * 8×8 块：每个 long 通道为一个块的一行
+     */
+    private int blockRowSums8(byte[] luma, int offset, int stride, int count, int[] sums) {
+        int blocksPerVector = LONGS.length();
+        int block = 0;
+        for (; block + blocksPerVector <= count; block += blocksPerVector) {
+            int index = offset + block * 8;
+            LongVector acc = LongVector.zero(LONGS);
+            for (int row = 0; row < 8; row++, index += stride) {
+                LongVector octets = ByteVector.fromArray(BYTES, luma, index).reinterpretAsLongs();
+                LongVector pairs = octets.and(0x00FF00FF00FF00FFL)
+                        .add(octets.lanewise(VectorOperators.LSHR, 8).and(0x00FF00FF00FF00FFL));
+                LongVector quads = pairs.and(0x0000FFFF0000FFFFL)
+                        .add(pairs.lanewise(VectorOperators.LSHR, 16).and(0x0000FFFF0000FFFFL));
+                acc = acc.add(quads.and(0xFFFFFFFFL)).add(quads.lanewise(VectorOperators.LSHR, 32));
+            }
+            acc.convertShape(VectorOperators.L2I, HALF_INTS, 0).reinterpretAsInts().intoArray(sums, block);
+        }
+        return block;
+    }
+
+    @Override
+    public void packBits(int[] sums, int count, int threshold, byte[] bytes, int bitOffset) {
+        int i = 0;
+        for (; i + INT_LANES <= count; i += INT_LANES) {
+            // 掩码第 0 位对应第一个块，输出按高位在前，每 8 位翻转后写入
+            long mask = IntVector.fromArray(INTS, sums, i).compare(VectorOperators.GE, threshold).toLong();
+            for (int group = 0; group < INT_LANES; group += 8) {
+                int value = Integer.reverse((int) (mask >>> group) & 0xFF) >>> 24;
+                if (value != 0) {
+                    writeByte(bytes, bitOffset + i + group, value);
+                }
+            }
+        }
+        ScalarLumaKernels.packBits(sums, i, count - i, threshold, bytes, bitOffset + i);
+    }
+
+    private static void writeByte(byte[] bytes, int bit, int value) {
+        int index = bit >> 3;
+        int shift = bit & 7;
+        bytes[index] |= (byte) (value >>> shift);
+        if (shift != 0) {
+            bytes[index + 1] |= (byte) (value << (8 - shift));
+        }
+    }
+}
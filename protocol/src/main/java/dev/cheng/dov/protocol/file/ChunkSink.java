@@ -0,0 +1,51 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 接收端分片写入接口
+ * <p>
+ * 分片按帧序号定位写入，写入后可按帧序号读回（用于增量校验）。
+ */
+public interface ChunkSink extends Closeable {
+
+    /**
+     * 创建输出文件并做好写入准备
+     */
+    void open() throws IOException;
+
+    /**
+     * 写入分片
+     *
+     * @param index 帧序号
+     * @param chunk 分片数据
+     * @return 是否已写入；暂时无法放置的分片返回 false，调用方应视为未收到
+     */
+    boolean write(int index, byte[] chunk) throws IOException;
+
+    /**
+     * 读回已写入的分片
+     *
+     * @param index  帧序号
+     * @param buffer 目标缓冲区（长度不小于分片大小）
+     * @return 分片长度
+     */
+    int read(int index, byte[] buffer) throws IOException;
+
+    /**
+     * 完成写入
+     *
+     * @return 最终输出路径
+     */
+    Path finish() throws IOException;
+
+    /**
+     * 放弃写入并清理未完成的输出
+     */
+    void abort();
+
+    @Override
+    void close();
+}
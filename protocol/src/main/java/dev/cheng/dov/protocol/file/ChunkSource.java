@@ -0,0 +1,182 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 分片数据源
+ * <p>
+ * 不把文件读入内存，按帧序号定位读取分片。每次未命中时一次性预读后续若干分片到固定窗口，
+ * 顺序发送时大部分请求直接命中窗口，发送端内存占用与文件大小无关。
+ * <p>
+ * 传输流可以是单个文件，也可以是目录清单加各文件内容的拼接（见 {@link DirectoryManifest}）。
+ * SHA-256 可以在打开时已知，也可以在后台计算完成后再填入（延迟校验和模式）。
+ */
+public class ChunkSource implements Closeable {
+
+    private final String fileName;
+    private final long fileSize;
+    private final int chunkSize;
+    private final int totalFrames;
+    private final int readAheadFrames;
+    private final List<SegmentReader.Segment> segments;
+    private final DirectoryManifest manifest;
+    private final CompletableFuture<byte[]> sha256 = new CompletableFuture<>();
+    private volatile boolean closed;
+
+    private SegmentReader reader;
+    private ByteBuffer window;
+    private int windowStart = -1;
+    private int windowFrames;
+
+    /**
+     * @param filePath        文件路径
+     * @param fileName        传输使用的文件名
+     * @param fileSize        文件大小
+     * @param chunkSize       分片大小
+     * @param readAheadFrames 预读窗口帧数
+     */
+    public ChunkSource(Path filePath, String fileName, long fileSize, int chunkSize,
+                       int readAheadFrames) throws IOException {
+        this(List.of(new SegmentReader.Segment(0, fileSize, filePath, null)), null,
+                fileName, fileSize, chunkSize, readAheadFrames);
+    }
+
+    ChunkSource(List<SegmentReader.Segment> segments, DirectoryManifest manifest, String fileName,
+                long fileSize, int chunkSize, int readAheadFrames) throws IOException {
+        if (chunkSize <= 0 || readAheadFrames <= 0) {
+            throw new IllegalArgumentException("Invalid chunk source parameters");
+        }
+        long frames = (fileSize + chunkSize - 1) / chunkSize;
+        if (frames > Integer.MAX_VALUE) {
+            throw new IOException("File too large: " + fileSize);
+        }
+        this.segments = segments;
+        this.manifest = manifest;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.chunkSize = chunkSize;
+        this.totalFrames = (int) frames;
+        this.readAheadFrames = readAheadFrames;
+        this.reader = new SegmentReader(segments);
+    }
+
+    /**
+     * 获取指定帧序号的分片
+     */
+    public synchronized byte[] getChunk(int index) throws IOException {
+        if (index < 0 || index >= totalFrames) {
+            throw new IOException("Chunk out of range: " + index);
+        }
+        if (reader == null) {
+            throw new IOException("Chunk source closed");
+        }
+        if (windowStart < 0 || index < windowStart || index >= windowStart + windowFrames) {
+            fillWindow(index);
+        }
+
+        int offset = (index - windowStart) * chunkSize;
+        int length = chunkLength(index);
+        byte[] chunk = new byte[length];
+        window.get(offset, chunk, 0, length);
+        return chunk;
+    }
+
+    private void fillWindow(int index) throws IOException {
+        if (window == null) {
+            window = ByteBuffer.allocate((int) Math.min((long) chunkSize * readAheadFrames,
+                    Math.max(fileSize, chunkSize)));
+        }
+        int frames = Math.min(window.capacity() / chunkSize, totalFrames - index);
+        long position = (long) index * chunkSize;
+        int length = (int) Math.min((long) frames * chunkSize, fileSize - position);
+
+        windowStart = -1;
+        window.clear();
+        window.limit(length);
+        reader.read(position, window);
+        windowStart = index;
+        windowFrames = frames;
+    }
+
+    private int chunkLength(int index) {
+        return (int) Math.min(chunkSize, fileSize - (long) index * chunkSize);
+    }
+
+    /**
+     * 创建独立的顺序读取器（供后台计算校验和使用）
+     */
+    SegmentReader newReader() {
+        return new SegmentReader(segments);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 传输流总字节数
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * 获取目录清单，单文件传输返回 null
+     */
+    public DirectoryManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * 获取文件 SHA-256
+     *
+     * @return 校验和，尚未计算完成时返回 null
+     */
+    public byte[] getSha256() throws IOException {
+        if (!sha256.isDone()) {
+            return null;
+        }
+        try {
+            return sha256.get();
+        } catch (ExecutionException e) {
+            throw new IOException("SHA-256 failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    void completeSha256(byte[] value) {
+        sha256.complete(value);
+    }
+
+    void failSha256(Throwable cause) {
+        sha256.completeExceptionally(cause);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (reader != null) {
+            reader.close();
+        }
+        reader = null;
+        window = null;
+        windowStart = -1;
+        windowFrames = 0;
+    }
+}
@@ -0,0 +1,221 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 目录清单
+ * <p>
+ * 目录传输时整个传输流由清单和各文件内容依次拼接而成：
+ * <pre>
+ * [清单，补齐到分片边界][文件 0][文件 1]...[文件 N-1]
+ * </pre>
+ * 文件内容紧密排列，多个小文件可共用同一帧。清单格式（大端序）：
+ * <pre>
+ * 4     条目数
+ * 每个条目:
+ *   1   类型 (0 = 文件, 1 = 目录)
+ *   2   路径长度 N
+ *   N   相对路径 (UTF-8, '/' 分隔)
+ *   8   文件大小
+ *   32  文件 SHA-256 (目录，或发送端延迟计算校验和时为全 0)
+ * </pre>
+ * 各文件在传输流中的偏移由清单长度和前序文件大小推算，不单独传输。
+ */
+public class DirectoryManifest {
+
+    private static final int TYPE_FILE = 0;
+    private static final int TYPE_DIRECTORY = 1;
+
+    private final List<Entry> entries;
+    private final int manifestLength;
+    private final long dataOffset;
+    private final long streamSize;
+    private final int[] fileIndex;
+
+    /**
+     * 清单条目
+     *
+     * @param path      相对路径
+     * @param directory 是否为目录
+     * @param size      文件大小
+     * @param sha256    文件 SHA-256，未计算时为 null 或全 0
+     * @param offset    文件内容在传输流中的偏移
+     */
+    public record Entry(String path, boolean directory, long size, byte[] sha256, long offset) {
+
+        /**
+         * 是否携带文件 SHA-256（延迟校验和模式下发送端不计算）
+         */
+        public boolean hasSha256() {
+            if (sha256 == null) {
+                return false;
+            }
+            for (byte b : sha256) {
+                if (b != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private DirectoryManifest(List<Entry> entries, int manifestLength, int chunkSize) {
+        this.manifestLength = manifestLength;
+        this.dataOffset = alignedLength(manifestLength, chunkSize);
+
+        List<Entry> placed = new ArrayList<>(entries.size());
+        List<Integer> files = new ArrayList<>();
+        long offset = dataOffset;
+        for (Entry entry : entries) {
+            long size = entry.directory() ? 0 : entry.size();
+            placed.add(new Entry(entry.path(), entry.directory(), size, entry.sha256(), offset));
+            if (size > 0) {
+                files.add(placed.size() - 1);
+            }
+            offset += size;
+        }
+        this.entries = Collections.unmodifiableList(placed);
+        this.streamSize = offset;
+        this.fileIndex = files.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 根据条目列表创建清单（偏移按顺序计算）
+     *
+     * @param entries   条目列表（offset 字段忽略）
+     * @param chunkSize 分片大小
+     */
+    public static DirectoryManifest of(List<Entry> entries, int chunkSize) {
+        return new DirectoryManifest(entries, encodedLength(entries), chunkSize);
+    }
+
+    /**
+     * 从字节数组解析清单
+     *
+     * @param bytes     清单字节（长度即清单长度）
+     * @param chunkSize 分片大小
+     */
+    public static DirectoryManifest fromBytes(byte[] bytes, int chunkSize) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new IOException("Invalid manifest entry count: " + count);
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int type = buffer.get() & 0xFF;
+                int pathLength = buffer.getShort() & 0xFFFF;
+                byte[] pathBytes = new byte[pathLength];
+                buffer.get(pathBytes);
+                long size = buffer.getLong();
+                byte[] sha256 = new byte[32];
+                buffer.get(sha256);
+                if ((type != TYPE_FILE && type != TYPE_DIRECTORY) || size < 0) {
+                    throw new IOException("Invalid manifest entry: " + i);
+                }
+                entries.add(new Entry(new String(pathBytes, StandardCharsets.UTF_8),
+                        type == TYPE_DIRECTORY, size, sha256, 0));
+            }
+            return new DirectoryManifest(entries, bytes.length, chunkSize);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated manifest", e);
+        }
+    }
+
+    /**
+     * 序列化清单
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(manifestLength);
+        buffer.putInt(entries.size());
+        for (Entry entry : entries) {
+            byte[] pathBytes = entry.path().getBytes(StandardCharsets.UTF_8);
+            buffer.put((byte) (entry.directory() ? TYPE_DIRECTORY : TYPE_FILE));
+            buffer.putShort((short) pathBytes.length);
+            buffer.put(pathBytes);
+            buffer.putLong(entry.size());
+            buffer.put(entry.sha256() != null ? entry.sha256() : new byte[32]);
+        }
+        return buffer.array();
+    }
+
+    private static int encodedLength(List<Entry> entries) {
+        long length = 4;
+        for (Entry entry : entries) {
+            int pathLength = entry.path().getBytes(StandardCharsets.UTF_8).length;
+            if (pathLength > 0xFFFF) {
+                throw new IllegalArgumentException("Path too long: " + entry.path());
+            }
+            length += 1 + 2 + pathLength + 8 + 32;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Manifest too large");
+        }
+        return (int) length;
+    }
+
+    private static long alignedLength(long length, int chunkSize) {
+        return (length + chunkSize - 1) / chunkSize * chunkSize;
+    }
+
+    /**
+     * 查找包含传输流指定位置的文件条目
+     *
+     * @param position 传输流位置（不小于 dataOffset）
+     * @return 条目下标，未找到返回 -1
+     */
+    public int findEntry(long position) {
+        int low = 0;
+        int high = fileIndex.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Entry entry = entries.get(fileIndex[mid]);
+            if (position < entry.offset()) {
+                high = mid - 1;
+            } else if (position >= entry.offset() + entry.size()) {
+                low = mid + 1;
+            } else {
+                return fileIndex[mid];
+            }
+        }
+        return -1;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 清单本身的字节数
+     */
+    public int getManifestLength() {
+        return manifestLength;
+    }
+
+    /**
+     * 文件内容在传输流中的起始偏移（清单补齐到分片边界）
+     */
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * 传输流总字节数
+     */
+    public long getStreamSize() {
+        return streamSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DirectoryManifest{entries=%d, length=%d, stream=%d}",
+                entries.size(), manifestLength, streamSize);
+    }
+}
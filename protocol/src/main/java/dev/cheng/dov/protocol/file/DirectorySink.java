@@ -0,0 +1,359 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 目录写入器
+ * <p>
+ * 接收清单加文件内容拼接而成的传输流（见 {@link DirectoryManifest}）。
+ * 清单帧全部到达后解析清单并建立目录结构，之后每个 DATA 帧按清单拆分直接写入各文件的最终路径。
+ * 清单尚未完整时到达的内容帧无法定位，返回 false 交由补帧处理。
+ * <p>
+ * 每个文件按顺序写入的部分边写边计算 SHA-256，文件写满后校验，乱序部分在校验前从文件读回补算。
+ * 清单未携带文件 SHA-256（发送端延迟计算校验和）时不单独校验，以整个传输流的 SHA-256 为准。
+ */
+public class DirectorySink implements ChunkSink {
+
+    private static final int MAX_OPEN_FILES = 16;
+
+    private final Path targetDir;
+    private final long streamSize;
+    private final int chunkSize;
+    private final int manifestLength;
+    private final int manifestFrames;
+    private final long syncBytes;
+
+    private final byte[][] manifestChunks;
+    private int manifestReceived;
+    private DirectoryManifest manifest;
+    private Path[] entryPaths;
+    private long[] remainingBytes;
+    private long[] hashedBytes;
+    private MessageDigest[] digests;
+    private boolean[] touched;
+    private final Map<Integer, FileChannel> openFiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long unsyncedBytes;
+    private boolean opened;
+
+    /**
+     * @param targetDir      目标目录
+     * @param streamSize     传输流总字节数
+     * @param chunkSize      分片大小（每帧负载容量）
+     * @param manifestLength 清单字节数（来自 START 帧）
+     * @param syncBytes      累计写入多少字节后执行一次 fsync，0 表示只在完成时同步
+     */
+    public DirectorySink(Path targetDir, long streamSize, int chunkSize, int manifestLength, long syncBytes) {
+        if (streamSize < 0 || chunkSize <= 0 || manifestLength <= 0 || syncBytes < 0
+                || manifestLength > streamSize) {
+            throw new IllegalArgumentException("Invalid sink parameters");
+        }
+        this.targetDir = targetDir.toAbsolutePath().normalize();
+        this.streamSize = streamSize;
+        this.chunkSize = chunkSize;
+        this.manifestLength = manifestLength;
+        this.manifestFrames = (manifestLength + chunkSize - 1) / chunkSize;
+        this.syncBytes = syncBytes;
+        this.manifestChunks = new byte[manifestFrames][];
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        Files.createDirectories(targetDir);
+        opened = true;
+    }
+
+    @Override
+    public synchronized boolean write(int index, byte[] chunk) throws IOException {
+        if (!opened) {
+            throw new IOException("Sink not open");
+        }
+        long position = (long) index * chunkSize;
+        if (index < 0 || chunk.length > chunkSize || position + chunk.length > streamSize) {
+            throw new IOException("Chunk out of range: " + index);
+        }
+
+        if (index < manifestFrames) {
+            if (manifestChunks[index] == null) {
+                manifestChunks[index] = chunk.clone();
+                manifestReceived++;
+                if (manifestReceived == manifestFrames) {
+                    applyManifest();
+                }
+            }
+            return true;
+        }
+        if (manifest == null) {
+            return false;
+        }
+
+        int offset = 0;
+        while (offset < chunk.length) {
+            long streamPosition = position + offset;
+            int entryIndex = manifest.findEntry(streamPosition);
+            if (entryIndex < 0) {
+                throw new IOException("No file at stream position: " + streamPosition);
+            }
+            DirectoryManifest.Entry entry = manifest.getEntries().get(entryIndex);
+            long filePosition = streamPosition - entry.offset();
+            int length = (int) Math.min(chunk.length - offset, entry.size() - filePosition);
+
+            FileChannel channel = channelFor(entryIndex);
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, offset, length);
+            long writePosition = filePosition;
+            while (buffer.hasRemaining()) {
+                writePosition += channel.write(buffer, writePosition);
+            }
+            if (digests[entryIndex] != null && filePosition == hashedBytes[entryIndex]) {
+                digests[entryIndex].update(chunk, offset, length);
+                hashedBytes[entryIndex] += length;
+            }
+            remainingBytes[entryIndex] -= length;
+            if (remainingBytes[entryIndex] == 0) {
+                completeEntry(entryIndex, entry);
+            }
+            offset += length;
+        }
+
+        unsyncedBytes += chunk.length;
+        if (syncBytes > 0 && unsyncedBytes >= syncBytes) {
+            for (FileChannel channel : openFiles.values()) {
+                channel.force(false);
+            }
+            unsyncedBytes = 0;
+        }
+        return true;
+    }
+
+    private void applyManifest() throws IOException {
+        byte[] bytes = new byte[manifestLength];
+        for (int i = 0; i < manifestFrames; i++) {
+            int offset = i * chunkSize;
+            System.arraycopy(manifestChunks[i], 0, bytes, offset,
+                    Math.min(manifestChunks[i].length, manifestLength - offset));
+        }
+        DirectoryManifest parsed = DirectoryManifest.fromBytes(bytes, chunkSize);
+        if (parsed.getDataOffset() != (long) manifestFrames * chunkSize
+                || parsed.getStreamSize() != streamSize) {
+            throw new IOException("Manifest does not match transfer size");
+        }
+
+        List<DirectoryManifest.Entry> entries = parsed.getEntries();
+        int count = entries.size();
+        entryPaths = new Path[count];
+        remainingBytes = new long[count];
+        hashedBytes = new long[count];
+        digests = new MessageDigest[count];
+        touched = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            DirectoryManifest.Entry entry = entries.get(i);
+            Path path = targetDir.resolve(entry.path()).normalize();
+            if (!path.startsWith(targetDir) || path.equals(targetDir)) {
+                throw new IOException("非法清单条目: " + entry.path());
+            }
+            entryPaths[i] = path;
+            if (entry.directory()) {
+                Files.createDirectories(path);
+                continue;
+            }
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            remainingBytes[i] = entry.size();
+            digests[i] = entry.hasSha256() ? newDigest() : null;
+            if (entry.size() == 0) {
+                Files.newByteChannel(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING).close();
+                touched[i] = true;
+                completeEntry(i, entry);
+            }
+        }
+        manifest = parsed;
+    }
+
+    private FileChannel channelFor(int entryIndex) throws IOException {
+        FileChannel channel = openFiles.get(entryIndex);
+        if (channel != null) {
+            return channel;
+        }
+        if (openFiles.size() >= MAX_OPEN_FILES) {
+            Iterator<Map.Entry<Integer, FileChannel>> eldest = openFiles.entrySet().iterator();
+            eldest.next().getValue().close();
+            eldest.remove();
+        }
+        channel = FileChannel.open(entryPaths[entryIndex], StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!touched[entryIndex]) {
+            channel.truncate(0);
+            touched[entryIndex] = true;
+        }
+        openFiles.put(entryIndex, channel);
+        return channel;
+    }
+
+    private void completeEntry(int entryIndex, DirectoryManifest.Entry entry) throws IOException {
+        long size = entry.size();
+        MessageDigest digest = digests[entryIndex];
+        if (digest != null && hashedBytes[entryIndex] < size) {
+            FileChannel channel = channelFor(entryIndex);
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - hashedBytes[entryIndex], 1 << 20));
+            long position = hashedBytes[entryIndex];
+            while (position < size) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - position));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of file: " + entryPaths[entryIndex]);
+                    }
+                }
+                digest.update(buffer.array(), 0, buffer.limit());
+                position += buffer.limit();
+            }
+            hashedBytes[entryIndex] = size;
+        }
+
+        FileChannel channel = openFiles.remove(entryIndex);
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        if (digest != null && !Arrays.equals(digest.digest(), entry.sha256())) {
+            throw new IOException("File SHA-256 mismatch: " + entry.path());
+        }
+    }
+
+    @Override
+    public synchronized int read(int index, byte[] buffer) throws IOException {
+        if (!opened) {
+            throw new IOException("Sink not open");
+        }
+        long position = (long) index * chunkSize;
+        if (index < 0 || position >= streamSize) {
+            throw new IOException("Chunk out of range: " + index);
+        }
+        int length = (int) Math.min(chunkSize, streamSize - position);
+
+        if (index < manifestFrames) {
+            byte[] chunk = manifestChunks[index];
+            if (chunk == null) {
+                throw new IOException("Chunk not received: " + index);
+            }
+            System.arraycopy(chunk, 0, buffer, 0, length);
+            return length;
+        }
+        if (manifest == null) {
+            throw new IOException("Manifest not received");
+        }
+
+        int offset = 0;
+        while (offset < length) {
+            long streamPosition = position + offset;
+            int entryIndex = manifest.findEntry(streamPosition);
+            if (entryIndex < 0) {
+                throw new IOException("No file at stream position: " + streamPosition);
+            }
+            DirectoryManifest.Entry entry = manifest.getEntries().get(entryIndex);
+            long filePosition = streamPosition - entry.offset();
+            int part = (int) Math.min(length - offset, entry.size() - filePosition);
+
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, part);
+            FileChannel channel = openFiles.get(entryIndex);
+            if (channel != null) {
+                readFully(channel, target, filePosition, entryIndex);
+            } else {
+                try (FileChannel readChannel = FileChannel.open(entryPaths[entryIndex], StandardOpenOption.READ)) {
+                    readFully(readChannel, target, filePosition, entryIndex);
+                }
+            }
+            offset += part;
+        }
+        return length;
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer target, long position, int entryIndex) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file: " + entryPaths[entryIndex]);
+            }
+            position += read;
+        }
+    }
+
+    @Override
+    public synchronized Path finish() throws IOException {
+        if (manifest == null) {
+            throw new IOException("Manifest not received");
+        }
+        for (long remaining : remainingBytes) {
+            if (remaining != 0) {
+                throw new IOException("Directory transfer incomplete");
+            }
+        }
+        close();
+        return targetDir;
+    }
+
+    /**
+     * 放弃写入，删除本次已创建但尚未写完的文件
+     */
+    @Override
+    public synchronized void abort() {
+        close();
+        if (manifest == null) {
+            return;
+        }
+        for (int i = 0; i < entryPaths.length; i++) {
+            if (touched[i] && remainingBytes[i] > 0) {
+                try {
+                    Files.deleteIfExists(entryPaths[i]);
+                } catch (IOException ignored) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    public Path getTargetDir() {
+        return targetDir;
+    }
+
+    /**
+     * 获取已解析的清单，清单帧未收齐时返回 null
+     */
+    public synchronized DirectoryManifest getManifest() {
+        return manifest;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : openFiles.values()) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+        openFiles.clear();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+}
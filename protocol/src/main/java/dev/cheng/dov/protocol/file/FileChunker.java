@@ -2,8 +2,12 @@ package dev.cheng.dov.protocol.file;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -12,88 +16,171 @@ import java.util.List;
 /**
  * 文件分块器
  * <p>
- * 将文件分割为固定大小的块，并计算 SHA-256 校验和
+ * 将文件按固定大小划分为分片，并计算 SHA-256 校验和。
+ * 分片不读入内存，由 {@link ChunkSource} 按需从文件读取。
  */
 public class FileChunker {
 
+    private static final int HASH_BUFFER_SIZE = 1 << 20;
+
     private final int chunkSize;
+    private final int readAheadFrames;
 
-    public FileChunker(int chunkSize) {
+    public FileChunker(int chunkSize, int readAheadFrames) {
         this.chunkSize = chunkSize;
+        this.readAheadFrames = readAheadFrames;
     }
 
     /**
-     * 分块结果
+     * 打开文件分片数据源
+     *
+     * @param filePath 文件路径
+     * @return 分片数据源
      */
-    public static class ChunkResult {
-        private final List<byte[]> chunks;
-        private final byte[] sha256;
-        private final long fileSize;
-        private final String fileName;
-
-        public ChunkResult(List<byte[]> chunks, byte[] sha256, long fileSize, String fileName) {
-            this.chunks = chunks;
-            this.sha256 = sha256;
-            this.fileSize = fileSize;
-            this.fileName = fileName;
-        }
+    public ChunkSource open(Path filePath) throws IOException {
+        return open(filePath, filePath.getFileName().toString(), false);
+    }
 
-        public List<byte[]> getChunks() {
-            return chunks;
-        }
+    /**
+     * 打开文件分片数据源
+     *
+     * @param filePath     文件路径
+     * @param fileName     传输使用的文件名
+     * @param deferredHash 是否在后台计算 SHA-256（返回时校验和尚未就绪，可立即开始发送）
+     * @return 分片数据源
+     */
+    public ChunkSource open(Path filePath, String fileName, boolean deferredHash) throws IOException {
+        long fileSize = Files.size(filePath);
+        ChunkSource source = new ChunkSource(filePath, fileName, fileSize, chunkSize, readAheadFrames);
+        return hash(source, deferredHash);
+    }
 
-        public byte[] getSha256() {
-            return sha256;
-        }
+    /**
+     * 打开目录分片数据源
+     * <p>
+     * 遍历目录生成清单，传输流为清单加各文件内容的拼接，不生成临时压缩包。
+     * 清单中的文件 SHA-256 须在发送清单之前算出，延迟校验和模式下不计算（清单中为全 0），
+     * 以免遍历时预读全部文件；接收端此时只按 EOF 帧中整个传输流的 SHA-256 校验。
+     *
+     * @param directoryPath 目录路径
+     * @param fileName      传输使用的名称
+     * @param deferredHash  是否在后台计算整个传输流的 SHA-256（同时不计算各文件的 SHA-256）
+     * @return 分片数据源
+     */
+    public ChunkSource openDirectory(Path directoryPath, String fileName, boolean deferredHash) throws IOException {
+        Path root = directoryPath.toAbsolutePath().normalize();
+        List<DirectoryManifest.Entry> entries = new ArrayList<>();
+        List<Path> paths = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!root.equals(dir)) {
+                    entries.add(new DirectoryManifest.Entry(relativeName(root, dir), true, 0, null, 0));
+                    paths.add(null);
+                }
+                return FileVisitResult.CONTINUE;
+            }
 
-        public long getFileSize() {
-            return fileSize;
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                entries.add(new DirectoryManifest.Entry(relativeName(root, file), false, attrs.size(),
+                        deferredHash ? null : computeSha256(file), 0));
+                paths.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        DirectoryManifest manifest = DirectoryManifest.of(entries, chunkSize);
+        byte[] header = new byte[(int) manifest.getDataOffset()];
+        byte[] manifestBytes = manifest.toBytes();
+        System.arraycopy(manifestBytes, 0, header, 0, manifestBytes.length);
+
+        List<SegmentReader.Segment> segments = new ArrayList<>();
+        segments.add(new SegmentReader.Segment(0, header.length, null, header));
+        List<DirectoryManifest.Entry> placed = manifest.getEntries();
+        for (int i = 0; i < placed.size(); i++) {
+            DirectoryManifest.Entry entry = placed.get(i);
+            if (!entry.directory() && entry.size() > 0) {
+                segments.add(new SegmentReader.Segment(entry.offset(), entry.size(), paths.get(i), null));
+            }
         }
 
-        public String getFileName() {
-            return fileName;
-        }
+        ChunkSource source = new ChunkSource(segments, manifest, fileName, manifest.getStreamSize(),
+                chunkSize, readAheadFrames);
+        return hash(source, deferredHash);
+    }
+
+    private static String relativeName(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
 
-        public int getTotalFrames() {
-            return chunks.size();
+    private ChunkSource hash(ChunkSource source, boolean deferredHash) throws IOException {
+        if (!deferredHash) {
+            try {
+                source.completeSha256(computeSha256(source));
+            } catch (IOException e) {
+                source.close();
+                throw e;
+            }
+            return source;
         }
+
+        Thread hashThread = new Thread(() -> {
+            try {
+                source.completeSha256(computeSha256(source));
+            } catch (IOException | RuntimeException e) {
+                source.failSha256(e);
+            }
+        }, "HashThread");
+        hashThread.setDaemon(true);
+        hashThread.start();
+        return source;
     }
 
     /**
-     * 分块文件
-     *
-     * @param filePath 文件路径
-     * @return 分块结果
+     * 计算整个传输流的 SHA-256，数据源关闭后中止
      */
-    public ChunkResult chunkFile(Path filePath) throws IOException {
-        String fileName = filePath.getFileName().toString();
-        long fileSize = Files.size(filePath);
-
-        List<byte[]> chunks = new ArrayList<>();
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+    private byte[] computeSha256(ChunkSource source) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        try (SegmentReader reader = source.newReader()) {
+            long position = 0;
+            long size = source.getFileSize();
+            while (position < size) {
+                if (source.isClosed()) {
+                    throw new IOException("SHA-256 cancelled");
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), size - position));
+                reader.read(position, buffer);
+                digest.update(buffer.array(), 0, buffer.position());
+                position += buffer.position();
+            }
         }
+        return digest.digest();
+    }
 
+    /**
+     * 计算文件 SHA-256
+     */
+    public byte[] computeSha256(Path filePath) throws IOException {
+        MessageDigest digest = newDigest();
         try (InputStream is = Files.newInputStream(filePath)) {
-            byte[] buffer = new byte[chunkSize];
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
             int bytesRead;
-
             while ((bytesRead = is.read(buffer)) != -1) {
-                // 更新校验和
                 digest.update(buffer, 0, bytesRead);
-
-                // 创建块
-                byte[] chunk = new byte[bytesRead];
-                System.arraycopy(buffer, 0, chunk, 0, bytesRead);
-                chunks.add(chunk);
             }
         }
+        return digest.digest();
+    }
 
-        byte[] sha256 = digest.digest();
-        return new ChunkResult(chunks, sha256, fileSize, fileName);
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
     }
 
     /**
@@ -0,0 +1,185 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 文件写入器
+ * <p>
+ * 收到 START 帧时预分配目标文件，DATA 帧到达后按 index * chunkSize 定位直接写盘，
+ * 不在内存中缓存分片。写入期间使用 .part 临时文件，完成后再重命名为目标文件。
+ * 已存在的 .part 文件打开时保留原有内容，配合 {@link ReceiveJournal} 可在中断后继续接收。
+ */
+public class FileSink implements ChunkSink {
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path outputFile;
+    private final Path partFile;
+    private final long fileSize;
+    private final int chunkSize;
+    private final long syncBytes;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long unsyncedBytes;
+
+    /**
+     * @param outputFile 目标文件路径
+     * @param fileSize   文件大小
+     * @param chunkSize  分片大小（每帧负载容量）
+     * @param syncBytes  累计写入多少字节后执行一次 fsync，0 表示只在完成时同步
+     */
+    public FileSink(Path outputFile, long fileSize, int chunkSize, long syncBytes) {
+        if (fileSize < 0 || chunkSize <= 0 || syncBytes < 0) {
+            throw new IllegalArgumentException("Invalid sink parameters");
+        }
+        this.outputFile = outputFile;
+        this.partFile = outputFile.resolveSibling(outputFile.getFileName() + PART_SUFFIX);
+        this.fileSize = fileSize;
+        this.chunkSize = chunkSize;
+        this.syncBytes = syncBytes;
+    }
+
+    /**
+     * 创建并预分配临时文件
+     */
+    @Override
+    public synchronized void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Path parent = partFile.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        file = new RandomAccessFile(partFile.toFile(), "rw");
+        file.setLength(fileSize);
+        channel = file.getChannel();
+        unsyncedBytes = 0;
+    }
+
+    /**
+     * 将分片写入其在文件中的位置
+     *
+     * @param index 帧序号
+     * @param chunk 分片数据
+     */
+    @Override
+    public synchronized boolean write(int index, byte[] chunk) throws IOException {
+        if (channel == null) {
+            throw new IOException("Sink not open");
+        }
+        long position = (long) index * chunkSize;
+        if (index < 0 || chunk.length > chunkSize || position + chunk.length > fileSize) {
+            throw new IOException("Chunk out of range: " + index);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+
+        unsyncedBytes += chunk.length;
+        if (syncBytes > 0 && unsyncedBytes >= syncBytes) {
+            channel.force(false);
+            unsyncedBytes = 0;
+        }
+        return true;
+    }
+
+    /**
+     * 将已写入的数据同步到磁盘（保存接收日志前调用）
+     */
+    public synchronized void sync() throws IOException {
+        if (channel == null) {
+            throw new IOException("Sink not open");
+        }
+        channel.force(false);
+        unsyncedBytes = 0;
+    }
+
+    /**
+     * 读回已写入的分片
+     *
+     * @param index  帧序号
+     * @param buffer 目标缓冲区（长度不小于 chunkSize）
+     * @return 分片长度
+     */
+    @Override
+    public synchronized int read(int index, byte[] buffer) throws IOException {
+        if (channel == null) {
+            throw new IOException("Sink not open");
+        }
+        long position = (long) index * chunkSize;
+        if (index < 0 || position >= fileSize) {
+            throw new IOException("Chunk out of range: " + index);
+        }
+
+        int length = (int) Math.min(chunkSize, fileSize - position);
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at chunk: " + index);
+            }
+            position += read;
+        }
+        return length;
+    }
+
+    /**
+     * 同步并关闭临时文件，重命名为目标文件
+     *
+     * @return 目标文件路径
+     */
+    @Override
+    public synchronized Path finish() throws IOException {
+        if (channel == null) {
+            throw new IOException("Sink not open");
+        }
+        channel.force(true);
+        close();
+        Files.move(partFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
+        return outputFile;
+    }
+
+    /**
+     * 放弃写入并删除临时文件
+     */
+    @Override
+    public synchronized void abort() {
+        close();
+        try {
+            Files.deleteIfExists(partFile);
+        } catch (IOException ignored) {
+            // ignore
+        }
+    }
+
+    public Path getOutputFile() {
+        return outputFile;
+    }
+
+    public Path getPartFile() {
+        return partFile;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+        file = null;
+        channel = null;
+    }
+}
@@ -0,0 +1,185 @@
+package dev.cheng.dov.protocol.file;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 帧序号区间集合（不可变快照）
+ * <p>
+ * 以连续区间 [start, end) 保存帧序号，丢帧集中成段时只占用少量空间，
+ * 适合在线程之间传递而不必装箱成 List&lt;Integer&gt;。
+ */
+public final class FrameRanges {
+
+    public static final FrameRanges EMPTY = new FrameRanges(new int[0], 0, 0);
+
+    // start0, end0, start1, end1 ...（end 不含）
+    private final int[] bounds;
+    private final int rangeCount;
+    private final int size;
+
+    FrameRanges(int[] bounds, int rangeCount, int size) {
+        this.bounds = bounds;
+        this.rangeCount = rangeCount;
+        this.size = size;
+    }
+
+    /**
+     * 解析补发输入，如 "0,3,5-7"（逗号、分号或空白分隔，区间两端都含）
+     * <p>
+     * 超出 [0, totalFrames) 的序号和无法识别的片段被忽略。
+     */
+    public static FrameRanges parse(String input, int totalFrames) {
+        if (input == null || input.isBlank() || totalFrames <= 0) {
+            return EMPTY;
+        }
+        BitSet frames = new BitSet(totalFrames);
+        for (String part : input.trim().split("[,;\\s]+")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int dashIndex = part.indexOf('-');
+            try {
+                if (dashIndex > 0 && dashIndex < part.length() - 1) {
+                    int start = Integer.parseInt(part.substring(0, dashIndex).trim());
+                    int end = Integer.parseInt(part.substring(dashIndex + 1).trim());
+                    int from = Math.max(Math.min(start, end), 0);
+                    int to = Math.min(Math.max(start, end), totalFrames - 1);
+                    if (from <= to) {
+                        frames.set(from, to + 1);
+                    }
+                } else {
+                    int index = Integer.parseInt(part);
+                    if (index >= 0 && index < totalFrames) {
+                        frames.set(index);
+                    }
+                }
+            } catch (NumberFormatException ignored) {
+                // 忽略无法识别的片段
+            }
+        }
+        Builder builder = new Builder();
+        for (int start = frames.nextSetBit(0); start >= 0; ) {
+            int end = frames.nextClearBit(start);
+            builder.add(start, end);
+            start = frames.nextSetBit(end);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 帧总数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 区间个数
+     */
+    public int rangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * 第 i 个区间的起始帧序号（含）
+     */
+    public int start(int i) {
+        return bounds[i * 2];
+    }
+
+    /**
+     * 第 i 个区间的结束帧序号（不含）
+     */
+    public int end(int i) {
+        return bounds[i * 2 + 1];
+    }
+
+    /**
+     * 展开为帧序号列表
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < rangeCount; i++) {
+            for (int index = start(i); index < end(i); index++) {
+                list.add(index);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 格式化为补发输入格式，如 "0, 3, 5-7"
+     *
+     * @param maxRanges 最多输出的区间数，超出部分以 "..." 表示
+     */
+    public String format(int maxRanges) {
+        if (size == 0) {
+            return "-";
+        }
+        StringBuilder builder = new StringBuilder();
+        int count = Math.min(rangeCount, maxRanges);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            int start = start(i);
+            int last = end(i) - 1;
+            builder.append(start);
+            if (last > start) {
+                builder.append('-').append(last);
+            }
+        }
+        if (rangeCount > count) {
+            builder.append(" ...");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按顺序追加区间的构建器
+     */
+    static final class Builder {
+        private int[] bounds = new int[16];
+        private int rangeCount;
+        private int size;
+
+        void add(int start, int end) {
+            if (end <= start) {
+                return;
+            }
+            if (rangeCount > 0 && bounds[rangeCount * 2 - 1] == start) {
+                bounds[rangeCount * 2 - 1] = end;
+            } else {
+                if (rangeCount * 2 == bounds.length) {
+                    int[] grown = new int[bounds.length * 2];
+                    System.arraycopy(bounds, 0, grown, 0, bounds.length);
+                    bounds = grown;
+                }
+                bounds[rangeCount * 2] = start;
+                bounds[rangeCount * 2 + 1] = end;
+                rangeCount++;
+            }
+            size += end - start;
+        }
+
+        FrameRanges build() {
+            if (rangeCount == 0) {
+                return EMPTY;
+            }
+            int[] compact = new int[rangeCount * 2];
+            System.arraycopy(bounds, 0, compact, 0, compact.length);
+            return new FrameRanges(compact, rangeCount, size);
+        }
+    }
+}
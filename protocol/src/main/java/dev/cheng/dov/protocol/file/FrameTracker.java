@@ -0,0 +1,131 @@
+package dev.cheng.dov.protocol.file;
+
+import java.util.BitSet;
+
+/**
+ * 接收帧记录
+ * <p>
+ * 用位图记录已接收帧（每帧 1 bit），并维护丢失帧计数：
+ * 序号小于“已扫过位置”的未接收帧视为丢失。收到更大的帧序号时扫过位置前移，
+ * 收到 EOF 后扫过位置推进到末尾。所有更新均为 O(1) 均摊，不产生装箱对象，
+ * 丢失帧按需导出为 {@link FrameRanges} 区间快照。非线程安全。
+ */
+public class FrameTracker {
+
+    private final int totalFrames;
+    private final BitSet received;
+    private int receivedCount;
+    private int scanned;
+    private int missingCount;
+
+    public FrameTracker(int totalFrames) {
+        if (totalFrames < 0) {
+            throw new IllegalArgumentException("Invalid frame count: " + totalFrames);
+        }
+        this.totalFrames = totalFrames;
+        this.received = new BitSet(totalFrames);
+    }
+
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+
+    public boolean isReceived(int index) {
+        return received.get(index);
+    }
+
+    /**
+     * 标记帧已接收
+     *
+     * @return 丢失帧集合是否发生变化
+     */
+    public boolean markReceived(int index) {
+        if (index < 0 || index >= totalFrames || received.get(index)) {
+            return false;
+        }
+        received.set(index);
+        receivedCount++;
+        if (index < scanned) {
+            missingCount--;
+            return true;
+        }
+        boolean changed = advanceScanned(index);
+        scanned = index + 1;
+        return changed;
+    }
+
+    /**
+     * 将尚未扫过的未接收帧全部计为丢失（收到 EOF 后调用）
+     *
+     * @return 丢失帧集合是否发生变化
+     */
+    public boolean markAllSeen() {
+        boolean changed = advanceScanned(totalFrames);
+        scanned = totalFrames;
+        return changed;
+    }
+
+    private boolean advanceScanned(int limit) {
+        if (limit <= scanned) {
+            return false;
+        }
+        int receivedInGap = 0;
+        for (int i = received.nextSetBit(scanned); i >= 0 && i < limit; i = received.nextSetBit(i + 1)) {
+            receivedInGap++;
+        }
+        int gap = limit - scanned - receivedInGap;
+        missingCount += gap;
+        return gap > 0;
+    }
+
+    /**
+     * 恢复已接收帧（来自接收日志），不推进扫过位置，也不计入丢失帧
+     */
+    public void restore(BitSet saved) {
+        for (int i = saved.nextSetBit(0); i >= 0 && i < totalFrames; i = saved.nextSetBit(i + 1)) {
+            if (!received.get(i)) {
+                received.set(i);
+                receivedCount++;
+                if (i < scanned) {
+                    missingCount--;
+                }
+            }
+        }
+    }
+
+    public int getReceivedCount() {
+        return receivedCount;
+    }
+
+    public int getMissingCount() {
+        return missingCount;
+    }
+
+    public boolean isComplete() {
+        return receivedCount >= totalFrames;
+    }
+
+    /**
+     * 已接收帧位图（只读使用）
+     */
+    public BitSet getReceived() {
+        return received;
+    }
+
+    /**
+     * 导出丢失帧区间
+     */
+    public FrameRanges missingRanges() {
+        FrameRanges.Builder builder = new FrameRanges.Builder();
+        int start = received.nextClearBit(0);
+        while (start < scanned) {
+            int end = received.nextSetBit(start);
+            if (end < 0 || end > scanned) {
+                end = scanned;
+            }
+            builder.add(start, end);
+            start = received.nextClearBit(end);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.cheng.dov.protocol.file;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 增量 SHA-256 计算器
+ * <p>
+ * 按帧序号顺序累加分片，只接受紧接在已连续前缀之后的分片。
+ * 最后一帧到达时即可得到整个文件的校验和，无需再读一遍文件。
+ */
+public class PrefixDigest {
+
+    private final int totalFrames;
+    private final MessageDigest digest;
+    private int nextIndex;
+    private byte[] result;
+
+    public PrefixDigest(int totalFrames) {
+        this.totalFrames = totalFrames;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 尝试累加分片
+     *
+     * @param index 帧序号
+     * @param chunk 分片数据
+     * @param length 有效长度
+     * @return 若分片正好是下一个待累加的帧则返回 true
+     */
+    public boolean offer(int index, byte[] chunk, int length) {
+        if (index != nextIndex || isComplete()) {
+            return false;
+        }
+        digest.update(chunk, 0, length);
+        nextIndex++;
+        return true;
+    }
+
+    /**
+     * 下一个待累加的帧序号（即已连续前缀的长度）
+     */
+    public int getNextIndex() {
+        return nextIndex;
+    }
+
+    public boolean isComplete() {
+        return nextIndex >= totalFrames;
+    }
+
+    /**
+     * 获取最终校验和，前缀未覆盖全部帧时返回 null
+     */
+    public byte[] digest() {
+        if (!isComplete()) {
+            return null;
+        }
+        if (result == null) {
+            result = digest.digest();
+        }
+        return result.clone();
+    }
+}
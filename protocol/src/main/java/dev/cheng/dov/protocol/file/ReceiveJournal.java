@@ -0,0 +1,171 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * 接收日志
+ * <p>
+ * 与 .part 文件放在一起，记录传输标识（START 帧信息）和已接收帧位图。
+ * 调用方需先把 .part 文件同步到磁盘再保存日志，保证日志中标记的帧都已落盘。
+ * 日志先写临时文件再原子替换，崩溃时只会留下旧版本或新版本。格式（大端序）：
+ * <pre>
+ * 4     魔数 "DVJ1"
+ * 2     文件名长度 N
+ * N     文件名 (UTF-8)
+ * 8     文件大小
+ * 4     总帧数
+ * 4     分片大小
+ * 4     传输参数
+ * 32    SHA-256 (延迟校验和模式下全 0)
+ * M     已接收帧位图 (M = ceil(总帧数 / 8))
+ * 4     CRC32 (覆盖以上全部字段)
+ * </pre>
+ */
+public class ReceiveJournal {
+
+    private static final byte[] MAGIC = {'D', 'V', 'J', '1'};
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path journalFile;
+    private final Path tempFile;
+    private final Path partFile;
+    private final byte[] identity;
+    private final long fileSize;
+    private final int totalFrames;
+
+    /**
+     * @param partFile    接收中的临时文件
+     * @param fileName    文件名
+     * @param fileSize    文件大小
+     * @param totalFrames 总帧数
+     * @param chunkSize   分片大小
+     * @param flags       传输参数
+     * @param sha256      文件 SHA-256（延迟校验和模式下为 null）
+     */
+    public ReceiveJournal(Path partFile, String fileName, long fileSize, int totalFrames, int chunkSize,
+                          int flags, byte[] sha256) {
+        this.partFile = partFile;
+        this.journalFile = partFile.resolveSibling(partFile.getFileName() + JOURNAL_SUFFIX);
+        this.tempFile = partFile.resolveSibling(partFile.getFileName() + JOURNAL_SUFFIX + TEMP_SUFFIX);
+        this.fileSize = fileSize;
+        this.totalFrames = totalFrames;
+
+        byte[] nameBytes = fileName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + 2 + nameBytes.length + 8 + 4 + 4 + 4 + 32);
+        buffer.put(MAGIC);
+        buffer.putShort((short) nameBytes.length);
+        buffer.put(nameBytes);
+        buffer.putLong(fileSize);
+        buffer.putInt(totalFrames);
+        buffer.putInt(chunkSize);
+        buffer.putInt(flags);
+        buffer.put(sha256 != null ? sha256 : new byte[32]);
+        this.identity = buffer.array();
+    }
+
+    /**
+     * 读取已有日志
+     * <p>
+     * 日志不存在、损坏、与当前传输不符或 .part 文件大小不符时返回 null，并删除失效的日志。
+     *
+     * @return 已接收帧位图
+     */
+    public BitSet load() {
+        if (!Files.isRegularFile(journalFile)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(journalFile);
+            BitSet received = decode(bytes);
+            if (received != null && Files.isRegularFile(partFile) && Files.size(partFile) == fileSize) {
+                return received;
+            }
+        } catch (IOException ignored) {
+            // 视为无效日志
+        }
+        delete();
+        return null;
+    }
+
+    private BitSet decode(byte[] bytes) {
+        int bitmapLength = bitmapLength();
+        if (bytes.length != identity.length + bitmapLength + 4) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes).getInt(bytes.length - 4)
+                || !Arrays.equals(bytes, 0, identity.length, identity, 0, identity.length)) {
+            return null;
+        }
+        BitSet received = BitSet.valueOf(ByteBuffer.wrap(bytes, identity.length, bitmapLength));
+        if (received.length() > totalFrames) {
+            return null;
+        }
+        return received;
+    }
+
+    /**
+     * 保存已接收帧位图
+     *
+     * @param received 已接收帧位图
+     */
+    public void save(BitSet received) throws IOException {
+        int bitmapLength = bitmapLength();
+        ByteBuffer buffer = ByteBuffer.allocate(identity.length + bitmapLength + 4);
+        buffer.put(identity);
+        // BitSet.toByteArray 为小端位序（第 i 帧位于第 i/8 字节的第 i%8 位），末尾的 0 字节被省略
+        byte[] bitmap = received.toByteArray();
+        buffer.put(bitmap, 0, Math.min(bitmap.length, bitmapLength));
+        buffer.position(identity.length + bitmapLength);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 删除日志
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(tempFile);
+        } catch (IOException ignored) {
+            // ignore
+        }
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    private int bitmapLength() {
+        return (totalFrames + 7) >>> 3;
+    }
+}
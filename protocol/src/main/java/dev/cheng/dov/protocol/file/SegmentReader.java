@@ -0,0 +1,112 @@
+package dev.cheng.dov.protocol.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 分段读取器
+ * <p>
+ * 将若干内存段和文件段按偏移拼接为一个连续的传输流，并支持定位读取。
+ * 同一时间只保持一个文件打开，非线程安全。
+ */
+final class SegmentReader implements Closeable {
+
+    /**
+     * 传输流中的一段
+     *
+     * @param offset 段在传输流中的偏移
+     * @param length 段长度
+     * @param path   文件路径（内存段为 null）
+     * @param data   内存数据（文件段为 null）
+     */
+    record Segment(long offset, long length, Path path, byte[] data) {
+    }
+
+    private final List<Segment> segments;
+    private int openSegment = -1;
+    private FileChannel channel;
+
+    SegmentReader(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * 从指定位置读满缓冲区剩余空间
+     */
+    void read(long position, ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            int index = findSegment(position);
+            if (index < 0) {
+                throw new IOException("Position out of range: " + position);
+            }
+            Segment segment = segments.get(index);
+            long inSegment = position - segment.offset();
+            int length = (int) Math.min(target.remaining(), segment.length() - inSegment);
+
+            if (segment.data() != null) {
+                target.put(segment.data(), (int) inSegment, length);
+            } else {
+                FileChannel fileChannel = channelFor(index);
+                int limit = target.limit();
+                target.limit(target.position() + length);
+                try {
+                    long filePosition = inSegment;
+                    while (target.hasRemaining()) {
+                        int read = fileChannel.read(target, filePosition);
+                        if (read < 0) {
+                            throw new IOException("File truncated: " + segment.path());
+                        }
+                        filePosition += read;
+                    }
+                } finally {
+                    target.limit(limit);
+                }
+            }
+            position += length;
+        }
+    }
+
+    private int findSegment(long position) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Segment segment = segments.get(mid);
+            if (position < segment.offset()) {
+                high = mid - 1;
+            } else if (position >= segment.offset() + segment.length()) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private FileChannel channelFor(int index) throws IOException {
+        if (index != openSegment) {
+            close();
+            channel = FileChannel.open(segments.get(index).path(), StandardOpenOption.READ);
+            openSegment = index;
+        }
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+        channel = null;
+        openSegment = -1;
+    }
+}
@@ -0,0 +1,273 @@
+package dev.cheng.dov.protocol.frame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Properties;
+
+/**
+ * 块排除掩码
+ * <p>
+ * 记录数据区中不放置数据的块行和块列（从 0 开始，相对数据区）。被排除的行、列上的块保持内容区底色，
+ * 数据按行依次填入其余的块，每帧容量相应减少。掩码只按整行、整列排除：逐块掩码在 START 帧里放不下，
+ * 而采集链路的损伤（画面边缘、叠加层、宏块边界）多沿行列分布。
+ * <p>
+ * 不可变。发送端在 IDLE / START 帧中携带掩码（见 {@link #write(ByteBuffer)}），
+ * 也可以通过 {@code dov.blockMask} 指定的共享文件加载（见 {@link #load(Path, LayoutProfile)}）。
+ */
+public final class BlockMask {
+
+    /**
+     * 不排除任何块
+     */
+    public static final BlockMask NONE = new BlockMask(new BitSet(), new BitSet());
+
+    private static final int MAX_INDEX = 0xFFFF;
+
+    private final BitSet excludedRows;
+    private final BitSet excludedCols;
+
+    public BlockMask(BitSet excludedRows, BitSet excludedCols) {
+        if (excludedRows.length() > MAX_INDEX || excludedCols.length() > MAX_INDEX) {
+            throw new IllegalArgumentException("Invalid block mask");
+        }
+        this.excludedRows = (BitSet) excludedRows.clone();
+        this.excludedCols = (BitSet) excludedCols.clone();
+    }
+
+    public boolean isEmpty() {
+        return excludedRows.isEmpty() && excludedCols.isEmpty();
+    }
+
+    public boolean isRowExcluded(int row) {
+        return excludedRows.get(row);
+    }
+
+    public boolean isColExcluded(int col) {
+        return excludedCols.get(col);
+    }
+
+    public int excludedRowCount() {
+        return excludedRows.cardinality();
+    }
+
+    public int excludedColCount() {
+        return excludedCols.cardinality();
+    }
+
+    /**
+     * 最大的被排除行号 + 1
+     */
+    int rowExtent() {
+        return excludedRows.length();
+    }
+
+    /**
+     * 最大的被排除列号 + 1
+     */
+    int colExtent() {
+        return excludedCols.length();
+    }
+
+    /**
+     * 未被排除的行号
+     *
+     * @param rows 数据区行数
+     */
+    int[] activeRows(int rows) {
+        return active(excludedRows, rows);
+    }
+
+    /**
+     * 未被排除的列号
+     *
+     * @param cols 数据区列数
+     */
+    int[] activeCols(int cols) {
+        return active(excludedCols, cols);
+    }
+
+    private static int[] active(BitSet excluded, int count) {
+        int[] result = new int[count - excluded.get(0, count).cardinality()];
+        for (int i = 0, index = 0; i < count; i++) {
+            if (!excluded.get(i)) {
+                result[index++] = i;
+            }
+        }
+        return result;
+    }
+
+    // === 帧内格式：行区间数、列区间数（各 2 字节），随后每个区间的起点和长度（各 2 字节）===
+
+    /**
+     * 序列化后的字节数
+     */
+    public int byteLength() {
+        return 4 + 4 * (rangeCount(excludedRows) + rangeCount(excludedCols));
+    }
+
+    /**
+     * 按区间写入
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putShort((short) rangeCount(excludedRows));
+        buffer.putShort((short) rangeCount(excludedCols));
+        writeRanges(buffer, excludedRows);
+        writeRanges(buffer, excludedCols);
+    }
+
+    /**
+     * 从当前位置读取
+     *
+     * @return 数据不足或区间无效时返回 null
+     */
+    public static BlockMask read(ByteBuffer buffer) {
+        try {
+            int rowRanges = Short.toUnsignedInt(buffer.getShort());
+            int colRanges = Short.toUnsignedInt(buffer.getShort());
+            BitSet rows = readRanges(buffer, rowRanges);
+            BitSet cols = readRanges(buffer, colRanges);
+            return rows == null || cols == null ? null : new BlockMask(rows, cols);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int rangeCount(BitSet bits) {
+        int count = 0;
+        for (int start = bits.nextSetBit(0); start >= 0; start = bits.nextSetBit(bits.nextClearBit(start))) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeRanges(ByteBuffer buffer, BitSet bits) {
+        for (int start = bits.nextSetBit(0); start >= 0; ) {
+            int end = bits.nextClearBit(start);
+            buffer.putShort((short) start);
+            buffer.putShort((short) (end - start));
+            start = bits.nextSetBit(end);
+        }
+    }
+
+    private static BitSet readRanges(ByteBuffer buffer, int count) {
+        BitSet bits = new BitSet();
+        for (int i = 0; i < count; i++) {
+            int start = Short.toUnsignedInt(buffer.getShort());
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (length == 0 || start + length > MAX_INDEX) {
+                return null;
+            }
+            bits.set(start, start + length);
+        }
+        return bits;
+    }
+
+    // === 共享文件：properties 格式，区间写作 a-b，以逗号分隔 ===
+
+    /**
+     * 保存为共享文件，同时记录数据区尺寸，加载时据此判断是否适用于本地布局
+     */
+    public void save(Path path, LayoutProfile profile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# dov 块排除掩码：数据区中不放置数据的块行、块列（从 0 开始，相对数据区）\n");
+            writer.write("# 布局 " + profile + "\n");
+            writer.write("dataRows=" + profile.dataRows() + "\n");
+            writer.write("dataCols=" + profile.dataCols() + "\n");
+            writer.write("excludedRows=" + formatRanges(excludedRows) + "\n");
+            writer.write("excludedCols=" + formatRanges(excludedCols) + "\n");
+        }
+    }
+
+    /**
+     * 加载共享文件
+     *
+     * @param profile 要应用掩码的布局，数据区尺寸须与文件记录的一致
+     * @throws IllegalArgumentException 文件内容无效或数据区尺寸不一致
+     */
+    public static BlockMask load(Path path, LayoutProfile profile) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        int rows;
+        int cols;
+        try {
+            rows = Integer.parseInt(properties.getProperty("dataRows", "").trim());
+            cols = Integer.parseInt(properties.getProperty("dataCols", "").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Missing data region size in block mask");
+        }
+        if (rows != profile.dataRows() || cols != profile.dataCols()) {
+            throw new IllegalArgumentException(String.format("Block mask is for %dx%d data blocks, layout has %dx%d",
+                    cols, rows, profile.dataCols(), profile.dataRows()));
+        }
+        return new BlockMask(parseRanges(properties.getProperty("excludedRows", "")),
+                parseRanges(properties.getProperty("excludedCols", "")));
+    }
+
+    private static String formatRanges(BitSet bits) {
+        StringBuilder builder = new StringBuilder();
+        for (int start = bits.nextSetBit(0); start >= 0; ) {
+            int end = bits.nextClearBit(start);
+            if (!builder.isEmpty()) {
+                builder.append(',');
+            }
+            builder.append(start);
+            if (end - start > 1) {
+                builder.append('-').append(end - 1);
+            }
+            start = bits.nextSetBit(end);
+        }
+        return builder.toString();
+    }
+
+    private static BitSet parseRanges(String text) {
+        BitSet bits = new BitSet();
+        for (String part : text.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            try {
+                int dash = range.indexOf('-');
+                int start = Integer.parseInt((dash < 0 ? range : range.substring(0, dash)).trim());
+                int end = dash < 0 ? start : Integer.parseInt(range.substring(dash + 1).trim());
+                if (start < 0 || end < start || end >= MAX_INDEX) {
+                    throw new IllegalArgumentException("Invalid block mask range: " + range);
+                }
+                bits.set(start, end + 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid block mask range: " + range);
+            }
+        }
+        return bits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BlockMask other)) {
+            return false;
+        }
+        return excludedRows.equals(other.excludedRows) && excludedCols.equals(other.excludedCols);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * excludedRows.hashCode() + excludedCols.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("排除行 %s 列 %s", formatRanges(excludedRows), formatRanges(excludedCols));
+    }
+}
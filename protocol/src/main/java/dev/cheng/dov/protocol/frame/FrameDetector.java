@@ -1,20 +1,39 @@
 package dev.cheng.dov.protocol.frame;
 
 import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.codec.LumaFrame;
 
 import java.awt.image.BufferedImage;
 
 /**
  * 帧检测器
  * <p>
- * 通过四角定位标检测有效帧并计算偏移量。
+ * 通过四角定位标检测有效帧并计算偏移量。检测在亮度平面上进行，
+ * 解码前已转换亮度平面的调用方应使用 {@link #detect(LumaFrame)}，避免重复转换。
  */
 public class FrameDetector {
 
+    private final FrameLayout layout;
+
+    public FrameDetector() {
+        this(new FrameLayout());
+    }
+
+    public FrameDetector(FrameLayout layout) {
+        this.layout = layout;
+    }
+
     /**
      * 检测帧并返回检测结果
      */
     public DetectionResult detect(BufferedImage image) {
+        return detect(LumaFrame.of(image));
+    }
+
+    /**
+     * 在亮度平面上检测帧并返回检测结果
+     */
+    public DetectionResult detect(LumaFrame image) {
         DetectionResult strict = detectWithThresholds(image,
                 Constants.CORNER_SEARCH_RANGE,
                 Constants.BLACK_THRESHOLD,
@@ -29,19 +48,11 @@ public class FrameDetector {
         return detectWithThresholds(image, expandedRange, relaxedBlack, relaxedWhite);
     }
 
-    private DetectionResult detectWithThresholds(BufferedImage image, int range, int blackThreshold, int whiteThreshold) {
-        int[] topLeft = FrameLayout.getTopLeftCorner();
-        int[] topRight = FrameLayout.getTopRightCorner();
-        int[] bottomLeft = FrameLayout.getBottomLeftCorner();
-        int[] bottomRight = FrameLayout.getBottomRightCorner();
-
+    private DetectionResult detectWithThresholds(LumaFrame image, int range, int blackThreshold, int whiteThreshold) {
         for (int dy = -range; dy <= range; dy++) {
             for (int dx = -range; dx <= range; dx++) {
-                if (checkCorner(image, topLeft[0] + dx, topLeft[1] + dy, true, blackThreshold, whiteThreshold)
-                        && checkCorner(image, topRight[0] + dx, topRight[1] + dy, false, blackThreshold, whiteThreshold)
-                        && checkCorner(image, bottomLeft[0] + dx, bottomLeft[1] + dy, false, blackThreshold, whiteThreshold)
-                        && checkCorner(image, bottomRight[0] + dx, bottomRight[1] + dy, true, blackThreshold, whiteThreshold)) {
-                    return new DetectionResult(true, dx, dy);
+                if (cornersMatch(image, dx, dy, blackThreshold, whiteThreshold)) {
+                    return refine(image, dx, dy, blackThreshold);
                 }
             }
         }
@@ -49,11 +60,131 @@ public class FrameDetector {
         return new DetectionResult(false, 0, 0);
     }
 
-    private boolean checkCorner(BufferedImage image, int cornerX, int cornerY, boolean expectBlack,
+    /**
+     * 角标只采样中心一半，真实偏移附近约 ±cornerSize/4 的范围都能通过检测，扫描得到的是这个范围的边缘。
+     * 左上角标（黑）外侧是灰色安全边距，沿角标中线由外向内找到第一个暗像素即为角标边缘，据此校正偏移；
+     * 小块布局下帧头解码才能在少量重试内命中。找不到边缘（无安全边距或画面裁切）时保留扫描结果
+     */
+    private DetectionResult refine(LumaFrame image, int dx, int dy, int blackThreshold) {
+        int[] topLeft = layout.getTopLeftCorner();
+        int half = layout.getProfile().cornerSize() / 2;
+        int edgeX = findEdge(image, true, topLeft[1] + dy + half, topLeft[0] + dx - half, topLeft[0] + dx + half,
+                blackThreshold);
+        int x = edgeX >= 0 ? edgeX - topLeft[0] : dx;
+        int edgeY = findEdge(image, false, topLeft[0] + x + half, topLeft[1] + dy - half, topLeft[1] + dy + half,
+                blackThreshold);
+        int y = edgeY >= 0 ? edgeY - topLeft[1] : dy;
+        return new DetectionResult(true, x, y);
+    }
+
+    /**
+     * 沿一行（或一列）查找由亮变暗的位置
+     *
+     * @return 第一个暗像素的坐标，未找到时返回 -1
+     */
+    private int findEdge(LumaFrame image, boolean horizontal, int fixed, int from, int to, int blackThreshold) {
+        int limit = horizontal ? image.getWidth() : image.getHeight();
+        int other = horizontal ? image.getHeight() : image.getWidth();
+        if (fixed < 0 || fixed >= other) {
+            return -1;
+        }
+        boolean bright = false;
+        for (int pos = Math.max(from, 0); pos <= to && pos < limit; pos++) {
+            int brightness = horizontal ? image.get(pos, fixed) : image.get(fixed, pos);
+            if (brightness < blackThreshold) {
+                if (bright) {
+                    return pos;
+                }
+            } else {
+                bright = true;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 定位四个角标中心（像素中心坐标，可为小数），供透视校正使用。
+     * 角标内侧与帧头、校验行相邻，边缘不可靠，因此从偏移后的角标中心沿中线向外找到角标最外侧像素，
+     * 再按角标尺寸推算中心；某个方向找不到边缘时使用按偏移平移的布局位置
+     *
+     * @return 依次为左上、右上、左下、右下角标中心的 x, y
+     */
+    public float[] locateCorners(LumaFrame image, int offsetX, int offsetY) {
+        int[][] corners = {
+                layout.getTopLeftCorner(),
+                layout.getTopRightCorner(),
+                layout.getBottomLeftCorner(),
+                layout.getBottomRightCorner()
+        };
+        int cornerSize = layout.getProfile().cornerSize();
+        float half = (cornerSize - 1) / 2f;
+        float[] centers = new float[8];
+        for (int i = 0; i < corners.length; i++) {
+            // 左上、右下为黑色，右上、左下为白色
+            boolean black = i == 0 || i == 3;
+            int stepX = i % 2 == 0 ? -1 : 1;
+            int stepY = i < 2 ? -1 : 1;
+            int x = corners[i][0] + offsetX;
+            int y = corners[i][1] + offsetY;
+
+            int edgeX = findOuterEdge(image, true, y + cornerSize / 2, x + cornerSize / 2, stepX, cornerSize, black);
+            float centerX = edgeX < 0 ? x + half : edgeX - stepX * half;
+            int edgeY = findOuterEdge(image, false, Math.round(centerX), y + cornerSize / 2, stepY, cornerSize, black);
+            float centerY = edgeY < 0 ? y + half : edgeY - stepY * half;
+            centers[i * 2] = centerX;
+            centers[i * 2 + 1] = centerY;
+        }
+        return centers;
+    }
+
+    /**
+     * 从角标内一点沿 step 方向移动，直到颜色不再是角标颜色或到达画面边缘
+     *
+     * @return 角标最外侧像素的坐标，起点不是角标颜色或 limit 步内未到边缘时返回 -1
+     */
+    private int findOuterEdge(LumaFrame image, boolean horizontal, int fixed, int start, int step, int limit,
+                              boolean black) {
+        int size = horizontal ? image.getWidth() : image.getHeight();
+        int other = horizontal ? image.getHeight() : image.getWidth();
+        if (fixed < 0 || fixed >= other || start < 0 || start >= size) {
+            return -1;
+        }
+        int pos = start;
+        if (!isCornerColor(image, horizontal, fixed, pos, black)) {
+            return -1;
+        }
+        for (int i = 0; i < limit; i++) {
+            int next = pos + step;
+            if (next < 0 || next >= size || !isCornerColor(image, horizontal, fixed, next, black)) {
+                return pos;
+            }
+            pos = next;
+        }
+        return -1;
+    }
+
+    private boolean isCornerColor(LumaFrame image, boolean horizontal, int fixed, int pos, boolean black) {
+        int brightness = horizontal ? image.get(pos, fixed) : image.get(fixed, pos);
+        return black ? brightness < Constants.BLACK_THRESHOLD : brightness > Constants.WHITE_THRESHOLD;
+    }
+
+    private boolean cornersMatch(LumaFrame image, int dx, int dy, int blackThreshold, int whiteThreshold) {
+        int[] topLeft = layout.getTopLeftCorner();
+        int[] topRight = layout.getTopRightCorner();
+        int[] bottomLeft = layout.getBottomLeftCorner();
+        int[] bottomRight = layout.getBottomRightCorner();
+        return checkCorner(image, topLeft[0] + dx, topLeft[1] + dy, true, blackThreshold, whiteThreshold)
+                && checkCorner(image, topRight[0] + dx, topRight[1] + dy, false, blackThreshold, whiteThreshold)
+                && checkCorner(image, bottomLeft[0] + dx, bottomLeft[1] + dy, false, blackThreshold, whiteThreshold)
+                && checkCorner(image, bottomRight[0] + dx, bottomRight[1] + dy, true, blackThreshold, whiteThreshold);
+    }
+
+    private boolean checkCorner(LumaFrame image, int cornerX, int cornerY, boolean expectBlack,
                                 int blackThreshold, int whiteThreshold) {
-        int sampleSize = Constants.CORNER_SIZE / 2;
-        int startX = cornerX + (Constants.CORNER_SIZE - sampleSize) / 2;
-        int startY = cornerY + (Constants.CORNER_SIZE - sampleSize) / 2;
+        int cornerSize = layout.getProfile().cornerSize();
+        int sampleSize = Math.max(cornerSize / 2, 1);
+        int startX = cornerX + (cornerSize - sampleSize) / 2;
+        int startY = cornerY + (cornerSize - sampleSize) / 2;
         int endX = startX + sampleSize;
         int endY = startY + sampleSize;
 
@@ -61,18 +192,8 @@ public class FrameDetector {
             return false;
         }
 
-        long sum = 0;
-        int count = 0;
-        for (int y = startY; y < endY; y++) {
-            for (int x = startX; x < endX; x++) {
-                int rgb = image.getRGB(x, y);
-                int brightness = ((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF);
-                sum += brightness / 3;
-                count++;
-            }
-        }
-
-        int avg = (int) (sum / Math.max(count, 1));
+        // 采样区只有 (cornerSize / 2)² 个像素，直接在亮度平面上求平均
+        int avg = image.blockAverage(startX, startY, sampleSize);
         if (expectBlack) {
             return avg < blackThreshold;
         }
@@ -3,33 +3,95 @@ package dev.cheng.dov.protocol.frame;
 import dev.cheng.dov.protocol.Constants;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
 
 /**
  * 帧头结构
  * <p>
- * 通用帧头格式 (10 字节):
+ * v2 帧头格式 (19 字节):
  * - 魔数 (2 bytes): 0x44 0x56 ("DV")
+ * - 版本 (1 byte): 0x80 | 版本号
+ * - 帧类型 (1 byte)
+ * - 标志 (1 byte)，保留给后续扩展，当前为 0
+ * - 会话 ID (4 bytes, big-endian)，发送端每次传输随机生成，0 表示不属于任何传输
+ * - 帧序号 (4 bytes, big-endian)
+ * - 数据长度 (4 bytes, big-endian)
+ * - 校验 (2 bytes): 前 17 字节 CRC32 的低 16 位
+ * <p>
+ * v1 帧头格式 (10 字节，仅解码):
+ * - 魔数 (2 bytes)
  * - 帧类型 (1 byte)
  * - 帧序号 (4 bytes, big-endian)
  * - 数据长度 (2 bytes, big-endian)
- * - 保留 (1 byte)
+ * - 保留 (1 byte)，为 0
+ * <p>
+ * v1 的帧类型码都小于 0x80，第 3 字节最高位区分两种格式。v1 帧头没有校验，v2 标记字节翻转一位就会被当作 v1，
+ * 因此只在 {@code dov.acceptV1Header} 开启时解码 v1，且要求保留字节为 0。
  */
 public class FrameHeader {
 
+    public static final int VERSION_1 = 1;
+    public static final int VERSION_2 = 2;
+    public static final int V1_SIZE_BYTES = 10;
+    public static final int V2_SIZE_BYTES = 19;
+
+    private static final int VERSION_MARKER = 0x80;
+
+    private final int version;
     private final FrameType frameType;
+    private final int flags;
+    private final int sessionId;
     private final int frameIndex;
     private final int dataLength;
 
     public FrameHeader(FrameType frameType, int frameIndex, int dataLength) {
+        this(frameType, 0, frameIndex, dataLength);
+    }
+
+    public FrameHeader(FrameType frameType, int sessionId, int frameIndex, int dataLength) {
+        this(VERSION_2, frameType, 0, sessionId, frameIndex, dataLength);
+    }
+
+    private FrameHeader(int version, FrameType frameType, int flags, int sessionId, int frameIndex, int dataLength) {
+        this.version = version;
         this.frameType = frameType;
+        this.flags = flags;
+        this.sessionId = sessionId;
         this.frameIndex = frameIndex;
         this.dataLength = dataLength;
     }
 
+    /**
+     * 生成新的会话 ID（非 0）
+     */
+    public static int newSessionId() {
+        int sessionId;
+        do {
+            sessionId = ThreadLocalRandom.current().nextInt();
+        } while (sessionId == 0);
+        return sessionId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
     public FrameType getFrameType() {
         return frameType;
     }
 
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * 会话 ID，v1 帧头和不属于传输的帧为 0
+     */
+    public int getSessionId() {
+        return sessionId;
+    }
+
     public int getFrameIndex() {
         return frameIndex;
     }
@@ -39,26 +101,40 @@ public class FrameHeader {
     }
 
     /**
-     * 序列化为字节数组
+     * 序列化为字节数组（v2）
      */
     public byte[] toBytes() {
-        ByteBuffer buffer = ByteBuffer.allocate(Constants.HEADER_SIZE_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(V2_SIZE_BYTES);
         buffer.put(Constants.MAGIC);
+        buffer.put((byte) (VERSION_MARKER | version));
         buffer.put(frameType.getCode());
+        buffer.put((byte) flags);
+        buffer.putInt(sessionId);
         buffer.putInt(frameIndex);
-        buffer.putShort((short) dataLength);
-        buffer.put((byte) 0);  // 保留字节
+        buffer.putInt(dataLength);
+        buffer.putShort(checksum(buffer.array()));
         return buffer.array();
     }
 
     /**
-     * 从字节数组反序列化
+     * 从字节数组反序列化，按 {@code dov.acceptV1Header} 决定是否兼容 v1
      *
-     * @param bytes 字节数组（至少 10 字节）
-     * @return FrameHeader 对象，如果魔数不匹配返回 null
+     * @param bytes 字节数组（v2 至少 19 字节，v1 至少 10 字节）
+     * @return FrameHeader 对象，魔数、版本、帧类型或校验不匹配时返回 null
      */
     public static FrameHeader fromBytes(byte[] bytes) {
-        if (bytes.length < Constants.HEADER_SIZE_BYTES) {
+        return fromBytes(bytes, Constants.ACCEPT_V1_HEADER);
+    }
+
+    /**
+     * 从字节数组反序列化
+     *
+     * @param bytes    字节数组（v2 至少 19 字节，v1 至少 10 字节）
+     * @param acceptV1 是否解码 v1 帧头，为 false 时 v1 帧头返回 null
+     * @return FrameHeader 对象，魔数、版本、帧类型或校验不匹配时返回 null
+     */
+    public static FrameHeader fromBytes(byte[] bytes, boolean acceptV1) {
+        if (bytes.length < V1_SIZE_BYTES) {
             return null;
         }
 
@@ -71,21 +147,56 @@ public class FrameHeader {
             return null;
         }
 
-        byte typeCode = buffer.get();
-        FrameType frameType = FrameType.fromCode(typeCode);
+        int marker = buffer.get() & 0xFF;
+        if ((marker & VERSION_MARKER) == 0) {
+            return acceptV1 ? fromV1(marker, buffer) : null;
+        }
+        if ((marker & ~VERSION_MARKER) != VERSION_2 || bytes.length < V2_SIZE_BYTES) {
+            return null;
+        }
+        if (ByteBuffer.wrap(bytes, V2_SIZE_BYTES - 2, 2).getShort() != checksum(bytes)) {
+            return null;
+        }
+
+        FrameType frameType = FrameType.fromCode(buffer.get());
+        if (frameType == null) {
+            return null;
+        }
+        int flags = buffer.get() & 0xFF;
+        int sessionId = buffer.getInt();
+        int frameIndex = buffer.getInt();
+        int dataLength = buffer.getInt();
+        if (dataLength < 0) {
+            return null;
+        }
+
+        return new FrameHeader(VERSION_2, frameType, flags, sessionId, frameIndex, dataLength);
+    }
+
+    private static FrameHeader fromV1(int typeCode, ByteBuffer buffer) {
+        FrameType frameType = FrameType.fromCode((byte) typeCode);
         if (frameType == null) {
             return null;
         }
 
         int frameIndex = buffer.getInt();
         int dataLength = buffer.getShort() & 0xFFFF;
+        if (buffer.get() != 0) {
+            return null;
+        }
+
+        return new FrameHeader(VERSION_1, frameType, 0, 0, frameIndex, dataLength);
+    }
 
-        return new FrameHeader(frameType, frameIndex, dataLength);
+    private static short checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, V2_SIZE_BYTES - 2);
+        return (short) crc.getValue();
     }
 
     @Override
     public String toString() {
-        return String.format("FrameHeader{type=%s, index=%d, length=%d}",
-                frameType, frameIndex, dataLength);
+        return String.format("FrameHeader{v%d, type=%s, session=%08x, index=%d, length=%d}",
+                version, frameType, sessionId, frameIndex, dataLength);
     }
 }
@@ -1,20 +1,38 @@
 package dev.cheng.dov.protocol.frame;
 
-import dev.cheng.dov.protocol.Constants;
-
 /**
- * 帧布局计算工具
+ * 帧布局计算
  * <p>
  * 帧结构：
- * - 安全边距 (16像素)
- * - 四角定位标 (32x32像素)
- * - 帧头区域 (3行块)
+ * - 安全边距
+ * - 四角定位标
+ * - 帧头区域
  * - 数据区域
- * - 校验区域 (2行块)
+ * - 校验区域
+ * <p>
+ * 各部分尺寸由 {@link LayoutProfile} 决定，每个配置对应一个实例。
+ * 配置带块排除掩码时，数据按行依次填入未被排除的行、列交叉处的块。
  */
 public class FrameLayout {
 
-    private FrameLayout() {
+    private final LayoutProfile profile;
+    // 未被掩码排除的数据行、列（相对数据区），不排除时为 null
+    private final int[] activeRows;
+    private final int[] activeCols;
+
+    public FrameLayout() {
+        this(LayoutProfile.DEFAULT);
+    }
+
+    public FrameLayout(LayoutProfile profile) {
+        this.profile = profile;
+        BlockMask mask = profile.mask();
+        this.activeRows = mask.excludedRowCount() > 0 ? mask.activeRows(profile.dataRows()) : null;
+        this.activeCols = mask.excludedColCount() > 0 ? mask.activeCols(profile.dataCols()) : null;
+    }
+
+    public LayoutProfile getProfile() {
+        return profile;
     }
 
     // === 角标位置（像素坐标）===
@@ -22,37 +40,37 @@ public class FrameLayout {
     /**
      * 获取左上角标的像素位置
      */
-    public static int[] getTopLeftCorner() {
-        return new int[]{Constants.SAFE_MARGIN, Constants.SAFE_MARGIN};
+    public int[] getTopLeftCorner() {
+        return new int[]{profile.safeMargin(), profile.safeMargin()};
     }
 
     /**
      * 获取右上角标的像素位置
      */
-    public static int[] getTopRightCorner() {
+    public int[] getTopRightCorner() {
         return new int[]{
-                Constants.FRAME_WIDTH - Constants.SAFE_MARGIN - Constants.CORNER_SIZE,
-                Constants.SAFE_MARGIN
+                profile.frameWidth() - profile.safeMargin() - profile.cornerSize(),
+                profile.safeMargin()
         };
     }
 
     /**
      * 获取左下角标的像素位置
      */
-    public static int[] getBottomLeftCorner() {
+    public int[] getBottomLeftCorner() {
         return new int[]{
-                Constants.SAFE_MARGIN,
-                Constants.FRAME_HEIGHT - Constants.SAFE_MARGIN - Constants.CORNER_SIZE
+                profile.safeMargin(),
+                profile.frameHeight() - profile.safeMargin() - profile.cornerSize()
         };
     }
 
     /**
      * 获取右下角标的像素位置
      */
-    public static int[] getBottomRightCorner() {
+    public int[] getBottomRightCorner() {
         return new int[]{
-                Constants.FRAME_WIDTH - Constants.SAFE_MARGIN - Constants.CORNER_SIZE,
-                Constants.FRAME_HEIGHT - Constants.SAFE_MARGIN - Constants.CORNER_SIZE
+                profile.frameWidth() - profile.safeMargin() - profile.cornerSize(),
+                profile.frameHeight() - profile.safeMargin() - profile.cornerSize()
         };
     }
 
@@ -61,50 +79,89 @@ public class FrameLayout {
     /**
      * 获取帧头区域起始块坐标（相对于内容区域）
      */
-    public static int getHeaderStartRow() {
-        return Constants.CORNER_BLOCKS;
+    public int getHeaderStartRow() {
+        return profile.headerStartRow();
     }
 
     /**
      * 获取帧头区域的行数
      */
-    public static int getHeaderRows() {
-        return Constants.HEADER_ROWS;
+    public int getHeaderRows() {
+        return profile.headerRows();
     }
 
     /**
      * 获取数据区域起始块行号
      */
-    public static int getDataStartRow() {
-        return Constants.DATA_START_ROW;
+    public int getDataStartRow() {
+        return profile.dataStartRow();
     }
 
     /**
      * 获取数据区域起始块列号（跳过左侧角标区域）
      */
-    public static int getDataStartCol() {
-        return Constants.CORNER_BLOCKS;
+    public int getDataStartCol() {
+        return profile.cornerBlocks();
     }
 
     /**
-     * 获取数据区域每行可用的块数
+     * 获取数据区域每行的块数（含被掩码排除的列）
      */
-    public static int getDataColsPerRow() {
-        return Constants.DATA_COLS;
+    public int getDataColsPerRow() {
+        return profile.dataCols();
     }
 
     /**
-     * 获取数据区域的总行数
+     * 获取数据区域的总行数（含被掩码排除的行）
      */
-    public static int getDataRows() {
-        return Constants.DATA_ROWS;
+    public int getDataRows() {
+        return profile.dataRows();
+    }
+
+    /**
+     * 获取放置数据的行号（相对数据区，升序）
+     *
+     * @return 没有行被排除时返回 null，表示全部行
+     */
+    public int[] getActiveDataRows() {
+        return activeRows;
+    }
+
+    /**
+     * 获取放置数据的列号（相对数据区，升序）
+     *
+     * @return 没有列被排除时返回 null，表示全部列
+     */
+    public int[] getActiveDataCols() {
+        return activeCols;
+    }
+
+    /**
+     * 获取校验区起始块行号（紧接数据区之后，宽度与数据区相同）
+     */
+    public int getChecksumStartRow() {
+        return profile.dataEndRow();
+    }
+
+    /**
+     * 获取数据区域可放置数据的块数（已扣除被掩码排除的块）
+     */
+    public int getDataBlocks() {
+        return profile.dataBlocksPerFrame();
     }
 
     /**
      * 获取每帧可承载的数据字节数
      */
-    public static int getPayloadCapacity() {
-        return Constants.DATA_BYTES_PER_FRAME;
+    public int getPayloadCapacity() {
+        return profile.dataBytesPerFrame();
+    }
+
+    /**
+     * 获取块边长（像素）
+     */
+    public int getBlockSize() {
+        return profile.blockSize();
     }
 
     /**
@@ -114,10 +171,10 @@ public class FrameLayout {
      * @param blockY 块的 Y 坐标
      * @return 像素坐标 [x, y]
      */
-    public static int[] blockToPixel(int blockX, int blockY) {
+    public int[] blockToPixel(int blockX, int blockY) {
         return new int[]{
-                Constants.CONTENT_START_X + blockX * Constants.BLOCK_SIZE,
-                Constants.CONTENT_START_Y + blockY * Constants.BLOCK_SIZE
+                profile.contentStartX() + blockX * profile.blockSize(),
+                profile.contentStartY() + blockY * profile.blockSize()
         };
     }
 
@@ -127,12 +184,18 @@ public class FrameLayout {
      * @param bitIndex 数据位索引
      * @return 块坐标 [blockX, blockY]（相对于内容区域）
      */
-    public static int[] dataBitIndexToBlock(int bitIndex) {
-        int row = bitIndex / Constants.DATA_COLS;
-        int col = bitIndex % Constants.DATA_COLS;
+    public int[] dataBitIndexToBlock(int bitIndex) {
+        int row = bitIndex / profile.usableDataCols();
+        int col = bitIndex % profile.usableDataCols();
+        if (activeRows != null) {
+            row = activeRows[row];
+        }
+        if (activeCols != null) {
+            col = activeCols[col];
+        }
         return new int[]{
-                Constants.CORNER_BLOCKS + col,
-                Constants.DATA_START_ROW + row
+                profile.cornerBlocks() + col,
+                profile.dataStartRow() + row
         };
     }
 
@@ -142,12 +205,12 @@ public class FrameLayout {
      * @param bitIndex 帧头位索引
      * @return 块坐标 [blockX, blockY]（相对于内容区域）
      */
-    public static int[] headerBitIndexToBlock(int bitIndex) {
-        int row = bitIndex / Constants.GRID_COLS;
-        int col = bitIndex % Constants.GRID_COLS;
+    public int[] headerBitIndexToBlock(int bitIndex) {
+        int row = bitIndex / profile.gridCols();
+        int col = bitIndex % profile.gridCols();
         return new int[]{
                 col,
-                Constants.HEADER_START_ROW + row
+                profile.headerStartRow() + row
         };
     }
 }
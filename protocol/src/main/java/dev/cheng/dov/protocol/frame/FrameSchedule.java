@@ -0,0 +1,163 @@
+package dev.cheng.dov.protocol.frame;
+
+import dev.cheng.dov.protocol.Constants;
+import dev.cheng.dov.protocol.file.FrameRanges;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 发送帧序列
+ * <p>
+ * 按 Hermes 的发送规则展开一次发送的全部帧（含重复）：START 帧、DATA 帧、EOF 帧。
+ * 完整发送时尾部帧和目录清单帧加重，补发时每帧按 RESEND_REPEAT 重复。
+ * 只生成帧类型和帧序号，图像由调用方按需编码。
+ */
+public class FrameSchedule implements Iterable<FrameSchedule.Slot> {
+
+    private final int totalFrames;
+    private final int manifestFrames;
+    private final FrameRanges resendFrames;
+
+    /**
+     * 帧序列中的一个位置
+     *
+     * @param type   帧类型
+     * @param index  DATA 帧序号，其他帧为 -1
+     * @param repeat 当前帧的第几次重复（从 1 开始）
+     */
+    public record Slot(FrameType type, int index, int repeat) {
+    }
+
+    private FrameSchedule(int totalFrames, int manifestFrames, FrameRanges resendFrames) {
+        this.totalFrames = totalFrames;
+        this.manifestFrames = manifestFrames;
+        this.resendFrames = resendFrames;
+    }
+
+    /**
+     * 完整发送
+     *
+     * @param totalFrames    总帧数
+     * @param manifestFrames 目录清单占用的帧数（非目录传输为 0）
+     */
+    public static FrameSchedule full(int totalFrames, int manifestFrames) {
+        return new FrameSchedule(totalFrames, manifestFrames, null);
+    }
+
+    /**
+     * 补发指定帧
+     */
+    public static FrameSchedule resend(int totalFrames, FrameRanges frames) {
+        return new FrameSchedule(totalFrames, 0, frames);
+    }
+
+    /**
+     * DATA 帧重复次数
+     *
+     * @param resend         是否为补发
+     * @param index          帧序号
+     * @param totalFrames    总帧数
+     * @param manifestFrames 目录清单占用的帧数
+     */
+    public static int dataRepeat(boolean resend, int index, int totalFrames, int manifestFrames) {
+        int repeat = Constants.DATA_REPEAT;
+        if (resend) {
+            return Math.max(repeat, Constants.RESEND_REPEAT);
+        }
+        int remainingFrames = totalFrames - index;
+        if (Constants.TAIL_FRAMES > 0 && remainingFrames <= Constants.TAIL_FRAMES) {
+            repeat = Math.max(repeat, Constants.TAIL_REPEAT);
+        }
+        // 清单帧丢失会导致后续内容帧无法落盘，与尾部帧同样加重
+        if (index < manifestFrames) {
+            repeat = Math.max(repeat, Constants.TAIL_REPEAT);
+        }
+        return repeat;
+    }
+
+    /**
+     * 序列中的帧总数（含重复）
+     */
+    public long size() {
+        long count = Constants.START_REPEAT + Constants.EOF_REPEAT;
+        if (resendFrames != null) {
+            return count + (long) resendFrames.size() * dataRepeat(true, 0, totalFrames, 0);
+        }
+        for (int i = 0; i < totalFrames; i++) {
+            count += dataRepeat(false, i, totalFrames, manifestFrames);
+        }
+        return count;
+    }
+
+    @Override
+    public Iterator<Slot> iterator() {
+        return new Iterator<>() {
+            private FrameType type = FrameType.START;
+            private int repeat;
+            // 完整发送时为帧序号，补发时为 resendFrames 中的位置（区间号, 区间内帧序号）
+            private int range;
+            private int index = firstIndex();
+
+            @Override
+            public boolean hasNext() {
+                return type != null;
+            }
+
+            @Override
+            public Slot next() {
+                if (type == null) {
+                    throw new NoSuchElementException();
+                }
+                repeat++;
+                Slot slot = new Slot(type, type == FrameType.DATA ? index : -1, repeat);
+                advance();
+                return slot;
+            }
+
+            private void advance() {
+                switch (type) {
+                    case START -> {
+                        if (repeat >= Constants.START_REPEAT) {
+                            repeat = 0;
+                            type = index >= 0 ? FrameType.DATA : FrameType.EOF;
+                        }
+                    }
+                    case DATA -> {
+                        if (repeat >= dataRepeat(resendFrames != null, index, totalFrames, manifestFrames)) {
+                            repeat = 0;
+                            index = nextIndex();
+                            if (index < 0) {
+                                type = FrameType.EOF;
+                            }
+                        }
+                    }
+                    case EOF -> {
+                        if (repeat >= Constants.EOF_REPEAT) {
+                            type = null;
+                        }
+                    }
+                    default -> type = null;
+                }
+            }
+
+            private int firstIndex() {
+                if (resendFrames == null) {
+                    return totalFrames > 0 ? 0 : -1;
+                }
+                return resendFrames.rangeCount() > 0 ? resendFrames.start(0) : -1;
+            }
+
+            private int nextIndex() {
+                if (resendFrames == null) {
+                    return index + 1 < totalFrames ? index + 1 : -1;
+                }
+                if (index + 1 < resendFrames.end(range)) {
+                    return index + 1;
+                }
+                range++;
+                return range < resendFrames.rangeCount() ? resendFrames.start(range) : -1;
+            }
+        };
+    }
+}
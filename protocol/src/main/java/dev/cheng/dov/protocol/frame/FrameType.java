@@ -8,7 +8,9 @@ public enum FrameType {
     IDLE((byte) 0x00, "空闲"),
     START((byte) 0x01, "开始"),
     DATA((byte) 0x02, "数据"),
-    EOF((byte) 0x03, "结束");
+    EOF((byte) 0x03, "结束"),
+    CALIBRATION((byte) 0x10, "校准"),
+    CALIBRATION_END((byte) 0x11, "校准结束");
 
     private final byte code;
     private final String description;
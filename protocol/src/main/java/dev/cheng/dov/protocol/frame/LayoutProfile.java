@@ -0,0 +1,276 @@
+package dev.cheng.dov.protocol.frame;
+
+import dev.cheng.dov.protocol.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * 帧布局配置
+ * <p>
+ * 一次传输会话使用的布局参数，不可变。发送端按自己的配置编码，并在 IDLE / START 帧中携带本配置；
+ * 这两种帧固定使用 {@link #beacon(int, int)} 布局编码，接收端无需事先知道发送端的配置即可解码并切换。
+ * 块排除掩码不计入 {@link #BYTES}，由 IDLE / START 帧另行携带。
+ *
+ * @param frameWidth   帧宽（像素）
+ * @param frameHeight  帧高（像素）
+ * @param blockSize    块边长（像素）
+ * @param safeMargin   安全边距（像素）
+ * @param cornerSize   角标大小（像素）
+ * @param headerRows   帧头行数
+ * @param checksumRows 校验区行数
+ * @param mask         数据区的块排除掩码
+ */
+public record LayoutProfile(int frameWidth, int frameHeight, int blockSize, int safeMargin, int cornerSize,
+                            int headerRows, int checksumRows, BlockMask mask) {
+
+    /**
+     * 序列化后的字节数
+     */
+    public static final int BYTES = 11;
+
+    /**
+     * 配置文件中的布局（含 dov.blockMask 指定的块排除掩码）。与 {@link Constants} 的参数校验一样，
+     * 掩码文件无法读取或与布局不符时直接失败，不静默退回不排除任何块的布局
+     */
+    public static final LayoutProfile DEFAULT = configured();
+
+    // 信标布局参数：与最初的默认配置相同，8 像素块对采集缩放和压缩足够稳健
+    private static final int BEACON_BLOCK_SIZE = 8;
+    private static final int BEACON_SAFE_MARGIN = 16;
+    private static final int BEACON_CORNER_SIZE = 32;
+    private static final int BEACON_HEADER_ROWS = 3;
+    private static final int BEACON_CHECKSUM_ROWS = 2;
+
+    public LayoutProfile {
+        if (frameWidth <= 0 || frameHeight <= 0 || frameWidth > 0xFFFF || frameHeight > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid frame size");
+        }
+        if (blockSize <= 0 || blockSize > 0xFF) {
+            throw new IllegalArgumentException("Invalid block size");
+        }
+        if (safeMargin < 0 || cornerSize <= 0 || safeMargin > 0xFFFF || cornerSize > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid layout parameters");
+        }
+        if (safeMargin % blockSize != 0 || cornerSize % blockSize != 0) {
+            throw new IllegalArgumentException("Margins must align with block size");
+        }
+        int contentWidth = frameWidth - 2 * safeMargin;
+        int contentHeight = frameHeight - 2 * safeMargin;
+        if (contentWidth <= 0 || contentHeight <= 0
+                || contentWidth % blockSize != 0
+                || contentHeight % blockSize != 0) {
+            throw new IllegalArgumentException("Content area must align with block size");
+        }
+        if (headerRows <= 0 || checksumRows < 0 || headerRows > 0xFF || checksumRows > 0xFF) {
+            throw new IllegalArgumentException("Invalid header/checksum rows");
+        }
+        if (headerRows * (contentWidth / blockSize) < Constants.HEADER_SIZE_BYTES * 8) {
+            throw new IllegalArgumentException("Header rows too small for frame header");
+        }
+        int gridRows = contentHeight / blockSize;
+        int cornerBlocks = cornerSize / blockSize;
+        int dataRows = gridRows - 2 * cornerBlocks - headerRows - checksumRows;
+        int dataCols = contentWidth / blockSize - 2 * cornerBlocks;
+        if (dataRows <= 0 || dataCols <= 0) {
+            throw new IllegalArgumentException("Invalid data region");
+        }
+        if (mask == null || mask.rowExtent() > dataRows || mask.colExtent() > dataCols
+                || mask.excludedRowCount() >= dataRows || mask.excludedColCount() >= dataCols) {
+            throw new IllegalArgumentException("Invalid block mask");
+        }
+    }
+
+    /**
+     * 不排除任何块的布局
+     */
+    public LayoutProfile(int frameWidth, int frameHeight, int blockSize, int safeMargin, int cornerSize,
+                         int headerRows, int checksumRows) {
+        this(frameWidth, frameHeight, blockSize, safeMargin, cornerSize, headerRows, checksumRows, BlockMask.NONE);
+    }
+
+    /**
+     * 按配置文件构建布局
+     *
+     * @throws IllegalArgumentException 配置了 dov.blockMask 但掩码文件无法读取或与数据区尺寸不符
+     */
+    private static LayoutProfile configured() {
+        LayoutProfile profile = new LayoutProfile(Constants.FRAME_WIDTH, Constants.FRAME_HEIGHT,
+                Constants.BLOCK_SIZE, Constants.SAFE_MARGIN, Constants.CORNER_SIZE,
+                Constants.HEADER_ROWS, Constants.CHECKSUM_ROWS);
+        if (Constants.BLOCK_MASK.isEmpty()) {
+            return profile;
+        }
+        try {
+            return profile.withMask(BlockMask.load(Path.of(Constants.BLOCK_MASK), profile));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid block mask " + Constants.BLOCK_MASK + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * IDLE / START 帧使用的固定布局，只由帧尺寸决定
+     */
+    public static LayoutProfile beacon(int frameWidth, int frameHeight) {
+        return new LayoutProfile(frameWidth, frameHeight, BEACON_BLOCK_SIZE, BEACON_SAFE_MARGIN,
+                BEACON_CORNER_SIZE, BEACON_HEADER_ROWS, BEACON_CHECKSUM_ROWS);
+    }
+
+    /**
+     * 改用另一块大小，边距和角标向上对齐到新的块大小。块大小改变时块行列随之改变，不保留掩码
+     */
+    public LayoutProfile withBlockSize(int newBlockSize) {
+        if (newBlockSize == blockSize) {
+            return this;
+        }
+        return new LayoutProfile(frameWidth, frameHeight, newBlockSize, alignUp(safeMargin, newBlockSize),
+                alignUp(cornerSize, newBlockSize), headerRows, checksumRows);
+    }
+
+    /**
+     * 改用另一块排除掩码
+     *
+     * @throws IllegalArgumentException 掩码超出数据区或排除了全部行、列
+     */
+    public LayoutProfile withMask(BlockMask newMask) {
+        return new LayoutProfile(frameWidth, frameHeight, blockSize, safeMargin, cornerSize,
+                headerRows, checksumRows, newMask);
+    }
+
+    /**
+     * 块分辨率布局：每块一个像素、无安全边距，块行列划分与本布局相同。
+     * 内容区按块缩放为每块一个像素的矩阵后，可直接按此布局在偏移 (0, 0) 处解码
+     */
+    public LayoutProfile blockGrid() {
+        return new LayoutProfile(gridCols(), gridRows(), 1, 0, cornerBlocks(), headerRows, checksumRows, mask);
+    }
+
+    // === 计算得出的布局参数 ===
+
+    public int contentStartX() {
+        return safeMargin;
+    }
+
+    public int contentStartY() {
+        return safeMargin;
+    }
+
+    public int contentWidth() {
+        return frameWidth - 2 * safeMargin;
+    }
+
+    public int contentHeight() {
+        return frameHeight - 2 * safeMargin;
+    }
+
+    public int gridCols() {
+        return contentWidth() / blockSize;
+    }
+
+    public int gridRows() {
+        return contentHeight() / blockSize;
+    }
+
+    public int cornerBlocks() {
+        return cornerSize / blockSize;
+    }
+
+    public int headerStartRow() {
+        return cornerBlocks();
+    }
+
+    public int dataStartRow() {
+        return headerStartRow() + headerRows;
+    }
+
+    public int dataEndRow() {
+        return gridRows() - cornerBlocks() - checksumRows;
+    }
+
+    public int dataRows() {
+        return dataEndRow() - dataStartRow();
+    }
+
+    public int dataCols() {
+        return gridCols() - 2 * cornerBlocks();
+    }
+
+    /**
+     * 未被掩码排除的数据行数
+     */
+    public int usableDataRows() {
+        return dataRows() - mask.excludedRowCount();
+    }
+
+    /**
+     * 未被掩码排除的数据列数
+     */
+    public int usableDataCols() {
+        return dataCols() - mask.excludedColCount();
+    }
+
+    /**
+     * 每帧可放置数据的块数（已扣除掩码排除的块）
+     */
+    public int dataBlocksPerFrame() {
+        return usableDataRows() * usableDataCols();
+    }
+
+    /**
+     * 每帧数据区容量（字节，含 CRC32）
+     */
+    public int dataBytesPerFrame() {
+        return dataBlocksPerFrame() / 8;
+    }
+
+    /**
+     * 序列化为 {@link #BYTES} 字节（不含掩码）
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        buffer.putShort((short) frameWidth);
+        buffer.putShort((short) frameHeight);
+        buffer.put((byte) blockSize);
+        buffer.putShort((short) safeMargin);
+        buffer.putShort((short) cornerSize);
+        buffer.put((byte) headerRows);
+        buffer.put((byte) checksumRows);
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组解析，得到的布局不排除任何块
+     *
+     * @return 数据不足或参数无效时返回 null
+     */
+    public static LayoutProfile fromBytes(byte[] data, int offset) {
+        if (data == null || offset < 0 || data.length - offset < BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, BYTES);
+        try {
+            return new LayoutProfile(
+                    Short.toUnsignedInt(buffer.getShort()),
+                    Short.toUnsignedInt(buffer.getShort()),
+                    Byte.toUnsignedInt(buffer.get()),
+                    Short.toUnsignedInt(buffer.getShort()),
+                    Short.toUnsignedInt(buffer.getShort()),
+                    Byte.toUnsignedInt(buffer.get()),
+                    Byte.toUnsignedInt(buffer.get()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int alignUp(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("%dx%d 块 %dpx 边距 %d 角标 %d 帧头 %d 行 校验 %d 行",
+                frameWidth, frameHeight, blockSize, safeMargin, cornerSize, headerRows, checksumRows);
+        return mask.isEmpty() ? text : text + " " + mask;
+    }
+}
@@ -0,0 +1,92 @@
+package dev.cheng.dov.protocol.stats;
+
+import java.util.Locale;
+
+/**
+ * 单行 JSON 输出
+ * <p>
+ * 命令行模式下每个事件输出一行 JSON 对象（JSON Lines），便于脚本逐行解析；字段按添加顺序输出。
+ */
+public final class JsonLine {
+
+    private final StringBuilder builder = new StringBuilder(128).append('{');
+    private boolean first = true;
+
+    /**
+     * @param event 事件名，输出为 "event" 字段
+     */
+    public JsonLine(String event) {
+        put("event", event);
+    }
+
+    public JsonLine put(String key, String value) {
+        appendKey(key);
+        if (value == null) {
+            builder.append("null");
+        } else {
+            appendString(value);
+        }
+        return this;
+    }
+
+    public JsonLine put(String key, long value) {
+        appendKey(key);
+        builder.append(value);
+        return this;
+    }
+
+    /**
+     * 浮点数保留 3 位小数，NaN / 无穷输出为 null
+     */
+    public JsonLine put(String key, double value) {
+        appendKey(key);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.append("null");
+        } else {
+            builder.append(String.format(Locale.ROOT, "%.3f", value));
+        }
+        return this;
+    }
+
+    public JsonLine put(String key, boolean value) {
+        appendKey(key);
+        builder.append(value);
+        return this;
+    }
+
+    private void appendKey(String key) {
+        if (!first) {
+            builder.append(',');
+        }
+        first = false;
+        appendString(key);
+        builder.append(':');
+    }
+
+    private void appendString(String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return builder + "}";
+    }
+}
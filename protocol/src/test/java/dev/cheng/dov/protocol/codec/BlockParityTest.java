@@ -0,0 +1,130 @@
+package dev.cheng.dov.protocol.codec;
+
+import dev.cheng.dov.protocol.frame.BlockMask;
+import dev.cheng.dov.protocol.frame.LayoutProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockParityTest {
+
+    private static final int COLS = 20;
+    private static final int ROWS = 10;
+    private static final int BITS = COLS * ROWS;
+
+    private static byte[] randomData(long seed) {
+        byte[] data = new byte[BITS / 8];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static Function<byte[], byte[]> matches(byte[] original) {
+        return raw -> Arrays.equals(raw, original) ? raw.clone() : null;
+    }
+
+    private static void flip(byte[] data, int row, int col) {
+        int bit = row * COLS + col;
+        data[bit >> 3] ^= (byte) (0x80 >>> (bit & 7));
+    }
+
+    @Test
+    void correctsSingleBlock() {
+        byte[] original = randomData(1);
+        byte[] parity = BlockParity.compute(original, BITS, COLS, ROWS);
+        byte[] raw = original.clone();
+        flip(raw, 3, 7);
+
+        BlockParity.Result result = BlockParity.correct(raw, BITS, parity, COLS, ROWS, matches(original));
+        assertArrayEquals(original, result.payload());
+        assertEquals(1, result.correctedBlocks());
+        assertArrayEquals(new int[]{3}, result.failedRows());
+        assertArrayEquals(new int[]{7}, result.failedCols());
+    }
+
+    @Test
+    void correctsTwoBlocksInEitherPairing() {
+        byte[] original = randomData(2);
+        byte[] parity = BlockParity.compute(original, BITS, COLS, ROWS);
+        byte[] raw = original.clone();
+        // 反对角的两块：第一种配对 (1,2)(6,15) 不对，需要尝试 (1,15)(6,2)
+        flip(raw, 1, 15);
+        flip(raw, 6, 2);
+
+        BlockParity.Result result = BlockParity.correct(raw, BITS, parity, COLS, ROWS, matches(original));
+        assertArrayEquals(original, result.payload());
+        assertEquals(2, result.correctedBlocks());
+    }
+
+    @Test
+    void reportsUncorrectableErrors() {
+        byte[] original = randomData(3);
+        byte[] parity = BlockParity.compute(original, BITS, COLS, ROWS);
+        byte[] raw = original.clone();
+        // 同一行内两个错误：行奇偶不变，只有两列不符
+        flip(raw, 4, 1);
+        flip(raw, 4, 9);
+        byte[] damaged = raw.clone();
+
+        BlockParity.Result result = BlockParity.correct(raw, BITS, parity, COLS, ROWS, matches(original));
+        assertNull(result.payload());
+        assertEquals(0, result.correctedBlocks());
+        assertArrayEquals(new int[0], result.failedRows());
+        assertArrayEquals(new int[]{1, 9}, result.failedCols());
+        assertArrayEquals(damaged, raw);
+    }
+
+    @Test
+    void widespreadMismatchMeansNoParity() {
+        byte[] original = randomData(4);
+        byte[] parity = BlockParity.compute(original, BITS, COLS, ROWS);
+        // 超过四分之一的行奇偶位不符：视为发送端未写校验区
+        for (int row = 0; row < 3; row++) {
+            int bit = COLS + row;
+            parity[bit >> 3] ^= (byte) (0x80 >>> (bit & 7));
+        }
+        byte[] raw = original.clone();
+        flip(raw, 5, 5);
+
+        BlockParity.Result result = BlockParity.correct(raw, BITS, parity, COLS, ROWS, matches(original));
+        assertNull(result.payload());
+        assertEquals(0, result.failedRows().length);
+        assertEquals(0, result.failedCols().length);
+    }
+
+    @Test
+    void partialLastRowIsPaddedWithZeros() {
+        int bitCount = BITS - 13;
+        byte[] data = randomData(5);
+        byte[] parity = BlockParity.compute(data, bitCount, COLS, ROWS);
+        byte[] cleared = data.clone();
+        for (int bit = bitCount; bit < BITS; bit++) {
+            cleared[bit >> 3] &= (byte) ~(0x80 >>> (bit & 7));
+        }
+
+        assertArrayEquals(parity, BlockParity.compute(cleared, bitCount, COLS, ROWS));
+    }
+
+    @Test
+    void fitsCountsOnlyUsableBlocks() {
+        LayoutProfile profile = new LayoutProfile(1920, 1080, 8, 16, 32, 3, 2);
+        assertTrue(BlockParity.fits(profile));
+        assertEquals(profile.dataCols() + profile.dataRows(), BlockParity.bitCount(profile));
+
+        LayoutProfile noChecksum = new LayoutProfile(1920, 1080, 8, 16, 32, 3, 0);
+        assertFalse(BlockParity.fits(noChecksum));
+
+        BitSet cols = new BitSet();
+        cols.set(0, 10);
+        LayoutProfile masked = profile.withMask(new BlockMask(new BitSet(), cols));
+        assertEquals(profile.dataCols() - 10 + profile.dataRows(), BlockParity.bitCount(masked));
+    }
+}
@@ -0,0 +1,130 @@
+package dev.cheng.dov.protocol.codec;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 向量内核与标量内核逐位一致：长度不是通道数的整数倍、数据紧贴数组末尾时同样如此。
+ * 运行时没有可用的向量实现时跳过。
+ */
+class LumaKernelsTest {
+
+    // 覆盖 512 位向量下 byte 通道数的两倍以上，含各种余数
+    private static final int MAX_LENGTH = 140;
+
+    private static LumaKernels scalar;
+    private static LumaKernels vector;
+
+    @BeforeAll
+    static void kernels() {
+        scalar = LumaKernels.scalar();
+        vector = LumaKernels.vector();
+    }
+
+    private static byte[] randomBytes(Random random, int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void packedToLuma() {
+        assumeTrue(vector != null, "向量实现不可用");
+        Random random = new Random(1);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            for (int srcOffset = 0; srcOffset < 3; srcOffset++) {
+                // 源数据紧贴数组末尾
+                int[] src = new int[srcOffset + length];
+                for (int i = 0; i < src.length; i++) {
+                    src[i] = random.nextInt();
+                }
+                byte[] expected = new byte[length + 1];
+                byte[] actual = new byte[length + 1];
+                scalar.packedToLuma(src, srcOffset, expected, 1, length);
+                vector.packedToLuma(src, srcOffset, actual, 1, length);
+                assertArrayEquals(expected, actual, "length=" + length + " srcOffset=" + srcOffset);
+            }
+        }
+    }
+
+    @Test
+    void interleavedToLuma() {
+        assumeTrue(vector != null, "向量实现不可用");
+        int[][] bandOffsets = {{0, 1, 2}, {2, 1, 0}, {3, 2, 1}, {1, 2, 3}};
+        Random random = new Random(2);
+        for (int pixelStride = 3; pixelStride <= 4; pixelStride++) {
+            for (int[] bands : bandOffsets) {
+                if (bands[0] >= pixelStride || bands[2] >= pixelStride) {
+                    continue;
+                }
+                for (int length = 0; length <= MAX_LENGTH; length++) {
+                    for (int srcOffset = 0; srcOffset < 5; srcOffset += 2) {
+                        for (int slack = 0; slack <= pixelStride; slack += pixelStride) {
+                            byte[] src = randomBytes(random, srcOffset + length * pixelStride + slack);
+                            byte[] expected = new byte[length];
+                            byte[] actual = new byte[length];
+                            scalar.interleavedToLuma(src, srcOffset, pixelStride, bands, expected, 0, length);
+                            vector.interleavedToLuma(src, srcOffset, pixelStride, bands, actual, 0, length);
+                            assertArrayEquals(expected, actual, "stride=" + pixelStride + " bands="
+                                    + Arrays.toString(bands) + " length=" + length
+                                    + " srcOffset=" + srcOffset + " slack=" + slack);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void blockRowSums() {
+        assumeTrue(vector != null, "向量实现不可用");
+        Random random = new Random(3);
+        for (int blockSize : new int[]{1, 2, 3, 4, 5, 6, 8, 12, 16}) {
+            for (int count = 0; count <= MAX_LENGTH / 2; count++) {
+                for (int left = 0; left < 3; left++) {
+                    // 块行从 left 列开始，最后一行紧贴数组末尾
+                    int stride = left + count * blockSize + 5;
+                    byte[] luma = randomBytes(random, stride * (blockSize - 1) + left + count * blockSize);
+                    int[] expected = new int[count];
+                    int[] actual = new int[count];
+                    scalar.blockRowSums(luma, left, stride, blockSize, count, expected);
+                    vector.blockRowSums(luma, left, stride, blockSize, count, actual);
+                    assertArrayEquals(expected, actual,
+                            "blockSize=" + blockSize + " count=" + count + " left=" + left);
+                }
+            }
+        }
+    }
+
+    @Test
+    void packBits() {
+        assumeTrue(vector != null, "向量实现不可用");
+        int threshold = 128;
+        Random random = new Random(4);
+        for (int count = 0; count <= MAX_LENGTH; count++) {
+            for (int bitOffset = 0; bitOffset < 16; bitOffset++) {
+                int[] sums = new int[count];
+                for (int i = 0; i < count; i++) {
+                    // 含恰好等于阈值的块
+                    sums[i] = threshold - 2 + random.nextInt(5);
+                }
+                // 目标数组只容纳所需的位；已有的位只会被置位，不会被清零
+                byte[] initial = randomBytes(random, (bitOffset + count + 7) / 8);
+                for (int i = 0; i < initial.length; i++) {
+                    initial[i] &= (byte) random.nextInt();
+                }
+                byte[] expected = initial.clone();
+                byte[] actual = initial.clone();
+                scalar.packBits(sums, count, threshold, expected, bitOffset);
+                vector.packBits(sums, count, threshold, actual, bitOffset);
+                assertArrayEquals(expected, actual, "count=" + count + " bitOffset=" + bitOffset);
+            }
+        }
+    }
+}
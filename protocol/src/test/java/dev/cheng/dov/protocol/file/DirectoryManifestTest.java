@@ -0,0 +1,102 @@
+package dev.cheng.dov.protocol.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectoryManifestTest {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private static byte[] sha(int seed) {
+        byte[] sha = new byte[32];
+        Arrays.fill(sha, (byte) seed);
+        return sha;
+    }
+
+    private static List<DirectoryManifest.Entry> entries() {
+        return List.of(
+                new DirectoryManifest.Entry("sub", true, 0, null, 0),
+                new DirectoryManifest.Entry("sub/a.txt", false, 100, sha(1), 0),
+                new DirectoryManifest.Entry("empty", false, 0, sha(2), 0),
+                new DirectoryManifest.Entry("b.bin", false, 30, null, 0));
+    }
+
+    @Test
+    void placesFilesAfterAlignedManifest() {
+        DirectoryManifest manifest = DirectoryManifest.of(entries(), CHUNK_SIZE);
+
+        // 4 + 每个条目 (1 + 2 + 路径 + 8 + 32)
+        assertEquals(4 + 46 + 52 + 48 + 48, manifest.getManifestLength());
+        assertEquals(CHUNK_SIZE * 4, manifest.getDataOffset());
+        List<DirectoryManifest.Entry> placed = manifest.getEntries();
+        assertEquals(manifest.getDataOffset(), placed.get(1).offset());
+        assertEquals(manifest.getDataOffset() + 100, placed.get(3).offset());
+        assertEquals(manifest.getDataOffset() + 130, manifest.getStreamSize());
+    }
+
+    @Test
+    void findEntrySkipsDirectoriesAndEmptyFiles() {
+        DirectoryManifest manifest = DirectoryManifest.of(entries(), CHUNK_SIZE);
+        long data = manifest.getDataOffset();
+
+        assertEquals(1, manifest.findEntry(data));
+        assertEquals(1, manifest.findEntry(data + 99));
+        assertEquals(3, manifest.findEntry(data + 100));
+        assertEquals(3, manifest.findEntry(data + 129));
+        assertEquals(-1, manifest.findEntry(data + 130));
+        assertEquals(-1, manifest.findEntry(0));
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        DirectoryManifest manifest = DirectoryManifest.of(entries(), CHUNK_SIZE);
+        DirectoryManifest parsed = DirectoryManifest.fromBytes(manifest.toBytes(), CHUNK_SIZE);
+
+        assertEquals(manifest.getStreamSize(), parsed.getStreamSize());
+        assertEquals(manifest.getDataOffset(), parsed.getDataOffset());
+        for (int i = 0; i < manifest.getEntries().size(); i++) {
+            DirectoryManifest.Entry expected = manifest.getEntries().get(i);
+            DirectoryManifest.Entry actual = parsed.getEntries().get(i);
+            assertEquals(expected.path(), actual.path());
+            assertEquals(expected.directory(), actual.directory());
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.offset(), actual.offset());
+        }
+        assertArrayEquals(sha(1), parsed.getEntries().get(1).sha256());
+    }
+
+    @Test
+    void missingDigestIsEncodedAsZeros() throws IOException {
+        DirectoryManifest manifest = DirectoryManifest.of(entries(), CHUNK_SIZE);
+        DirectoryManifest parsed = DirectoryManifest.fromBytes(manifest.toBytes(), CHUNK_SIZE);
+
+        assertTrue(parsed.getEntries().get(1).hasSha256());
+        assertFalse(parsed.getEntries().get(3).hasSha256());
+        assertArrayEquals(new byte[32], parsed.getEntries().get(3).sha256());
+    }
+
+    @Test
+    void truncatedManifestIsRejected() {
+        byte[] bytes = DirectoryManifest.of(entries(), CHUNK_SIZE).toBytes();
+
+        assertThrows(IOException.class,
+                () -> DirectoryManifest.fromBytes(Arrays.copyOf(bytes, bytes.length - 1), CHUNK_SIZE));
+    }
+
+    @Test
+    void invalidEntryTypeIsRejected() {
+        byte[] bytes = DirectoryManifest.of(entries(), CHUNK_SIZE).toBytes();
+        bytes[4] = 7;
+
+        assertThrows(IOException.class, () -> DirectoryManifest.fromBytes(bytes, CHUNK_SIZE));
+    }
+}
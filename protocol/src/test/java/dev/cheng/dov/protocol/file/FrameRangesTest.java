@@ -0,0 +1,54 @@
+package dev.cheng.dov.protocol.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameRangesTest {
+
+    @Test
+    void parsesIndicesAndRanges() {
+        FrameRanges ranges = FrameRanges.parse("0,3, 5-7;8 12", 20);
+
+        assertEquals(4, ranges.rangeCount());
+        assertEquals(List.of(0, 3, 5, 6, 7, 8, 12), ranges.toList());
+        assertEquals(7, ranges.size());
+        assertEquals("0, 3, 5-8, 12", ranges.format(10));
+    }
+
+    @Test
+    void mergesOverlapsAndReversedRanges() {
+        FrameRanges ranges = FrameRanges.parse("7-5,6,4", 10);
+
+        assertEquals(1, ranges.rangeCount());
+        assertEquals(4, ranges.start(0));
+        assertEquals(8, ranges.end(0));
+    }
+
+    @Test
+    void clampsToFrameCountAndIgnoresGarbage() {
+        FrameRanges ranges = FrameRanges.parse("-3, x, 8-15, 99, 2-", 10);
+
+        assertEquals(List.of(8, 9), ranges.toList());
+    }
+
+    @Test
+    void emptyInput() {
+        assertSame(FrameRanges.EMPTY, FrameRanges.parse("  ", 10));
+        assertSame(FrameRanges.EMPTY, FrameRanges.parse("1", 0));
+        assertTrue(FrameRanges.EMPTY.isEmpty());
+        assertEquals("-", FrameRanges.EMPTY.format(5));
+    }
+
+    @Test
+    void formatTruncatesRanges() {
+        FrameRanges ranges = FrameRanges.parse("1,3,5,7", 10);
+
+        assertEquals("1, 3 ...", ranges.format(2));
+        assertEquals("1, 3, 5, 7", ranges.toString());
+    }
+}
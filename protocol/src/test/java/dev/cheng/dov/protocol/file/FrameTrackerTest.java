@@ -0,0 +1,89 @@
+package dev.cheng.dov.protocol.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameTrackerTest {
+
+    @Test
+    void framesSkippedOverAreMissing() {
+        FrameTracker tracker = new FrameTracker(10);
+
+        assertFalse(tracker.markReceived(0));
+        assertTrue(tracker.markReceived(4));
+        assertEquals(3, tracker.getMissingCount());
+        assertEquals(List.of(1, 2, 3), tracker.missingRanges().toList());
+
+        // 补到缺口中的帧
+        assertTrue(tracker.markReceived(2));
+        assertEquals(2, tracker.getMissingCount());
+        assertEquals("1, 3", tracker.missingRanges().toString());
+    }
+
+    @Test
+    void duplicatesAndOutOfRangeAreIgnored() {
+        FrameTracker tracker = new FrameTracker(4);
+
+        tracker.markReceived(1);
+        assertFalse(tracker.markReceived(1));
+        assertFalse(tracker.markReceived(-1));
+        assertFalse(tracker.markReceived(4));
+        assertEquals(1, tracker.getReceivedCount());
+    }
+
+    @Test
+    void eofMarksTrailingFramesMissing() {
+        FrameTracker tracker = new FrameTracker(6);
+        tracker.markReceived(0);
+        tracker.markReceived(1);
+
+        assertTrue(tracker.markAllSeen());
+        assertEquals(List.of(2, 3, 4, 5), tracker.missingRanges().toList());
+        assertFalse(tracker.markAllSeen());
+
+        for (int i = 2; i < 6; i++) {
+            tracker.markReceived(i);
+        }
+        assertTrue(tracker.isComplete());
+        assertEquals(0, tracker.getMissingCount());
+        assertTrue(tracker.missingRanges().isEmpty());
+    }
+
+    @Test
+    void restoreDoesNotCountMissing() {
+        FrameTracker tracker = new FrameTracker(8);
+        BitSet saved = new BitSet();
+        saved.set(0, 3);
+        saved.set(6);
+        saved.set(20);
+
+        tracker.restore(saved);
+        assertEquals(4, tracker.getReceivedCount());
+        assertEquals(0, tracker.getMissingCount());
+        assertTrue(tracker.isReceived(6));
+
+        // 之后收到的帧照常推进扫过位置，已恢复的帧不计为丢失
+        tracker.markReceived(7);
+        assertEquals(List.of(3, 4, 5), tracker.missingRanges().toList());
+        assertEquals(3, tracker.getMissingCount());
+    }
+
+    @Test
+    void restoreFillsKnownGaps() {
+        FrameTracker tracker = new FrameTracker(5);
+        tracker.markReceived(4);
+        assertEquals(4, tracker.getMissingCount());
+
+        BitSet saved = new BitSet();
+        saved.set(1, 3);
+        tracker.restore(saved);
+        assertEquals(2, tracker.getMissingCount());
+        assertEquals("0, 3", tracker.missingRanges().toString());
+    }
+}
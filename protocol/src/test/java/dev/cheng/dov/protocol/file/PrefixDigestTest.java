@@ -0,0 +1,49 @@
+package dev.cheng.dov.protocol.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixDigestTest {
+
+    @Test
+    void acceptsOnlyTheNextFrame() {
+        PrefixDigest digest = new PrefixDigest(3);
+        byte[] chunk = {1, 2, 3};
+
+        assertFalse(digest.offer(1, chunk, chunk.length));
+        assertTrue(digest.offer(0, chunk, chunk.length));
+        assertFalse(digest.offer(0, chunk, chunk.length));
+        assertEquals(1, digest.getNextIndex());
+        assertFalse(digest.isComplete());
+        assertNull(digest.digest());
+    }
+
+    @Test
+    void matchesWholeFileDigest() throws Exception {
+        byte[] file = new byte[2500];
+        new Random(1).nextBytes(file);
+        int chunkSize = 1000;
+        PrefixDigest digest = new PrefixDigest(3);
+        for (int i = 0; i < 3; i++) {
+            int length = Math.min(chunkSize, file.length - i * chunkSize);
+            byte[] chunk = new byte[chunkSize];
+            System.arraycopy(file, i * chunkSize, chunk, 0, length);
+            assertTrue(digest.offer(i, chunk, length));
+        }
+
+        assertTrue(digest.isComplete());
+        assertFalse(digest.offer(3, new byte[1], 1));
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(file);
+        assertArrayEquals(expected, digest.digest());
+        // 重复获取返回同一结果
+        assertArrayEquals(expected, digest.digest());
+    }
+}
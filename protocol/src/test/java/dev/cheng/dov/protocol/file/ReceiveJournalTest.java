@@ -0,0 +1,99 @@
+package dev.cheng.dov.protocol.file;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiveJournalTest {
+
+    private static final long FILE_SIZE = 10_000;
+    private static final int TOTAL_FRAMES = 13;
+    private static final int CHUNK_SIZE = 800;
+
+    @TempDir
+    Path dir;
+
+    private Path partFile;
+
+    @BeforeEach
+    void createPartFile() throws IOException {
+        partFile = dir.resolve("data.bin.part");
+        Files.write(partFile, new byte[(int) FILE_SIZE]);
+    }
+
+    private ReceiveJournal journal(String name, byte[] sha256) {
+        return new ReceiveJournal(partFile, name, FILE_SIZE, TOTAL_FRAMES, CHUNK_SIZE, 0, sha256);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        BitSet received = new BitSet();
+        received.set(0, 4);
+        received.set(12);
+        journal("data.bin", null).save(received);
+
+        assertEquals(received, journal("data.bin", null).load());
+    }
+
+    @Test
+    void missingJournal() {
+        assertNull(journal("data.bin", null).load());
+    }
+
+    @Test
+    void differentTransferIsRejectedAndDeleted() throws IOException {
+        BitSet received = new BitSet();
+        received.set(1);
+        ReceiveJournal saved = journal("data.bin", null);
+        saved.save(received);
+
+        byte[] sha = new byte[32];
+        sha[0] = 1;
+        assertNull(journal("data.bin", sha).load());
+        assertFalse(Files.exists(saved.getJournalFile()));
+    }
+
+    @Test
+    void corruptedJournalIsRejected() throws IOException {
+        ReceiveJournal journal = journal("data.bin", null);
+        BitSet received = new BitSet();
+        received.set(5);
+        journal.save(received);
+
+        byte[] bytes = Files.readAllBytes(journal.getJournalFile());
+        bytes[bytes.length - 6] ^= 0x01;
+        Files.write(journal.getJournalFile(), bytes);
+        assertNull(journal.load());
+    }
+
+    @Test
+    void partFileSizeMustMatch() throws IOException {
+        ReceiveJournal journal = journal("data.bin", null);
+        BitSet received = new BitSet();
+        received.set(5);
+        journal.save(received);
+
+        Files.write(partFile, new byte[10]);
+        assertNull(journal.load());
+    }
+
+    @Test
+    void deleteRemovesJournal() throws IOException {
+        ReceiveJournal journal = journal("data.bin", null);
+        journal.save(new BitSet());
+        assertTrue(Files.exists(journal.getJournalFile()));
+
+        journal.delete();
+        assertFalse(Files.exists(journal.getJournalFile()));
+    }
+}
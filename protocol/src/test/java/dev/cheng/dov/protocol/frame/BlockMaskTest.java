@@ -0,0 +1,111 @@
+package dev.cheng.dov.protocol.frame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockMaskTest {
+
+    private static final LayoutProfile PROFILE = new LayoutProfile(1920, 1080, 8, 16, 32, 3, 2);
+
+    @TempDir
+    Path dir;
+
+    private static BlockMask mask() {
+        BitSet rows = new BitSet();
+        rows.set(2);
+        rows.set(10, 13);
+        BitSet cols = new BitSet();
+        cols.set(0, 4);
+        cols.set(50);
+        return new BlockMask(rows, cols);
+    }
+
+    @Test
+    void activeRowsAndColumns() {
+        BlockMask mask = mask();
+
+        assertEquals(4, mask.excludedRowCount());
+        assertEquals(5, mask.excludedColCount());
+        assertEquals(13, mask.rowExtent());
+        assertEquals(51, mask.colExtent());
+        assertArrayEquals(new int[]{0, 1, 3, 4, 5, 6, 7, 8, 9, 13}, mask.activeRows(14));
+        assertArrayEquals(new int[]{4, 5}, mask.activeCols(6));
+        assertTrue(BlockMask.NONE.isEmpty());
+        assertFalse(mask.isEmpty());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        BlockMask mask = mask();
+        ByteBuffer buffer = ByteBuffer.allocate(mask.byteLength());
+        mask.write(buffer);
+        assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        assertEquals(mask, BlockMask.read(buffer));
+        // 2 个行区间、2 个列区间
+        assertEquals(4 + 4 * 4, mask.byteLength());
+    }
+
+    @Test
+    void emptyMaskBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BlockMask.NONE.byteLength());
+        BlockMask.NONE.write(buffer);
+        buffer.flip();
+
+        assertEquals(BlockMask.NONE, BlockMask.read(buffer));
+    }
+
+    @Test
+    void invalidBytesAreRejected() {
+        ByteBuffer truncated = ByteBuffer.wrap(new byte[]{0, 1, 0, 0, 0, 2});
+        assertNull(BlockMask.read(truncated));
+
+        ByteBuffer emptyRange = ByteBuffer.wrap(new byte[]{0, 1, 0, 0, 0, 2, 0, 0});
+        assertNull(BlockMask.read(emptyRange));
+    }
+
+    @Test
+    void fileRoundTrip() throws IOException {
+        Path file = dir.resolve("mask.properties");
+        mask().save(file, PROFILE);
+
+        String text = Files.readString(file);
+        assertTrue(text.contains("excludedRows=2,10-12"));
+        assertTrue(text.contains("excludedCols=0-3,50"));
+        assertEquals(mask(), BlockMask.load(file, PROFILE));
+    }
+
+    @Test
+    void fileForAnotherLayoutIsRejected() throws IOException {
+        Path file = dir.resolve("mask.properties");
+        mask().save(file, PROFILE);
+
+        LayoutProfile other = PROFILE.withBlockSize(4);
+        assertThrows(IllegalArgumentException.class, () -> BlockMask.load(file, other));
+    }
+
+    @Test
+    void invalidRangesAreRejected() throws IOException {
+        Path file = dir.resolve("mask.properties");
+        Files.writeString(file, "dataRows=" + PROFILE.dataRows() + "\ndataCols=" + PROFILE.dataCols()
+                + "\nexcludedRows=5-3\n");
+        assertThrows(IllegalArgumentException.class, () -> BlockMask.load(file, PROFILE));
+
+        Files.writeString(file, "excludedRows=1\n");
+        assertThrows(IllegalArgumentException.class, () -> BlockMask.load(file, PROFILE));
+    }
+}
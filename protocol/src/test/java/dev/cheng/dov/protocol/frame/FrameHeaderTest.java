@@ -0,0 +1,92 @@
+package dev.cheng.dov.protocol.frame;
+
+import dev.cheng.dov.protocol.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FrameHeaderTest {
+
+    private static byte[] v1Bytes(FrameType type, int frameIndex, int dataLength, int reserved) {
+        ByteBuffer buffer = ByteBuffer.allocate(Constants.HEADER_SIZE_BYTES);
+        buffer.put(Constants.MAGIC);
+        buffer.put(type.getCode());
+        buffer.putInt(frameIndex);
+        buffer.putShort((short) dataLength);
+        buffer.put((byte) reserved);
+        return buffer.array();
+    }
+
+    @Test
+    void v2RoundTrip() {
+        FrameHeader header = new FrameHeader(FrameType.DATA, 0x12345678, 70_000, 1_000_000);
+        byte[] bytes = header.toBytes();
+        assertEquals(FrameHeader.V2_SIZE_BYTES, bytes.length);
+
+        FrameHeader parsed = FrameHeader.fromBytes(bytes, false);
+        assertNotNull(parsed);
+        assertEquals(FrameHeader.VERSION_2, parsed.getVersion());
+        assertEquals(FrameType.DATA, parsed.getFrameType());
+        assertEquals(0x12345678, parsed.getSessionId());
+        assertEquals(70_000, parsed.getFrameIndex());
+        assertEquals(1_000_000, parsed.getDataLength());
+    }
+
+    @Test
+    void v2ChecksumMismatchIsRejected() {
+        byte[] bytes = new FrameHeader(FrameType.DATA, 7, 3, 100).toBytes();
+        bytes[12] ^= 0x01;
+
+        assertNull(FrameHeader.fromBytes(bytes, true));
+    }
+
+    @Test
+    void flippedVersionMarkerIsNotReadAsV1() {
+        byte[] bytes = new FrameHeader(FrameType.DATA, 7, 3, 100).toBytes();
+        // 0x82 -> 0x02：最高位翻转后形如 v1 DATA 帧头
+        bytes[2] &= 0x7F;
+
+        assertNull(FrameHeader.fromBytes(bytes, false));
+
+        // 接受 v1 时，帧序号的最高字节落在 v1 的保留字节上，不为 0 时同样丢弃
+        byte[] largeIndex = new FrameHeader(FrameType.DATA, 7, 0x01000003, 100).toBytes();
+        largeIndex[2] &= 0x7F;
+        assertNull(FrameHeader.fromBytes(largeIndex, true));
+    }
+
+    @Test
+    void v1RequiresOptIn() {
+        byte[] bytes = v1Bytes(FrameType.DATA, 42, 1234, 0);
+
+        assertNull(FrameHeader.fromBytes(bytes, false));
+        FrameHeader parsed = FrameHeader.fromBytes(bytes, true);
+        assertNotNull(parsed);
+        assertEquals(FrameHeader.VERSION_1, parsed.getVersion());
+        assertEquals(FrameType.DATA, parsed.getFrameType());
+        assertEquals(0, parsed.getSessionId());
+        assertEquals(42, parsed.getFrameIndex());
+        assertEquals(1234, parsed.getDataLength());
+    }
+
+    @Test
+    void v1ReservedByteMustBeZero() {
+        assertNull(FrameHeader.fromBytes(v1Bytes(FrameType.START, 0, 60, 1), true));
+    }
+
+    @Test
+    void invalidBytesAreRejected() {
+        assertNull(FrameHeader.fromBytes(new byte[FrameHeader.V1_SIZE_BYTES - 1], true));
+
+        byte[] badMagic = new FrameHeader(FrameType.EOF, 7, 0, 40).toBytes();
+        badMagic[0] = 0;
+        assertNull(FrameHeader.fromBytes(badMagic, true));
+
+        byte[] badVersion = new FrameHeader(FrameType.EOF, 7, 0, 40).toBytes();
+        badVersion[2] = (byte) 0x83;
+        assertNull(FrameHeader.fromBytes(badVersion, true));
+    }
+}
@@ -0,0 +1,78 @@
+package dev.cheng.dov.protocol.frame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LayoutProfileTest {
+
+    private static final LayoutProfile PROFILE = new LayoutProfile(1920, 1080, 2, 8, 8, 3, 2);
+
+    @Test
+    void bytesRoundTrip() {
+        byte[] bytes = PROFILE.toBytes();
+        assertEquals(LayoutProfile.BYTES, bytes.length);
+        assertEquals(PROFILE, LayoutProfile.fromBytes(bytes, 0));
+
+        LayoutProfile uhd = new LayoutProfile(3840, 2160, 4, 16, 32, 3, 2);
+        byte[] padded = new byte[LayoutProfile.BYTES + 3];
+        System.arraycopy(uhd.toBytes(), 0, padded, 3, LayoutProfile.BYTES);
+        assertEquals(uhd, LayoutProfile.fromBytes(padded, 3));
+    }
+
+    @Test
+    void bytesDoNotCarryMask() {
+        BitSet rows = new BitSet();
+        rows.set(0);
+        LayoutProfile masked = PROFILE.withMask(new BlockMask(rows, new BitSet()));
+
+        assertEquals(PROFILE, LayoutProfile.fromBytes(masked.toBytes(), 0));
+    }
+
+    @Test
+    void invalidBytesAreRejected() {
+        assertNull(LayoutProfile.fromBytes(null, 0));
+        assertNull(LayoutProfile.fromBytes(new byte[LayoutProfile.BYTES - 1], 0));
+        assertNull(LayoutProfile.fromBytes(PROFILE.toBytes(), 1));
+        // 全 0：帧尺寸无效
+        assertNull(LayoutProfile.fromBytes(new byte[LayoutProfile.BYTES], 0));
+
+        byte[] misaligned = PROFILE.toBytes();
+        misaligned[4] = 3;
+        assertNull(LayoutProfile.fromBytes(misaligned, 0));
+    }
+
+    @Test
+    void maskReducesCapacity() {
+        BitSet rows = new BitSet();
+        rows.set(1, 3);
+        BitSet cols = new BitSet();
+        cols.set(7);
+        LayoutProfile masked = PROFILE.withMask(new BlockMask(rows, cols));
+
+        assertEquals(PROFILE.dataRows() - 2, masked.usableDataRows());
+        assertEquals(PROFILE.dataCols() - 1, masked.usableDataCols());
+        assertEquals((PROFILE.dataRows() - 2) * (PROFILE.dataCols() - 1), masked.dataBlocksPerFrame());
+        assertEquals(masked.mask(), masked.blockGrid().mask());
+        assertEquals(BlockMask.NONE, masked.withBlockSize(4).mask());
+        assertSame(masked, masked.withBlockSize(2));
+    }
+
+    @Test
+    void maskMustFitDataRegion() {
+        BitSet outside = new BitSet();
+        outside.set(PROFILE.dataRows());
+        assertThrows(IllegalArgumentException.class,
+                () -> PROFILE.withMask(new BlockMask(outside, new BitSet())));
+
+        BitSet all = new BitSet();
+        all.set(0, PROFILE.dataCols());
+        assertThrows(IllegalArgumentException.class,
+                () -> PROFILE.withMask(new BlockMask(new BitSet(), all)));
+    }
+}
@@ -0,0 +1,61 @@
+package dev.cheng.dov.protocol.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    @Test
+    void bucketsCoverValuesWithinRelativeError() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = Histogram.bucketIndex(value);
+            long upper = Histogram.bucketUpperBound(index);
+            assertTrue(upper >= value, "upper bound below value " + value);
+            // 子桶宽度不超过数值的 1/8
+            assertTrue(upper - value <= value / 8, "bucket too wide for " + value);
+            if (index > 0) {
+                assertTrue(Histogram.bucketUpperBound(index - 1) < value, "previous bucket contains " + value);
+            }
+        }
+    }
+
+    @Test
+    void snapshotPercentiles() {
+        Histogram histogram = new Histogram("test");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals("test", snapshot.name());
+        assertEquals(101, snapshot.count());
+        assertEquals(100_000, snapshot.max());
+        assertEquals(5050_000 / 101.0, snapshot.mean(), 1e-9);
+        assertWithin(50_000, snapshot.p50());
+        assertWithin(90_000, snapshot.p90());
+        assertWithin(99_000, snapshot.p99());
+        assertTrue(snapshot.p99() <= snapshot.max());
+    }
+
+    @Test
+    void resetClearsEverything() {
+        Histogram histogram = new Histogram("test");
+        histogram.record(42);
+        histogram.reset();
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.max());
+        assertEquals(0, snapshot.p50());
+        assertEquals(0.0, snapshot.mean());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / 8,
+                "expected about " + expected + " but was " + actual);
+    }
+}